@@ -0,0 +1,162 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/** Runs one Brandes search from every vertex of a CompactGraph and collects closeness and
+ betweenness in the same pass, either on the calling thread or split across a ForkJoinPool.
+ The sources are cut into blocks whose size only depends on the number of vertices. Each block
+ sums into its own betweenness accumulator, and the accumulators are merged pairwise along the
+ same split tree in both modes. The order of every floating point addition is therefore fixed,
+ and the parallel results are identical to the sequential ones.
+ The search engines and the accumulators come from ScratchPools of the computation: a block
+ borrows an engine for as long as it runs, and the right accumulator of every merge is cleared
+ and given back. A computation therefore allocates an engine per thread and an accumulator per
+ thread and level of the split tree, not one of each per block.*/
+public class AllSourcesCentrality
+{
+    //the sources are split into about this many blocks, enough to keep a large pool busy
+    private static final int BLOCK_COUNT = 256;
+
+    private final CompactGraph<?> graph;
+    private final int blockSize;
+
+    public AllSourcesCentrality(CompactGraph<?> graph)
+    {
+        this.graph = graph;
+        blockSize = Math.max(1, (graph.getNumberOfVertices() + BLOCK_COUNT - 1) / BLOCK_COUNT);
+    } // end constructor
+
+    /** Computes closeness and betweenness on the calling thread.
+     @return the centrality values of every vertex */
+    public Result compute()
+    {
+        Result result = new Result(graph.getNumberOfVertices());
+        Instrumentation.Run run = Instrumentation.startRun("AllSourcesCentrality", graph, graph.getNumberOfVertices());
+        result.betweenness = new Pass(result.closeness, run).computeRange(0, graph.getNumberOfVertices());
+        if (run != null)
+            run.finish();
+        result.halveBetweenness();
+        return result;
+    } // end compute
+
+    /** Computes closeness and betweenness with the sources split across a pool.
+     @param pool the pool that runs the searches
+     @return the centrality values of every vertex, identical to compute() */
+    public Result compute(ForkJoinPool pool)
+    {
+        Result result = new Result(graph.getNumberOfVertices());
+        Instrumentation.Run run = Instrumentation.startRun("AllSourcesCentrality", graph, graph.getNumberOfVertices());
+        result.betweenness = pool.invoke(new SourceTask(new Pass(result.closeness, run), 0, graph.getNumberOfVertices()));
+        if (run != null)
+            run.finish();
+        result.halveBetweenness();
+        return result;
+    } // end compute
+
+    //The output and the scratch of one computation, shared by all of its blocks.
+    private class Pass
+    {
+        private final double[] closeness;
+        private final Instrumentation.Run run;
+        private final ScratchPool<BrandesBetweenness> engines = new ScratchPool<>(() -> new BrandesBetweenness(graph));
+        private final ScratchPool<double[]> accumulators = new ScratchPool<>(() -> new double[graph.getNumberOfVertices()]);
+
+        private Pass(double[] closeness, Instrumentation.Run run)
+        {
+            this.closeness = closeness;
+            this.run = run;
+        } // end constructor
+
+        //Sequential twin of SourceTask.compute, it must split and merge in exactly the same way.
+        private double[] computeRange(int first, int last)
+        {
+            if (last - first <= blockSize)
+                return computeBlock(first, last);
+            int middle = (first + last) >>> 1;
+            double[] left = computeRange(first, middle);
+            double[] right = computeRange(middle, last);
+            return merge(left, right);
+        } // end computeRange
+
+        private double[] computeBlock(int first, int last)
+        {
+            //null when nothing listens, so the searches below are the same either way
+            Instrumentation.Batch batch = (run == null) ? null : run.startBatch(first, last);
+            BrandesBetweenness engine = engines.take();
+            double[] betweenness = accumulators.take();//all zero, as merge gives them back
+            //each source belongs to exactly one block, so closeness needs no merging
+            for (int source = first; source < last; source++)
+                closeness[source] = engine.accumulate(source, betweenness);
+            engines.give(engine);
+            if (batch != null)
+                batch.finish();
+            return betweenness;
+        } // end computeBlock
+
+        private double[] merge(double[] left, double[] right)
+        {
+            for (int vertex = 0; vertex < left.length; vertex++)
+                left[vertex] += right[vertex];
+            Arrays.fill(right, 0);
+            accumulators.give(right);
+            return left;
+        } // end merge
+    } // end Pass
+
+    @SuppressWarnings("serial")
+    private class SourceTask extends RecursiveTask<double[]>
+    {
+        private final Pass pass;
+        private final int first;
+        private final int last;
+
+        private SourceTask(Pass pass, int first, int last)
+        {
+            this.pass = pass;
+            this.first = first;
+            this.last = last;
+        } // end constructor
+
+        protected double[] compute()
+        {
+            if (last - first <= blockSize)
+                return pass.computeBlock(first, last);
+            int middle = (first + last) >>> 1;
+            SourceTask left = new SourceTask(pass, first, middle);
+            left.fork();
+            double[] right = new SourceTask(pass, middle, last).compute();
+            return pass.merge(left.join(), right);
+        } // end compute
+    } // end SourceTask
+
+    /** The closeness and betweenness of every vertex, indexed by vertex id. */
+    public static class Result
+    {
+        private final double[] closeness;
+        private double[] betweenness;
+
+        private Result(int vertexCount)
+        {
+            closeness = new double[vertexCount];
+        } // end constructor
+
+        //every unordered pair was counted once from each of its ends
+        private void halveBetweenness()
+        {
+            for (int vertex = 0; vertex < betweenness.length; vertex++)
+                betweenness[vertex] /= 2;
+        } // end halveBetweenness
+
+        /** @return closeness values in sum(1/d) form, indexed by vertex id */
+        public double[] getCloseness()
+        {
+            return closeness;
+        } // end getCloseness
+
+        /** @return betweenness values, indexed by vertex id */
+        public double[] getBetweenness()
+        {
+            return betweenness;
+        } // end getBetweenness
+    } // end Result
+}
@@ -0,0 +1,257 @@
+import java.util.SplittableRandom;
+
+/** Estimates betweenness centrality by sampling vertex pairs instead of searching from every source
+ (Riondato and Kornaropoulos, "Fast approximation of betweenness centrality through sampling").
+ Each sample picks a random ordered pair (u,v), picks one of the shortest paths between them
+ uniformly at random and credits the interior vertices of that path. With
+ r = (c/eps^2)(floor(log2(VD-2)) + 1 + ln(1/delta)) samples, where VD bounds the number of
+ vertices on a shortest path, every normalized estimate is within eps of the exact value with
+ probability at least 1-delta. The number of samples does not depend on the size of the graph.
+ When a time budget is given, sampling stops as soon as it runs out, and the error bound that the
+ samples actually taken can guarantee is reported instead.
+ The number of samples is fixed before sampling starts. There is no progressive stopping rule
+ like that of ABRA or KADABRA, which check the samples taken so far and stop as soon as the
+ observed scores already meet eps, so this class always takes the full worst-case sample count,
+ even on a graph where far fewer samples would do. A caller that wants fewer samples has to ask
+ for a larger epsilon or give a time budget.*/
+public class ApproximateBetweenness<T>
+{
+    //the universal constant of the sample bound, 0.5 as suggested by Loffler and Phillips
+    private static final double SAMPLE_CONSTANT = 0.5;
+    //longer budgets are cut to this, about 106 days, so that the deadline in nanoseconds cannot overflow
+    private static final long MAX_BUDGET_MILLIS = Long.MAX_VALUE / 1_000_000 / 1000;
+
+    private final CompactGraph<T> graph;
+    private final SplittableRandom random;
+    private final TraversalContext context;
+    private final double[] sigma;//number of shortest paths from the sampled source
+
+    public ApproximateBetweenness(CompactGraph<T> graph, long seed)
+    {
+        this.graph = graph;
+        random = new SplittableRandom(seed);
+        context = new TraversalContext(graph.getNumberOfVertices());
+        sigma = new double[graph.getNumberOfVertices()];
+    } // end constructor
+
+    /** Estimates the betweenness of every vertex to a given accuracy.
+     @param epsilon the largest error allowed on a normalized score, greater than 0 and less than 1
+     @param delta the probability that some score misses the bound, between 0 and 1
+     @return the estimated scores and the accuracy they reach
+     @throws IllegalArgumentException if epsilon is 0 or less, which would sample forever */
+    public Result<T> estimate(double epsilon, double delta)
+    {
+        if (!(epsilon > 0))
+            throw new IllegalArgumentException("epsilon must be greater than 0 without a time budget: " + epsilon);
+        return estimate(epsilon, delta, Long.MAX_VALUE);
+    } // end estimate
+
+    /** Estimates the betweenness of every vertex, taking as many samples as a time budget allows.
+     The name differs from estimate(epsilon, delta) so that a call with two literals cannot pick
+     the wrong method.
+     @param delta the probability that some score misses the reported bound, between 0 and 1
+     @param timeBudgetMillis the time after which sampling stops, positive
+     @return the estimated scores and the accuracy they reach */
+    public Result<T> estimateWithin(double delta, long timeBudgetMillis)
+    {
+        if (timeBudgetMillis <= 0)
+            throw new IllegalArgumentException("The time budget must be positive: " + timeBudgetMillis);
+        return estimate(0, delta, timeBudgetMillis);
+    } // end estimateWithin
+
+    /** Estimates the betweenness of every vertex, stopping at whichever comes first: the number of
+     samples needed for epsilon, or the end of the time budget.
+     @param epsilon the largest error allowed on a normalized score, or 0 to rely on the budget only
+     @param delta the probability that some score misses the bound, between 0 and 1
+     @param timeBudgetMillis the time after which sampling stops, or Long.MAX_VALUE for no limit
+     @return the estimated scores and the accuracy they reach */
+    public Result<T> estimate(double epsilon, double delta, long timeBudgetMillis)
+    {
+        if (!(epsilon >= 0) || (epsilon >= 1) || !(delta > 0) || (delta >= 1))
+            throw new IllegalArgumentException("epsilon must be in [0,1) and delta in (0,1)");
+        if ((epsilon == 0) && (timeBudgetMillis == Long.MAX_VALUE))
+            throw new IllegalArgumentException("epsilon 0 needs a time budget");
+        long start = System.nanoTime();
+        int vertexCount = graph.getNumberOfVertices();
+        double[] scores = new double[vertexCount];
+        if (vertexCount < 3)//no pair of vertices can have an interior vertex
+            return new Result<>(graph, scores, 0, 0, delta);
+
+        double dimension = Math.floor(log2(Math.max(1, getVertexDiameterBound() - 2))) + 1 + Math.log(1 / delta);
+        long sampleLimit = (epsilon == 0) ? Long.MAX_VALUE
+                                          : (long)Math.ceil(SAMPLE_CONSTANT / (epsilon * epsilon) * dimension);
+        boolean timed = timeBudgetMillis != Long.MAX_VALUE;
+        //nanoTime may be negative and wrap, so the deadline is only ever compared by difference
+        long deadline = start + Math.min(Math.max(timeBudgetMillis, 0), MAX_BUDGET_MILLIS) * 1_000_000;
+        long samples = 0;
+        do
+        { // the clock is only read every 64 samples
+            samplePath(scores);
+            samples++;
+        } while ((samples < sampleLimit) && (!timed || ((samples & 63) != 0) || (System.nanoTime() - deadline < 0)));
+
+        //each sample is worth 1/samples of the normalized score; scale back to the pair counts
+        //that BrandesBetweenness reports
+        double pairCount = (double)vertexCount * (vertexCount - 1) / 2;
+        for (int vertex = 0; vertex < vertexCount; vertex++)
+            scores[vertex] = scores[vertex] / samples * pairCount;
+        double achievedEpsilon = Math.sqrt(SAMPLE_CONSTANT * dimension / samples);
+        return new Result<>(graph, scores, samples, achievedEpsilon, delta);
+    } // end estimate
+
+    //Samples one ordered pair and one of its shortest paths, and counts the interior vertices.
+    private void samplePath(double[] scores)
+    {
+        int vertexCount = graph.getNumberOfVertices();
+        int source = random.nextInt(vertexCount);
+        int target = random.nextInt(vertexCount - 1);
+        if (target >= source)
+            target++;
+        if (!countPaths(source, target))
+            return;//the pair is disconnected, its sample counts for nobody
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+        int vertex = target;
+        while (context.getDistance(vertex) > 1)
+        {
+            //step back to a predecessor with probability proportional to its share of the paths
+            double pick = random.nextDouble() * sigma[vertex];
+            int previousDistance = context.getDistance(vertex) - 1;
+            int predecessor = -1;
+            for (int i = offsets[vertex]; (i < offsets[vertex + 1]) && (pick >= 0); i++)
+            {
+                int neighbor = targets[i];
+                if (context.isVisited(neighbor) && (context.getDistance(neighbor) == previousDistance))
+                {
+                    predecessor = neighbor;
+                    pick -= sigma[neighbor];
+                } // end if
+            } // end for
+            vertex = predecessor;
+            scores[vertex] += 1;
+        } // end while
+    } // end samplePath
+
+    /* Path counting breadth first search from source that stops once the number of shortest paths
+     to target is final, which happens as soon as the level before target has been expanded.
+     Returns false if target cannot be reached.*/
+    private boolean countPaths(int source, int target)
+    {
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+        context.reset(graph.getNumberOfVertices());
+        context.visit(source, 0, -1);
+        sigma[source] = 1;
+        while (context.hasQueued())
+        {
+            int vertex = context.dequeue();
+            if (context.isVisited(target) && (context.getDistance(vertex) >= context.getDistance(target)))
+                return true;
+            int nextDistance = context.getDistance(vertex) + 1;
+            for (int i = offsets[vertex]; i < offsets[vertex + 1]; i++)
+            {
+                int neighbor = targets[i];
+                if (!context.isVisited(neighbor))
+                {
+                    context.visit(neighbor, nextDistance, vertex);
+                    sigma[neighbor] = 0;
+                } // end if
+                if (context.getDistance(neighbor) == nextDistance)
+                    sigma[neighbor] += sigma[vertex];
+            } // end for
+        } // end while
+        return context.isVisited(target);
+    } // end countPaths
+
+    /* Upper bound on the number of vertices on any shortest path. In each component, a search from
+     one vertex with eccentricity e bounds every distance by 2e, so paths have at most 2e+1 vertices.*/
+    private int getVertexDiameterBound()
+    {
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+        boolean[] seen = new boolean[graph.getNumberOfVertices()];
+        int bound = 1;
+        for (int origin = 0; origin < seen.length; origin++)
+        {
+            if (seen[origin])
+                continue;
+            context.reset(seen.length);
+            context.visit(origin, 0, -1);
+            seen[origin] = true;
+            int eccentricity = 0;
+            while (context.hasQueued())
+            {
+                int vertex = context.dequeue();
+                eccentricity = context.getDistance(vertex);
+                for (int i = offsets[vertex]; i < offsets[vertex + 1]; i++)
+                {
+                    int neighbor = targets[i];
+                    if (!context.isVisited(neighbor))
+                    {
+                        context.visit(neighbor, eccentricity + 1, vertex);
+                        seen[neighbor] = true;
+                    } // end if
+                } // end for
+            } // end while
+            bound = Math.max(bound, 2 * eccentricity + 1);
+        } // end for
+        return bound;
+    } // end getVertexDiameterBound
+
+    private static double log2(double value)
+    {
+        return Math.log(value) / Math.log(2);
+    } // end log2
+
+    /** Estimated betweenness values together with the accuracy they are guaranteed to reach. */
+    public static class Result<T>
+    {
+        private final CompactGraph<T> graph;
+        private final double[] scores;
+        private final long sampleCount;
+        private final double epsilon;
+        private final double delta;
+
+        private Result(CompactGraph<T> graph, double[] scores, long sampleCount, double epsilon, double delta)
+        {
+            this.graph = graph;
+            this.scores = scores;
+            this.sampleCount = sampleCount;
+            this.epsilon = epsilon;
+            this.delta = delta;
+        } // end constructor
+
+        /** @return the estimated betweenness of every vertex, on the same scale as the exact values
+         of CompactGraph.getBetweennessScores */
+        public CentralityScores<T> getScores()
+        {
+            return new CentralityScores<>(graph, scores);
+        } // end getScores
+
+        /** @return the number of pairs that were sampled */
+        public long getSampleCount()
+        {
+            return sampleCount;
+        } // end getSampleCount
+
+        /** @return the error bound reached on normalized scores, that is scores divided by the
+         number of vertex pairs n(n-1)/2 */
+        public double getEpsilon()
+        {
+            return epsilon;
+        } // end getEpsilon
+
+        /** @return the error bound reached on the scores as returned by getScores */
+        public double getAbsoluteError()
+        {
+            int vertexCount = graph.getNumberOfVertices();
+            return epsilon * vertexCount * (vertexCount - 1) / 2;
+        } // end getAbsoluteError
+
+        /** @return the probability with which all scores are within the error bound */
+        public double getConfidence()
+        {
+            return 1 - delta;
+        } // end getConfidence
+    } // end Result
+}
@@ -13,7 +13,9 @@ public interface BasicGraphInterface<T>
      @param end an object, distinct from begin, that labels the end
      vertex of the edge
      @param edgeWeight the real value of the edge's weight
-     @return true if the edge is added, or false if not */
+     @return true if the edge is added, or false if not
+     @throws IllegalArgumentException if edgeWeight is not a positive
+     finite number */
     public boolean addEdge(T begin, T end, double edgeWeight);
     /** Adds an unweighted edge between two given distinct vertices
      that are currently in the graph. The desired edge must not
@@ -0,0 +1,636 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** Computes centrality metrics for many edge list files, listed in a manifest, as one pipeline.
+ Every manifest line names a file, the metrics wanted for it and optionally a name. A file is
+ either a text edge list or a GraphSnapshot with int labels, told apart by its first bytes; a
+ snapshot is copied into memory instead of being parsed:
+ <pre>
+ # path                        metrics                    name
+ karate_club_network.txt       betweenness,closeness      karate
+ facebook_social_network.txt   pagerank,eigenvector,degree
+ </pre>
+ Paths are relative to the manifest, and "all" asks for every metric. A name, given or taken from
+ the file name, becomes part of the names of the score files, so it must be unique in the manifest
+ and must not contain a path separator or "..". Files are parsed on a small
+ group of loader threads while the graphs loaded before them are computed on a separate pool, so
+ the next graph is ready by the time the current one is done. A job is admitted only when its
+ estimated memory fits in the budget next to the jobs already admitted; a job that needs more
+ than the whole budget waits until it can run alone. The estimate comes from the file size and is
+ corrected to the real vertex and edge counts once the graph is loaded.
+ The metrics of a graph run side by side on the compute pool, and the scores of each one are
+ written to their own file as soon as it is done, so the degrees and PageRank of a large graph are
+ on disk long before its betweenness. The files hold one line per vertex, as CSV or JSON lines,
+ and a summary line per graph goes to the log. A graph that cannot be read is reported and
+ skipped, and the other graphs still run.
+ Usage: java BatchRunner manifest [--output directory] [--format csv|jsonl] [--load-threads n]
+ [--compute-jobs n] [--threads n] [--memory-mb n]*/
+public class BatchRunner implements AutoCloseable
+{
+    /** The metrics a manifest can ask for. */
+    public enum Metric
+    {
+        BETWEENNESS, CLOSENESS, PAGERANK, EIGENVECTOR, DEGREE
+    } // end Metric
+
+    /** The formats of the score files. */
+    public enum Format
+    {
+        CSV, JSONL
+    } // end Format
+
+    //bytes read from the start of a file to guess its number of lines
+    private static final int SAMPLE_SIZE = 1 << 16;
+
+    private final Path outputDirectory;
+    private final Format format;
+    private final int loadThreads;
+    private final int computeJobs;
+    private final ForkJoinPool parsePool;//parses the chunks of the files being loaded
+    private final ForkJoinPool computePool;//runs the metrics of the graphs being computed
+    private final MemoryBudget budget;
+    private final PrintStream log;
+
+    /** @param outputDirectory the directory the score files are written to, created if needed
+     @param format the format of the score files
+     @param loadThreads the number of files parsed at once
+     @param computeJobs the number of graphs computed at once, sharing the compute threads
+     @param computeThreads the parallelism of the pool that computes the metrics
+     @param memoryBudget the bytes that the admitted jobs may use together
+     @param log receives one summary line per graph */
+    public BatchRunner(Path outputDirectory, Format format, int loadThreads, int computeJobs, int computeThreads,
+                       long memoryBudget, PrintStream log)
+    {
+        if ((loadThreads < 1) || (computeJobs < 1) || (computeThreads < 1))
+            throw new IllegalArgumentException("Thread and job counts must be positive");
+        this.outputDirectory = outputDirectory;
+        this.format = format;
+        this.loadThreads = loadThreads;
+        this.computeJobs = computeJobs;
+        parsePool = new ForkJoinPool(loadThreads);
+        computePool = new ForkJoinPool(computeThreads);
+        budget = new MemoryBudget(memoryBudget);
+        this.log = log;
+    } // end constructor
+
+    public static void main(String[] args) throws IOException, InterruptedException
+    {
+        Options options;
+        try
+        {
+            options = Options.parse(args);
+        }
+        catch (IllegalArgumentException e)
+        {
+            System.err.println(e.getMessage());
+            printUsage(System.err);
+            System.exit(2);
+            return;
+        } // end try
+        if (options.manifest == null)
+        {
+            printUsage(System.out);
+            return;
+        } // end if
+        try (BatchRunner runner = new BatchRunner(options.output, options.format, options.loadThreads,
+                                                  options.computeJobs, options.threads, options.memory, System.out))
+        {
+            int failures = runner.run(readManifest(options.manifest));
+            if (failures > 0)
+                System.exit(1);
+        } // end try
+    } // end main
+
+    private static void printUsage(PrintStream out)
+    {
+        out.println("Usage: java BatchRunner manifest [--output directory] [--format csv|jsonl] "
+                    + "[--load-threads n] [--compute-jobs n] [--threads n] [--memory-mb n]");
+    } // end printUsage
+
+    /** Reads the jobs of a manifest. Blank lines and lines starting with # are skipped.
+     @param manifest the manifest file
+     @return the jobs in the order they are listed
+     @throws ManifestException if a line has too many fields, an unknown metric, an invalid name or
+     the name of an earlier line
+     @throws IOException if the manifest cannot be read */
+    public static List<Job> readManifest(Path manifest) throws IOException
+    {
+        Path directory = manifest.toAbsolutePath().getParent();
+        List<Job> jobs = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        long lineNumber = 0;
+        for (String line : Files.readAllLines(manifest, StandardCharsets.UTF_8))
+        {
+            lineNumber++;
+            String text = line.trim();
+            if (text.isEmpty() || text.startsWith("#"))
+                continue;
+            String[] fields = text.split("\\s+");
+            if (fields.length > 3)
+                throw new ManifestException(manifest, lineNumber, "Expected a path, metrics and an optional name");
+            EnumSet<Metric> metrics = EnumSet.noneOf(Metric.class);
+            for (String metric : ((fields.length > 1) ? fields[1] : "all").split(","))
+            {
+                try
+                {
+                    if (metric.equalsIgnoreCase("all"))
+                        metrics.addAll(EnumSet.allOf(Metric.class));
+                    else
+                        metrics.add(Metric.valueOf(metric.toUpperCase(Locale.ROOT)));
+                }
+                catch (IllegalArgumentException e)
+                {
+                    throw new ManifestException(manifest, lineNumber, "Unknown metric \"" + metric + "\"");
+                } // end try
+            } // end for
+            Path file = directory.resolve(fields[0]);
+            String name = (fields.length > 2) ? fields[2] : file.getFileName().toString().replaceFirst("\\.[^.]*$", "");
+            if (!Job.isValidName(name))
+                throw new ManifestException(manifest, lineNumber, "Invalid name \"" + name + "\"");
+            if (!names.add(name))
+                throw new ManifestException(manifest, lineNumber, "Duplicate name \"" + name + "\"");
+            jobs.add(new Job(name, file, metrics));
+        } // end for
+        return jobs;
+    } // end readManifest
+
+    /** Runs every job and waits until all of them are done. At most loadThreads files are parsed
+     and computeJobs graphs are computed at any time, and a graph is loaded no further ahead than
+     the memory budget and the free compute slots allow.
+     @param jobs the jobs to run
+     @return the number of jobs that failed
+     @throws IOException if the output directory cannot be created */
+    public int run(List<Job> jobs) throws IOException
+    {
+        Files.createDirectories(outputDirectory);
+        ExecutorService loaders = Executors.newFixedThreadPool(loadThreads);
+        ExecutorService computers = Executors.newFixedThreadPool(computeJobs);
+        //one thread per metric of every graph being computed, each waiting on the compute pool
+        ExecutorService metricRunners = Executors.newFixedThreadPool(computeJobs * Metric.values().length);
+        //a graph holds a slot from before it is loaded until its scores are written
+        Semaphore slots = new Semaphore(loadThreads + computeJobs, true);
+        AtomicInteger failures = new AtomicInteger();
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        try
+        {
+            for (Job job : jobs)
+            {
+                Admission admission = new Admission(job, slots);
+                pending.add(CompletableFuture.supplyAsync(() -> load(admission), loaders)
+                                             .thenAcceptAsync(graph -> compute(admission, graph, metricRunners), computers)
+                                             .handle((ignored, failure) ->
+                                             {
+                                                 admission.release();
+                                                 if (failure != null)
+                                                 {
+                                                     failures.incrementAndGet();
+                                                     Throwable cause = (failure instanceof CompletionException) ? failure.getCause() : failure;
+                                                     report(job.name + ": failed, " + cause);
+                                                 } // end if
+                                                 return null;
+                                             }));
+            } // end for
+            CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])).join();
+        }
+        finally
+        {
+            loaders.shutdown();
+            computers.shutdown();
+            metricRunners.shutdown();
+        } // end try
+        return failures.get();
+    } // end run
+
+    public void close()
+    {
+        parsePool.shutdown();
+        computePool.shutdown();
+    } // end close
+
+    //Waits for a slot and for memory, then parses the file of a job.
+    private CompactGraph<Integer> load(Admission admission)
+    {
+        try
+        {
+            admission.acquire(estimateBytes(admission.job));
+            long start = System.nanoTime();
+            CompactGraph<Integer> graph = GraphSnapshot.isSnapshot(admission.job.file) ? loadSnapshot(admission.job.file)
+                                                                                       : EdgeListLoader.load(admission.job.file, parsePool);
+            admission.loadMillis = (System.nanoTime() - start) / 1000000;
+            //now that the sizes are known, the reservation no longer needs room for parsing
+            admission.resize(estimateBytes(graph.getNumberOfVertices(), graph.getNumberOfEdges(), admission.job.metrics, false));
+            return graph;
+        }
+        catch (IOException e)
+        {
+            throw new CompletionException(e);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        } // end try
+    } // end load
+
+    private static CompactGraph<Integer> loadSnapshot(Path file) throws IOException
+    {
+        GraphSnapshot snapshot = GraphSnapshot.map(file);
+        if (snapshot.getLabelType() != Integer.class)
+            throw new IOException(file + " has " + snapshot.getLabelType().getSimpleName() + " labels, a batch needs int labels");
+        try
+        {
+            return snapshot.toCompactGraph();
+        }
+        catch (IllegalStateException e)
+        {
+            throw new IOException(file + ": " + e.getMessage(), e);
+        } // end try
+    } // end loadSnapshot
+
+    /* Starts every metric of a graph at once and waits for all of them, so that the graph and its
+     memory are given back only when nothing uses them anymore. Each metric writes its own file
+     the moment it is done; the summary lists them in the order of Metric.*/
+    private void compute(Admission admission, CompactGraph<Integer> graph, ExecutorService metricRunners)
+    {
+        Job job = admission.job;
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        for (Metric metric : job.metrics)
+            results.add(CompletableFuture.supplyAsync(() -> computeAndWrite(job, metric, graph), metricRunners));
+        CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0])).exceptionally(failure -> null).join();
+        StringBuilder summary = new StringBuilder();
+        summary.append(String.format("%s: %d vertices, %d edges, load %d ms", job.name, graph.getNumberOfVertices(),
+                                     graph.getNumberOfEdges(), admission.loadMillis));
+        for (CompletableFuture<String> result : results)
+            summary.append(result.join());
+        report(summary.toString());
+    } // end compute
+
+    //Computes one metric and writes its scores, returning its part of the summary.
+    private String computeAndWrite(Job job, Metric metric, CompactGraph<Integer> graph)
+    {
+        long start = System.nanoTime();
+        double[] scores = computeMetric(graph, metric);
+        long millis = (System.nanoTime() - start) / 1000000;
+        try
+        {
+            write(job, metric, graph, scores);
+        }
+        catch (IOException e)
+        {
+            throw new CompletionException(e);
+        } // end try
+        CentralityScores.Entry<Integer> highest = new CentralityScores<>(graph, scores).getHighest();
+        String part = String.format("; %s %d ms", metric.name().toLowerCase(Locale.ROOT), millis);
+        if (highest != null)
+            part += String.format(" top %s=%.6g", highest.getLabel(), highest.getScore());
+        return part;
+    } // end computeAndWrite
+
+    private double[] computeMetric(CompactGraph<Integer> graph, Metric metric)
+    {
+        switch (metric)
+        {
+            case BETWEENNESS:
+                if (graph.isWeighted())
+                    return graph.getBetweennessScores(computePool);
+                return new ComponentDecomposition(graph).computeBetweenness(computePool);
+            case CLOSENESS: return graph.getClosenessScores(computePool);
+            case PAGERANK: return new SpectralCentrality(graph).computePageRank(computePool).getScores();
+            case EIGENVECTOR: return new SpectralCentrality(graph).computeEigenvector(computePool).getScores();
+            default: return SpectralCentrality.computeDegree(graph);
+        } // end switch
+    } // end computeMetric
+
+    //Streams the scores of one metric to its own file, one vertex per line.
+    private void write(Job job, Metric metric, CompactGraph<Integer> graph, double[] scores) throws IOException
+    {
+        String metricName = metric.name().toLowerCase(Locale.ROOT);
+        Path file = outputDirectory.resolve(job.name + "." + metricName + ((format == Format.CSV) ? ".csv" : ".jsonl"));
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8))
+        {
+            if (format == Format.CSV)
+                writer.write("vertex," + metricName + "\n");
+            for (int id = 0; id < scores.length; id++)
+            {
+                Integer label = graph.getLabel(id);
+                if (format == Format.CSV)
+                    writer.write(label + "," + scores[id] + "\n");
+                else
+                    writer.write("{\"graph\":\"" + escape(job.name) + "\",\"metric\":\"" + metricName + "\",\"vertex\":"
+                                 + label + ",\"score\":" + scores[id] + "}\n");
+            } // end for
+        } // end try
+    } // end write
+
+    private static String escape(String text)
+    {
+        StringBuilder escaped = new StringBuilder();
+        for (char c : text.toCharArray())
+        {
+            if ((c == '"') || (c == '\\'))
+                escaped.append('\\').append(c);
+            else if (c < 0x20)
+                escaped.append(String.format("\\u%04x", (int)c));
+            else
+                escaped.append(c);
+        } // end for
+        return escaped.toString();
+    } // end escape
+
+    private synchronized void report(String line)
+    {
+        log.println(line);
+        log.flush();
+    } // end report
+
+    /* Guesses the memory of a job from its file. A snapshot states its counts in its header. For
+     an edge list, the lines in the first 64 KiB give the bytes per edge, and the vertices are
+     taken to be half the edges, an average degree of 4.*/
+    private long estimateBytes(Job job) throws IOException
+    {
+        if (GraphSnapshot.isSnapshot(job.file))
+        {
+            GraphSnapshot snapshot = GraphSnapshot.map(job.file);
+            return estimateBytes(snapshot.getNumberOfVertices(), snapshot.getNumberOfEdges(), job.metrics, false);
+        } // end if
+        long size = Files.size(job.file);
+        byte[] sample = new byte[(int)Math.min(size, SAMPLE_SIZE)];
+        int read = 0;
+        try (InputStream in = Files.newInputStream(job.file))
+        {
+            for (int n; (read < sample.length) && ((n = in.read(sample, read, sample.length - read)) > 0); )
+                read += n;
+        } // end try
+        int lines = 1;
+        for (int i = 0; i < read; i++)
+        {
+            if (sample[i] == '\n')
+                lines++;
+        } // end for
+        long edges = size / Math.max(4, read / lines) + 1;
+        return estimateBytes(edges / 2 + 1, edges, job.metrics, true);
+    } // end estimateBytes
+
+    /* The CSR arrays and labels, a copy of the edges for the decomposition, the scratch space of
+     every compute thread for each all-sources metric, since betweenness and closeness run at the
+     same time, and one score vector per metric, plus the edge buffers while parsing.*/
+    private long estimateBytes(long vertices, long edges, EnumSet<Metric> metrics, boolean parsing)
+    {
+        long bytes = 16 * edges + 48 * vertices;
+        if (metrics.contains(Metric.BETWEENNESS))
+            bytes += 8 * edges;
+        int allSources = (metrics.contains(Metric.BETWEENNESS) ? 1 : 0) + (metrics.contains(Metric.CLOSENESS) ? 1 : 0);
+        bytes += 100 * vertices * computePool.getParallelism() * Math.max(1, allSources);
+        bytes += 8 * vertices * metrics.size();
+        if (parsing)
+            bytes += 16 * edges;
+        return bytes;
+    } // end estimateBytes
+
+    /* The settings of the command line. A missing or malformed value is an
+     IllegalArgumentException whose message names the option, for main to print before the usage.*/
+    static class Options
+    {
+        Path manifest;
+        Path output = Paths.get("centrality-output");
+        Format format = Format.CSV;
+        int loadThreads = 1;
+        int computeJobs = 1;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long memory = Runtime.getRuntime().maxMemory() / 4 * 3;
+
+        static Options parse(String[] args)
+        {
+            Options options = new Options();
+            for (int i = 0; i < args.length; i++)
+            {
+                String option = args[i];
+                switch (option)
+                {
+                    case "--manifest": options.manifest = Paths.get(value(args, i++)); break;
+                    case "--output": options.output = Paths.get(value(args, i++)); break;
+                    case "--format":
+                        String format = value(args, i++);
+                        try
+                        {
+                            options.format = Format.valueOf(format.toUpperCase(Locale.ROOT));
+                        }
+                        catch (IllegalArgumentException e)
+                        {
+                            throw new IllegalArgumentException(option + " must be csv or jsonl, not \"" + format + "\"");
+                        } // end try
+                        break;
+                    case "--load-threads": options.loadThreads = (int)positive(args, i++, Integer.MAX_VALUE); break;
+                    case "--compute-jobs": options.computeJobs = (int)positive(args, i++, Integer.MAX_VALUE); break;
+                    case "--threads": options.threads = (int)positive(args, i++, Integer.MAX_VALUE); break;
+                    case "--memory-mb": options.memory = positive(args, i++, Long.MAX_VALUE >> 20) << 20; break;
+                    default:
+                        if (option.startsWith("--") || (options.manifest != null))
+                            throw new IllegalArgumentException("Unknown argument " + option);
+                        options.manifest = Paths.get(option);
+                } // end switch
+            } // end for
+            return options;
+        } // end parse
+
+        //The argument after the option at index i.
+        private static String value(String[] args, int i)
+        {
+            if (i + 1 >= args.length)
+                throw new IllegalArgumentException(args[i] + " needs a value");
+            return args[i + 1];
+        } // end value
+
+        private static long positive(String[] args, int i, long max)
+        {
+            String text = value(args, i);
+            try
+            {
+                long number = Long.parseLong(text);
+                if ((number >= 1) && (number <= max))
+                    return number;
+            }
+            catch (NumberFormatException e)
+            {
+                //reported below like a number out of range
+            } // end try
+            throw new IllegalArgumentException(args[i] + " needs a number from 1 to " + max + ", not \"" + text + "\"");
+        } // end positive
+    } // end Options
+
+    /** One graph file and the metrics wanted for it. */
+    public static class Job
+    {
+        private final String name;
+        private final Path file;
+        private final EnumSet<Metric> metrics;
+
+        /** @param name the name of the graph, used in the names of its score files
+         @param file the edge list file
+         @param metrics the metrics to compute, in the order of Metric
+         @throws IllegalArgumentException if the name is not valid */
+        public Job(String name, Path file, EnumSet<Metric> metrics)
+        {
+            if (!isValidName(name))
+                throw new IllegalArgumentException("Invalid job name \"" + name + "\"");
+            this.name = name;
+            this.file = file;
+            this.metrics = EnumSet.copyOf(metrics);
+        } // end constructor
+
+        /** A valid name is not empty and has no path separator, no ".." and no control
+         character, so that its score files stay inside the output directory.
+         @param name a name
+         @return true if the name can name the score files of a job */
+        public static boolean isValidName(String name)
+        {
+            if (name.isEmpty() || name.contains(".."))
+                return false;
+            for (int i = 0; i < name.length(); i++)
+            {
+                char c = name.charAt(i);
+                if ((c == '/') || (c == '\\') || (c < 0x20))
+                    return false;
+            } // end for
+            return true;
+        } // end isValidName
+
+        /** @return the name of the graph */
+        public String getName()
+        {
+            return name;
+        } // end getName
+
+        /** @return the edge list file */
+        public Path getFile()
+        {
+            return file;
+        } // end getFile
+
+        /** @return the metrics to compute */
+        public EnumSet<Metric> getMetrics()
+        {
+            return EnumSet.copyOf(metrics);
+        } // end getMetrics
+    } // end Job
+
+    /** Thrown when a line of a manifest cannot be read as a job. */
+    public static class ManifestException extends IOException
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Path manifest;
+        private final long lineNumber;
+
+        public ManifestException(Path manifest, long lineNumber, String message)
+        {
+            super(manifest + ": line " + lineNumber + ": " + message);
+            this.manifest = manifest;
+            this.lineNumber = lineNumber;
+        } // end constructor
+
+        /** @return the manifest that holds the line */
+        public Path getManifest()
+        {
+            return manifest;
+        } // end getManifest
+
+        /** @return the number of the line, counting from 1 */
+        public long getLineNumber()
+        {
+            return lineNumber;
+        } // end getLineNumber
+    } // end ManifestException
+
+    //The slot and the memory held by one job, from its admission until it is finished or failed.
+    private class Admission
+    {
+        private final Job job;
+        private final Semaphore slots;
+        private boolean holdsSlot;
+        private long bytes;
+        private long loadMillis;
+
+        private Admission(Job job, Semaphore slots)
+        {
+            this.job = job;
+            this.slots = slots;
+        } // end constructor
+
+        private void acquire(long estimate) throws InterruptedException
+        {
+            slots.acquire();
+            holdsSlot = true;
+            budget.acquire(estimate);
+            bytes = estimate;
+        } // end acquire
+
+        private void resize(long exact)
+        {
+            budget.resize(bytes, exact);
+            bytes = exact;
+        } // end resize
+
+        private void release()
+        {
+            budget.release(bytes);
+            bytes = 0;
+            if (holdsSlot)
+                slots.release();
+            holdsSlot = false;
+        } // end release
+    } // end Admission
+
+    /* Bytes that the admitted jobs may use together. A job waits until its bytes fit next to the
+     others, except that a job always fits when nothing else is admitted, so a graph larger than
+     the budget runs alone instead of never.*/
+    private static class MemoryBudget
+    {
+        private final long capacity;
+        private long used;
+
+        private MemoryBudget(long capacity)
+        {
+            this.capacity = capacity;
+        } // end constructor
+
+        private synchronized void acquire(long bytes) throws InterruptedException
+        {
+            while ((used > 0) && (used + bytes > capacity))
+                wait();
+            used += bytes;
+        } // end acquire
+
+        //Replaces an estimate with a better one without waiting, the job already holds its memory.
+        private synchronized void resize(long oldBytes, long newBytes)
+        {
+            used += newBytes - oldBytes;
+            notifyAll();
+        } // end resize
+
+        private synchronized void release(long bytes)
+        {
+            used -= bytes;
+            notifyAll();
+        } // end release
+    } // end MemoryBudget
+}
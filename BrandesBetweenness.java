@@ -0,0 +1,195 @@
+import java.util.Arrays;
+
+/** Computes the betweenness centrality of every vertex with Brandes' algorithm.
+ Each source vertex gets one breadth first search that records, for every reached vertex,
+ its distance and the number of shortest paths (sigma) leading to it. The dependencies are
+ then accumulated by walking the search order backwards. Only O(V) scratch space is used per
+ source and no path is ever materialized, so the total cost is O(V*E) time and O(V+E) memory.
+ The search runs over the CSR arrays of a CompactGraph. On a weighted graph the breadth first
+ search is replaced by Dijkstra's algorithm with an IndexedMinHeap, distances become path costs,
+ and the total cost grows to O(V*E*log V).*/
+public class BrandesBetweenness
+{
+    private final int[] offsets;
+    private final int[] targets;
+    private final double[] weights;
+    //scratch arrays that are reused by every source
+    private final int[] distance;
+    private final double[] sigma;
+    private final double[] delta;
+    private final int[] order;//vertices in the order they were reached, used as both queue and stack
+    //only used on weighted graphs
+    private final double[] cost;
+    private final IndexedMinHeap heap;
+
+    public BrandesBetweenness(CompactGraph<?> graph)
+    {
+        offsets = graph.getOffsets();
+        targets = graph.getTargets();
+        weights = graph.getWeights();
+        int vertexCount = graph.getNumberOfVertices();
+        distance = new int[vertexCount];
+        sigma = new double[vertexCount];
+        delta = new double[vertexCount];
+        order = new int[vertexCount];
+        Arrays.fill(distance, -1);
+        if (weights == null)
+        {
+            cost = null;
+            heap = null;
+        }
+        else
+        {
+            cost = new double[vertexCount];
+            Arrays.fill(cost, Double.POSITIVE_INFINITY);
+            heap = new IndexedMinHeap(vertexCount);
+        } // end if
+    } // end constructor
+
+    /** Computes the betweenness of all vertices. Every unordered pair of vertices is counted once,
+     and each shortest path between a pair contributes equally, so a vertex that lies on k of the
+     m shortest paths between a pair gains k/m from that pair.
+     @return betweenness values indexed by vertex id */
+    public double[] compute()
+    {
+        double[] betweenness = new double[distance.length];
+        for (int source = 0; source < distance.length; source++)
+            accumulate(source, betweenness);
+        //every unordered pair was counted once from each of its ends
+        for (int vertex = 0; vertex < betweenness.length; vertex++)
+            betweenness[vertex] /= 2;
+        return betweenness;
+    } // end compute
+
+    /** Adds the dependencies of a single source on every other vertex to the given accumulator.
+     Summing this over all sources gives twice the undirected betweenness.
+     @param source the id of the source vertex
+     @param betweenness the accumulator, indexed by vertex id
+     @return the closeness of the source in sum(1/d) form, which the same search yields for free */
+    public double accumulate(int source, double[] betweenness)
+    {
+        if (weights != null)
+            return accumulateWeighted(source, betweenness);
+        int reached = search(source);
+        //added as count/d one level at a time, the way DirectionOptimizingBfs adds it
+        double closeness = 0;
+        int levelStart = 1;
+        for (int i = 1; i <= reached; i++)
+        {
+            if ((i == reached) || (distance[order[i]] != distance[order[levelStart]]))
+            {
+                if (i > levelStart)
+                    closeness += (double)(i - levelStart) / distance[order[levelStart]];
+                levelStart = i;
+            } // end if
+        } // end for
+        //back-propagate dependencies from the farthest vertices towards the source
+        for (int i = reached - 1; i > 0; i--)
+        {
+            int vertex = order[i];
+            double coefficient = (1 + delta[vertex]) / sigma[vertex];
+            int predecessorDistance = distance[vertex] - 1;
+            for (int j = offsets[vertex]; j < offsets[vertex + 1]; j++)
+            {
+                int neighbor = targets[j];
+                //predecessors are recovered from the distances instead of being stored
+                if (distance[neighbor] == predecessorDistance)
+                    delta[neighbor] += sigma[neighbor] * coefficient;
+            } // end for
+            betweenness[vertex] += delta[vertex];
+        } // end for
+        //clear only the entries that this source touched
+        for (int i = 0; i < reached; i++)
+        {
+            int vertex = order[i];
+            distance[vertex] = -1;
+            delta[vertex] = 0;
+        } // end for
+        return closeness;
+    } // end accumulate
+
+    //Same as accumulate, with costs in place of distances.
+    private double accumulateWeighted(int source, double[] betweenness)
+    {
+        int reached = searchWeighted(source);
+        double closeness = 0;
+        for (int i = 1; i < reached; i++)
+            closeness += 1.0 / cost[order[i]];
+        for (int i = reached - 1; i > 0; i--)
+        {
+            int vertex = order[i];
+            double coefficient = (1 + delta[vertex]) / sigma[vertex];
+            for (int j = offsets[vertex]; j < offsets[vertex + 1]; j++)
+            {
+                int neighbor = targets[j];
+                //the sum is computed exactly as in the search, so the comparison is exact as well
+                if ((cost[neighbor] < cost[vertex]) && (cost[neighbor] + weights[j] == cost[vertex]))
+                    delta[neighbor] += sigma[neighbor] * coefficient;
+            } // end for
+            betweenness[vertex] += delta[vertex];
+        } // end for
+        for (int i = 0; i < reached; i++)
+        {
+            int vertex = order[i];
+            cost[vertex] = Double.POSITIVE_INFINITY;
+            delta[vertex] = 0;
+        } // end for
+        return closeness;
+    } // end accumulateWeighted
+
+    //Dijkstra search that counts cheapest paths. Returns the number of reached vertices.
+    private int searchWeighted(int source)
+    {
+        int tail = 0;
+        cost[source] = 0;
+        sigma[source] = 1;
+        heap.offer(source, 0);
+        while (!heap.isEmpty())
+        {
+            int vertex = heap.removeMin();
+            order[tail++] = vertex;
+            for (int j = offsets[vertex]; j < offsets[vertex + 1]; j++)
+            {
+                int neighbor = targets[j];
+                double nextCost = cost[vertex] + weights[j];
+                if (nextCost < cost[neighbor])
+                {
+                    cost[neighbor] = nextCost;
+                    sigma[neighbor] = sigma[vertex];
+                    heap.offer(neighbor, nextCost);
+                }
+                else if ((nextCost == cost[neighbor]) && (cost[vertex] < cost[neighbor]))
+                    sigma[neighbor] += sigma[vertex];
+            } // end for
+        } // end while
+        return tail;
+    } // end searchWeighted
+
+    //Breadth first search that counts shortest paths. Returns the number of reached vertices.
+    private int search(int source)
+    {
+        int head = 0;
+        int tail = 0;
+        distance[source] = 0;
+        sigma[source] = 1;
+        order[tail++] = source;
+        while (head < tail)
+        {
+            int vertex = order[head++];
+            int nextDistance = distance[vertex] + 1;
+            for (int j = offsets[vertex]; j < offsets[vertex + 1]; j++)
+            {
+                int neighbor = targets[j];
+                if (distance[neighbor] < 0)
+                {
+                    distance[neighbor] = nextDistance;
+                    sigma[neighbor] = 0;
+                    order[tail++] = neighbor;
+                } // end if
+                if (distance[neighbor] == nextDistance)
+                    sigma[neighbor] += sigma[vertex];
+            } // end for
+        } // end while
+        return tail;
+    } // end search
+}
@@ -0,0 +1,317 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+/** Benchmarks the graph operations on the bundled data sets and on seeded synthetic graphs
+ (Erdos-Renyi, Barabasi-Albert and grid graphs from 10^3 vertices up to --max-vertices), so that
+ regressions show up and engines can be compared before they are rolled out.
+ Every benchmark is warmed up first and then measured for a number of iterations. For each one it
+ reports the mean and best time per operation, the bytes allocated per operation by all threads,
+ the allocation rate, and the collections that happened while it was measured.
+ Usage: java CentralityBenchmark [--max-vertices n] [--legacy-max-vertices n] [--exact-max-vertices n]
+ [--warmup n] [--iterations n] [--seed s] [--data directory] [filter]
+ The filter keeps only the benchmarks whose "benchmark/graph" name contains it.*/
+public class CentralityBenchmark
+{
+    private static final int QUERY_COUNT = 100;//shortest path queries per operation
+    private static final int TRAVERSAL_COUNT = 10;//breadth first traversals per operation
+
+    private static int maxVertices = 1000000;
+    private static int legacyMaxVertices = 2000;//the all pairs map needs O(n^2) memory
+    private static int exactMaxVertices = 5000;
+    private static int warmupIterations = 3;
+    private static int measuredIterations = 5;
+    private static long seed = 42;
+    private static String dataDirectory = ".";
+    private static String filter = "";
+    private static long sink;//keeps results alive so that no operation is optimized away
+
+    private CentralityBenchmark()
+    {
+    } // end constructor
+
+    public static void main(String[] args) throws Exception
+    {
+        for (int i = 0; i < args.length; i++)
+        {
+            switch (args[i])
+            {
+                case "--max-vertices": maxVertices = Integer.parseInt(args[++i]); break;
+                case "--legacy-max-vertices": legacyMaxVertices = Integer.parseInt(args[++i]); break;
+                case "--exact-max-vertices": exactMaxVertices = Integer.parseInt(args[++i]); break;
+                case "--warmup": warmupIterations = Integer.parseInt(args[++i]); break;
+                case "--iterations": measuredIterations = Integer.parseInt(args[++i]); break;
+                case "--seed": seed = Long.parseLong(args[++i]); break;
+                case "--data": dataDirectory = args[++i]; break;
+                default: filter = args[i];
+            } // end switch
+        } // end for
+
+        System.out.printf("%-28s %-24s %9s %10s %12s %12s %12s %10s %6s %8s%n", "benchmark", "graph", "vertices", "edges",
+                          "mean ms/op", "best ms/op", "MB/op", "MB/s", "gc", "gc ms");
+        for (Subject subject : createSubjects())
+        {
+            try
+            {
+                runAll(subject);
+            }
+            finally
+            {
+                subject.close();
+            } // end try
+        } // end for
+        if (sink == 42)//read the sink once so that it is not dead
+            System.out.println();
+    } // end main
+
+    private static List<Subject> createSubjects() throws IOException
+    {
+        List<Subject> subjects = new ArrayList<>();
+        for (String name : new String[] {"karate_club_network", "facebook_social_network"})
+        {
+            Path file = Paths.get(dataDirectory, name + ".txt");
+            if (Files.exists(file))
+                subjects.add(new Subject(name, EdgeListLoader.load(file.toString()), file, false));
+            else
+                System.out.println("Skipping " + file + ", which was not found");
+        } // end for
+        for (int n = 1000; n <= maxVertices; n *= 10)
+        {
+            int rows = (int)Math.sqrt(n);
+            subjects.add(new Subject("er-" + n, GraphGenerators.erdosRenyi(n, 10, seed), null, true));
+            subjects.add(new Subject("ba-" + n, GraphGenerators.barabasiAlbert(n, 5, seed), null, true));
+            subjects.add(new Subject("grid-" + n, GraphGenerators.grid(rows, n / rows), null, true));
+        } // end for
+        return subjects;
+    } // end createSubjects
+
+    private static void runAll(Subject subject) throws Exception
+    {
+        int n = subject.graph.getNumberOfVertices();
+        run("load", subject, s -> EdgeListLoader.load(s.getFile().toString()).getNumberOfEdges());
+        run("addEdge", subject, s -> toUndirectedGraph(s.graph).getNumberOfEdges());
+        run("getShortestPath", subject, s ->
+        {
+            long total = 0;
+            LinkedHashSet<Integer> path = new LinkedHashSet<>();
+            for (int i = 0; i < 2 * QUERY_COUNT; i += 2)
+            {
+                path.clear();
+                total += s.getLegacyGraph().getShortestPath(s.queries[i], s.queries[i + 1], path);
+            } // end for
+            return total;
+        });
+        run("getBreadthFirstTraversal", subject, s ->
+        {
+            long total = 0;
+            for (int i = 0; i < TRAVERSAL_COUNT; i++)
+                total += s.getLegacyGraph().getBreadthFirstTraversal(s.queries[i]).size();
+            return total;
+        });
+        if (n <= legacyMaxVertices)
+        {
+            run("getAllShortestPaths", subject, s -> s.getLegacyGraph().getAllShortestPaths().size());
+            run("getHighestBetweenness", subject, s -> (long)s.getLegacyGraph().getHighestBetweenness(s.getAllShortestPaths())[0]);
+            run("getHighestCloseness", subject, s -> (long)s.getLegacyGraph().getHighestCloseness(s.getAllShortestPaths())[0]);
+        } // end if
+        if (n <= exactMaxVertices)
+        {
+            run("compact.betweenness", subject, s -> Double.doubleToLongBits(s.graph.getBetweennessScores()[0]));
+            run("compact.closeness", subject, s -> Double.doubleToLongBits(s.graph.getClosenessScores()[0]));
+            run("reordered.betweenness", subject, s -> Double.doubleToLongBits(s.getReorderedGraph().getBetweennessScores()[0]));
+            run("reordered.closeness", subject, s -> Double.doubleToLongBits(s.getReorderedGraph().getClosenessScores()[0]));
+            run("decomposed.betweenness", subject,
+                s -> Double.doubleToLongBits(new ComponentDecomposition(s.graph).computeBetweenness()[0]));
+            run("decomposed.closeness", subject,
+                s -> Double.doubleToLongBits(new ComponentDecomposition(s.graph).computeCloseness()[0]));
+        } // end if
+        run("reorder", subject, s -> VertexOrdering.choose(s.graph).apply(s.graph).getNumberOfEdges());
+        run("approximate.betweenness", subject,
+            s -> new ApproximateBetweenness<>(s.graph, seed).estimate(0.01, 0.1).getSampleCount());
+        run("hyperball.closeness", subject,
+            s -> Double.doubleToLongBits(s.graph.getApproximateClosenessScores(64, ForkJoinPool.commonPool())[0]));
+        run("pagerank", subject,
+            s -> new SpectralCentrality(s.graph).computePageRank(ForkJoinPool.commonPool()).getIterationCount());
+        run("eigenvector", subject,
+            s -> new SpectralCentrality(s.graph).computeEigenvector(ForkJoinPool.commonPool()).getIterationCount());
+    } // end runAll
+
+    private static void run(String name, Subject subject, Operation operation) throws Exception
+    {
+        if (!(name + "/" + subject.name).contains(filter))
+            return;
+        for (int i = 0; i < warmupIterations; i++)
+            sink += operation.run(subject);
+
+        long gcCount = getCollectionCount();
+        long gcTime = getCollectionTime();
+        long totalTime = 0;
+        long bestTime = Long.MAX_VALUE;
+        long totalBytes = 0;
+        for (int i = 0; i < measuredIterations; i++)
+        {
+            long bytes = getAllocatedBytes();
+            long start = System.nanoTime();
+            sink += operation.run(subject);
+            long time = System.nanoTime() - start;
+            totalBytes += getAllocatedBytes() - bytes;
+            totalTime += time;
+            bestTime = Math.min(bestTime, time);
+        } // end for
+        int iterations = Math.max(1, measuredIterations);
+        double meanMillis = totalTime / 1e6 / iterations;
+        double megabytes = totalBytes / 1048576.0 / iterations;
+        System.out.printf("%-28s %-24s %9d %10d %12.3f %12.3f %12.3f %10.1f %6d %8d%n", name, subject.name,
+                          subject.graph.getNumberOfVertices(), subject.graph.getNumberOfEdges(), meanMillis, bestTime / 1e6,
+                          megabytes, (meanMillis > 0) ? megabytes / meanMillis * 1000 : 0,
+                          getCollectionCount() - gcCount, getCollectionTime() - gcTime);
+    } // end run
+
+    //Copies a graph into an UndirectedGraph the way the driver fills one, vertex by vertex and edge by edge.
+    private static UndirectedGraph<Integer> toUndirectedGraph(CompactGraph<Integer> graph)
+    {
+        UndirectedGraph<Integer> result = new UndirectedGraph<>();
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+        for (int v = 0; v < graph.getNumberOfVertices(); v++)
+        {
+            for (int i = offsets[v]; i < offsets[v + 1]; i++)
+            {
+                if (v < targets[i])
+                {
+                    result.addVertex(graph.getLabel(v));
+                    result.addVertex(graph.getLabel(targets[i]));
+                    result.addEdge(graph.getLabel(v), graph.getLabel(targets[i]));
+                } // end if
+            } // end for
+        } // end for
+        return result;
+    } // end toUndirectedGraph
+
+    //Bytes allocated so far by all live threads, so work done on pool threads is counted too.
+    private static long getAllocatedBytes()
+    {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean))
+            return 0;
+        long total = 0;
+        for (long bytes : ((com.sun.management.ThreadMXBean)threads).getThreadAllocatedBytes(threads.getAllThreadIds()))
+        {
+            if (bytes > 0)
+                total += bytes;
+        } // end for
+        return total;
+    } // end getAllocatedBytes
+
+    private static long getCollectionCount()
+    {
+        long total = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans())
+            total += Math.max(0, collector.getCollectionCount());
+        return total;
+    } // end getCollectionCount
+
+    private static long getCollectionTime()
+    {
+        long total = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans())
+            total += Math.max(0, collector.getCollectionTime());
+        return total;
+    } // end getCollectionTime
+
+    private interface Operation
+    {
+        long run(Subject subject) throws Exception;
+    } // end Operation
+
+    //One graph to benchmark, with the other forms of it that the benchmarks need, made when first asked for.
+    private static class Subject
+    {
+        private final String name;
+        private final CompactGraph<Integer> graph;
+        private final int[] queries;//seeded vertex labels for the query benchmarks
+        private Path file;
+        private final boolean temporary;
+        private UndirectedGraph<Integer> legacyGraph;
+        private HashMap<LinkedHashSet<Integer>,Integer> allShortestPaths;
+        private CompactGraph<Integer> reorderedGraph;
+
+        private Subject(String name, CompactGraph<Integer> graph, Path file, boolean temporary)
+        {
+            this.name = name;
+            this.graph = graph;
+            this.file = file;
+            this.temporary = temporary;
+            queries = new int[2 * QUERY_COUNT];
+            SplittableRandom random = new SplittableRandom(seed);
+            for (int i = 0; (i < queries.length) && (graph.getNumberOfVertices() > 0); i++)
+                queries[i] = graph.getLabel(random.nextInt(graph.getNumberOfVertices()));
+        } // end constructor
+
+        private UndirectedGraph<Integer> getLegacyGraph()
+        {
+            if (legacyGraph == null)
+                legacyGraph = toUndirectedGraph(graph);
+            return legacyGraph;
+        } // end getLegacyGraph
+
+        private HashMap<LinkedHashSet<Integer>,Integer> getAllShortestPaths()
+        {
+            if (allShortestPaths == null)
+                allShortestPaths = getLegacyGraph().getAllShortestPaths();
+            return allShortestPaths;
+        } // end getAllShortestPaths
+
+        //The graph renumbered by the ordering with the smallest average gap.
+        private CompactGraph<Integer> getReorderedGraph()
+        {
+            if (reorderedGraph == null)
+                reorderedGraph = VertexOrdering.choose(graph).apply(graph);
+            return reorderedGraph;
+        } // end getReorderedGraph
+
+        //Synthetic graphs are written out as edge lists so that the loader can be measured on them.
+        private Path getFile() throws IOException
+        {
+            if (file == null)
+            {
+                file = Files.createTempFile(name, ".txt");
+                int[] offsets = graph.getOffsets();
+                int[] targets = graph.getTargets();
+                try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.US_ASCII))
+                {
+                    for (int v = 0; v < graph.getNumberOfVertices(); v++)
+                    {
+                        for (int i = offsets[v]; i < offsets[v + 1]; i++)
+                        {
+                            if (v < targets[i])
+                                writer.write(graph.getLabel(v) + " " + graph.getLabel(targets[i]) + "\n");
+                        } // end for
+                    } // end for
+                } // end try
+            } // end if
+            return file;
+        } // end getFile
+
+        private void close() throws IOException
+        {
+            if (temporary && (file != null))
+                Files.deleteIfExists(file);
+            legacyGraph = null;
+            allShortestPaths = null;
+            reorderedGraph = null;
+        } // end close
+    } // end Subject
+}
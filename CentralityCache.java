@@ -0,0 +1,310 @@
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/** A memory-bounded cache of computed results, such as centrality vectors and shortest path data,
+ keyed by the graph they belong to, the modification count of that graph and the metric with its
+ parameters. Every entry carries an estimate of its size in bytes; when the estimates add up to
+ more than the capacity, the least recently used entries are evicted. An entry larger than the
+ whole capacity is computed but never stored. Storing a result for a newer version of a graph
+ drops the entries of its older versions, which can never be hit again.
+ The cache refers to a graph only weakly, so a graph that is no longer used elsewhere can be
+ collected, and its entries are dropped at the next change to the cache. The entries are indexed
+ by graph, so that storing a result or invalidating a graph touches the entries of that graph only.
+ One cache can be shared by many graphs and threads. A result is computed outside the lock, so
+ different metrics are computed at the same time, and two threads that miss the same key at once
+ may both compute it. Cached values are handed to every caller and must not be modified.*/
+public class CentralityCache
+{
+    /** The capacity of the cache every UndirectedGraph starts with, 64 MiB. */
+    public static final long DEFAULT_CAPACITY = 64L << 20;
+
+    private final long capacity;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);//in access order
+    private final HashMap<Owner, Owner> owners = new HashMap<>();//every graph with entries, mapped to itself
+    private final ReferenceQueue<Object> collected = new ReferenceQueue<>();//graphs that are gone
+    private long size;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /** @param capacity the largest total of the size estimates of the stored entries, in bytes */
+    public CentralityCache(long capacity)
+    {
+        if (capacity < 0)
+            throw new IllegalArgumentException("The capacity cannot be negative: " + capacity);
+        this.capacity = capacity;
+    } // end constructor
+
+    /** Gets a cached result, computing and storing it if it is missing.
+     @param owner the graph the result belongs to, compared by identity
+     @param version the modification count of the graph the result is computed on
+     @param key the metric and its parameters, such as "pagerank" or "approximateCloseness:64"
+     @param compute computes the result on a miss
+     @param weigher estimates the size in bytes of a computed result
+     @return the cached or the newly computed result */
+    public <V> V get(Object owner, long version, String key, Supplier<V> compute, ToLongFunction<? super V> weigher)
+    {
+        Owner lookup = new Owner(owner, null);
+        synchronized (this)
+        {
+            Owner known = owners.get(lookup);
+            Entry entry = (known == null) ? null : entries.get(new Key(known, version, key));
+            if (entry != null)
+            {
+                hits++;
+                @SuppressWarnings("unchecked")
+                V value = (V)entry.value;
+                return value;
+            } // end if
+            misses++;
+        } // end synchronized
+        V value = compute.get();
+        put(owner, version, key, value, weigher.applyAsLong(value));
+        return value;
+    } // end get
+
+    private synchronized void put(Object owner, long version, String metric, Object value, long bytes)
+    {
+        expungeCollected();
+        Owner known = owners.get(new Owner(owner, null));
+        if (known == null)
+        {
+            known = new Owner(owner, collected);
+            owners.put(known, known);
+        } // end if
+        if (version < known.version)
+            return;//computed on a version that was replaced while it ran, it can never be hit
+        if (version > known.version)
+        {
+            //older versions of the same graph are never asked for again
+            removeAll(known);
+            known.version = version;
+        } // end if
+        if (bytes > capacity)
+        {
+            if (known.keys.isEmpty())
+                owners.remove(known);
+            return;
+        } // end if
+        Key key = new Key(known, version, metric);
+        Entry replaced = entries.put(key, new Entry(value, bytes));
+        if (replaced != null)
+            size -= replaced.bytes;
+        size += bytes;
+        known.keys.add(key);
+        //the iterator starts at the least recently used entry
+        Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+        while (size > capacity)
+        {
+            Map.Entry<Key, Entry> next = eldest.next();
+            size -= next.getValue().bytes;
+            eldest.remove();
+            evictions++;
+            Owner evicted = next.getKey().owner;
+            evicted.keys.remove(next.getKey());
+            if (evicted.keys.isEmpty())
+                owners.remove(evicted);
+        } // end while
+    } // end put
+
+    /** Drops every entry of a graph.
+     @param owner the graph, compared by identity */
+    public synchronized void invalidate(Object owner)
+    {
+        expungeCollected();
+        Owner known = owners.remove(new Owner(owner, null));
+        if (known != null)
+            removeAll(known);
+    } // end invalidate
+
+    /** Drops every entry. The statistics are kept. */
+    public synchronized void clear()
+    {
+        entries.clear();
+        for (Owner owner : owners.keySet())
+            owner.keys.clear();
+        owners.clear();
+        size = 0;
+    } // end clear
+
+    //Removes the entries of one graph, found through its index instead of a scan of every entry.
+    private void removeAll(Owner owner)
+    {
+        for (Key key : owner.keys)
+        {
+            Entry removed = entries.remove(key);
+            if (removed != null)
+                size -= removed.bytes;
+        } // end for
+        owner.keys.clear();
+    } // end removeAll
+
+    //Drops the entries of the graphs that were collected since the last change.
+    private void expungeCollected()
+    {
+        for (Reference<?> gone; (gone = collected.poll()) != null; )
+        {
+            //a collected owner equals only itself, so no live graph is removed here
+            Owner owner = (Owner)gone;
+            owners.remove(owner);
+            removeAll(owner);
+        } // end for
+    } // end expungeCollected
+
+    /** Gets the capacity of the cache.
+     @return the largest total of the stored size estimates, in bytes */
+    public long getCapacity()
+    {
+        return capacity;
+    } // end getCapacity
+
+    /** Takes a consistent snapshot of the counters of the cache.
+     @return the statistics so far */
+    public synchronized Statistics getStatistics()
+    {
+        expungeCollected();
+        return new Statistics(hits, misses, evictions, entries.size(), size);
+    } // end getStatistics
+
+    /** The counters of a cache at one moment. */
+    public static class Statistics
+    {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final int entryCount;
+        private final long size;
+
+        private Statistics(long hits, long misses, long evictions, int entryCount, long size)
+        {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.entryCount = entryCount;
+            this.size = size;
+        } // end constructor
+
+        /** @return the lookups that found a stored result */
+        public long getHitCount()
+        {
+            return hits;
+        } // end getHitCount
+
+        /** @return the lookups that had to compute their result */
+        public long getMissCount()
+        {
+            return misses;
+        } // end getMissCount
+
+        /** @return the fraction of lookups that were hits, 0 before the first lookup */
+        public double getHitRate()
+        {
+            long lookups = hits + misses;
+            return (lookups == 0) ? 0 : (double)hits / lookups;
+        } // end getHitRate
+
+        /** @return the entries dropped to stay within the capacity */
+        public long getEvictionCount()
+        {
+            return evictions;
+        } // end getEvictionCount
+
+        /** @return the number of stored entries */
+        public int getEntryCount()
+        {
+            return entryCount;
+        } // end getEntryCount
+
+        /** @return the total of the size estimates of the stored entries, in bytes */
+        public long getSize()
+        {
+            return size;
+        } // end getSize
+
+        public String toString()
+        {
+            return String.format("%d hits, %d misses (%.1f%% hit rate), %d evictions, %d entries, %d bytes",
+                                 hits, misses, 100 * getHitRate(), evictions, entryCount, size);
+        } // end toString
+    } // end Statistics
+
+    /* A graph, held weakly and compared by identity. A lookup makes a temporary one for the graph
+     it is given, which equals the stored one as long as the graph is alive; once the graph is
+     collected, the stored one equals only itself, which is enough to remove it.*/
+    private static class Owner extends WeakReference<Object>
+    {
+        private final int hash;
+        private long version = Long.MIN_VALUE;//the version whose entries are stored
+        private final HashSet<Key> keys = new HashSet<>();//the entries of the graph
+
+        private Owner(Object owner, ReferenceQueue<Object> queue)
+        {
+            super(owner, queue);
+            hash = System.identityHashCode(owner);
+        } // end constructor
+
+        public boolean equals(Object other)
+        {
+            if (this == other)
+                return true;
+            if (!(other instanceof Owner))
+                return false;
+            Object owner = get();
+            return (owner != null) && (owner == ((Owner)other).get());
+        } // end equals
+
+        public int hashCode()
+        {
+            return hash;
+        } // end hashCode
+    } // end Owner
+
+    //Keys compare their owners by identity, since every graph has one stored Owner.
+    private static class Key
+    {
+        private final Owner owner;
+        private final long version;
+        private final String metric;
+
+        private Key(Owner owner, long version, String metric)
+        {
+            this.owner = owner;
+            this.version = version;
+            this.metric = metric;
+        } // end constructor
+
+        public boolean equals(Object other)
+        {
+            if (!(other instanceof Key))
+                return false;
+            Key key = (Key)other;
+            return (owner == key.owner) && (version == key.version) && metric.equals(key.metric);
+        } // end equals
+
+        public int hashCode()
+        {
+            return Objects.hash(owner.hash, version, metric);
+        } // end hashCode
+    } // end Key
+
+    private static class Entry
+    {
+        private final Object value;
+        private final long bytes;
+
+        private Entry(Object value, long bytes)
+        {
+            this.value = value;
+            this.bytes = bytes;
+        } // end constructor
+    } // end Entry
+}
@@ -1,9 +1,19 @@
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 
 public class CentralityDriver {
     private static UndirectedGraph<Integer> readFileIntoGraph(String pathname){
+        try{
+            if(GraphSnapshot.isSnapshot(Paths.get(pathname)))
+                return readSnapshotIntoGraph(Paths.get(pathname));
+        }
+        catch(IOException e){
+            //a missing file is reported below like for any edge list
+        }
         UndirectedGraph<Integer> graph = new UndirectedGraph<>();
         File textFile = new File(pathname);
         Scanner sc;
@@ -37,13 +47,58 @@ public class CentralityDriver {
         }
         return graph;
     }
+    //Reads the edges straight from the mapped snapshot, without parsing any text. Neighbors come
+    //sorted by id rather than in file order, so where pairs have several shortest paths the one
+    //getAllShortestPaths keeps, and with it getHighestBetweenness, can differ from the text file's.
+    private static UndirectedGraph<Integer> readSnapshotIntoGraph(Path path){
+        UndirectedGraph<Integer> graph = new UndirectedGraph<>();
+        try{
+            GraphSnapshot snapshot = GraphSnapshot.map(path);
+            if(snapshot.getLabelType() != Integer.class){
+                System.out.println("ERROR: Snapshot \"" + path + "\" has " + snapshot.getLabelType().getSimpleName() + " labels, expected integers.");
+                return null;
+            }
+            for(int id = 0; id < snapshot.getNumberOfVertices(); id++)
+                graph.addVertex((Integer)snapshot.getLabel(id));
+            for(int id = 0; id < snapshot.getNumberOfVertices(); id++){
+                for(int i = 0; i < snapshot.getDegree(id); i++){
+                    int neighbor = snapshot.getNeighbor(id, i);
+                    if(id < neighbor)//each edge is stored in both of its vertices
+                        graph.addEdge((Integer)snapshot.getLabel(id), (Integer)snapshot.getLabel(neighbor),
+                                      snapshot.isWeighted() ? snapshot.getWeight(id, i) : 1);
+                }
+            }
+        }
+        catch(IOException e){
+            System.out.println("ERROR: Snapshot \"" + path + "\" could not be read: " + e.getMessage());
+            return null;
+        }
+        return graph;
+    }
     private static void printBetweennessAndCloseness(UndirectedGraph<Integer> graph,HashMap<LinkedHashSet<Integer>,Integer> allShortestPaths,String graphName){
         double[] highestBetweennessValues = graph.getHighestBetweenness(allShortestPaths);
         double[] highestClosenessValues = graph.getHighestCloseness(allShortestPaths);
         System.out.println(graphName + " - " + "The Highest Node for Betweenness " + (int)highestBetweennessValues[0] + " and the value " + String.format("%.3f",highestBetweennessValues[1]) + "\n" +
                            graphName + " - " + "The Highest Node for Closeness " + (int)highestClosenessValues[0] + " and the value " + String.format("%.3f",highestClosenessValues[1]));
     }
-    public static void main(String[] args){
+    public static void main(String[] args) throws Exception{
+        //--graph prints the two metrics of one edge list or snapshot file
+        if((args.length == 2) && args[0].equals("--graph")){
+            UndirectedGraph<Integer> graph = readFileIntoGraph(args[1]);
+            if(graph != null)
+                printBetweennessAndCloseness(graph, graph.getAllShortestPaths(), Paths.get(args[1]).getFileName().toString());
+            return;
+        }
+        //--write-snapshot turns an edge list into a snapshot that later runs map instead of parsing
+        if((args.length == 3) && args[0].equals("--write-snapshot")){
+            GraphSnapshot.write(EdgeListLoader.load(args[1]), Paths.get(args[2]));
+            return;
+        }
+        // with other arguments the driver runs a manifest of graphs, see BatchRunner
+        if(args.length > 0){
+            BatchRunner.main(args);
+            return;
+        }
         String FIRST_PATH_NAME = "src/karate_club_network.txt";
         String SECOND_PATH_NAME = "src/facebook_social_network.txt";
 
@@ -0,0 +1,236 @@
+import java.nio.DoubleBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/** The centrality score of every vertex of a graph, kept in a primitive vector indexed by vertex
+ id. Scores can be read by id or by label, ranked, or narrowed to the k best vertices with a
+ bounded heap that never sorts the whole vector. Higher scores rank first; equal scores are
+ ranked by vertex id so that rankings are repeatable. Labels can be of any type.*/
+public class CentralityScores<T> implements Iterable<CentralityScores.Entry<T>>
+{
+    private final CompactGraph<T> graph;
+    private final double[] scores;
+
+    /** @param graph the graph the scores were computed on
+     @param scores the score of every vertex, indexed by vertex id; the array is not copied */
+    public CentralityScores(CompactGraph<T> graph, double[] scores)
+    {
+        if (scores.length != graph.getNumberOfVertices())
+            throw new IllegalArgumentException("Expected " + graph.getNumberOfVertices() + " scores, got " + scores.length);
+        this.graph = graph;
+        this.scores = scores;
+    } // end constructor
+
+    /** Gets the number of scored vertices.
+     @return the number of vertices */
+    public int size()
+    {
+        return scores.length;
+    } // end size
+
+    /** Gets the score of a vertex by id.
+     @param id the id of the vertex
+     @return the score of the vertex */
+    public double getScore(int id)
+    {
+        return scores[id];
+    } // end getScore
+
+    /** Gets the score of a vertex by label.
+     @param label an object that labels a vertex
+     @return the score of the vertex
+     @throws IllegalArgumentException if there is no such vertex */
+    public double getScore(T label)
+    {
+        int id = graph.getId(label);
+        if (id < 0)
+            throw new IllegalArgumentException("No vertex labeled " + label);
+        return scores[id];
+    } // end getScore
+
+    /** Gets the label of a vertex.
+     @param id the id of the vertex
+     @return the object that labels the vertex */
+    public T getLabel(int id)
+    {
+        return graph.getLabel(id);
+    } // end getLabel
+
+    /** Gets a copy of the whole score vector.
+     @return the scores indexed by vertex id */
+    public double[] getScores()
+    {
+        return scores.clone();
+    } // end getScores
+
+    /** Gets the whole score vector as a read-only view, for reading many scores without a copy.
+     The scores can be shared with other CentralityScores, such as cached results.
+     @return the scores indexed by vertex id, positioned at 0 */
+    public DoubleBuffer getScoreBuffer()
+    {
+        return DoubleBuffer.wrap(scores).asReadOnlyBuffer();
+    } // end getScoreBuffer
+
+    /** Gets the graph the scores belong to.
+     @return the graph */
+    public CompactGraph<T> getGraph()
+    {
+        return graph;
+    } // end getGraph
+
+    /** Gets the vertex with the highest score.
+     @return the best entry, or null if there are no vertices */
+    public Entry<T> getHighest()
+    {
+        if (scores.length == 0)
+            return null;
+        Instrumentation.PhaseTimer timer = Instrumentation.startPhase(Instrumentation.Phase.SELECT, "CentralityScores.getHighest");
+        int best = 0;
+        for (int id = 1; id < scores.length; id++)
+        {
+            if (ranksBefore(id, best))
+                best = id;
+        } // end for
+        timer.finish(scores.length, 0);
+        return new Entry<>(graph.getLabel(best), best, scores[best]);
+    } // end getHighest
+
+    /** Selects the k vertices with the highest scores in O(n log k) time and O(k) space.
+     @param k the number of vertices wanted
+     @return at most k entries, best first */
+    public List<Entry<T>> topK(int k)
+    {
+        if (k < 0)
+            throw new IllegalArgumentException("k must not be negative: " + k);
+        k = Math.min(k, scores.length);
+        Instrumentation.PhaseTimer timer = Instrumentation.startPhase(Instrumentation.Phase.SELECT, "CentralityScores.topK");
+        //min-heap of ids where the root is the worst of the best k seen so far
+        int[] heap = new int[k];
+        int heapSize = 0;
+        for (int id = 0; (id < scores.length) && (k > 0); id++)
+        {
+            if (heapSize < k)
+            {
+                heap[heapSize] = id;
+                siftUp(heap, heapSize++);
+            }
+            else if (ranksBefore(id, heap[0]))
+            {
+                heap[0] = id;
+                siftDown(heap, heapSize);
+            } // end if
+        } // end for
+        //pop the worst one each time and fill the result from the back
+        Entry<T>[] ranked = newEntryArray(heapSize);
+        while (heapSize > 0)
+        {
+            int id = heap[0];
+            heap[0] = heap[--heapSize];
+            siftDown(heap, heapSize);
+            ranked[heapSize] = new Entry<>(graph.getLabel(id), id, scores[id]);
+        } // end while
+        List<Entry<T>> result = new ArrayList<>(ranked.length);
+        for (Entry<T> entry : ranked)
+            result.add(entry);
+        timer.finish(scores.length, 0);
+        return result;
+    } // end topK
+
+    /** Ranks every vertex.
+     @return all entries, best first */
+    public List<Entry<T>> ranked()
+    {
+        return topK(scores.length);
+    } // end ranked
+
+    /** Iterates over all vertices from the best to the worst score.
+     @return an iterator of ranked entries */
+    public Iterator<Entry<T>> iterator()
+    {
+        return ranked().iterator();
+    } // end iterator
+
+    //true if vertex first ranks strictly before vertex second
+    private boolean ranksBefore(int first, int second)
+    {
+        return (scores[first] > scores[second]) || ((scores[first] == scores[second]) && (first < second));
+    } // end ranksBefore
+
+    private void siftUp(int[] heap, int position)
+    {
+        int id = heap[position];
+        while (position > 0)
+        {
+            int parent = (position - 1) >>> 1;
+            if (!ranksBefore(heap[parent], id))
+                break;
+            heap[position] = heap[parent];
+            position = parent;
+        } // end while
+        heap[position] = id;
+    } // end siftUp
+
+    private void siftDown(int[] heap, int heapSize)
+    {
+        if (heapSize == 0)
+            return;
+        int id = heap[0];
+        int position = 0;
+        while (2 * position + 1 < heapSize)
+        {
+            int child = 2 * position + 1;
+            if ((child + 1 < heapSize) && ranksBefore(heap[child], heap[child + 1]))
+                child++;//the worse of the two children
+            if (!ranksBefore(id, heap[child]))
+                break;
+            heap[position] = heap[child];
+            position = child;
+        } // end while
+        heap[position] = id;
+    } // end siftDown
+
+    @SuppressWarnings("unchecked")
+    private static <T> Entry<T>[] newEntryArray(int length)
+    {
+        return (Entry<T>[])new Entry<?>[length];
+    } // end newEntryArray
+
+    /** One vertex together with its score. */
+    public static class Entry<T>
+    {
+        private final T label;
+        private final int id;
+        private final double score;
+
+        private Entry(T label, int id, double score)
+        {
+            this.label = label;
+            this.id = id;
+            this.score = score;
+        } // end constructor
+
+        /** @return the object that labels the vertex */
+        public T getLabel()
+        {
+            return label;
+        } // end getLabel
+
+        /** @return the id of the vertex */
+        public int getId()
+        {
+            return id;
+        } // end getId
+
+        /** @return the score of the vertex */
+        public double getScore()
+        {
+            return score;
+        } // end getScore
+
+        public String toString()
+        {
+            return label + "=" + score;
+        } // end toString
+    } // end Entry
+}
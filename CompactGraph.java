@@ -0,0 +1,608 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.ForkJoinPool;
+
+/** An immutable undirected graph stored in compressed sparse row form.
+ Vertices are numbered with dense ids 0..n-1 in the order they were added. The neighbors of
+ vertex v are targets[offsets[v]] .. targets[offsets[v+1]-1], sorted by id, so every edge costs
+ two ints and a traversal walks plain arrays instead of edge objects.
+ A graph whose edges carry weights other than 1 also keeps a weights array aligned with targets.
+ Its closeness, betweenness and cheapest paths then follow the total weight of a path, found with
+ Dijkstra's algorithm, instead of the number of edges. The approximate engines always count edges.
+ A CompactGraph is built with a Builder or frozen from an UndirectedGraph with toCompactGraph().*/
+public class CompactGraph<T>
+{
+    //MultiSourceBfs runs every batch for as many levels as its deepest lane needs, so on long paths
+    //and grids a search per source is cheaper once a probe search goes deeper than this
+    static final int MULTI_SOURCE_MAX_DEPTH = 64;
+
+    private final Object[] labels;
+    private final LabelIndex<T> ids;
+    private final int[] offsets;
+    private final int[] targets;
+    private final double[] weights;//weight of each arc, or null if every edge weighs 1
+    private final ThreadLocal<TraversalContext> contexts = ThreadLocal.withInitial(TraversalContext::new);
+    private final ThreadLocal<IndexedMinHeap> heaps = ThreadLocal.withInitial(IndexedMinHeap::new);
+    //getDistances borrows a search per call, so the searches die with the graph, not with the threads that ran them
+    private final ScratchPool<DirectionOptimizingBfs> distanceSearches = new ScratchPool<>(() -> new DirectionOptimizingBfs(this));
+
+    private CompactGraph(Object[] labels, LabelIndex<T> ids, int[] offsets, int[] targets, double[] weights)
+    {
+        this.labels = labels;
+        this.ids = ids;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+    } // end constructor
+
+    //Wraps CSR arrays that are already sorted and free of duplicates, such as a snapshot's.
+    static <T> CompactGraph<T> fromArrays(Object[] labels, int[] offsets, int[] targets)
+    {
+        return fromArrays(labels, offsets, targets, null);
+    } // end fromArrays
+
+    static <T> CompactGraph<T> fromArrays(Object[] labels, int[] offsets, int[] targets, double[] weights)
+    {
+        return new CompactGraph<>(labels, new LabelIndex<T>(labels), offsets, targets, weights);
+    } // end fromArrays
+
+    /** Gets the number of vertices in the graph.
+     @return the number of vertices in the graph */
+    public int getNumberOfVertices()
+    {
+        return labels.length;
+    } // end getNumberOfVertices
+
+    /** Gets the number of edges in the graph.
+     @return the number of edges in the graph */
+    public int getNumberOfEdges()
+    {
+        return targets.length / 2;
+    } // end getNumberOfEdges
+
+    /** Gets the label of a vertex.
+     @param id the id of the vertex
+     @return the object that labels the vertex */
+    @SuppressWarnings("unchecked")
+    public T getLabel(int id)
+    {
+        return (T)labels[id];
+    } // end getLabel
+
+    /** Gets the id of a vertex.
+     @param label an object that labels a vertex
+     @return the id of the vertex, or -1 if there is no such vertex */
+    public int getId(T label)
+    {
+        return ids.getId(label);
+    } // end getId
+
+    /** Gets the number of neighbors of a vertex.
+     @param id the id of the vertex
+     @return the degree of the vertex */
+    public int getDegree(int id)
+    {
+        return offsets[id + 1] - offsets[id];
+    } // end getDegree
+
+    /** Renumbers the vertices so that neighbors get close ids, which makes traversals read
+     memory more sequentially. Labels move with their vertices, so scores read by label do not change.
+     @param strategy the way to renumber the vertices
+     @return a graph with the same labels and edges, numbered by VertexOrdering */
+    public CompactGraph<T> reorder(VertexOrdering.Strategy strategy)
+    {
+        return VertexOrdering.compute(this, strategy).apply(this);
+    } // end reorder
+
+    //The CSR arrays are shared with the algorithms of this package instead of being copied.
+    int[] getOffsets()
+    {
+        return offsets;
+    } // end getOffsets
+
+    int[] getTargets()
+    {
+        return targets;
+    } // end getTargets
+
+    //Aligned with getTargets(), or null if the graph is unweighted.
+    double[] getWeights()
+    {
+        return weights;
+    } // end getWeights
+
+    /** Sees whether the edges of the graph carry weights.
+     @return true if some edge weighs something other than 1 */
+    public boolean isWeighted()
+    {
+        return weights != null;
+    } // end isWeighted
+
+    /** Sees whether an edge exists between two given vertices.
+     @param begin an object that labels one end of the edge
+     @param end an object that labels the other end of the edge
+     @return true if an edge exists */
+    public boolean hasEdge(T begin, T end)
+    {
+        int beginId = getId(begin);
+        int endId = getId(end);
+        return (beginId >= 0) && (endId >= 0) &&
+               (Arrays.binarySearch(targets, offsets[beginId], offsets[beginId + 1], endId) >= 0);
+    } // end hasEdge
+
+    /** Calculates the betweenness of every vertex with Brandes' algorithm. An unweighted graph
+     with several components or with vertices of degree 1 goes through ComponentDecomposition,
+     which prunes the pendant trees and searches from the remaining core of each component only.
+     @return betweenness values indexed by vertex id */
+    public double[] getBetweennessScores()
+    {
+        ComponentDecomposition decomposition = getDecomposition();
+        if ((decomposition != null) && decomposition.splitsBetweenness())
+            return decomposition.computeBetweenness();
+        return new AllSourcesCentrality(this).compute().getBetweenness();
+    } // end getBetweennessScores
+
+    /** Calculates the betweenness of every vertex with the sources split across a pool.
+     @param pool the pool that runs the searches
+     @return betweenness values indexed by vertex id, identical to getBetweennessScores() */
+    public double[] getBetweennessScores(ForkJoinPool pool)
+    {
+        ComponentDecomposition decomposition = getDecomposition();
+        if ((decomposition != null) && decomposition.splitsBetweenness())
+            return decomposition.computeBetweenness(pool);
+        return new AllSourcesCentrality(this).compute(pool).getBetweenness();
+    } // end getBetweennessScores
+
+    //The components of an unweighted graph, found in O(V+E) before an O(V*E) computation; null if weighted.
+    private ComponentDecomposition getDecomposition()
+    {
+        return (weights == null) ? new ComponentDecomposition(this) : null;
+    } // end getDecomposition
+
+    /** Calculates the closeness of every vertex as sum(1/d) over the vertices it can reach,
+     which is the same definition UndirectedGraph.getHighestCloseness uses. An unweighted graph is
+     searched by MultiSourceBfs, many sources per pass, unless it has more than
+     MULTI_SOURCE_MAX_DEPTH levels; then every source gets its own DirectionOptimizingBfs. An
+     unweighted graph with several components is split by ComponentDecomposition first, which
+     makes the same choice for each component. In a weighted graph d is the cost of the cheapest path.
+     @return closeness values indexed by vertex id */
+    public double[] getClosenessScores()
+    {
+        ComponentDecomposition decomposition = getDecomposition();
+        if ((decomposition != null) && decomposition.splitsCloseness())
+            return decomposition.computeCloseness();
+        if ((weights == null) && DirectionOptimizingBfs.isDeeperThan(this, MULTI_SOURCE_MAX_DEPTH))
+            return DirectionOptimizingBfs.computeCloseness(this);
+        if (weights == null)
+            return new MultiSourceBfs(this, getClosenessLanes()).computeCloseness();
+        double[] closeness = new double[labels.length];
+        TraversalContext context = contexts.get();
+        for (int source = 0; source < labels.length; source++)
+        {
+            searchWeighted(source, context, -1);
+            double sum = 0;
+            for (int i = 1; i < context.getVisitedCount(); i++)
+                sum += 1.0 / context.getCost(context.getVisited(i));
+            closeness[source] = sum;
+        } // end for
+        return closeness;
+    } // end getClosenessScores
+
+    /** Calculates the closeness of every vertex with the sources split across a pool.
+     @param pool the pool that runs the searches
+     @return closeness values indexed by vertex id, identical to getClosenessScores() */
+    public double[] getClosenessScores(ForkJoinPool pool)
+    {
+        ComponentDecomposition decomposition = getDecomposition();
+        if ((decomposition != null) && decomposition.splitsCloseness())
+            return decomposition.computeCloseness(pool);
+        if ((weights == null) && DirectionOptimizingBfs.isDeeperThan(this, MULTI_SOURCE_MAX_DEPTH))
+            return DirectionOptimizingBfs.computeCloseness(this, pool);
+        if (weights == null)
+            return new MultiSourceBfs(this, getClosenessLanes()).computeCloseness(pool);
+        return new AllSourcesCentrality(this).compute(pool).getCloseness();
+    } // end getClosenessScores
+
+    //256 sources per pass read the adjacency least often, but every thread then needs 3*lanes/8 + 16 bytes per vertex
+    //for the three lane masks and four int arrays of MultiSourceBfs.Masks, 112 bytes at 256 lanes and 40 at 64.
+    //A graph of at most 64 vertices fits in one pass of 64 lanes, which gives the same sums.
+    int getClosenessLanes()
+    {
+        return ((labels.length > 64) && (labels.length <= 1 << 20)) ? 256 : 64;
+    } // end getClosenessLanes
+
+    /** Estimates the closeness of every vertex with HyperBall, in a few passes over the edges
+     instead of one search per vertex.
+     @param registerCount registers per HyperLogLog counter, a power of two from 16 to 65536;
+     more registers give smaller errors and use more memory
+     @param pool the pool that runs each pass
+     @return estimated closeness values indexed by vertex id */
+    public double[] getApproximateClosenessScores(int registerCount, ForkJoinPool pool)
+    {
+        return new HyperBall(this, registerCount).compute(pool);
+    } // end getApproximateClosenessScores
+
+    /** Finds the number of edges on a shortest path from a vertex to every other vertex, with a
+     direction optimizing breadth first search.
+     @param origin an object that labels the origin vertex
+     @return distances indexed by vertex id, -1 for the vertices that cannot be reached */
+    public int[] getDistances(T origin)
+    {
+        DirectionOptimizingBfs search = distanceSearches.take();
+        search.search(ids.getId(origin));
+        int[] distances = new int[labels.length];
+        for (int v = 0; v < distances.length; v++)
+            distances[v] = search.getDistance(v);
+        distanceSearches.give(search);
+        return distances;
+    } // end getDistances
+
+    /** Finds a shortest path between two vertices. The search stops as soon as it reaches end and
+     follows predecessors back to begin, which a direction optimizing search neither offers nor
+     keeps in first-discovered order, so this uses the plain search; PathQueryEngine answers
+     repeated queries faster.
+     @param begin an object that labels the origin vertex of the path
+     @param end an object that labels the end vertex of the path
+     @param path a set that receives the labels on the path, from end back to begin
+     @return the length of the path, or 0 if end cannot be reached */
+    public int getShortestPath(T begin, T end, LinkedHashSet<T> path)
+    {
+        int beginId = ids.getId(begin);
+        int endId = ids.getId(end);
+        TraversalContext context = contexts.get();
+        search(beginId, context, endId);
+        if (!context.isVisited(endId))
+        {
+            //unreachable, the path only holds the end vertex like UndirectedGraph's version
+            path.add(end);
+            return 0;
+        } // end if
+        for (int vertex = endId; vertex >= 0; vertex = context.getPredecessor(vertex))
+            path.add(getLabel(vertex));
+        return context.getDistance(endId);
+    } // end getShortestPath
+
+    /** Finds a cheapest path between two vertices with Dijkstra's algorithm, where the cost of a
+     path is the sum of its edge weights. In an unweighted graph it is a shortest path.
+     @param begin an object that labels the origin vertex of the path
+     @param end an object that labels the end vertex of the path
+     @param path a set that receives the labels on the path, from end back to begin
+     @return the cost of the path, or Double.POSITIVE_INFINITY if end cannot be reached */
+    public double getCheapestPath(T begin, T end, LinkedHashSet<T> path)
+    {
+        int beginId = ids.getId(begin);
+        int endId = ids.getId(end);
+        TraversalContext context = contexts.get();
+        if (weights == null)
+            search(beginId, context, endId);
+        else
+            searchWeighted(beginId, context, endId);
+        if (!context.isVisited(endId))
+        {
+            path.add(end);
+            return Double.POSITIVE_INFINITY;
+        } // end if
+        for (int vertex = endId; vertex >= 0; vertex = context.getPredecessor(vertex))
+            path.add(getLabel(vertex));
+        return (weights == null) ? context.getDistance(endId) : context.getCost(endId);
+    } // end getCheapestPath
+
+    /** Performs a breadth first traversal from a given vertex. The order within each level is the
+     order in which the plain search discovers the vertices; a bottom-up step would list them by
+     id instead, so getDistances is the direction optimizing variant.
+     @param origin an object that labels the origin vertex of the traversal
+     @return a queue of vertex labels in the order they were visited */
+    public Queue<T> getBreadthFirstTraversal(T origin)
+    {
+        TraversalContext context = contexts.get();
+        search(ids.getId(origin), context, -1);
+        Queue<T> traversalOrder = new LinkedList<>();
+        for (int i = 0; i < context.getVisitedCount(); i++)
+            traversalOrder.add(getLabel(context.getVisited(i)));
+        return traversalOrder;
+    } // end getBreadthFirstTraversal
+
+    /** Finds one shortest path for every unordered pair of connected vertices, in the same format
+     as UndirectedGraph.getAllShortestPaths so that the results can be passed to its
+     getHighestBetweenness and getHighestCloseness methods. Every path is read off the
+     predecessors of the plain search, so it is the same path UndirectedGraph stores; a direction
+     optimizing search records no predecessors, and the time goes into building the map anyway.
+     @return all of the shortest paths as keys and their lengths as values */
+    public HashMap<LinkedHashSet<T>,Integer> getAllShortestPaths()
+    {
+        HashMap<LinkedHashSet<T>,Integer> paths = new HashMap<>();
+        TraversalContext context = contexts.get();
+        Instrumentation.Run run = Instrumentation.startRun("CompactGraph.getAllShortestPaths", this, labels.length);
+        Instrumentation.Batch batch = null;
+        int batchSize = Math.max(1, (labels.length + 255) / 256);//about 256 progress reports
+        for (int source = 0; source < labels.length; source++)
+        {
+            if ((run != null) && (source % batchSize == 0))
+                batch = run.startBatch(source, Math.min(labels.length, source + batchSize));
+            search(source, context, -1);
+            for (int i = 1; i < context.getVisitedCount(); i++)
+            {
+                int vertex = context.getVisited(i);
+                //each pair is stored once, from the source with the smaller id
+                if (vertex > source)
+                {
+                    LinkedHashSet<T> path = new LinkedHashSet<>();
+                    for (int next = vertex; next >= 0; next = context.getPredecessor(next))
+                        path.add(getLabel(next));
+                    paths.put(path, context.getDistance(vertex));
+                } // end if
+            } // end for
+            if ((batch != null) && (((source + 1) % batchSize == 0) || (source + 1 == labels.length)))
+                batch.finish();
+        } // end for
+        if (run != null)
+            run.finish();
+        return paths;
+    } // end getAllShortestPaths
+
+    /* Breadth first search from source that records distances and predecessors in context.
+     The search stops early once target has been reached; pass -1 to search the whole component.
+     It stays top-down: its callers need predecessors in discovery order or stop at a target,
+     while the searches that only need distances use DirectionOptimizingBfs.*/
+    private void search(int source, TraversalContext context, int target)
+    {
+        context.reset(labels.length);
+        context.visit(source, 0, -1);
+        while (context.hasQueued() && ((target < 0) || !context.isVisited(target)))
+        {
+            int vertex = context.dequeue();
+            int nextDistance = context.getDistance(vertex) + 1;
+            for (int i = offsets[vertex]; i < offsets[vertex + 1]; i++)
+            {
+                int neighbor = targets[i];
+                if (!context.isVisited(neighbor))
+                    context.visit(neighbor, nextDistance, vertex);
+            } // end for
+        } // end while
+    } // end search
+
+    /* Dijkstra search from source. Vertices are visited in order of cost, so getCost gives the
+     cost of the cheapest path and getDistance the number of edges on it. The search stops once
+     target is visited; pass -1 to search the whole component.*/
+    private void searchWeighted(int source, TraversalContext context, int target)
+    {
+        context.reset(labels.length);
+        IndexedMinHeap heap = heaps.get();
+        heap.reset(labels.length);
+        context.label(source, 0, -1);
+        heap.offer(source, 0);
+        while (!heap.isEmpty())
+        {
+            int vertex = heap.removeMin();
+            int predecessor = context.getPredecessor(vertex);
+            context.visit(vertex, (predecessor < 0) ? 0 : context.getDistance(predecessor) + 1, predecessor);
+            if (vertex == target)
+                break;
+            double cost = context.getCost(vertex);
+            for (int i = offsets[vertex]; i < offsets[vertex + 1]; i++)
+            {
+                int neighbor = targets[i];
+                if (!context.isVisited(neighbor) && heap.offer(neighbor, cost + weights[i]))
+                    context.label(neighbor, cost + weights[i], vertex);
+            } // end for
+        } // end while
+    } // end searchWeighted
+
+    /** Collects vertices and edges and freezes them into a CompactGraph.
+     Duplicate edges and self loops are dropped when the graph is built; of duplicate edges with
+     different weights, the one added first is kept, as UndirectedGraph.addEdge and
+     ConcurrentGraph.addEdge keep the first and reject the rest.*/
+    public static class Builder<T>
+    {
+        private final LabelIndex<T> labels;
+        private int[] edgeEnds;//pairs of vertex ids
+        private double[] edgeWeights;//null until an edge weighs something other than 1
+        private int edgeCount;
+
+        public Builder()
+        {
+            this(8);
+        } // end default constructor
+
+        /** @param expectedEdges the number of edges to make room for up front */
+        public Builder(int expectedEdges)
+        {
+            this(new LabelIndex<T>(), expectedEdges);
+        } // end constructor
+
+        //Shares an index with a loader that interns primitive labels itself and adds edges by id.
+        Builder(LabelIndex<T> labels, int expectedEdges)
+        {
+            this.labels = labels;
+            edgeEnds = new int[2 * Math.max(8, expectedEdges)];
+            edgeCount = 0;
+        } // end constructor
+
+        /** Adds a vertex unless it is already present.
+         @param label an object that labels the vertex
+         @return the id of the vertex */
+        public int addVertex(T label)
+        {
+            return labels.add(label);
+        } // end addVertex
+
+        /** Adds an edge, adding its end vertices first if they are not present.
+         @param begin an object that labels one end of the edge
+         @param end an object that labels the other end of the edge */
+        public void addEdge(T begin, T end)
+        {
+            addEdgeById(addVertex(begin), addVertex(end));
+        } // end addEdge
+
+        /** Adds an edge between two vertices that were already added.
+         @param beginId the id of one end of the edge
+         @param endId the id of the other end of the edge */
+        public void addEdgeById(int beginId, int endId)
+        {
+            addEdgeById(beginId, endId, 1);
+        } // end addEdgeById
+
+        /** Adds a weighted edge, adding its end vertices first if they are not present.
+         @param begin an object that labels one end of the edge
+         @param end an object that labels the other end of the edge
+         @param edgeWeight the weight of the edge, a positive number
+         @throws IllegalArgumentException if the weight is not a positive finite number */
+        public void addEdge(T begin, T end, double edgeWeight)
+        {
+            addEdgeById(addVertex(begin), addVertex(end), edgeWeight);
+        } // end addEdge
+
+        /** Adds a weighted edge between two vertices that were already added.
+         @param beginId the id of one end of the edge
+         @param endId the id of the other end of the edge
+         @param edgeWeight the weight of the edge, a positive number
+         @throws IllegalArgumentException if an id is unknown or the weight is not a positive finite number */
+        public void addEdgeById(int beginId, int endId, double edgeWeight)
+        {
+            if ((beginId < 0) || (beginId >= labels.size()) || (endId < 0) || (endId >= labels.size()))
+                throw new IllegalArgumentException("Unknown vertex id in edge " + beginId + " " + endId);
+            if (!(edgeWeight > 0) || Double.isInfinite(edgeWeight))
+                throw new IllegalArgumentException("Edge weights must be positive and finite: " + edgeWeight);
+            if (2 * edgeCount + 2 > edgeEnds.length)
+            {
+                edgeEnds = Arrays.copyOf(edgeEnds, 2 * edgeEnds.length);
+                if (edgeWeights != null)
+                    edgeWeights = Arrays.copyOf(edgeWeights, edgeEnds.length / 2);
+            } // end if
+            if ((edgeWeight != 1) && (edgeWeights == null))
+            {
+                edgeWeights = new double[edgeEnds.length / 2];
+                Arrays.fill(edgeWeights, 0, edgeCount, 1);
+            } // end if
+            edgeEnds[2 * edgeCount] = beginId;
+            edgeEnds[2 * edgeCount + 1] = endId;
+            if (edgeWeights != null)
+                edgeWeights[edgeCount] = edgeWeight;
+            edgeCount++;
+        } // end addEdgeById
+
+        /** Builds the graph from the vertices and edges added so far.
+         @return the new graph */
+        public CompactGraph<T> build()
+        {
+            int vertexCount = labels.size();
+            int[] offsets = new int[vertexCount + 1];
+            for (int i = 0; i < 2 * edgeCount; i += 2)
+            {
+                if (edgeEnds[i] != edgeEnds[i + 1])
+                {
+                    offsets[edgeEnds[i] + 1]++;
+                    offsets[edgeEnds[i + 1] + 1]++;
+                } // end if
+            } // end for
+            for (int v = 0; v < vertexCount; v++)
+                offsets[v + 1] += offsets[v];
+            int[] targets = new int[offsets[vertexCount]];
+            if (edgeWeights != null)
+                return buildWeighted(offsets, targets);
+            int[] position = Arrays.copyOf(offsets, vertexCount);
+            for (int i = 0; i < 2 * edgeCount; i += 2)
+            {
+                int begin = edgeEnds[i];
+                int end = edgeEnds[i + 1];
+                if (begin != end)
+                {
+                    targets[position[begin]++] = end;
+                    targets[position[end]++] = begin;
+                } // end if
+            } // end for
+            //sort every neighbor list and squeeze out the duplicates in place
+            int write = 0;
+            int start = 0;
+            for (int v = 0; v < vertexCount; v++)
+            {
+                int stop = offsets[v + 1];
+                Arrays.sort(targets, start, stop);
+                offsets[v] = write;
+                for (int i = start; i < stop; i++)
+                {
+                    if ((i == start) || (targets[i] != targets[i - 1]))
+                        targets[write++] = targets[i];
+                } // end for
+                start = stop;
+            } // end for
+            offsets[vertexCount] = write;
+            if (write < targets.length)
+                targets = Arrays.copyOf(targets, write);
+            return new CompactGraph<>(labels.toArray(), new LabelIndex<>(labels), offsets, targets, null);
+        } // end build
+
+        /* Fills the neighbor lists with their weights. The arcs are first bucketed by their end and
+         then scattered by their start in that order, which leaves every neighbor list sorted without
+         a comparison sort that would have to move the weights along with the targets.*/
+        private CompactGraph<T> buildWeighted(int[] offsets, int[] targets)
+        {
+            int vertexCount = labels.size();
+            int[] endOffsets = new int[vertexCount + 1];
+            for (int i = 0; i < 2 * edgeCount; i += 2)
+            {
+                if (edgeEnds[i] != edgeEnds[i + 1])
+                {
+                    endOffsets[edgeEnds[i] + 1]++;
+                    endOffsets[edgeEnds[i + 1] + 1]++;
+                } // end if
+            } // end for
+            for (int v = 0; v < vertexCount; v++)
+                endOffsets[v + 1] += endOffsets[v];
+            int[] arcStarts = new int[targets.length];
+            double[] arcWeights = new double[targets.length];
+            for (int i = 0; i < edgeCount; i++)
+            {
+                int begin = edgeEnds[2 * i];
+                int end = edgeEnds[2 * i + 1];
+                if (begin != end)
+                {
+                    arcStarts[endOffsets[end]] = begin;
+                    arcWeights[endOffsets[end]++] = edgeWeights[i];
+                    arcStarts[endOffsets[begin]] = end;
+                    arcWeights[endOffsets[begin]++] = edgeWeights[i];
+                } // end if
+            } // end for
+            //endOffsets[v] now is where the arcs ending at v stop
+            double[] weights = new double[targets.length];
+            int[] position = Arrays.copyOf(offsets, vertexCount);
+            for (int end = 0, i = 0; end < vertexCount; end++)
+            {
+                for (; i < endOffsets[end]; i++)
+                {
+                    int begin = arcStarts[i];
+                    targets[position[begin]] = end;
+                    weights[position[begin]++] = arcWeights[i];
+                } // end for
+            } // end for
+            //squeeze out the duplicates in place; both scatters keep the order the edges were added
+            //in, so the first copy of an edge is the first of its run in both neighbor lists
+            int write = 0;
+            int start = 0;
+            for (int v = 0; v < vertexCount; v++)
+            {
+                int stop = offsets[v + 1];
+                offsets[v] = write;
+                for (int i = start; i < stop; i++)
+                {
+                    if ((i == start) || (targets[i] != targets[write - 1]))
+                    {
+                        targets[write] = targets[i];
+                        weights[write++] = weights[i];
+                    } // end if
+                } // end for
+                start = stop;
+            } // end for
+            offsets[vertexCount] = write;
+            if (write < targets.length)
+            {
+                targets = Arrays.copyOf(targets, write);
+                weights = Arrays.copyOf(weights, write);
+            } // end if
+            return new CompactGraph<>(labels.toArray(), new LabelIndex<>(labels), offsets, targets, weights);
+        } // end buildWeighted
+    } // end Builder
+}
@@ -0,0 +1,567 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/** Splits an unweighted graph into its connected components so that closeness and betweenness
+ only search inside each component, and prunes degree-1 vertices before betweenness.
+ No shortest path crosses two components, so each component is an independent problem. The
+ components are solved largest first: on a pool the largest one starts right away and its
+ sources are split into blocks that idle threads steal, while the small ones fill the gaps.
+ Pruning follows Baglioni et al., "Fast exact computation of betweenness centrality in social
+ networks". Every vertex v stands for r(v) vertices, itself and the trees pruned into it. When a
+ leaf c is removed into its only neighbor p, every pair between the r(c) vertices of c and the
+ vertices of the component outside c and p goes through p, so p gains r(c)*(n - r(c) - r(p))
+ before r(p) grows by r(c). The remaining core is searched by Brandes' algorithm with every
+ target w counting r(w) times and every source s counting r(s) times, which gives the exact
+ betweenness of the unpruned graph while only the core vertices are used as sources.
+ Each component writes its own vertices only, and its blocks are merged along a fixed split
+ tree, so the results do not depend on the pool.
+ CompactGraph routes its exact closeness and betweenness of unweighted graphs through this class
+ whenever splitsCloseness or splitsBetweenness says there is something to gain, and the searches
+ report to Instrumentation as one "ComponentDecomposition" run per call.*/
+public class ComponentDecomposition
+{
+    //the sources of the graph are split into about this many blocks, as in AllSourcesCentrality
+    private static final int BLOCK_COUNT = 256;
+
+    private final CompactGraph<?> graph;
+    private final int[] offsets;
+    private final int[] targets;
+    private final int vertexCount;
+    private final int[] component;//component id of every vertex
+    private final int[] members;//vertices grouped by component, by increasing id within a component
+    private final int[] componentStarts;//the members of c are at componentStarts[c]..componentStarts[c+1]-1
+    private final int[] localId;//position of every vertex within its component
+    private final int blockSize;
+
+    /** Finds the connected components of a graph in O(V+E) time.
+     @param graph an unweighted graph */
+    public ComponentDecomposition(CompactGraph<?> graph)
+    {
+        if (graph.isWeighted())
+            throw new IllegalArgumentException("ComponentDecomposition counts edges and cannot use edge weights");
+        this.graph = graph;
+        offsets = graph.getOffsets();
+        targets = graph.getTargets();
+        vertexCount = graph.getNumberOfVertices();
+        component = new int[vertexCount];
+        members = new int[vertexCount];
+        localId = new int[vertexCount];
+        Arrays.fill(component, -1);
+        int[] starts = new int[vertexCount + 1];
+        int count = 0;
+        int tail = 0;
+        for (int root = 0; root < vertexCount; root++)
+        {
+            if (component[root] >= 0)
+                continue;
+            starts[count] = tail;
+            component[root] = count;
+            members[tail++] = root;
+            for (int head = starts[count]; head < tail; head++)
+            {
+                int vertex = members[head];
+                for (int j = offsets[vertex]; j < offsets[vertex + 1]; j++)
+                {
+                    if (component[targets[j]] < 0)
+                    {
+                        component[targets[j]] = count;
+                        members[tail++] = targets[j];
+                    } // end if
+                } // end for
+            } // end for
+            //sorted ids keep the adjacency lists of a component graph sorted
+            Arrays.sort(members, starts[count], tail);
+            for (int i = starts[count]; i < tail; i++)
+                localId[members[i]] = i - starts[count];
+            count++;
+        } // end for
+        starts[count] = tail;
+        componentStarts = Arrays.copyOf(starts, count + 1);
+        blockSize = Math.max(1, (vertexCount + BLOCK_COUNT - 1) / BLOCK_COUNT);
+    } // end constructor
+
+    /** Sees whether closeness gains from searching the components apart, which is the case when
+     there is more than one; a connected graph would only be copied.
+     @return true if the graph has more than one component */
+    public boolean splitsCloseness()
+    {
+        return getComponentCount() > 1;
+    } // end splitsCloseness
+
+    /** Sees whether betweenness gains from the decomposition, which is the case when there is
+     more than one component or some vertex has at most one neighbor and is pruned or skipped.
+     @return true if some vertex is not a source of the core searches */
+    public boolean splitsBetweenness()
+    {
+        if (getComponentCount() > 1)
+            return true;
+        for (int vertex = 0; vertex < vertexCount; vertex++)
+        {
+            if (offsets[vertex + 1] - offsets[vertex] <= 1)
+                return true;
+        } // end for
+        return false;
+    } // end splitsBetweenness
+
+    /** @return the number of connected components, isolated vertices included */
+    public int getComponentCount()
+    {
+        return componentStarts.length - 1;
+    } // end getComponentCount
+
+    /** Gets the component of a vertex. Components are numbered in order of their smallest vertex id.
+     @param vertex the id of a vertex
+     @return the id of the component that contains the vertex */
+    public int getComponent(int vertex)
+    {
+        return component[vertex];
+    } // end getComponent
+
+    /** @param componentId the id of a component
+     @return the number of vertices in the component */
+    public int getComponentSize(int componentId)
+    {
+        return componentStarts[componentId + 1] - componentStarts[componentId];
+    } // end getComponentSize
+
+    /** Gets the components in the order they are solved, largest first and by id among equals.
+     @return component ids */
+    public int[] getComponentsBySize()
+    {
+        Integer[] order = new Integer[getComponentCount()];
+        for (int c = 0; c < order.length; c++)
+            order[c] = c;
+        Arrays.sort(order, (first, second) -> (getComponentSize(first) != getComponentSize(second))
+                                              ? Integer.compare(getComponentSize(second), getComponentSize(first))
+                                              : Integer.compare(first, second));
+        int[] result = new int[order.length];
+        for (int c = 0; c < order.length; c++)
+            result[c] = order[c];
+        return result;
+    } // end getComponentsBySize
+
+    /** Computes the betweenness of every vertex on the calling thread.
+     @return betweenness values indexed by vertex id, the same as BrandesBetweenness gives up to
+     the order of the floating point additions */
+    public double[] computeBetweenness()
+    {
+        Pruning pruning = prune();
+        pruning.startRun();
+        for (int c : getComponentsBySize())
+        {
+            if (pruning.coreSize[c] > 1)
+                addCore(c, pruning, computeCoreRange(c, pruning, 0, pruning.coreSize[c]));
+        } // end for
+        return pruning.finish();
+    } // end computeBetweenness
+
+    /** Computes the betweenness of every vertex with the components and their sources split
+     across a pool.
+     @param pool the pool that runs the searches
+     @return betweenness values indexed by vertex id, identical to computeBetweenness() */
+    public double[] computeBetweenness(ForkJoinPool pool)
+    {
+        Pruning pruning = prune();
+        pruning.startRun();
+        List<RecursiveAction> tasks = new ArrayList<>();
+        for (int c : getComponentsBySize())
+        {
+            if (pruning.coreSize[c] > 1)
+                tasks.add(new ComponentAction(() -> addCore(c, pruning, new CoreTask(c, pruning, 0, pruning.coreSize[c]).invoke())));
+        } // end for
+        pool.invoke(new ComponentAction(() -> RecursiveAction.invokeAll(tasks)));
+        return pruning.finish();
+    } // end computeBetweenness
+
+    /** Computes the closeness of every vertex in sum(1/d) form on the calling thread.
+     @return closeness values indexed by vertex id, the same as CompactGraph.getClosenessScores() gives up
+     to the order of the floating point additions */
+    public double[] computeCloseness()
+    {
+        double[] closeness = new double[vertexCount];
+        Instrumentation.Run run = startClosenessRun();
+        long[] componentEdges = (run == null) ? null : countComponentEdges();
+        for (int c : getComponentsBySize())
+        {
+            if (getComponentSize(c) > 1)
+            {
+                Instrumentation.Batch batch = (run == null) ? null : run.startBatch(componentStarts[c], componentStarts[c + 1]);
+                CompactGraph<Object> componentGraph = createComponentGraph(c);
+                double[] local = DirectionOptimizingBfs.isDeeperThan(componentGraph, CompactGraph.MULTI_SOURCE_MAX_DEPTH)
+                                 ? DirectionOptimizingBfs.computeUnreportedCloseness(componentGraph)
+                                 : new MultiSourceBfs(componentGraph, componentGraph.getClosenessLanes()).computeUnreportedCloseness();
+                addCloseness(c, local, closeness);
+                if (batch != null)
+                    batch.finish(getComponentSize(c) * componentEdges[c]);
+            } // end if
+        } // end for
+        if (run != null)
+            run.finish();
+        return closeness;
+    } // end computeCloseness
+
+    /** Computes the closeness of every vertex with the components split across a pool.
+     @param pool the pool that runs the searches
+     @return closeness values indexed by vertex id, identical to computeCloseness() */
+    public double[] computeCloseness(ForkJoinPool pool)
+    {
+        double[] closeness = new double[vertexCount];
+        Instrumentation.Run run = startClosenessRun();
+        long[] componentEdges = (run == null) ? null : countComponentEdges();
+        List<RecursiveAction> tasks = new ArrayList<>();
+        for (int c : getComponentsBySize())
+        {
+            if (getComponentSize(c) > 1)
+            {
+                tasks.add(new ComponentAction(() ->
+                {
+                    //invoke runs the component on this thread, so the batch is finished where it started
+                    Instrumentation.Batch batch = (run == null) ? null : run.startBatch(componentStarts[c], componentStarts[c + 1]);
+                    addCloseness(c, newClosenessTask(createComponentGraph(c)).invoke(), closeness);
+                    if (batch != null)
+                        batch.finish(getComponentSize(c) * componentEdges[c]);
+                }));
+            } // end if
+        } // end for
+        pool.invoke(new ComponentAction(() -> RecursiveAction.invokeAll(tasks)));
+        if (run != null)
+            run.finish();
+        return closeness;
+    } // end computeCloseness
+
+    //The sources of closeness are the vertices with a neighbor; a lone vertex needs no search.
+    private Instrumentation.Run startClosenessRun()
+    {
+        if (!Instrumentation.isEnabled())
+            return null;
+        int sources = 0;
+        for (int c = 0; c < getComponentCount(); c++)
+        {
+            if (getComponentSize(c) > 1)
+                sources += getComponentSize(c);
+        } // end for
+        return Instrumentation.startRun("ComponentDecomposition", null, sources);
+    } // end startClosenessRun
+
+    //The adjacency entries of every component, which a search from any of its vertices reads.
+    private long[] countComponentEdges()
+    {
+        long[] edges = new long[getComponentCount()];
+        for (int vertex = 0; vertex < vertexCount; vertex++)
+            edges[component[vertex]] += offsets[vertex + 1] - offsets[vertex];
+        return edges;
+    } // end countComponentEdges
+
+    //The engine CompactGraph.getClosenessScores would pick, unreported, for one component graph.
+    private static RecursiveTask<double[]> newClosenessTask(CompactGraph<Object> componentGraph)
+    {
+        if (DirectionOptimizingBfs.isDeeperThan(componentGraph, CompactGraph.MULTI_SOURCE_MAX_DEPTH))
+            return DirectionOptimizingBfs.newClosenessTask(componentGraph, null);
+        return new MultiSourceBfs(componentGraph, componentGraph.getClosenessLanes()).newClosenessTask();
+    } // end newClosenessTask
+
+    //A component alone, so the batches and levels of its searches never scan other components.
+    private CompactGraph<Object> createComponentGraph(int componentId)
+    {
+        int first = componentStarts[componentId];
+        int size = getComponentSize(componentId);
+        Object[] labels = new Object[size];
+        int[] localOffsets = new int[size + 1];
+        for (int i = 0; i < size; i++)
+        {
+            int vertex = members[first + i];
+            labels[i] = graph.getLabel(vertex);
+            localOffsets[i + 1] = localOffsets[i] + offsets[vertex + 1] - offsets[vertex];
+        } // end for
+        int[] localTargets = new int[localOffsets[size]];
+        for (int i = 0; i < size; i++)
+        {
+            int vertex = members[first + i];
+            for (int j = offsets[vertex]; j < offsets[vertex + 1]; j++)
+                localTargets[localOffsets[i] + j - offsets[vertex]] = localId[targets[j]];
+        } // end for
+        return CompactGraph.fromArrays(labels, localOffsets, localTargets);
+    } // end createComponentGraph
+
+    private void addCloseness(int componentId, double[] local, double[] closeness)
+    {
+        for (int i = 0; i < local.length; i++)
+            closeness[members[componentStarts[componentId] + i]] = local[i];
+    } // end addCloseness
+
+    //Removes degree-1 vertices until none is left, adding the betweenness they cause to their neighbors.
+    private Pruning prune()
+    {
+        Pruning pruning = new Pruning();
+        int[] degree = new int[vertexCount];
+        int[] leaves = new int[vertexCount];
+        int leafCount = 0;
+        for (int vertex = 0; vertex < vertexCount; vertex++)
+        {
+            degree[vertex] = offsets[vertex + 1] - offsets[vertex];
+            if (degree[vertex] == 1)
+                leaves[leafCount++] = vertex;
+        } // end for
+        //each vertex is queued at most once, when its degree drops to 1
+        for (int head = 0; head < leafCount; head++)
+        {
+            int leaf = leaves[head];
+            if (degree[leaf] != 1)
+                continue;//the other end of a two vertex tree, which stays as the core
+            int parent = -1;
+            for (int j = offsets[leaf]; (j < offsets[leaf + 1]) && (parent < 0); j++)
+            {
+                if (!pruning.pruned[targets[j]])
+                    parent = targets[j];
+            } // end for
+            double componentSize = getComponentSize(component[leaf]);
+            //ordered pairs, like the core searches, so the sum is halved once at the end
+            pruning.betweenness[parent] += 2.0 * pruning.reach[leaf] * (componentSize - pruning.reach[leaf] - pruning.reach[parent]);
+            pruning.reach[parent] += pruning.reach[leaf];
+            pruning.pruned[leaf] = true;
+            pruning.prunedCount++;
+            degree[leaf] = 0;
+            if (--degree[parent] == 1)
+                leaves[leafCount++] = parent;
+        } // end for
+        //the core edges in CSR form, so the searches never step on a pruned vertex
+        pruning.coreOffsets = new int[vertexCount + 1];
+        for (int vertex = 0; vertex < vertexCount; vertex++)
+            pruning.coreOffsets[vertex + 1] = pruning.coreOffsets[vertex] + degree[vertex];
+        pruning.coreTargets = new int[pruning.coreOffsets[vertexCount]];
+        for (int vertex = 0; vertex < vertexCount; vertex++)
+        {
+            int next = pruning.coreOffsets[vertex];
+            if (pruning.pruned[vertex])
+                continue;
+            for (int j = offsets[vertex]; j < offsets[vertex + 1]; j++)
+            {
+                if (!pruning.pruned[targets[j]])
+                    pruning.coreTargets[next++] = targets[j];
+            } // end for
+        } // end for
+        //the core vertices of every component become the sources, by increasing id
+        pruning.cores = new int[vertexCount - pruning.prunedCount];
+        pruning.coreStarts = new int[getComponentCount()];
+        pruning.coreSize = new int[getComponentCount()];
+        int tail = 0;
+        for (int c = 0; c < getComponentCount(); c++)
+        {
+            pruning.coreStarts[c] = tail;
+            for (int i = componentStarts[c]; i < componentStarts[c + 1]; i++)
+            {
+                if (!pruning.pruned[members[i]])
+                    pruning.cores[tail++] = members[i];
+            } // end for
+            pruning.coreSize[c] = tail - pruning.coreStarts[c];
+        } // end for
+        return pruning;
+    } // end prune
+
+    /** Counts the vertices that degree-1 pruning removes, so they never become sources.
+     @return the number of pruned vertices */
+    public int getPrunedCount()
+    {
+        return prune().prunedCount;
+    } // end getPrunedCount
+
+    private void addCore(int componentId, Pruning pruning, double[] local)
+    {
+        for (int i = 0; i < local.length; i++)
+            pruning.betweenness[members[componentStarts[componentId] + i]] += local[i];
+    } // end addCore
+
+    //Sequential twin of CoreTask.compute, it must split and merge in exactly the same way.
+    private double[] computeCoreRange(int componentId, Pruning pruning, int first, int last)
+    {
+        if (last - first <= blockSize)
+            return computeCoreBlock(componentId, pruning, first, last);
+        int middle = (first + last) >>> 1;
+        double[] left = computeCoreRange(componentId, pruning, first, middle);
+        double[] right = computeCoreRange(componentId, pruning, middle, last);
+        return merge(left, right);
+    } // end computeCoreRange
+
+    //Searches from the core sources first..last-1 of a component, indexed within its core.
+    private double[] computeCoreBlock(int componentId, Pruning pruning, int first, int last)
+    {
+        int start = pruning.coreStarts[componentId];
+        Instrumentation.Batch batch = (pruning.run == null) ? null : pruning.run.startBatch(start + first, start + last);
+        double[] local = new double[getComponentSize(componentId)];
+        CoreSearch search = pruning.searches.take();
+        for (int i = first; i < last; i++)
+            search.accumulate(pruning.cores[start + i], pruning, localId, local);
+        pruning.searches.give(search);
+        if (batch != null)
+            batch.finish((last - first) * pruning.componentEdges[componentId]);
+        return local;
+    } // end computeCoreBlock
+
+    private static double[] merge(double[] left, double[] right)
+    {
+        for (int i = 0; i < left.length; i++)
+            left[i] += right[i];
+        return left;
+    } // end merge
+
+    //The state left by pruning, shared read-only by the core searches, and their scratch for this call.
+    private class Pruning
+    {
+        private final ScratchPool<CoreSearch> searches = new ScratchPool<>(() -> new CoreSearch(vertexCount));
+        private final boolean[] pruned = new boolean[vertexCount];
+        private final double[] reach = new double[vertexCount];//r(v), the vertices v stands for, exact as a double
+        private final double[] betweenness = new double[vertexCount];//ordered pair sums
+        private int prunedCount;
+        private int[] coreOffsets;
+        private int[] coreTargets;
+        private int[] cores;//core vertices grouped by component
+        private int[] coreStarts;
+        private int[] coreSize;
+        private Instrumentation.Run run;//null when nothing listens
+        private long[] componentEdges;//only counted for run
+
+        private Pruning()
+        {
+            Arrays.fill(reach, 1);
+        } // end constructor
+
+        //The sources are the core vertices of the components whose core has more than one vertex.
+        private void startRun()
+        {
+            if (!Instrumentation.isEnabled())
+                return;
+            int sources = 0;
+            for (int c = 0; c < coreSize.length; c++)
+            {
+                if (coreSize[c] > 1)
+                    sources += coreSize[c];
+            } // end for
+            componentEdges = countComponentEdges();
+            run = Instrumentation.startRun("ComponentDecomposition", null, sources);
+        } // end startRun
+
+        private double[] finish()
+        {
+            if (run != null)
+                run.finish();
+            //every unordered pair was counted once from each of its ends
+            for (int vertex = 0; vertex < vertexCount; vertex++)
+                betweenness[vertex] /= 2;
+            return betweenness;
+        } // end finish
+    } // end Pruning
+
+    //Brandes' search over the core vertices, with the reach of every vertex as its weight.
+    //Static so that a search holds its arrays only, never the decomposition.
+    private static class CoreSearch
+    {
+        private final int[] distance;
+        private final double[] sigma;
+        private final double[] delta;
+        private final int[] order;
+
+        private CoreSearch(int vertexCount)
+        {
+            distance = new int[vertexCount];
+            sigma = new double[vertexCount];
+            delta = new double[vertexCount];
+            order = new int[vertexCount];
+            Arrays.fill(distance, -1);
+        } // end constructor
+
+        private void accumulate(int source, Pruning pruning, int[] localId, double[] local)
+        {
+            distance[source] = 0;
+            sigma[source] = 1;
+            order[0] = source;
+            int[] coreOffsets = pruning.coreOffsets;
+            int[] coreTargets = pruning.coreTargets;
+            int tail = 1;
+            for (int head = 0; head < tail; head++)
+            {
+                int vertex = order[head];
+                int nextDistance = distance[vertex] + 1;
+                for (int j = coreOffsets[vertex]; j < coreOffsets[vertex + 1]; j++)
+                {
+                    int neighbor = coreTargets[j];
+                    if (distance[neighbor] < 0)
+                    {
+                        distance[neighbor] = nextDistance;
+                        sigma[neighbor] = 0;
+                        order[tail++] = neighbor;
+                    } // end if
+                    if (distance[neighbor] == nextDistance)
+                        sigma[neighbor] += sigma[vertex];
+                } // end for
+            } // end for
+            double sourceReach = pruning.reach[source];
+            for (int i = tail - 1; i > 0; i--)
+            {
+                int vertex = order[i];
+                double coefficient = (pruning.reach[vertex] + delta[vertex]) / sigma[vertex];
+                int predecessorDistance = distance[vertex] - 1;
+                for (int j = coreOffsets[vertex]; j < coreOffsets[vertex + 1]; j++)
+                {
+                    int neighbor = coreTargets[j];
+                    if (distance[neighbor] == predecessorDistance)
+                        delta[neighbor] += sigma[neighbor] * coefficient;
+                } // end for
+                local[localId[vertex]] += sourceReach * delta[vertex];
+            } // end for
+            for (int i = 0; i < tail; i++)
+            {
+                distance[order[i]] = -1;
+                delta[order[i]] = 0;
+            } // end for
+        } // end accumulate
+    } // end CoreSearch
+
+    //Runs one piece of work as a pool task, so that a list of them can be passed to invokeAll.
+    @SuppressWarnings("serial")
+    private static class ComponentAction extends RecursiveAction
+    {
+        private final Runnable work;
+
+        private ComponentAction(Runnable work)
+        {
+            this.work = work;
+        } // end constructor
+
+        protected void compute()
+        {
+            work.run();
+        } // end compute
+    } // end ComponentAction
+
+    @SuppressWarnings("serial")
+    private class CoreTask extends RecursiveTask<double[]>
+    {
+        private final int componentId;
+        private final Pruning pruning;
+        private final int first;
+        private final int last;
+
+        private CoreTask(int componentId, Pruning pruning, int first, int last)
+        {
+            this.componentId = componentId;
+            this.pruning = pruning;
+            this.first = first;
+            this.last = last;
+        } // end constructor
+
+        protected double[] compute()
+        {
+            if (last - first <= blockSize)
+                return computeCoreBlock(componentId, pruning, first, last);
+            int middle = (first + last) >>> 1;
+            CoreTask left = new CoreTask(componentId, pruning, first, middle);
+            left.fork();
+            double[] right = new CoreTask(componentId, pruning, middle, last).compute();
+            return merge(left.join(), right);
+        } // end compute
+    } // end CoreTask
+}
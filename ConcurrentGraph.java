@@ -0,0 +1,501 @@
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/** An undirected graph that many threads can add vertices and edges to at once, while other
+ threads run centrality on immutable point-in-time snapshots of it.
+ The graph is a frozen CompactGraph, the base, plus the edges added since, which are appended to
+ a log split into stripes by a hash of the edge. A writer only locks the stripe of its edge, so
+ writers of different edges rarely wait for each other, and vertex ids are handed out by a
+ concurrent map without any lock. snapshot() copies no edges: it records the base and the end of
+ every stripe's log, which is never rewritten below that end, so taking one costs a few reads per
+ stripe and never blocks a writer.
+ A snapshot contains every vertex and edge whose add returned before snapshot() was called, and
+ none whose add began after snapshot() returned. The first time a snapshot is turned into a
+ CompactGraph, that graph becomes the new base and the merged edges are dropped from the log, so
+ later snapshots only merge what was added since. During that switch, which copies the edges
+ still left in the log, snapshot() retries its reads a few times and then waits for the switch to
+ finish, so a long copy cannot keep it spinning.
+ Like UndirectedGraph, edges are only added between vertices that are present, self loops and
+ duplicates are rejected, and an edge may carry a weight.*/
+public class ConcurrentGraph<T> implements BasicGraphInterface<T>
+{
+    //enough stripes that writer threads rarely meet on one, and few enough to snapshot cheaply
+    private static final int STRIPE_BITS = 6;
+    private static final int CHUNK_BITS = 12;//labels are stored in chunks of 4096 ids
+    private static final int SPIN_LIMIT = 64;//snapshot reads retried before waiting for install
+
+    private volatile Generation<T> generation;//replaced as a whole by clear()
+
+    public ConcurrentGraph()
+    {
+        generation = new Generation<>();
+    } // end default constructor
+
+    public boolean addVertex(T vertexLabel)
+    {
+        return generation.addVertex(vertexLabel);
+    } // end addVertex
+
+    public boolean addEdge(T begin, T end)
+    {
+        return addEdge(begin, end, 1);
+    } // end addEdge
+
+    /** Adds a weighted edge between two vertices that are present. Safe to call from any thread.
+     @throws IllegalArgumentException if the weight is not a positive finite number */
+    public boolean addEdge(T begin, T end, double edgeWeight)
+    {
+        if (!(edgeWeight > 0) || Double.isInfinite(edgeWeight))
+            throw new IllegalArgumentException("Edge weights must be positive and finite: " + edgeWeight);
+        return generation.addEdge(begin, end, edgeWeight);
+    } // end addEdge
+
+    public boolean hasEdge(T begin, T end)
+    {
+        return generation.hasEdge(begin, end);
+    } // end hasEdge
+
+    public boolean isEmpty()
+    {
+        return getNumberOfVertices() == 0;
+    } // end isEmpty
+
+    public int getNumberOfVertices()
+    {
+        return generation.nextId.get();
+    } // end getNumberOfVertices
+
+    public int getNumberOfEdges()
+    {
+        return (int)generation.edgeCount.sum();
+    } // end getNumberOfEdges
+
+    /** Removes all vertices and edges. Adds that run at the same time may land before the clear
+     and be removed with everything else. Snapshots taken before keep their contents. */
+    public void clear()
+    {
+        generation = new Generation<>();
+    } // end clear
+
+    /** Takes an immutable point-in-time view of the graph without copying its edges and without
+     blocking the writers.
+     @return a snapshot that centrality can run on while the graph keeps changing */
+    public Snapshot<T> snapshot()
+    {
+        return generation.snapshot();
+    } // end snapshot
+
+    /** Merges the edges added since the last merge into the base CSR arrays, so that snapshots
+     stay cheap to build during long stretches of ingestion without any readers. Equivalent to
+     snapshot().toCompactGraph().
+     @return the new base graph */
+    public CompactGraph<T> compact()
+    {
+        return snapshot().toCompactGraph();
+    } // end compact
+
+    /** The vertices and edges of a ConcurrentGraph at one point in time. Snapshots are immutable
+     and safe to share between threads; the graph they came from can keep changing. */
+    public static class Snapshot<T>
+    {
+        private final Generation<T> generation;
+        private final CompactGraph<T> base;
+        private final int vertexCount;
+        private final long[][] edges;//the log of every stripe as it was, edges[s][0..sizes[s]-1]
+        private final double[][] weights;//aligned with edges, null for a stripe without weights
+        private final int[] sizes;
+        private final int edgeCount;
+        private CompactGraph<T> graph;//built on the first call of toCompactGraph
+
+        private Snapshot(Generation<T> generation, CompactGraph<T> base, int vertexCount, long[][] edges,
+                         double[][] weights, int[] sizes)
+        {
+            this.generation = generation;
+            this.base = base;
+            this.vertexCount = vertexCount;
+            this.edges = edges;
+            this.weights = weights;
+            this.sizes = sizes;
+            long count = base.getNumberOfEdges();
+            for (int size : sizes)
+                count += size;
+            edgeCount = (int)count;
+        } // end constructor
+
+        /** @return the number of vertices in the snapshot */
+        public int getNumberOfVertices()
+        {
+            return vertexCount;
+        } // end getNumberOfVertices
+
+        /** @return the number of edges in the snapshot */
+        public int getNumberOfEdges()
+        {
+            return edgeCount;
+        } // end getNumberOfEdges
+
+        /** Merges the base and the logged edges into a CompactGraph, once; later calls return the
+         same graph. Vertex ids are the order in which the vertices were added. The graph also
+         becomes the base of the ConcurrentGraph, unless another snapshot got there first.
+         @return the snapshot as a graph every traversal and centrality algorithm can run on */
+        public synchronized CompactGraph<T> toCompactGraph()
+        {
+            if (graph != null)
+                return graph;
+            Instrumentation.PhaseTimer timer = Instrumentation.startPhase(Instrumentation.Phase.BUILD, "ConcurrentGraph.Snapshot.toCompactGraph");
+            Object[] labels = new Object[vertexCount];
+            int baseVertices = base.getNumberOfVertices();
+            for (int id = 0; id < vertexCount; id++)
+                labels[id] = (id < baseVertices) ? base.getLabel(id) : generation.getLabel(id);
+            CompactGraph.Builder<T> builder = new CompactGraph.Builder<>(new LabelIndex<T>(labels), edgeCount);
+            int[] offsets = base.getOffsets();
+            int[] targets = base.getTargets();
+            double[] baseWeights = base.getWeights();
+            for (int begin = 0; begin < baseVertices; begin++)
+            {
+                for (int arc = offsets[begin]; arc < offsets[begin + 1]; arc++)
+                {
+                    if (begin < targets[arc])//each edge is stored in both of its vertices
+                        builder.addEdgeById(begin, targets[arc], (baseWeights == null) ? 1 : baseWeights[arc]);
+                } // end for
+            } // end for
+            for (int s = 0; s < sizes.length; s++)
+            {
+                for (int i = 0; i < sizes[s]; i++)
+                    builder.addEdgeById((int)(edges[s][i] >>> 32), (int)edges[s][i], (weights[s] == null) ? 1 : weights[s][i]);
+            } // end for
+            graph = builder.build();
+            timer.finish(graph.getNumberOfVertices(), graph.getNumberOfEdges());
+            generation.install(this);
+            return graph;
+        } // end toCompactGraph
+
+        /** Calculates the betweenness of every vertex of the snapshot, like
+         UndirectedGraph.getBetweennessScores(pool).
+         @param pool the pool that runs the searches
+         @return the betweenness of every vertex */
+        public CentralityScores<T> getBetweennessScores(ForkJoinPool pool)
+        {
+            CompactGraph<T> snapshotGraph = toCompactGraph();
+            return new CentralityScores<>(snapshotGraph, snapshotGraph.getBetweennessScores(pool));
+        } // end getBetweennessScores
+
+        /** Calculates the closeness of every vertex of the snapshot, like
+         UndirectedGraph.getClosenessScores(pool).
+         @param pool the pool that runs the searches
+         @return the closeness of every vertex */
+        public CentralityScores<T> getClosenessScores(ForkJoinPool pool)
+        {
+            CompactGraph<T> snapshotGraph = toCompactGraph();
+            return new CentralityScores<>(snapshotGraph, snapshotGraph.getClosenessScores(pool));
+        } // end getClosenessScores
+    } // end Snapshot
+
+    /* Everything clear() throws away. Vertex ids come from a concurrent map, and the label of an id
+     is stored in a chunk right after the id is taken. Edges are logged in the stripe of their key,
+     (smaller id << 32) | larger id, which also dedupes them there. version is a sequence lock
+     around install(): it is odd while the base and the logs are being switched.*/
+    private static class Generation<T>
+    {
+        private final ConcurrentHashMap<T, Integer> ids = new ConcurrentHashMap<>();
+        private final AtomicInteger nextId = new AtomicInteger();
+        private volatile AtomicReferenceArray<Object>[] labelChunks = newChunkDirectory(4);
+        private final Object chunkLock = new Object();//guards growing labelChunks
+        private final Stripe[] stripes = new Stripe[1 << STRIPE_BITS];
+        private final LongAdder edgeCount = new LongAdder();
+        private volatile CompactGraph<T> base = new CompactGraph.Builder<T>().build();
+        private volatile long version;
+
+        private Generation()
+        {
+            for (int s = 0; s < stripes.length; s++)
+                stripes[s] = new Stripe();
+        } // end constructor
+
+        private boolean addVertex(T label)
+        {
+            if (ids.containsKey(label))
+                return false;
+            boolean[] added = new boolean[1];
+            ids.computeIfAbsent(label, newLabel ->
+            {
+                int id = nextId.getAndIncrement();
+                getChunk(id).set(id & ((1 << CHUNK_BITS) - 1), newLabel);
+                added[0] = true;
+                return id;
+            });
+            return added[0];
+        } // end addVertex
+
+        private boolean addEdge(T begin, T end, double weight)
+        {
+            Integer beginId = ids.get(begin);
+            Integer endId = ids.get(end);
+            if ((beginId == null) || (endId == null) || beginId.equals(endId))
+                return false;
+            long key = getKey(beginId, endId);
+            Stripe stripe = getStripe(key);
+            synchronized (stripe)
+            {
+                //read under the stripe lock, so an edge is either in this base or still in the log
+                if (hasArc(base, beginId, endId) || !stripe.add(key, weight))
+                    return false;
+            } // end synchronized
+            edgeCount.increment();
+            return true;
+        } // end addEdge
+
+        private boolean hasEdge(T begin, T end)
+        {
+            Integer beginId = ids.get(begin);
+            Integer endId = ids.get(end);
+            if ((beginId == null) || (endId == null) || beginId.equals(endId))
+                return false;
+            long key = getKey(beginId, endId);
+            Stripe stripe = getStripe(key);
+            synchronized (stripe)
+            {
+                return hasArc(base, beginId, endId) || stripe.contains(key);
+            } // end synchronized
+        } // end hasEdge
+
+        /* Reads without a lock while no install() runs. After SPIN_LIMIT reads that overlapped
+         one, takes the lock of install() instead, which waits for it to finish and keeps the next
+         one out while reading.*/
+        private Snapshot<T> snapshot()
+        {
+            for (int attempt = 0; attempt < SPIN_LIMIT; attempt++)
+            {
+                long before = version;
+                if ((before & 1) != 0)
+                {
+                    Thread.onSpinWait();
+                    continue;
+                } // end if
+                Snapshot<T> snapshot = readSnapshot();
+                if (version == before)
+                    return snapshot;
+            } // end for
+            synchronized (this)
+            {
+                return readSnapshot();
+            } // end synchronized
+        } // end snapshot
+
+        private Snapshot<T> readSnapshot()
+        {
+            int stripeCount = stripes.length;
+            long[][] edges = new long[stripeCount][];
+            double[][] weights = new double[stripeCount][];
+            int[] sizes = new int[stripeCount];
+            CompactGraph<T> snapshotBase = base;
+            for (int s = 0; s < stripeCount; s++)
+            {
+                //the size first: the log read after it holds at least that many edges
+                int size = stripes[s].size;
+                Log log = stripes[s].log;
+                edges[s] = log.edges;
+                weights[s] = log.weights;
+                sizes[s] = size;
+            } // end for
+            //every logged edge was added after its ends got their ids, so they are all below this count
+            int vertexCount = nextId.get();
+            return new Snapshot<>(this, snapshotBase, vertexCount, edges, weights, sizes);
+        } // end readSnapshot
+
+        //Makes the graph of a snapshot the new base and drops the edges it holds from the logs.
+        private synchronized void install(Snapshot<T> snapshot)
+        {
+            if ((snapshot.base != base) || (snapshot.edgeCount == base.getNumberOfEdges()))
+                return;//another snapshot was installed since, or nothing would change
+            version++;
+            base = snapshot.graph;
+            for (int s = 0; s < stripes.length; s++)
+            {
+                synchronized (stripes[s])
+                {
+                    stripes[s].dropFirst(snapshot.sizes[s]);
+                } // end synchronized
+            } // end for
+            version++;
+        } // end install
+
+        //Waits for the label of an id that was just taken, which is stored right after.
+        private Object getLabel(int id)
+        {
+            while (true)
+            {
+                AtomicReferenceArray<Object>[] directory = labelChunks;
+                AtomicReferenceArray<Object> chunk = ((id >> CHUNK_BITS) < directory.length) ? directory[id >> CHUNK_BITS] : null;
+                Object label = (chunk == null) ? null : chunk.get(id & ((1 << CHUNK_BITS) - 1));
+                if (label != null)
+                    return label;
+                Thread.onSpinWait();
+            } // end while
+        } // end getLabel
+
+        private AtomicReferenceArray<Object> getChunk(int id)
+        {
+            int index = id >> CHUNK_BITS;
+            AtomicReferenceArray<Object>[] directory = labelChunks;
+            if ((index < directory.length) && (directory[index] != null))
+                return directory[index];
+            synchronized (chunkLock)
+            {
+                directory = labelChunks;
+                if (index >= directory.length)
+                    directory = Arrays.copyOf(directory, Math.max(2 * directory.length, index + 1));
+                else if (directory[index] != null)
+                    return directory[index];
+                else
+                    directory = directory.clone();
+                directory[index] = new AtomicReferenceArray<>(1 << CHUNK_BITS);
+                labelChunks = directory;//published whole, so readers never see a half-grown directory
+                return directory[index];
+            } // end synchronized
+        } // end getChunk
+
+        private Stripe getStripe(long key)
+        {
+            return stripes[(int)((key * 0x9E3779B97F4A7C15L) >>> (64 - STRIPE_BITS))];
+        } // end getStripe
+
+        @SuppressWarnings("unchecked")
+        private static AtomicReferenceArray<Object>[] newChunkDirectory(int size)
+        {
+            return (AtomicReferenceArray<Object>[])new AtomicReferenceArray<?>[size];
+        } // end newChunkDirectory
+    } // end Generation
+
+    private static long getKey(int beginId, int endId)
+    {
+        return ((long)Math.min(beginId, endId) << 32) | Math.max(beginId, endId);
+    } // end getKey
+
+    //Binary search in the sorted neighbors of begin.
+    private static boolean hasArc(CompactGraph<?> graph, int begin, int end)
+    {
+        if (Math.max(begin, end) >= graph.getNumberOfVertices())
+            return false;
+        int[] offsets = graph.getOffsets();
+        return Arrays.binarySearch(graph.getTargets(), offsets[begin], offsets[begin + 1], end) >= 0;
+    } // end hasArc
+
+    /* The edges of one stripe that are not in the base yet. Edges are appended in place under the
+     stripe's lock and published by the volatile size, so the log below a size that was read is
+     never written again. A log that grows or is cut is copied into a new Log instead, leaving the
+     arrays that snapshots hold untouched. The open addressing set of keys rejects duplicates.*/
+    private static class Stripe
+    {
+        private volatile Log log = new Log(new long[8], null);
+        private volatile int size;
+        private long[] keys = new long[16];//0 marks a free slot, keys are never 0 as begin < end
+        private int keyCount;
+
+        private boolean add(long key, double weight)
+        {
+            if (!insertKey(key))
+                return false;
+            Log current = log;
+            if ((size == current.edges.length) || ((weight != 1) && (current.weights == null)))
+            {
+                int capacity = (size == current.edges.length) ? 2 * size : current.edges.length;
+                double[] weights = null;
+                if ((current.weights != null) || (weight != 1))
+                {
+                    weights = new double[capacity];
+                    if (current.weights != null)
+                        System.arraycopy(current.weights, 0, weights, 0, size);
+                    else
+                        Arrays.fill(weights, 0, size, 1);
+                } // end if
+                current = new Log(Arrays.copyOf(current.edges, capacity), weights);
+                log = current;
+            } // end if
+            current.edges[size] = key;
+            if (current.weights != null)
+                current.weights[size] = weight;
+            size = size + 1;//publishes the edge
+            return true;
+        } // end add
+
+        //Drops the first count edges, which the base holds now.
+        private void dropFirst(int count)
+        {
+            Log current = log;
+            int remaining = size - count;
+            long[] edges = new long[Math.max(8, Integer.highestOneBit(Math.max(1, remaining)) << 1)];
+            System.arraycopy(current.edges, count, edges, 0, remaining);
+            double[] weights = null;
+            if (current.weights != null)
+            {
+                weights = new double[edges.length];
+                System.arraycopy(current.weights, count, weights, 0, remaining);
+            } // end if
+            keys = new long[Math.max(16, Integer.highestOneBit(Math.max(1, remaining)) << 2)];
+            keyCount = 0;
+            for (int i = 0; i < remaining; i++)
+                insertKey(edges[i]);
+            log = new Log(edges, weights);
+            size = remaining;
+        } // end dropFirst
+
+        private boolean contains(long key)
+        {
+            int mask = keys.length - 1;
+            for (int slot = hash(key) & mask; keys[slot] != 0; slot = (slot + 1) & mask)
+            {
+                if (keys[slot] == key)
+                    return true;
+            } // end for
+            return false;
+        } // end contains
+
+        private boolean insertKey(long key)
+        {
+            if (2 * (keyCount + 1) > keys.length)
+            {
+                long[] old = keys;
+                keys = new long[2 * old.length];
+                keyCount = 0;
+                for (long oldKey : old)
+                {
+                    if (oldKey != 0)
+                        insertKey(oldKey);
+                } // end for
+            } // end if
+            int mask = keys.length - 1;
+            int slot = hash(key) & mask;
+            for (; keys[slot] != 0; slot = (slot + 1) & mask)
+            {
+                if (keys[slot] == key)
+                    return false;
+            } // end for
+            keys[slot] = key;
+            keyCount++;
+            return true;
+        } // end insertKey
+
+        private static int hash(long key)
+        {
+            key = (key ^ (key >>> 33)) * 0xFF51AFD7ED558CCDL;
+            return (int)(key ^ (key >>> 33));
+        } // end hash
+    } // end Stripe
+
+    private static class Log
+    {
+        private final long[] edges;
+        private final double[] weights;//null while every edge weighs 1
+
+        private Log(long[] edges, double[] weights)
+        {
+            this.edges = edges;
+            this.weights = weights;
+        } // end constructor
+    } // end Log
+}
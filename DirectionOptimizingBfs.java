@@ -0,0 +1,314 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/** Breadth first search that switches between top-down and bottom-up steps (Beamer, Asanovic and
+ Patterson, "Direction-optimizing breadth-first search"). A top-down step expands every vertex of
+ the frontier. A bottom-up step instead lets every unvisited vertex look for any neighbor in the
+ frontier and stop at the first one it finds. On low diameter graphs such as social networks, the
+ middle levels reach most of the graph. There a bottom-up step examines far fewer edges, because
+ most unvisited vertices find a parent after a few neighbors. The search goes bottom-up once the
+ edges leaving the frontier outnumber the unexplored edges divided by ALPHA while the frontier
+ is still growing. It goes back to top-down once the frontier shrinks below n/BETA vertices, so
+ the small levels at the end of a search never pay for a scan of the whole vertex set.
+ The frontier and the visited set are bitsets, so the bottom-up membership test reads one bit.
+ Distances are exact in both directions. The order of the vertices within a level depends on the
+ direction, so the traversal and path methods that promise insertion order keep the plain search.*/
+public class DirectionOptimizingBfs
+{
+    private static final int ALPHA = 14;
+    private static final int BETA = 24;
+    //the sources are split into about this many blocks by computeCloseness
+    private static final int BLOCK_COUNT = 256;
+
+    private final int[] offsets;
+    private final int[] targets;
+    private final int vertexCount;
+    private final long[] visited;
+    private final long[] frontier;
+    private final int[] distance;//-1 if not reached
+    private final int[] order;//vertices in the order they were reached, level by level
+    private final int[] levelEnds;//levelEnds[d] is the position in order after the last vertex at distance d
+    private int reachedCount;
+    private int levelCount;
+    private long examinedEdges;
+
+    public DirectionOptimizingBfs(CompactGraph<?> graph)
+    {
+        offsets = graph.getOffsets();
+        targets = graph.getTargets();
+        vertexCount = graph.getNumberOfVertices();
+        visited = new long[(vertexCount + 63) >>> 6];
+        frontier = new long[visited.length];
+        distance = new int[vertexCount];
+        order = new int[vertexCount];
+        levelEnds = new int[vertexCount + 1];
+        Arrays.fill(distance, -1);
+    } // end constructor
+
+    /** Searches the whole component of a source.
+     @param source the id of the source vertex
+     @return the number of reached vertices, the source included */
+    public int search(int source)
+    {
+        for (int i = 0; i < reachedCount; i++)
+            distance[order[i]] = -1;
+        Arrays.fill(visited, 0);
+        visited[source >>> 6] |= 1L << source;
+        distance[source] = 0;
+        order[0] = source;
+        int tail = 1;
+        int levelStart = 0;
+        levelCount = 0;
+        long frontierEdges = offsets[source + 1] - offsets[source];
+        long unexploredEdges = targets.length - frontierEdges;
+        boolean bottomUp = false;
+        int previousFrontierSize = 0;
+        while (levelStart < tail)
+        {
+            int levelEnd = tail;
+            levelEnds[levelCount++] = levelEnd;
+            int frontierSize = levelEnd - levelStart;
+            if (!bottomUp)
+                bottomUp = (frontierEdges > unexploredEdges / ALPHA) && (frontierSize > previousFrontierSize);
+            else
+                bottomUp = (frontierSize >= previousFrontierSize) || (frontierSize > vertexCount / BETA);
+            previousFrontierSize = frontierSize;
+            tail = bottomUp ? stepBottomUp(levelStart, levelEnd) : stepTopDown(levelStart, levelEnd);
+            frontierEdges = 0;
+            for (int i = levelEnd; i < tail; i++)
+                frontierEdges += offsets[order[i] + 1] - offsets[order[i]];
+            unexploredEdges -= frontierEdges;
+            levelStart = levelEnd;
+        } // end while
+        reachedCount = tail;
+        return tail;
+    } // end search
+
+    private int stepTopDown(int levelStart, int levelEnd)
+    {
+        int tail = levelEnd;
+        int nextDistance = distance[order[levelStart]] + 1;
+        for (int i = levelStart; i < levelEnd; i++)
+        {
+            int vertex = order[i];
+            examinedEdges += offsets[vertex + 1] - offsets[vertex];
+            for (int j = offsets[vertex]; j < offsets[vertex + 1]; j++)
+            {
+                int neighbor = targets[j];
+                long bit = 1L << neighbor;
+                if ((visited[neighbor >>> 6] & bit) == 0)
+                {
+                    visited[neighbor >>> 6] |= bit;
+                    distance[neighbor] = nextDistance;
+                    order[tail++] = neighbor;
+                } // end if
+            } // end for
+        } // end for
+        return tail;
+    } // end stepTopDown
+
+    private int stepBottomUp(int levelStart, int levelEnd)
+    {
+        for (int i = levelStart; i < levelEnd; i++)
+            frontier[order[i] >>> 6] |= 1L << order[i];
+        int tail = levelEnd;
+        int nextDistance = distance[order[levelStart]] + 1;
+        for (int word = 0; word < visited.length; word++)
+        {
+            long unvisited = ~visited[word];
+            if (word == visited.length - 1)
+                unvisited &= -1L >>> (64 * visited.length - vertexCount);//no bits past the last vertex
+            while (unvisited != 0)
+            {
+                int vertex = (word << 6) + Long.numberOfTrailingZeros(unvisited);
+                unvisited &= unvisited - 1;
+                for (int j = offsets[vertex]; j < offsets[vertex + 1]; j++)
+                {
+                    int neighbor = targets[j];
+                    if ((frontier[neighbor >>> 6] & (1L << neighbor)) != 0)
+                    {
+                        examinedEdges += j - offsets[vertex] + 1;
+                        visited[word] |= 1L << vertex;
+                        distance[vertex] = nextDistance;
+                        order[tail++] = vertex;
+                        break;
+                    } // end if
+                } // end for
+                if (distance[vertex] < 0)
+                    examinedEdges += offsets[vertex + 1] - offsets[vertex];
+            } // end while
+        } // end for
+        for (int i = levelStart; i < levelEnd; i++)
+            frontier[order[i] >>> 6] = 0;
+        return tail;
+    } // end stepBottomUp
+
+    /** Gets the distance of a vertex from the last source.
+     @param vertex the id of the vertex
+     @return the number of edges on a shortest path, or -1 if the vertex was not reached */
+    public int getDistance(int vertex)
+    {
+        return distance[vertex];
+    } // end getDistance
+
+    /** Gets a reached vertex by its position; vertices are grouped by distance, nearest first.
+     @param position a number from 0 to the value search returned minus 1
+     @return the id of the vertex */
+    public int getReached(int position)
+    {
+        return order[position];
+    } // end getReached
+
+    /** Gets the closeness of the last source in sum(1/d) form. The terms are added one level at a
+     time, as count/d for increasing d, which is also how BrandesBetweenness adds them.
+     @return the closeness of the source */
+    public double getCloseness()
+    {
+        double sum = 0;
+        for (int level = 1; level < levelCount; level++)
+            sum += (double)(levelEnds[level] - levelEnds[level - 1]) / level;
+        return sum;
+    } // end getCloseness
+
+    /** Gets the eccentricity of the last source, the distance to the farthest vertex it reached.
+     @return the number of levels of the last search after the source's own */
+    public int getEccentricity()
+    {
+        return levelCount - 1;
+    } // end getEccentricity
+
+    /** Gets the number of edges examined by all searches so far, for comparing with the number of
+     edges a plain top-down search would examine (twice the edges of each searched component).
+     @return the number of examined edges */
+    public long getExaminedEdges()
+    {
+        return examinedEdges;
+    } // end getExaminedEdges
+
+    /** Computes the closeness of every vertex of an unweighted graph with one search per source,
+     on the calling thread. CompactGraph uses it instead of MultiSourceBfs on graphs with many
+     levels, such as long paths and grids, where a batch of sources needs far more levels than
+     any of its searches alone.
+     @param graph the graph
+     @return closeness values in sum(1/d) form, indexed by vertex id */
+    public static double[] computeCloseness(CompactGraph<?> graph)
+    {
+        Instrumentation.Run run = Instrumentation.startRun("DirectionOptimizingBfs", graph, graph.getNumberOfVertices());
+        double[] closeness = computeRange(graph, run);
+        if (run != null)
+            run.finish();
+        return closeness;
+    } // end computeCloseness
+
+    //computeCloseness without reporting to Instrumentation, for callers that search parts of a larger graph.
+    static double[] computeUnreportedCloseness(CompactGraph<?> graph)
+    {
+        return computeRange(graph, null);
+    } // end computeUnreportedCloseness
+
+    /** Computes the closeness of every vertex of an unweighted graph, with the sources split
+     across a pool. Every source is searched exactly as by a single search, so the result does not
+     depend on the pool.
+     @param graph the graph
+     @param pool the pool that runs the searches
+     @return closeness values in sum(1/d) form, indexed by vertex id, identical to computeCloseness(graph) */
+    public static double[] computeCloseness(CompactGraph<?> graph, ForkJoinPool pool)
+    {
+        Instrumentation.Run run = Instrumentation.startRun("DirectionOptimizingBfs", graph, graph.getNumberOfVertices());
+        double[] closeness = pool.invoke(newClosenessTask(graph, run));
+        if (run != null)
+            run.finish();
+        return closeness;
+    } // end computeCloseness
+
+    //The task behind computeCloseness(graph, pool), unreported if run is null.
+    static RecursiveTask<double[]> newClosenessTask(CompactGraph<?> graph, Instrumentation.Run run)
+    {
+        double[] closeness = new double[graph.getNumberOfVertices()];
+        return new ClosenessTask(graph, closeness, 0, closeness.length, getBlockSize(closeness.length), run);
+    } // end newClosenessTask
+
+    private static int getBlockSize(int vertexCount)
+    {
+        return Math.max(1, (vertexCount + BLOCK_COUNT - 1) / BLOCK_COUNT);
+    } // end getBlockSize
+
+    private static double[] computeRange(CompactGraph<?> graph, Instrumentation.Run run)
+    {
+        double[] closeness = new double[graph.getNumberOfVertices()];
+        int blockSize = getBlockSize(closeness.length);
+        for (int first = 0; first < closeness.length; first += blockSize)
+            computeBlock(graph, closeness, first, Math.min(closeness.length, first + blockSize), run);
+        return closeness;
+    } // end computeRange
+
+    /** Decides whether a graph has too many levels for MultiSourceBfs, from one search started at
+     the vertex of highest degree. Its eccentricity is at least half the diameter of its component.
+     @param graph the graph
+     @param maxDepth the largest eccentricity that still counts as a low diameter
+     @return true if the probe search went deeper than maxDepth */
+    static boolean isDeeperThan(CompactGraph<?> graph, int maxDepth)
+    {
+        if (graph.getNumberOfVertices() <= maxDepth + 1)
+            return false;//no search can have more levels than the graph has vertices
+        int[] offsets = graph.getOffsets();
+        int probe = 0;
+        for (int vertex = 1; vertex < graph.getNumberOfVertices(); vertex++)
+        {
+            if (offsets[vertex + 1] - offsets[vertex] > offsets[probe + 1] - offsets[probe])
+                probe = vertex;
+        } // end for
+        DirectionOptimizingBfs search = new DirectionOptimizingBfs(graph);
+        search.search(probe);
+        return search.getEccentricity() > maxDepth;
+    } // end isDeeperThan
+
+    //Each source belongs to exactly one block, so the blocks write disjoint parts of closeness.
+    private static void computeBlock(CompactGraph<?> graph, double[] closeness, int first, int last, Instrumentation.Run run)
+    {
+        Instrumentation.Batch batch = (run == null) ? null : run.startBatch(first, last);
+        DirectionOptimizingBfs search = new DirectionOptimizingBfs(graph);
+        for (int source = first; source < last; source++)
+        {
+            search.search(source);
+            closeness[source] = search.getCloseness();
+        } // end for
+        if (batch != null)
+            batch.finish();
+    } // end computeBlock
+
+    @SuppressWarnings("serial")
+    private static class ClosenessTask extends RecursiveTask<double[]>
+    {
+        private final CompactGraph<?> graph;
+        private final double[] closeness;
+        private final int first;
+        private final int last;
+        private final int blockSize;
+        private final Instrumentation.Run run;
+
+        private ClosenessTask(CompactGraph<?> graph, double[] closeness, int first, int last, int blockSize, Instrumentation.Run run)
+        {
+            this.graph = graph;
+            this.closeness = closeness;
+            this.first = first;
+            this.last = last;
+            this.blockSize = blockSize;
+            this.run = run;
+        } // end constructor
+
+        protected double[] compute()
+        {
+            if (last - first <= blockSize)
+            {
+                computeBlock(graph, closeness, first, last, run);
+                return closeness;
+            } // end if
+            int middle = (first + last) >>> 1;
+            invokeAll(new ClosenessTask(graph, closeness, first, middle, blockSize, run),
+                      new ClosenessTask(graph, closeness, middle, last, blockSize, run));
+            return closeness;
+        } // end compute
+    } // end ClosenessTask
+}
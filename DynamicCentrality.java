@@ -0,0 +1,279 @@
+import java.util.Arrays;
+
+/** Keeps the closeness and betweenness of every vertex of an UndirectedGraph up to date while
+ vertices and edges are added, instead of recomputing everything after each change.
+ A new edge (u,v) only changes the shortest path DAG of a source s when d(s,u) != d(s,v).
+ When the two distances are equal, the edge joins two vertices on the same level and lies on no
+ shortest path from s. A difference of one adds shortest paths without changing distances, and a
+ difference of two or more also shortens distances. So an insertion runs one search from each end
+ of the edge on the old graph to find the affected sources. Then, for each affected source only,
+ it subtracts that source's old dependencies, inserts the edge, and adds its new dependencies back.
+ A new vertex is isolated and changes nothing. Apart from floating point rounding, the scores
+ always equal a full recomputation. Edge weights are ignored: every edge counts as one step.*/
+public class DynamicCentrality<T> implements GraphListener<T>
+{
+    private final UndirectedGraph<T> graph;
+    private final LabelIndex<T> ids;//ids are given in the order vertices are added
+    private int[][] adjacency;
+    private int[] degree;
+    private double[] closeness;
+    private double[] betweenness;//summed over ordered pairs, so twice the undirected value
+    //scratch for the searches
+    private int[] distance;
+    private double[] sigma;
+    private double[] delta;
+    private int[] order;
+    private int[] beginDistance;
+    private int[] endDistance;
+    private int[] affected;
+    private long recomputedSources;
+
+    private DynamicCentrality(UndirectedGraph<T> graph)
+    {
+        this.graph = graph;
+        ids = new LabelIndex<>();
+        reset(16);
+    } // end constructor
+
+    /** Computes the centrality of a graph once and keeps it up to date from then on.
+     @param graph the graph to follow
+     @return the live centrality state of the graph */
+    public static <T> DynamicCentrality<T> attach(UndirectedGraph<T> graph)
+    {
+        DynamicCentrality<T> centrality = new DynamicCentrality<>(graph);
+        centrality.load(graph.toCompactGraph());
+        graph.addGraphListener(centrality);
+        return centrality;
+    } // end attach
+
+    /** Stops following the graph. The scores keep the values they had. */
+    public void detach()
+    {
+        graph.removeGraphListener(this);
+    } // end detach
+
+    private void load(CompactGraph<T> snapshot)
+    {
+        int[] offsets = snapshot.getOffsets();
+        int[] targets = snapshot.getTargets();
+        for (int v = 0; v < snapshot.getNumberOfVertices(); v++)
+            vertexAdded(snapshot.getLabel(v));
+        for (int v = 0; v < snapshot.getNumberOfVertices(); v++)
+        {
+            degree[v] = offsets[v + 1] - offsets[v];
+            adjacency[v] = Arrays.copyOfRange(targets, offsets[v], Math.max(offsets[v + 1], offsets[v] + 4));
+        } // end for
+        for (int source = 0; source < ids.size(); source++)
+            closeness[source] = accumulate(source, 1);
+        recomputedSources = 0;
+    } // end load
+
+    public void vertexAdded(T vertexLabel)
+    {
+        int id = ids.size();
+        ensureCapacity(id + 1);
+        ids.add(vertexLabel);
+        adjacency[id] = new int[4];
+        degree[id] = 0;
+        closeness[id] = 0;
+        betweenness[id] = 0;
+    } // end vertexAdded
+
+    public void edgeAdded(T begin, T end)
+    {
+        int u = ids.getId(begin);
+        int v = ids.getId(end);
+        int vertexCount = ids.size();
+        searchDistances(u, beginDistance);
+        searchDistances(v, endDistance);
+        int affectedCount = 0;
+        for (int source = 0; source < vertexCount; source++)
+        {
+            if (beginDistance[source] != endDistance[source])
+                affected[affectedCount++] = source;
+        } // end for
+        for (int i = 0; i < affectedCount; i++)
+            accumulate(affected[i], -1);
+        addArc(u, v);
+        addArc(v, u);
+        for (int i = 0; i < affectedCount; i++)
+            closeness[affected[i]] = accumulate(affected[i], 1);
+        recomputedSources += affectedCount;
+    } // end edgeAdded
+
+    public void graphCleared()
+    {
+        ids.clear();
+        reset(16);
+    } // end graphCleared
+
+    /** Gets the current closeness of a vertex.
+     @param label an object that labels a vertex
+     @return the closeness of the vertex in sum(1/d) form */
+    public double getCloseness(T label)
+    {
+        return closeness[ids.getId(label)];
+    } // end getCloseness
+
+    /** Gets the current betweenness of a vertex.
+     @param label an object that labels a vertex
+     @return the betweenness of the vertex, on the scale of UndirectedGraph.getBetweennessScores */
+    public double getBetweenness(T label)
+    {
+        return betweenness[ids.getId(label)] / 2;
+    } // end getBetweenness
+
+    /** Copies the current closeness of every vertex.
+     @return the closeness of every vertex */
+    public CentralityScores<T> getClosenessScores()
+    {
+        return new CentralityScores<>(toCompactGraph(), Arrays.copyOf(closeness, ids.size()));
+    } // end getClosenessScores
+
+    /** Copies the current betweenness of every vertex.
+     @return the betweenness of every vertex */
+    public CentralityScores<T> getBetweennessScores()
+    {
+        double[] scores = new double[ids.size()];
+        for (int v = 0; v < scores.length; v++)
+            scores[v] = betweenness[v] / 2;
+        return new CentralityScores<>(toCompactGraph(), scores);
+    } // end getBetweennessScores
+
+    /** Gets the number of source searches that edge insertions have redone so far, which shows
+     how much work the incremental updates saved compared to recomputing from every source.
+     @return the number of recomputed sources */
+    public long getRecomputedSourceCount()
+    {
+        return recomputedSources;
+    } // end getRecomputedSourceCount
+
+    //Ids match the ids used here, so scores can be handed over without remapping.
+    private CompactGraph<T> toCompactGraph()
+    {
+        CompactGraph.Builder<T> builder = new CompactGraph.Builder<>();
+        for (int v = 0; v < ids.size(); v++)
+            builder.addVertex(ids.getLabel(v));
+        for (int v = 0; v < ids.size(); v++)
+        {
+            for (int i = 0; i < degree[v]; i++)
+            {
+                if (v < adjacency[v][i])
+                    builder.addEdgeById(v, adjacency[v][i]);
+            } // end for
+        } // end for
+        return builder.build();
+    } // end toCompactGraph
+
+    /* Brandes search from source. Adds sign times the dependencies of source to betweenness and
+     returns the closeness of source.*/
+    private double accumulate(int source, int sign)
+    {
+        int head = 0;
+        int tail = 0;
+        distance[source] = 0;
+        sigma[source] = 1;
+        order[tail++] = source;
+        while (head < tail)
+        {
+            int vertex = order[head++];
+            int nextDistance = distance[vertex] + 1;
+            for (int i = 0; i < degree[vertex]; i++)
+            {
+                int neighbor = adjacency[vertex][i];
+                if (distance[neighbor] < 0)
+                {
+                    distance[neighbor] = nextDistance;
+                    sigma[neighbor] = 0;
+                    order[tail++] = neighbor;
+                } // end if
+                if (distance[neighbor] == nextDistance)
+                    sigma[neighbor] += sigma[vertex];
+            } // end for
+        } // end while
+        double sum = 0;
+        for (int i = tail - 1; i > 0; i--)
+        {
+            int vertex = order[i];
+            sum += 1.0 / distance[vertex];
+            double coefficient = (1 + delta[vertex]) / sigma[vertex];
+            for (int j = 0; j < degree[vertex]; j++)
+            {
+                int neighbor = adjacency[vertex][j];
+                if (distance[neighbor] == distance[vertex] - 1)
+                    delta[neighbor] += sigma[neighbor] * coefficient;
+            } // end for
+            betweenness[vertex] += sign * delta[vertex];
+        } // end for
+        for (int i = 0; i < tail; i++)
+        {
+            distance[order[i]] = -1;
+            delta[order[i]] = 0;
+        } // end for
+        return sum;
+    } // end accumulate
+
+    //Plain breadth first search; unreachable vertices get -1.
+    private void searchDistances(int origin, int[] result)
+    {
+        Arrays.fill(result, 0, ids.size(), -1);
+        int head = 0;
+        int tail = 0;
+        result[origin] = 0;
+        order[tail++] = origin;
+        while (head < tail)
+        {
+            int vertex = order[head++];
+            for (int i = 0; i < degree[vertex]; i++)
+            {
+                int neighbor = adjacency[vertex][i];
+                if (result[neighbor] < 0)
+                {
+                    result[neighbor] = result[vertex] + 1;
+                    order[tail++] = neighbor;
+                } // end if
+            } // end for
+        } // end while
+    } // end searchDistances
+
+    private void addArc(int from, int to)
+    {
+        if (degree[from] == adjacency[from].length)
+            adjacency[from] = Arrays.copyOf(adjacency[from], 2 * degree[from]);
+        adjacency[from][degree[from]++] = to;
+    } // end addArc
+
+    //Starts every per-vertex array over with room for the given number of vertices.
+    private void reset(int capacity)
+    {
+        adjacency = new int[capacity][];
+        degree = new int[capacity];
+        closeness = new double[capacity];
+        betweenness = new double[capacity];
+        allocateScratch(capacity);
+    } // end reset
+
+    private void ensureCapacity(int vertexCount)
+    {
+        if (vertexCount <= degree.length)
+            return;
+        int capacity = Math.max(vertexCount, 2 * degree.length);
+        adjacency = Arrays.copyOf(adjacency, capacity);
+        degree = Arrays.copyOf(degree, capacity);
+        closeness = Arrays.copyOf(closeness, capacity);
+        betweenness = Arrays.copyOf(betweenness, capacity);
+        allocateScratch(capacity);
+    } // end ensureCapacity
+
+    private void allocateScratch(int capacity)
+    {
+        sigma = new double[capacity];
+        delta = new double[capacity];
+        order = new int[capacity];
+        affected = new int[capacity];
+        beginDistance = new int[capacity];
+        endDistance = new int[capacity];
+        distance = new int[capacity];
+        Arrays.fill(distance, -1);
+    } // end allocateScratch
+}
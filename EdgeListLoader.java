@@ -0,0 +1,252 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/** Loads text edge lists, one edge per line written as two integer vertex labels separated by
+ spaces or tabs, straight into a CompactGraph. The file is memory-mapped and cut into chunks on
+ line boundaries. Every chunk is parsed by its own worker directly from the mapped bytes into a
+ primitive edge buffer, without creating a String or an object per line. Blank lines are skipped
+ and Windows line endings are accepted. The first malformed line is reported with its line number.*/
+public class EdgeListLoader
+{
+    //smallest chunk worth handing to a worker, and largest region mapped at once
+    private static final long MIN_CHUNK_SIZE = 1 << 20;
+    private static final long MAX_CHUNK_SIZE = 1 << 30;
+
+    private EdgeListLoader()
+    {
+    } // end constructor
+
+    /** Loads an edge list using the common pool.
+     @param pathname the path of the edge list file
+     @return the graph described by the file
+     @throws MalformedLineException if a line does not hold exactly two integers
+     @throws IOException if the file cannot be read */
+    public static CompactGraph<Integer> load(String pathname) throws IOException
+    {
+        return load(Paths.get(pathname), ForkJoinPool.commonPool());
+    } // end load
+
+    /** Loads an edge list, parsing its chunks on the given pool.
+     @param path the edge list file
+     @param pool the pool that parses the chunks
+     @return the graph described by the file
+     @throws MalformedLineException if a line does not hold exactly two integers
+     @throws IOException if the file cannot be read */
+    public static CompactGraph<Integer> load(Path path, ForkJoinPool pool) throws IOException
+    {
+        Instrumentation.PhaseTimer loading = Instrumentation.startPhase(Instrumentation.Phase.LOAD, "EdgeListLoader");
+        List<Chunk> chunks = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            long size = channel.size();
+            long chunkCount = Math.max(1, Math.min(size / MIN_CHUNK_SIZE, 4L * pool.getParallelism()));
+            chunkCount = Math.max(chunkCount, size / MAX_CHUNK_SIZE + 1);
+            long start = 0;
+            for (long i = 1; i <= chunkCount; i++)
+            {
+                long end = (i == chunkCount) ? size : findLineStart(channel, Math.max(start, size * i / chunkCount));
+                if (end - start > Integer.MAX_VALUE)
+                    throw new IOException("Line too long near byte " + start + " of " + path);
+                if (end > start)
+                    chunks.add(new Chunk(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start)));
+                start = end;
+            } // end for
+            //the mappings stay valid after the channel is closed
+        } // end try
+        parseAll(chunks, pool);
+
+        //line numbers are only known once the line counts of all earlier chunks are
+        long firstLine = 1;
+        long edgeCount = 0;
+        for (Chunk chunk : chunks)
+        {
+            if (chunk.errorLine > 0)
+                throw new MalformedLineException(firstLine + chunk.errorLine - 1, chunk.errorMessage);
+            firstLine += chunk.lineCount;
+            edgeCount += chunk.edgeCount;
+        } // end for
+        loading.finish(0, edgeCount);
+        Instrumentation.PhaseTimer building = Instrumentation.startPhase(Instrumentation.Phase.BUILD, "EdgeListLoader");
+        CompactGraph<Integer> graph = build(chunks);
+        building.finish(graph.getNumberOfVertices(), graph.getNumberOfEdges());
+        return graph;
+    } // end load
+
+    private static void parseAll(List<Chunk> chunks, ForkJoinPool pool) throws IOException
+    {
+        List<Future<Chunk>> results = pool.invokeAll(new ArrayList<Callable<Chunk>>(chunks));
+        try
+        {
+            for (Future<Chunk> result : results)
+                result.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while parsing", e);
+        }
+        catch (ExecutionException e)
+        {
+            throw new IOException("Parsing failed", e.getCause());
+        } // end try
+    } // end parseAll
+
+    //Numbers the vertices in order of first appearance and freezes the edges into CSR form.
+    private static CompactGraph<Integer> build(List<Chunk> chunks)
+    {
+        int edgeCount = 0;
+        for (Chunk chunk : chunks)
+            edgeCount += chunk.edgeCount;
+        //the loader interns the parsed ints itself, so no label is boxed more than once
+        LabelIndex<Integer> ids = new LabelIndex<>();
+        CompactGraph.Builder<Integer> builder = new CompactGraph.Builder<>(ids, edgeCount);
+        for (Chunk chunk : chunks)
+        {
+            for (int i = 0; i < 2 * chunk.edgeCount; i += 2)
+                builder.addEdgeById(ids.add(chunk.edges[i]), ids.add(chunk.edges[i + 1]));
+            chunk.edges = null;//let the parsed chunk go as soon as it is copied
+        } // end for
+        return builder.build();
+    } // end build
+
+    //Returns the position just after the first line break at or after position.
+    private static long findLineStart(FileChannel channel, long position) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        while (position < channel.size())
+        {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0)
+                break;
+            for (int i = 0; i < read; i++)
+            {
+                if (buffer.get(i) == '\n')
+                    return position + i + 1;
+            } // end for
+            position += read;
+        } // end while
+        return channel.size();
+    } // end findLineStart
+
+    //One slice of the file that starts at the beginning of a line, and what was parsed from it.
+    private static class Chunk implements Callable<Chunk>
+    {
+        private final MappedByteBuffer bytes;
+        private int[] edges;//pairs of vertex labels
+        private int edgeCount;
+        private long lineCount;
+        private long errorLine;//line within the chunk, counting from 1, or 0 if there was no error
+        private String errorMessage;
+
+        private Chunk(MappedByteBuffer bytes)
+        {
+            this.bytes = bytes;
+            edges = new int[64];
+        } // end constructor
+
+        public Chunk call()
+        {
+            int limit = bytes.limit();
+            int position = 0;
+            long[] label = new long[2];
+            while (position < limit)
+            {
+                lineCount++;
+                int tokens = 0;
+                boolean malformed = false;
+                while ((position < limit) && (bytes.get(position) != '\n'))
+                {
+                    byte next = bytes.get(position);
+                    if ((next == ' ') || (next == '\t') || (next == '\r'))
+                    {
+                        position++;
+                        continue;
+                    } // end if
+                    //read one token, which must be an integer
+                    boolean negative = (next == '-');
+                    if (negative)
+                        position++;
+                    long value = 0;
+                    int digits = 0;
+                    while ((position < limit) && (bytes.get(position) >= '0') && (bytes.get(position) <= '9'))
+                    {
+                        value = 10 * value + (bytes.get(position) - '0');
+                        if (value > Integer.MAX_VALUE + 1L)
+                            malformed = true;
+                        digits++;
+                        position++;
+                    } // end while
+                    if ((digits == 0) || ((position < limit) && !isSeparator(bytes.get(position))))
+                        malformed = true;
+                    if (malformed || (tokens == 2))
+                    {
+                        malformed = true;
+                        break;
+                    } // end if
+                    label[tokens++] = negative ? -value : value;
+                } // end while
+                if (!malformed && (tokens == 1))
+                    malformed = true;
+                if (!malformed && ((label[0] > Integer.MAX_VALUE) || (label[1] > Integer.MAX_VALUE)))
+                    malformed = true;
+                if (malformed)
+                {
+                    errorLine = lineCount;
+                    errorMessage = "Please make sure there are 2 integers divided by space in each line. Correct line format is:\"2 4\"";
+                    return this;
+                } // end if
+                if (tokens == 2)
+                    addEdge((int)label[0], (int)label[1]);
+                position++;//skip the line break
+            } // end while
+            return this;
+        } // end call
+
+        private void addEdge(int begin, int end)
+        {
+            if (2 * edgeCount + 2 > edges.length)
+                edges = Arrays.copyOf(edges, 2 * edges.length);
+            edges[2 * edgeCount] = begin;
+            edges[2 * edgeCount + 1] = end;
+            edgeCount++;
+        } // end addEdge
+
+        private static boolean isSeparator(byte next)
+        {
+            return (next == ' ') || (next == '\t') || (next == '\r') || (next == '\n');
+        } // end isSeparator
+    } // end Chunk
+
+    /** Thrown when a line of an edge list is not two integers. */
+    public static class MalformedLineException extends IOException
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final long lineNumber;
+
+        public MalformedLineException(long lineNumber, String message)
+        {
+            super("Line " + lineNumber + ": " + message);
+            this.lineNumber = lineNumber;
+        } // end constructor
+
+        /** @return the number of the malformed line, counting from 1 */
+        public long getLineNumber()
+        {
+            return lineNumber;
+        } // end getLineNumber
+    } // end MalformedLineException
+}
@@ -0,0 +1,126 @@
+import java.util.SplittableRandom;
+
+/** Seeded generators of synthetic graphs for benchmarks. The same arguments and seed always give
+ the same graph. Vertices are labeled 0 to n-1 and their ids equal their labels.*/
+public class GraphGenerators
+{
+    private GraphGenerators()
+    {
+    } // end constructor
+
+    /** Generates an Erdos-Renyi G(n,p) graph, where every pair of vertices is joined independently
+     with probability p. Instead of drawing a coin for each of the n(n-1)/2 pairs, it jumps over the
+     pairs that are left out by drawing geometric gaps (Batagelj and Brandes), so it takes O(n+m) time.
+     @param vertexCount the number of vertices n
+     @param averageDegree the expected degree of a vertex, so p = averageDegree/(n-1)
+     @param seed the seed of the random generator
+     @return the generated graph */
+    public static CompactGraph<Integer> erdosRenyi(int vertexCount, double averageDegree, long seed)
+    {
+        if ((vertexCount < 0) || (averageDegree < 0))
+            throw new IllegalArgumentException("Vertex count and average degree must not be negative");
+        double p = (vertexCount > 1) ? Math.min(1, averageDegree / (vertexCount - 1)) : 0;
+        CompactGraph.Builder<Integer> builder = newBuilder(vertexCount, (long)(vertexCount * averageDegree / 2));
+        if (p == 0)
+            return builder.build();
+        SplittableRandom random = new SplittableRandom(seed);
+        double logFailure = Math.log(1 - p);
+        //walk the pairs (v,w) with w < v in order, skipping a geometric number of them each step
+        long v = 1;
+        long w = -1;
+        while (v < vertexCount)
+        {
+            w += 1 + ((p == 1) ? 0 : (long)Math.floor(Math.log(1 - random.nextDouble()) / logFailure));
+            while ((w >= v) && (v < vertexCount))
+            {
+                w -= v;
+                v++;
+            } // end while
+            if (v < vertexCount)
+                builder.addEdgeById((int)v, (int)w);
+        } // end while
+        return builder.build();
+    } // end erdosRenyi
+
+    /** Generates a Barabasi-Albert preferential attachment graph. It starts from a clique of
+     edgesPerVertex+1 vertices; every later vertex joins edgesPerVertex distinct earlier vertices,
+     each picked with probability proportional to its degree. Degrees follow a power law, like in
+     social networks.
+     @param vertexCount the number of vertices
+     @param edgesPerVertex the number of edges each new vertex brings, at least 1
+     @param seed the seed of the random generator
+     @return the generated graph */
+    public static CompactGraph<Integer> barabasiAlbert(int vertexCount, int edgesPerVertex, long seed)
+    {
+        if ((vertexCount < 0) || (edgesPerVertex < 1))
+            throw new IllegalArgumentException("Vertex count must not be negative and edges per vertex must be positive");
+        CompactGraph.Builder<Integer> builder = newBuilder(vertexCount, (long)vertexCount * edgesPerVertex);
+        SplittableRandom random = new SplittableRandom(seed);
+        int cliqueSize = Math.min(vertexCount, edgesPerVertex + 1);
+        //every edge puts both of its ends here, so a uniform pick from it is a pick by degree
+        int[] ends = new int[(int)Math.min(Integer.MAX_VALUE - 8, 2L * vertexCount * edgesPerVertex + 2L * cliqueSize * cliqueSize)];
+        int endCount = 0;
+        for (int v = 0; v < cliqueSize; v++)
+        {
+            for (int w = 0; w < v; w++)
+            {
+                builder.addEdgeById(v, w);
+                ends[endCount++] = v;
+                ends[endCount++] = w;
+            } // end for
+        } // end for
+        int[] picked = new int[edgesPerVertex];
+        for (int v = cliqueSize; v < vertexCount; v++)
+        {
+            int pickedCount = 0;
+            while (pickedCount < edgesPerVertex)
+            {
+                int w = ends[random.nextInt(endCount)];
+                boolean repeated = false;
+                for (int i = 0; (i < pickedCount) && !repeated; i++)
+                    repeated = (picked[i] == w);
+                if (!repeated)
+                    picked[pickedCount++] = w;
+            } // end while
+            for (int i = 0; i < pickedCount; i++)
+            {
+                builder.addEdgeById(v, picked[i]);
+                ends[endCount++] = v;
+                ends[endCount++] = picked[i];
+            } // end for
+        } // end for
+        return builder.build();
+    } // end barabasiAlbert
+
+    /** Generates a rows by columns grid where every vertex is joined to the vertices above, below,
+     left and right of it. Grids have a large diameter, which is the hard case for searches.
+     @param rows the number of rows
+     @param columns the number of columns
+     @return the generated graph */
+    public static CompactGraph<Integer> grid(int rows, int columns)
+    {
+        if ((rows < 0) || (columns < 0) || ((long)rows * columns > Integer.MAX_VALUE))
+            throw new IllegalArgumentException("Invalid grid size " + rows + "x" + columns);
+        CompactGraph.Builder<Integer> builder = newBuilder(rows * columns, 2L * rows * columns);
+        for (int row = 0; row < rows; row++)
+        {
+            for (int column = 0; column < columns; column++)
+            {
+                int v = row * columns + column;
+                if (column + 1 < columns)
+                    builder.addEdgeById(v, v + 1);
+                if (row + 1 < rows)
+                    builder.addEdgeById(v, v + columns);
+            } // end for
+        } // end for
+        return builder.build();
+    } // end grid
+
+    private static CompactGraph.Builder<Integer> newBuilder(int vertexCount, long expectedEdges)
+    {
+        CompactGraph.Builder<Integer> builder = new CompactGraph.Builder<>((int)Math.min(expectedEdges, Integer.MAX_VALUE - 8));
+        for (int v = 0; v < vertexCount; v++)
+            builder.addVertex(v);
+        return builder;
+    } // end newBuilder
+}
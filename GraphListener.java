@@ -0,0 +1,14 @@
+/** Receives the changes made to an UndirectedGraph, so that state derived from the graph can be
+ kept up to date instead of being recomputed. Methods are called after the change succeeded.*/
+public interface GraphListener<T>
+{
+    /** Called after a vertex was added to the graph.
+     @param vertexLabel the label of the new vertex */
+    public void vertexAdded(T vertexLabel);
+    /** Called after an edge was added to the graph.
+     @param begin the label of one end of the new edge
+     @param end the label of the other end of the new edge */
+    public void edgeAdded(T begin, T end);
+    /** Called after all vertices and edges were removed from the graph. */
+    public void graphCleared();
+} // end GraphListener
@@ -0,0 +1,549 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/** A read-only graph served straight from a memory-mapped binary snapshot file.
+ Mapping a snapshot only reads its header. Adjacency queries read the mapped pages directly,
+ nothing is copied onto the heap, and several JVMs mapping the same file share one copy in the
+ page cache. toCompactGraph() bulk-copies the sections when the centrality engines need arrays.
+
+ File layout, little endian, every section aligned to 8 bytes:
+   header (64 bytes): magic "GCMSNAP\0", int version, int flags (bit 0: weights present),
+     int label kind (0 int, 1 long, 2 UTF-8 string), int vertex count, long arc count
+     (two per edge), then the long file offsets of the labels, offsets, targets and weights
+     sections (0 when a section is absent)
+   labels: int[n] or long[n], or long[n+1] byte offsets followed by the string bytes
+   offsets: int[n+1], the CSR row offsets
+   targets: int[arcs], the CSR neighbor ids
+   weights: double[arcs], the weight of each arc, if flag bit 0 is set
+ Mapping checks the header: the counts, and that the sections follow each other in this order,
+ aligned and inside the file. The contents of the offsets and targets sections are checked when
+ toCompactGraph() copies them.*/
+public class GraphSnapshot
+{
+    private static final byte[] MAGIC = {'G', 'C', 'M', 'S', 'N', 'A', 'P', 0};
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int FLAG_WEIGHTS = 1;
+    private static final int INT_LABELS = 0;
+    private static final int LONG_LABELS = 1;
+    private static final int STRING_LABELS = 2;
+
+    private final int labelKind;
+    private final int vertexCount;
+    private final long arcCount;
+    private final MappedSection labels;
+    private final MappedSection stringBytes;
+    private final MappedSection offsets;
+    private final MappedSection targets;
+    private final MappedSection weights;
+    private LabelIndex<Object> ids;//built on the first lookup by label
+
+    private GraphSnapshot(FileChannel channel, Path path) throws IOException
+    {
+        long fileSize = channel.size();
+        if (fileSize < HEADER_SIZE)
+            throw new IOException(path + " is not a graph snapshot");
+        ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        byte[] magic = new byte[MAGIC.length];
+        header.get(magic);
+        if (!Arrays.equals(magic, MAGIC))
+            throw new IOException(path + " is not a graph snapshot");
+        int version = header.getInt(8);
+        if (version != VERSION)
+            throw new IOException(path + " has snapshot version " + version + ", expected " + VERSION);
+        int flags = header.getInt(12);
+        labelKind = header.getInt(16);
+        vertexCount = header.getInt(20);
+        arcCount = header.getLong(24);
+        long labelsStart = header.getLong(32);
+        long offsetsStart = header.getLong(40);
+        long targetsStart = header.getLong(48);
+        long weightsStart = header.getLong(56);
+        if ((vertexCount < 0) || (arcCount < 0) || (arcCount > fileSize / 4))
+            throw new IOException(path + " has impossible counts: " + vertexCount + " vertices, " + arcCount + " arcs");
+
+        long labelsEnd;
+        if (labelKind == INT_LABELS)
+        {
+            labelsEnd = checkSection(path, "labels", labelsStart, 4L * vertexCount, HEADER_SIZE, fileSize);
+            labels = new MappedSection(channel, labelsStart, 4L * vertexCount);
+            stringBytes = null;
+        }
+        else if (labelKind == LONG_LABELS)
+        {
+            labelsEnd = checkSection(path, "labels", labelsStart, 8L * vertexCount, HEADER_SIZE, fileSize);
+            labels = new MappedSection(channel, labelsStart, 8L * vertexCount);
+            stringBytes = null;
+        }
+        else if (labelKind == STRING_LABELS)
+        {
+            long tableEnd = checkSection(path, "labels", labelsStart, 8L * (vertexCount + 1), HEADER_SIZE, fileSize);
+            labels = new MappedSection(channel, labelsStart, 8L * (vertexCount + 1));
+            long byteCount = labels.getLong(vertexCount);
+            if ((labels.getLong(0) != 0) || (byteCount < 0) || (byteCount > fileSize - tableEnd))
+                throw new IOException(path + " has a corrupt label table");
+            labelsEnd = tableEnd + byteCount;
+            stringBytes = new MappedSection(channel, tableEnd, byteCount);
+        }
+        else
+            throw new IOException(path + " has unknown label kind " + labelKind);
+        long offsetsEnd = checkSection(path, "offsets", offsetsStart, 4L * (vertexCount + 1), labelsEnd, fileSize);
+        long targetsEnd = checkSection(path, "targets", targetsStart, 4L * arcCount, offsetsEnd, fileSize);
+        offsets = new MappedSection(channel, offsetsStart, 4L * (vertexCount + 1));
+        targets = new MappedSection(channel, targetsStart, 4L * arcCount);
+        if ((offsets.getInt(0) != 0) || (offsets.getInt(vertexCount) != arcCount))
+            throw new IOException(path + " has offsets that do not span its " + arcCount + " arcs");
+        if ((flags & FLAG_WEIGHTS) != 0)
+        {
+            checkSection(path, "weights", weightsStart, 8L * arcCount, targetsEnd, fileSize);
+            weights = new MappedSection(channel, weightsStart, 8L * arcCount);
+        }
+        else
+            weights = null;
+    } // end constructor
+
+    /* Checks that a section is aligned, starts no earlier than the end of the section before it
+     and ends inside the file. Returns the end of the section.*/
+    private static long checkSection(Path path, String name, long start, long size, long previousEnd, long fileSize)
+        throws IOException
+    {
+        if ((start < previousEnd) || ((start & 7) != 0) || (start > fileSize) || (size > fileSize - start))
+            throw new IOException(path + " has a bad " + name + " section at offset " + start + " of " + fileSize + " bytes");
+        return start + size;
+    } // end checkSection
+
+    /** Maps a snapshot file. Only the header is read; the sections are paged in on demand.
+     @param path the snapshot file
+     @return the mapped graph
+     @throws IOException if the file cannot be read or is not a snapshot */
+    public static GraphSnapshot map(Path path) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            return new GraphSnapshot(channel, path);
+        } // end try
+    } // end map
+
+    /** Sees whether a file starts with the snapshot magic, so that a program can accept both
+     snapshots and text edge lists whatever their names.
+     @param path a file
+     @return true if the file is long enough for a header and starts like a snapshot
+     @throws IOException if the file cannot be read */
+    public static boolean isSnapshot(Path path) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            if (channel.size() < HEADER_SIZE)
+                return false;
+            byte[] magic = new byte[MAGIC.length];
+            channel.map(FileChannel.MapMode.READ_ONLY, 0, MAGIC.length).get(magic);
+            return Arrays.equals(magic, MAGIC);
+        } // end try
+    } // end isSnapshot
+
+    /** Writes a graph as a snapshot file, with its edge weights if it has any.
+     @param graph the graph to write
+     @param path the file to create or replace
+     @throws IOException if the file cannot be written */
+    public static void write(CompactGraph<?> graph, Path path) throws IOException
+    {
+        write(graph, graph.getWeights(), path);
+    } // end write
+
+    /** Writes a graph as a snapshot file. Integer and Long labels are stored as numbers, String
+     labels as their UTF-8 bytes. Every label must have the same one of these three types, so that
+     map() gives back equal labels.
+     @param graph the graph to write
+     @param arcWeights the weight of every arc, aligned with the graph's CSR targets, or null
+     @param path the file to create or replace
+     @throws IOException if the file cannot be written
+     @throws IllegalArgumentException if the labels are of another type or of mixed types */
+    public static void write(CompactGraph<?> graph, double[] arcWeights, Path path) throws IOException
+    {
+        int[] graphOffsets = graph.getOffsets();
+        int[] graphTargets = graph.getTargets();
+        if ((arcWeights != null) && (arcWeights.length != graphTargets.length))
+            throw new IllegalArgumentException("Expected " + graphTargets.length + " weights, got " + arcWeights.length);
+        int n = graph.getNumberOfVertices();
+        int kind = getLabelKind(graph);
+        byte[][] encoded = null;
+        long labelsSize;
+        if (kind == INT_LABELS)
+            labelsSize = 4L * n;
+        else if (kind == LONG_LABELS)
+            labelsSize = 8L * n;
+        else
+        {
+            encoded = new byte[n][];
+            labelsSize = 8L * (n + 1);
+            for (int v = 0; v < n; v++)
+            {
+                encoded[v] = ((String)graph.getLabel(v)).getBytes(StandardCharsets.UTF_8);
+                labelsSize += encoded[v].length;
+            } // end for
+        } // end if
+        long labelsStart = HEADER_SIZE;
+        long offsetsStart = align(labelsStart + labelsSize);
+        long targetsStart = align(offsetsStart + 4L * (n + 1));
+        long weightsStart = (arcWeights == null) ? 0 : align(targetsStart + 4L * graphTargets.length);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            SectionWriter out = new SectionWriter(channel);
+            out.putBytes(MAGIC);
+            out.putInt(VERSION);
+            out.putInt((arcWeights == null) ? 0 : FLAG_WEIGHTS);
+            out.putInt(kind);
+            out.putInt(n);
+            out.putLong(graphTargets.length);
+            out.putLong(labelsStart);
+            out.putLong(offsetsStart);
+            out.putLong(targetsStart);
+            out.putLong(weightsStart);
+            for (int v = 0; v < n; v++)
+            {
+                if (kind == INT_LABELS)
+                    out.putInt((Integer)graph.getLabel(v));
+                else if (kind == LONG_LABELS)
+                    out.putLong((Long)graph.getLabel(v));
+            } // end for
+            if (kind == STRING_LABELS)
+            {
+                long position = 0;
+                for (int v = 0; v < n; v++)
+                {
+                    out.putLong(position);
+                    position += encoded[v].length;
+                } // end for
+                out.putLong(position);
+                for (int v = 0; v < n; v++)
+                    out.putBytes(encoded[v]);
+            } // end if
+            out.padTo(offsetsStart);
+            for (int offset : graphOffsets)
+                out.putInt(offset);
+            out.padTo(targetsStart);
+            for (int target : graphTargets)
+                out.putInt(target);
+            if (arcWeights != null)
+            {
+                out.padTo(weightsStart);
+                for (double weight : arcWeights)
+                    out.putDouble(weight);
+            } // end if
+            out.flush();
+        } // end try
+    } // end write
+
+    private static int getLabelKind(CompactGraph<?> graph)
+    {
+        boolean allInts = true;
+        boolean allLongs = true;
+        boolean allStrings = true;
+        for (int v = 0; v < graph.getNumberOfVertices(); v++)
+        {
+            Object label = graph.getLabel(v);
+            allInts = allInts && (label instanceof Integer);
+            allLongs = allLongs && (label instanceof Long);
+            allStrings = allStrings && (label instanceof String);
+            if (!allInts && !allLongs && !allStrings)
+                throw new IllegalArgumentException("A snapshot needs all Integer, all Long or all String labels, vertex "
+                                                   + v + " is labeled by a " + label.getClass().getName());
+        } // end for
+        return allInts ? INT_LABELS : (allLongs ? LONG_LABELS : STRING_LABELS);
+    } // end getLabelKind
+
+    private static long align(long position)
+    {
+        return (position + 7) & ~7L;
+    } // end align
+
+    /** Gets the number of vertices in the graph.
+     @return the number of vertices in the graph */
+    public int getNumberOfVertices()
+    {
+        return vertexCount;
+    } // end getNumberOfVertices
+
+    /** Gets the number of edges in the graph.
+     @return the number of edges in the graph */
+    public long getNumberOfEdges()
+    {
+        return arcCount / 2;
+    } // end getNumberOfEdges
+
+    /** Gets the type of the labels, which is the same for every vertex.
+     @return Integer.class, Long.class or String.class, depending on how the snapshot was written */
+    public Class<?> getLabelType()
+    {
+        if (labelKind == INT_LABELS)
+            return Integer.class;
+        return (labelKind == LONG_LABELS) ? Long.class : String.class;
+    } // end getLabelType
+
+    /** Sees whether the snapshot holds edge weights.
+     @return true if getWeight can be used */
+    public boolean isWeighted()
+    {
+        return weights != null;
+    } // end isWeighted
+
+    /** Gets the label of a vertex, read from the mapped file.
+     @param id the id of the vertex
+     @return an Integer, a Long or a String, depending on how the snapshot was written */
+    public Object getLabel(int id)
+    {
+        if (labelKind == INT_LABELS)
+            return labels.getInt(id);
+        if (labelKind == LONG_LABELS)
+            return labels.getLong(id);
+        long start = labels.getLong(id);
+        long end = labels.getLong(id + 1);
+        if ((start < 0) || (end < start) || (end - start > Integer.MAX_VALUE) || (end > labels.getLong(vertexCount)))
+            throw new IllegalStateException("The snapshot has a corrupt label for vertex " + id);
+        byte[] bytes = new byte[(int)(end - start)];
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = stringBytes.getByte(start + i);
+        return new String(bytes, StandardCharsets.UTF_8);
+    } // end getLabel
+
+    /** Gets the id of a vertex. The first call builds a label index on the heap.
+     @param label an object that labels a vertex
+     @return the id of the vertex, or -1 if there is no such vertex */
+    public synchronized int getId(Object label)
+    {
+        if (ids == null)
+        {
+            ids = new LabelIndex<>(vertexCount);
+            for (int v = 0; v < vertexCount; v++)
+            {
+                if (labelKind == INT_LABELS)
+                    ids.add(labels.getInt(v));
+                else if (labelKind == LONG_LABELS)
+                    ids.add(labels.getLong(v));
+                else
+                    ids.add(getLabel(v));
+            } // end for
+        } // end if
+        return ids.getId(label);
+    } // end getId
+
+    /** Gets the number of neighbors of a vertex.
+     @param id the id of the vertex
+     @return the degree of the vertex */
+    public int getDegree(int id)
+    {
+        return offsets.getInt(id + 1) - offsets.getInt(id);
+    } // end getDegree
+
+    /** Gets one neighbor of a vertex. Neighbors are sorted by id.
+     @param id the id of the vertex
+     @param index a number from 0 to getDegree(id)-1
+     @return the id of the neighbor */
+    public int getNeighbor(int id, int index)
+    {
+        return targets.getInt((long)offsets.getInt(id) + index);
+    } // end getNeighbor
+
+    /** Gets the weight of the edge to one neighbor of a vertex.
+     @param id the id of the vertex
+     @param index a number from 0 to getDegree(id)-1
+     @return the weight of the edge */
+    public double getWeight(int id, int index)
+    {
+        return weights.getDouble((long)offsets.getInt(id) + index);
+    } // end getWeight
+
+    /** Sees whether an edge exists between two vertices, with a binary search of the mapped
+     neighbor list.
+     @param beginId the id of one end of the edge
+     @param endId the id of the other end of the edge
+     @return true if an edge exists */
+    public boolean hasEdge(int beginId, int endId)
+    {
+        long low = offsets.getInt(beginId);
+        long high = offsets.getInt(beginId + 1) - 1L;
+        while (low <= high)
+        {
+            long middle = (low + high) >>> 1;
+            int neighbor = targets.getInt(middle);
+            if (neighbor < endId)
+                low = middle + 1;
+            else if (neighbor > endId)
+                high = middle - 1;
+            else
+                return true;
+        } // end while
+        return false;
+    } // end hasEdge
+
+    /** Copies the snapshot into a CompactGraph so that the centrality engines can run on it.
+     The sections are copied in bulk, which is close to memcpy speed.
+     @return a graph with the same labels, ids, edges and weights; the label type follows how the
+     snapshot was written (Integer, Long or String) */
+    @SuppressWarnings("unchecked")
+    public <T> CompactGraph<T> toCompactGraph()
+    {
+        if (arcCount > Integer.MAX_VALUE)
+            throw new IllegalStateException("Too many edges for a CompactGraph: " + getNumberOfEdges());
+        Object[] labelArray = new Object[vertexCount];
+        for (int v = 0; v < vertexCount; v++)
+            labelArray[v] = getLabel(v);
+        int[] offsetArray = new int[vertexCount + 1];
+        offsets.copyInts(offsetArray);
+        for (int v = 0; v < vertexCount; v++)
+        {
+            if (offsetArray[v] > offsetArray[v + 1])
+                throw new IllegalStateException("The snapshot has decreasing offsets at vertex " + v);
+        } // end for
+        int[] targetArray = new int[(int)arcCount];
+        targets.copyInts(targetArray);
+        for (int target : targetArray)
+        {
+            if ((target < 0) || (target >= vertexCount))
+                throw new IllegalStateException("The snapshot has an arc to vertex " + target + " of " + vertexCount);
+        } // end for
+        double[] weightArray = null;
+        if (weights != null)
+        {
+            weightArray = new double[(int)arcCount];
+            for (int i = 0; i < weightArray.length; i++)
+                weightArray[i] = weights.getDouble(i);
+        } // end if
+        return (CompactGraph<T>)CompactGraph.fromArrays(labelArray, offsetArray, targetArray, weightArray);
+    } // end toCompactGraph
+
+    //A section of the file, mapped in segments because one mapping cannot exceed 2 GiB.
+    private static class MappedSection
+    {
+        private static final int SEGMENT_BITS = 30;
+        private static final long SEGMENT_MASK = (1L << SEGMENT_BITS) - 1;
+        private final MappedByteBuffer[] segments;
+
+        private MappedSection(FileChannel channel, long start, long size) throws IOException
+        {
+            if (start + size > channel.size())
+                throw new IOException("Snapshot is truncated");
+            segments = new MappedByteBuffer[(int)((size + SEGMENT_MASK) >>> SEGMENT_BITS)];
+            for (int i = 0; i < segments.length; i++)
+            {
+                long segmentStart = (long)i << SEGMENT_BITS;
+                long segmentSize = Math.min(1L << SEGMENT_BITS, size - segmentStart);
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start + segmentStart, segmentSize);
+                segments[i].order(ByteOrder.LITTLE_ENDIAN);
+            } // end for
+        } // end constructor
+
+        //Segments hold a whole number of ints, longs and doubles, so no value straddles two.
+        private byte getByte(long index)
+        {
+            return segments[(int)(index >>> SEGMENT_BITS)].get((int)(index & SEGMENT_MASK));
+        } // end getByte
+
+        private int getInt(long index)
+        {
+            long position = 4 * index;
+            return segments[(int)(position >>> SEGMENT_BITS)].getInt((int)(position & SEGMENT_MASK));
+        } // end getInt
+
+        private long getLong(long index)
+        {
+            long position = 8 * index;
+            return segments[(int)(position >>> SEGMENT_BITS)].getLong((int)(position & SEGMENT_MASK));
+        } // end getLong
+
+        private double getDouble(long index)
+        {
+            long position = 8 * index;
+            return segments[(int)(position >>> SEGMENT_BITS)].getDouble((int)(position & SEGMENT_MASK));
+        } // end getDouble
+
+        private void copyInts(int[] destination)
+        {
+            int copied = 0;
+            for (MappedByteBuffer segment : segments)
+            {
+                int count = Math.min(segment.limit() / 4, destination.length - copied);
+                segment.duplicate().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(destination, copied, count);
+                copied += count;
+            } // end for
+        } // end copyInts
+    } // end MappedSection
+
+    //Buffered little endian writer over a file channel.
+    private static class SectionWriter
+    {
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+        private long position;
+
+        private SectionWriter(FileChannel channel)
+        {
+            this.channel = channel;
+            buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+        } // end constructor
+
+        private void ensure(int bytes) throws IOException
+        {
+            if (buffer.remaining() < bytes)
+                flush();
+        } // end ensure
+
+        private void putInt(int value) throws IOException
+        {
+            ensure(4);
+            buffer.putInt(value);
+            position += 4;
+        } // end putInt
+
+        private void putLong(long value) throws IOException
+        {
+            ensure(8);
+            buffer.putLong(value);
+            position += 8;
+        } // end putLong
+
+        private void putDouble(double value) throws IOException
+        {
+            ensure(8);
+            buffer.putDouble(value);
+            position += 8;
+        } // end putDouble
+
+        private void putBytes(byte[] bytes) throws IOException
+        {
+            for (byte next : bytes)
+            {
+                ensure(1);
+                buffer.put(next);
+            } // end for
+            position += bytes.length;
+        } // end putBytes
+
+        private void padTo(long target) throws IOException
+        {
+            while (position < target)
+            {
+                ensure(1);
+                buffer.put((byte)0);
+                position++;
+            } // end while
+        } // end padTo
+
+        private void flush() throws IOException
+        {
+            buffer.flip();
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+            buffer.clear();
+        } // end flush
+    } // end SectionWriter
+}
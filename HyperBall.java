@@ -0,0 +1,177 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/** Estimates harmonic closeness, sum(1/d), with HyperLogLog counters instead of one search per
+ source (Boldi and Vigna, "In-core computation of geometric centralities with HyperBall").
+ Every vertex keeps a HyperLogLog counter of the ball of vertices within distance t of it. The
+ ball at distance t is the union of the vertex's own ball and its neighbors' balls at distance
+ t-1, so each iteration is one pass over the edge array. The vertices that enter the ball at
+ iteration t are exactly those at distance t, so closeness grows by (|ball_t|-|ball_t-1|)/t.
+ The passes stop once no counter changes, after about diameter-many iterations.
+ Memory is one byte per register per vertex, twice, and the relative standard error of each ball
+ size is about 1.04/sqrt(registers).*/
+public class HyperBall
+{
+    private static final int MIN_REGISTERS = 16;
+    private static final int MAX_REGISTERS = 1 << 16;
+    //vertices per task when an iteration is split across the pool
+    private static final int BLOCK_SIZE = 1024;
+
+    private final int[] offsets;
+    private final int[] targets;
+    private final int vertexCount;
+    private final int registerCount;
+    private final int registerBits;
+    private final double alpha;
+
+    /** @param graph the graph to estimate closeness on
+     @param registerCount registers per counter, a power of two from 16 to 65536 */
+    public HyperBall(CompactGraph<?> graph, int registerCount)
+    {
+        if ((registerCount < MIN_REGISTERS) || (registerCount > MAX_REGISTERS) || (Integer.bitCount(registerCount) != 1))
+            throw new IllegalArgumentException("Register count must be a power of two from 16 to 65536: " + registerCount);
+        if ((long)graph.getNumberOfVertices() * registerCount > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("Too many registers for " + graph.getNumberOfVertices() + " vertices: " + registerCount);
+        offsets = graph.getOffsets();
+        targets = graph.getTargets();
+        vertexCount = graph.getNumberOfVertices();
+        this.registerCount = registerCount;
+        registerBits = Integer.numberOfTrailingZeros(registerCount);
+        alpha = 0.7213 / (1 + 1.079 / registerCount);
+    } // end constructor
+
+    /** Estimates the closeness of every vertex in sum(1/d) form.
+     @param pool the pool that runs each pass over the edges
+     @return estimated closeness values indexed by vertex id */
+    public double[] compute(ForkJoinPool pool)
+    {
+        byte[] current = new byte[vertexCount * registerCount];
+        byte[] next = new byte[current.length];
+        double[] ballSize = new double[vertexCount];
+        double[] closeness = new double[vertexCount];
+        for (int vertex = 0; vertex < vertexCount; vertex++)
+        {
+            add(current, vertex, hash(vertex));
+            ballSize[vertex] = count(current, vertex);
+        } // end for
+        boolean changed = true;
+        for (int distance = 1; changed; distance++)
+        {
+            Pass pass = new Pass(current, next, ballSize, closeness, distance, 0, vertexCount);
+            pool.invoke(pass);
+            changed = pass.changed;
+            byte[] swap = current;
+            current = next;
+            next = swap;
+        } // end for
+        return closeness;
+    } // end compute
+
+    //One iteration over a range of vertices; each vertex only writes its own counter and scores.
+    @SuppressWarnings("serial")
+    private class Pass extends RecursiveAction
+    {
+        private final byte[] current;
+        private final byte[] next;
+        private final double[] ballSize;
+        private final double[] closeness;
+        private final int distance;
+        private final int first;
+        private final int last;
+        private boolean changed;
+
+        private Pass(byte[] current, byte[] next, double[] ballSize, double[] closeness,
+                     int distance, int first, int last)
+        {
+            this.current = current;
+            this.next = next;
+            this.ballSize = ballSize;
+            this.closeness = closeness;
+            this.distance = distance;
+            this.first = first;
+            this.last = last;
+        } // end constructor
+
+        protected void compute()
+        {
+            if (last - first > BLOCK_SIZE)
+            {
+                int middle = (first + last) >>> 1;
+                Pass left = new Pass(current, next, ballSize, closeness, distance, first, middle);
+                Pass right = new Pass(current, next, ballSize, closeness, distance, middle, last);
+                invokeAll(left, right);
+                changed = left.changed || right.changed;
+                return;
+            } // end if
+            for (int vertex = first; vertex < last; vertex++)
+            {
+                int base = vertex * registerCount;
+                System.arraycopy(current, base, next, base, registerCount);
+                boolean grew = false;
+                for (int i = offsets[vertex]; i < offsets[vertex + 1]; i++)
+                {
+                    int neighborBase = targets[i] * registerCount;
+                    for (int j = 0; j < registerCount; j++)
+                    {
+                        byte register = current[neighborBase + j];
+                        if (register > next[base + j])
+                        {
+                            next[base + j] = register;
+                            grew = true;
+                        } // end if
+                    } // end for
+                } // end for
+                if (grew)
+                {
+                    changed = true;
+                    double size = count(next, vertex);
+                    //estimates can wobble downwards, only real growth counts as new vertices
+                    if (size > ballSize[vertex])
+                    {
+                        closeness[vertex] += (size - ballSize[vertex]) / distance;
+                        ballSize[vertex] = size;
+                    } // end if
+                } // end if
+            } // end for
+        } // end compute
+    } // end Pass
+
+    //Adds an element with the given hash to the counter of vertex.
+    private void add(byte[] registers, int vertex, long hash)
+    {
+        int register = (int)(hash >>> (64 - registerBits));
+        //rank = position of the first one bit in the remaining bits, capped so it fits a byte
+        int rank = Math.min(Long.numberOfLeadingZeros(hash << registerBits) + 1, 64 - registerBits + 1);
+        int index = vertex * registerCount + register;
+        if (rank > registers[index])
+            registers[index] = (byte)rank;
+    } // end add
+
+    //HyperLogLog cardinality estimate of the counter of vertex, with the small range correction.
+    private double count(byte[] registers, int vertex)
+    {
+        int base = vertex * registerCount;
+        double sum = 0;
+        int zeros = 0;
+        for (int j = 0; j < registerCount; j++)
+        {
+            byte register = registers[base + j];
+            sum += Double.longBitsToDouble((1023L - register) << 52);//2^-register
+            if (register == 0)
+                zeros++;
+        } // end for
+        double estimate = alpha * registerCount * registerCount / sum;
+        if ((estimate <= 2.5 * registerCount) && (zeros > 0))
+            estimate = registerCount * Math.log((double)registerCount / zeros);
+        return estimate;
+    } // end count
+
+    //SplitMix64 finalizer, spreads consecutive ids over the whole 64 bit range
+    private static long hash(int vertex)
+    {
+        long z = vertex + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    } // end hash
+}
@@ -0,0 +1,149 @@
+import java.util.Arrays;
+
+/** A binary min-heap of vertex ids 0..n-1 ordered by a double key, for Dijkstra's algorithm.
+ The heap is made of two int arrays and one double array: the ids in heap order, the position
+ of every id in the heap, and the key of every id. The key of an id that is already in the heap
+ can be lowered in O(log n) time, so a vertex is never queued twice, and nothing is allocated
+ after the heap has grown to the size of the graph. Ties are broken by id so that the order of
+ removals only depends on the keys.*/
+public class IndexedMinHeap
+{
+    private int[] heap;
+    private int[] position;//index of each id in heap, or -1 if the id is not queued
+    private double[] key;
+    private int size;
+
+    public IndexedMinHeap()
+    {
+        this(16);
+    } // end default constructor
+
+    public IndexedMinHeap(int capacity)
+    {
+        heap = new int[capacity];
+        position = new int[capacity];
+        key = new double[capacity];
+        Arrays.fill(position, -1);
+        size = 0;
+    } // end constructor
+
+    /** Empties the heap and makes room for ids up to vertexCount-1.
+     @param vertexCount the number of vertices of the graph about to be searched */
+    public void reset(int vertexCount)
+    {
+        for (int i = 0; i < size; i++)
+            position[heap[i]] = -1;
+        size = 0;
+        if (vertexCount > position.length)
+        {
+            int capacity = Math.max(vertexCount, 2 * position.length);
+            heap = new int[capacity];
+            position = new int[capacity];
+            key = new double[capacity];
+            Arrays.fill(position, -1);
+        } // end if
+    } // end reset
+
+    /** Sees whether the heap is empty.
+     @return true if no id is queued */
+    public boolean isEmpty()
+    {
+        return size == 0;
+    } // end isEmpty
+
+    /** Sees whether an id is queued.
+     @param id the id of a vertex
+     @return true if the id is in the heap */
+    public boolean contains(int id)
+    {
+        return position[id] >= 0;
+    } // end contains
+
+    /** Gets the key of an id. After the id is removed, its last key stays readable until it is
+     queued again.
+     @param id the id of a vertex
+     @return the key of the id */
+    public double getKey(int id)
+    {
+        return key[id];
+    } // end getKey
+
+    /** Queues an id with a key, or lowers its key if it is already queued with a higher one.
+     @param id the id of a vertex
+     @param newKey the key of the id
+     @return true if the id was queued or its key was lowered */
+    public boolean offer(int id, double newKey)
+    {
+        int index = position[id];
+        if (index < 0)
+        {
+            key[id] = newKey;
+            heap[size] = id;
+            position[id] = size;
+            siftUp(size++);
+            return true;
+        } // end if
+        if (newKey < key[id])
+        {
+            key[id] = newKey;
+            siftUp(index);
+            return true;
+        } // end if
+        return false;
+    } // end offer
+
+    /** Removes the id with the smallest key.
+     @return the removed id */
+    public int removeMin()
+    {
+        int min = heap[0];
+        position[min] = -1;
+        size--;
+        if (size > 0)
+        {
+            heap[0] = heap[size];
+            position[heap[0]] = 0;
+            siftDown(0);
+        } // end if
+        return min;
+    } // end removeMin
+
+    private boolean less(int first, int second)
+    {
+        return (key[first] < key[second]) || ((key[first] == key[second]) && (first < second));
+    } // end less
+
+    private void siftUp(int index)
+    {
+        int id = heap[index];
+        while (index > 0)
+        {
+            int parent = (index - 1) >>> 1;
+            if (!less(id, heap[parent]))
+                break;
+            heap[index] = heap[parent];
+            position[heap[index]] = index;
+            index = parent;
+        } // end while
+        heap[index] = id;
+        position[id] = index;
+    } // end siftUp
+
+    private void siftDown(int index)
+    {
+        int id = heap[index];
+        while (2 * index + 1 < size)
+        {
+            int child = 2 * index + 1;
+            if ((child + 1 < size) && less(heap[child + 1], heap[child]))
+                child++;
+            if (!less(heap[child], id))
+                break;
+            heap[index] = heap[child];
+            position[heap[index]] = index;
+            index = child;
+        } // end while
+        heap[index] = id;
+        position[id] = index;
+    } // end siftDown
+}
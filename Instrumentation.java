@@ -0,0 +1,473 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** Reports what the loaders and centrality engines are doing, as JDK Flight Recorder events and
+ to the MetricsListeners registered here. Every run is cut into phases: the edge list is loaded,
+ the graph is built, the sources are searched in batches, the results are accumulated, and the
+ best vertices are selected. Each phase gives a Phase event, each batch of sources a SourceBatch
+ event with its component edges and allocated bytes, and each search a Search event with the totals.
+ Recording them needs no code, only a flight recording:
+ <pre>
+ java -XX:StartFlightRecording:filename=run.jfr CentralityDriver
+ jfr print --categories "Graph Centrality" run.jfr
+ </pre>
+ The work of a search from a source is counted as the adjacency entries of the source's
+ component, its component edges, which are what the traversed edges per second (TEPS) of the
+ Graph500 benchmark count. They are not the edges an engine actually relaxes: a plain search reads
+ each of them once, but a bottom-up step or a multi-source batch reads fewer, so the count is a
+ basis for comparing rates rather than a measurement, and it is known before the search starts.
+ Nothing is therefore counted inside a search: the engines only check once per phase and once per
+ batch of sources whether anything listens, and do no other work when nothing does.*/
+public class Instrumentation
+{
+    /** The kinds of work a centrality run is made of, in the order they happen. */
+    public enum Phase
+    {
+        LOAD, BUILD, SEARCH, ACCUMULATE, SELECT
+    } // end Phase
+
+    private static final MetricsListener[] NO_LISTENERS = new MetricsListener[0];
+    private static final EventType PHASE_EVENTS = EventType.getEventType(PhaseEvent.class);
+    private static final EventType BATCH_EVENTS = EventType.getEventType(SourceBatchEvent.class);
+    private static final EventType SEARCH_EVENTS = EventType.getEventType(SearchEvent.class);
+    private static final PhaseTimer DISABLED = new PhaseTimer(null, null);
+    private static final com.sun.management.ThreadMXBean ALLOCATIONS = findAllocationCounter();
+
+    private static volatile MetricsListener[] listeners = NO_LISTENERS;
+
+    private Instrumentation()
+    {
+    } // end constructor
+
+    /** Registers a listener for every run that starts from now on, on any thread.
+     @param listener the listener to add */
+    public static synchronized void addListener(MetricsListener listener)
+    {
+        MetricsListener[] added = Arrays.copyOf(listeners, listeners.length + 1);
+        added[listeners.length] = listener;
+        listeners = added;
+    } // end addListener
+
+    /** Unregisters a listener that was added before.
+     @param listener the listener to remove
+     @return true if the listener was registered */
+    public static synchronized boolean removeListener(MetricsListener listener)
+    {
+        for (int i = 0; i < listeners.length; i++)
+        {
+            if (listeners[i] == listener)
+            {
+                MetricsListener[] removed = new MetricsListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, removed, 0, i);
+                System.arraycopy(listeners, i + 1, removed, i, removed.length - i);
+                listeners = removed;
+                return true;
+            } // end if
+        } // end for
+        return false;
+    } // end removeListener
+
+    /** Sees whether a listener is registered or a flight recording takes some graph event.
+     @return true if phases and batches are being reported */
+    public static boolean isEnabled()
+    {
+        return (listeners.length > 0) || PHASE_EVENTS.isEnabled() || BATCH_EVENTS.isEnabled() || SEARCH_EVENTS.isEnabled();
+    } // end isEnabled
+
+    /* Starts timing a phase. When nothing listens a shared timer is returned that does nothing,
+     so a phase costs two checks and no allocation.*/
+    static PhaseTimer startPhase(Phase phase, String operation)
+    {
+        if ((listeners.length == 0) && !PHASE_EVENTS.isEnabled())
+            return DISABLED;
+        return new PhaseTimer(phase, operation);
+    } // end startPhase
+
+    /* Starts the search phase of an engine that searches from every source of a graph.
+     @return the run that its batches report to, or null when nothing listens*/
+    static Run startRun(String operation, CompactGraph<?> graph, int totalSources)
+    {
+        if (!isEnabled())
+            return null;
+        return new Run(operation, graph, totalSources);
+    } // end startRun
+
+    //The bytes allocated by the calling thread so far, or -1 if the JVM does not count them.
+    private static long getAllocatedBytes()
+    {
+        if (ALLOCATIONS == null)
+            return -1;
+        return ALLOCATIONS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    } // end getAllocatedBytes
+
+    private static com.sun.management.ThreadMXBean findAllocationCounter()
+    {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean))
+            return null;
+        com.sun.management.ThreadMXBean counter = (com.sun.management.ThreadMXBean)threads;
+        if (!counter.isThreadAllocatedMemorySupported() || !counter.isThreadAllocatedMemoryEnabled())
+            return null;
+        return counter;
+    } // end findAllocationCounter
+
+    //Times one phase and reports it once it is finished.
+    static class PhaseTimer
+    {
+        private final Phase phase;//null for the timer that does nothing
+        private final String operation;
+        private final PhaseEvent event;
+        private final long startNanos;
+
+        private PhaseTimer(Phase phase, String operation)
+        {
+            this.phase = phase;
+            this.operation = operation;
+            event = (phase == null) ? null : new PhaseEvent();
+            if (event != null)
+                event.begin();
+            startNanos = System.nanoTime();
+        } // end constructor
+
+        /* Ends the phase.
+         @param vertexCount the number of vertices the phase worked on, or 0 if not known
+         @param edgeCount the number of edges the phase worked on, or 0 if not known*/
+        void finish(int vertexCount, long edgeCount)
+        {
+            if (phase == null)
+                return;
+            long elapsed = System.nanoTime() - startNanos;
+            event.end();
+            if (event.shouldCommit())
+            {
+                event.phase = phase.name();
+                event.operation = operation;
+                event.vertexCount = vertexCount;
+                event.edgeCount = edgeCount;
+                event.commit();
+            } // end if
+            for (MetricsListener listener : listeners)
+                listener.phaseFinished(phase, operation, elapsed);
+        } // end finish
+    } // end PhaseTimer
+
+    //The counters of one search from every source, shared by all the threads that run its batches.
+    static class Run
+    {
+        private final String operation;
+        private final int totalSources;
+        private final PhaseTimer timer;
+        private final SearchEvent event;
+        private final long startNanos;
+        private final int[] component;//null when the edges are counted by the caller
+        private final long[] edgesPerComponent;//adjacency entries of every component
+        private final AtomicLong completedSources = new AtomicLong();
+        private final AtomicLong componentEdges = new AtomicLong();
+        private final AtomicLong allocatedBytes = new AtomicLong();
+
+        private Run(String operation, CompactGraph<?> graph, int totalSources)
+        {
+            this.operation = operation;
+            this.totalSources = totalSources;
+            if (graph == null)
+            {
+                component = null;
+                edgesPerComponent = null;
+            }
+            else
+            {
+                component = new int[graph.getNumberOfVertices()];
+                edgesPerComponent = labelComponents(graph.getOffsets(), graph.getTargets(), component);
+            } // end if
+            timer = startPhase(Phase.SEARCH, operation);
+            event = new SearchEvent();
+            event.begin();
+            startNanos = System.nanoTime();
+        } // end constructor
+
+        /* Starts timing the sources first..last-1, on the thread that searches from them.
+         @return the batch, which must be finished on the same thread*/
+        Batch startBatch(int first, int last)
+        {
+            return new Batch(this, first, last);
+        } // end startBatch
+
+        //Ends the search phase once every batch is finished.
+        void finish()
+        {
+            long elapsed = System.nanoTime() - startNanos;
+            event.end();
+            if (event.shouldCommit())
+            {
+                event.operation = operation;
+                event.sourceCount = completedSources.get();
+                event.componentEdges = componentEdges.get();
+                event.edgesPerSecond = getEdgesPerSecond(componentEdges.get(), elapsed);
+                event.allocatedBytes = allocatedBytes.get();
+                event.commit();
+            } // end if
+            report(elapsed);
+            timer.finish(totalSources, componentEdges.get());
+        } // end finish
+
+        private void batchFinished(int sourceCount, long edges, long allocated)
+        {
+            completedSources.addAndGet(sourceCount);
+            componentEdges.addAndGet(edges);
+            allocatedBytes.addAndGet(allocated);
+            report(System.nanoTime() - startNanos);
+        } // end batchFinished
+
+        private void report(long elapsed)
+        {
+            MetricsListener[] current = listeners;
+            if (current.length == 0)
+                return;
+            Progress progress = new Progress(operation, completedSources.get(), totalSources, componentEdges.get(),
+                                             (ALLOCATIONS == null) ? -1 : allocatedBytes.get(), elapsed);
+            for (MetricsListener listener : current)
+                listener.progressed(progress);
+        } // end report
+
+        //The component edges of sources first..last-1.
+        private long countEdges(int first, int last)
+        {
+            long edges = 0;
+            for (int source = first; source < last; source++)
+                edges += edgesPerComponent[component[source]];
+            return edges;
+        } // end countEdges
+
+        /* Numbers the components of a CSR graph with a breadth first search from every unlabelled vertex.
+         @return the number of adjacency entries of every component*/
+        private static long[] labelComponents(int[] offsets, int[] targets, int[] component)
+        {
+            Arrays.fill(component, -1);
+            int[] queue = new int[component.length];
+            long[] edges = new long[Math.max(1, component.length)];
+            int count = 0;
+            for (int root = 0; root < component.length; root++)
+            {
+                if (component[root] >= 0)
+                    continue;
+                component[root] = count;
+                queue[0] = root;
+                int tail = 1;
+                for (int head = 0; head < tail; head++)
+                {
+                    int vertex = queue[head];
+                    edges[count] += offsets[vertex + 1] - offsets[vertex];
+                    for (int j = offsets[vertex]; j < offsets[vertex + 1]; j++)
+                    {
+                        if (component[targets[j]] < 0)
+                        {
+                            component[targets[j]] = count;
+                            queue[tail++] = targets[j];
+                        } // end if
+                    } // end for
+                } // end for
+                count++;
+            } // end for
+            return edges;
+        } // end labelComponents
+    } // end Run
+
+    //The timing of one batch of sources of a run.
+    static class Batch
+    {
+        private final Run run;
+        private final int first;
+        private final int last;
+        private final SourceBatchEvent event;
+        private final long startAllocated;
+
+        private Batch(Run run, int first, int last)
+        {
+            this.run = run;
+            this.first = first;
+            this.last = last;
+            event = new SourceBatchEvent();
+            event.begin();
+            startAllocated = getAllocatedBytes();
+        } // end constructor
+
+        //Ends a batch of full searches, whose edges are known from the components of the sources.
+        void finish()
+        {
+            finish(run.countEdges(first, last));
+        } // end finish
+
+        //Ends a batch whose edges were counted by the caller.
+        void finish(long edges)
+        {
+            long allocated = (startAllocated < 0) ? 0 : getAllocatedBytes() - startAllocated;
+            event.end();
+            if (event.shouldCommit())
+            {
+                event.operation = run.operation;
+                event.firstSource = first;
+                event.sourceCount = last - first;
+                event.componentEdges = edges;
+                event.allocatedBytes = allocated;
+                event.commit();
+            } // end if
+            run.batchFinished(last - first, edges, allocated);
+        } // end finish
+    } // end Batch
+
+    private static double getEdgesPerSecond(long edges, long elapsedNanos)
+    {
+        return (elapsedNanos <= 0) ? 0 : edges * 1e9 / elapsedNanos;
+    } // end getEdgesPerSecond
+
+    /** The totals of a search at one moment, as handed to MetricsListener.progressed. */
+    public static class Progress
+    {
+        private final String operation;
+        private final long completedSources;
+        private final long totalSources;
+        private final long componentEdges;
+        private final long allocatedBytes;
+        private final long elapsedNanos;
+
+        private Progress(String operation, long completedSources, long totalSources, long componentEdges,
+                         long allocatedBytes, long elapsedNanos)
+        {
+            this.operation = operation;
+            this.completedSources = completedSources;
+            this.totalSources = totalSources;
+            this.componentEdges = componentEdges;
+            this.allocatedBytes = allocatedBytes;
+            this.elapsedNanos = elapsedNanos;
+        } // end constructor
+
+        /** @return the name of the method or engine that runs the search */
+        public String getOperation()
+        {
+            return operation;
+        } // end getOperation
+
+        /** @return the number of sources whose searches are finished */
+        public long getCompletedSources()
+        {
+            return completedSources;
+        } // end getCompletedSources
+
+        /** @return the number of sources of the whole search */
+        public long getTotalSources()
+        {
+            return totalSources;
+        } // end getTotalSources
+
+        /** @return the fraction of the sources that are finished, from 0 to 1 */
+        public double getFractionDone()
+        {
+            return (totalSources == 0) ? 1 : (double)completedSources / totalSources;
+        } // end getFractionDone
+
+        /** @return the adjacency entries of the components of the finished sources, the Graph500
+         TEPS basis, rather than the edges the engine actually relaxed */
+        public long getComponentEdges()
+        {
+            return componentEdges;
+        } // end getComponentEdges
+
+        /** @return the component edges per second since the search started, a TEPS rate */
+        public double getEdgesPerSecond()
+        {
+            return Instrumentation.getEdgesPerSecond(componentEdges, elapsedNanos);
+        } // end getEdgesPerSecond
+
+        /** @return the bytes allocated by the finished batches, or -1 if the JVM does not count them */
+        public long getAllocatedBytes()
+        {
+            return allocatedBytes;
+        } // end getAllocatedBytes
+
+        /** @return the nanoseconds since the search started */
+        public long getElapsedNanos()
+        {
+            return elapsedNanos;
+        } // end getElapsedNanos
+
+        /** Estimates the time left from the rate at which sources were finished so far.
+         @return the estimated nanoseconds until the search is done, or -1 before the first batch */
+        public long getEstimatedRemainingNanos()
+        {
+            if (completedSources == 0)
+                return -1;
+            return (long)((double)elapsedNanos * (totalSources - completedSources) / completedSources);
+        } // end getEstimatedRemainingNanos
+
+        public String toString()
+        {
+            return String.format("%s: %d/%d sources, %.3g edges/s, ETA %.1f s", operation, completedSources,
+                                 totalSources, getEdgesPerSecond(), Math.max(0, getEstimatedRemainingNanos()) / 1e9);
+        } // end toString
+    } // end Progress
+
+    @Name("graph.Phase")
+    @Label("Centrality Phase")
+    @Category("Graph Centrality")
+    @Description("One phase of loading a graph or computing its centrality")
+    static class PhaseEvent extends Event
+    {
+        @Label("Phase")
+        String phase;
+        @Label("Operation")
+        String operation;
+        @Label("Vertices")
+        int vertexCount;
+        @Label("Edges")
+        long edgeCount;
+    } // end PhaseEvent
+
+    @Name("graph.SourceBatch")
+    @Label("Source Batch")
+    @Category("Graph Centrality")
+    @Description("The searches from one batch of consecutive sources, on one thread")
+    static class SourceBatchEvent extends Event
+    {
+        @Label("Operation")
+        String operation;
+        @Label("First Source")
+        int firstSource;
+        @Label("Sources")
+        int sourceCount;
+        @Label("Component Edges")
+        @Description("Adjacency entries of the components of the sources, the Graph500 TEPS basis")
+        long componentEdges;
+        @Label("Allocated")
+        @DataAmount
+        long allocatedBytes;
+    } // end SourceBatchEvent
+
+    @Name("graph.Search")
+    @Label("Centrality Search")
+    @Category("Graph Centrality")
+    @Description("The searches from every source of a centrality run, with their totals")
+    static class SearchEvent extends Event
+    {
+        @Label("Operation")
+        String operation;
+        @Label("Sources Completed")
+        long sourceCount;
+        @Label("Component Edges")
+        @Description("Adjacency entries of the components of the sources, the Graph500 TEPS basis")
+        long componentEdges;
+        @Label("Component Edges per Second")
+        double edgesPerSecond;
+        @Label("Allocated")
+        @DataAmount
+        long allocatedBytes;
+    } // end SearchEvent
+}
@@ -0,0 +1,251 @@
+import java.util.Arrays;
+
+/** Interns vertex labels into dense ids 0..n-1, in the order they were first added, with an open
+ addressing hash table of primitive arrays. A HashMap from labels to Integer ids allocates an
+ entry and boxes an id for every label, and every lookup follows two pointers. Here every slot is
+ one int holding id+1 (0 marks an empty slot) and one long holding the key, so a lookup reads two
+ arrays with linear probing and allocates nothing.
+ While every label is an Integer, or every label is a Long, the key slots hold the label values
+ themselves, and the int and long overloads look them up without boxing. Loaders that parse
+ numbers therefore intern them directly. The first label of any other kind switches the table to
+ hash codes compared with equals, which still works for every label added before.*/
+public class LabelIndex<T>
+{
+    private static final int INT_KEYS = 0;
+    private static final int LONG_KEYS = 1;
+    private static final int OBJECT_KEYS = 2;//keys hold hash codes, confirmed with equals
+
+    private int keyKind;
+    private Object[] labels;//labels by id
+    private int size;
+    private int[] slots;//id + 1 of the label in each slot, 0 if the slot is empty
+    private long[] keys;
+
+    public LabelIndex()
+    {
+        this(16);
+    } // end default constructor
+
+    /** @param expectedSize the number of labels to make room for up front */
+    public LabelIndex(int expectedSize)
+    {
+        keyKind = INT_KEYS;
+        labels = new Object[Math.max(4, expectedSize)];
+        int capacity = Integer.highestOneBit(Math.max(8, 2 * expectedSize - 1)) << 1;
+        slots = new int[capacity];
+        keys = new long[capacity];
+    } // end constructor
+
+    /** Creates an index of labels that are known to be distinct, with ids in array order.
+     @param labelArray the labels, label i getting id i
+     @throws IllegalArgumentException if a label appears twice */
+    public LabelIndex(Object[] labelArray)
+    {
+        this(labelArray.length);
+        for (int id = 0; id < labelArray.length; id++)
+        {
+            @SuppressWarnings("unchecked")
+            T label = (T)labelArray[id];
+            if (add(label) != id)
+                throw new IllegalArgumentException("Duplicate label " + label);
+        } // end for
+    } // end constructor
+
+    /** Creates an independent copy of another index, with the same ids.
+     @param other the index to copy */
+    public LabelIndex(LabelIndex<T> other)
+    {
+        keyKind = other.keyKind;
+        labels = Arrays.copyOf(other.labels, Math.max(4, other.size));
+        size = other.size;
+        slots = other.slots.clone();
+        keys = other.keys.clone();
+    } // end copy constructor
+
+    /** @return the number of labels in the index */
+    public int size()
+    {
+        return size;
+    } // end size
+
+    /** Gets the label of an id.
+     @param id a number from 0 to size()-1
+     @return the label that was given that id */
+    @SuppressWarnings("unchecked")
+    public T getLabel(int id)
+    {
+        return (T)labels[id];
+    } // end getLabel
+
+    /** @return the labels in order of id */
+    public Object[] toArray()
+    {
+        return Arrays.copyOf(labels, size);
+    } // end toArray
+
+    /** Gets the id of a label.
+     @param label an object that labels a vertex
+     @return the id of the label, or -1 if it was never added */
+    public int getId(T label)
+    {
+        if (label instanceof Integer)
+            return getId(((Integer)label).intValue());
+        if (label instanceof Long)
+            return getId(((Long)label).longValue());
+        if ((keyKind != OBJECT_KEYS) || (label == null))
+            return -1;
+        return findObject(label, label.hashCode());
+    } // end getId
+
+    /** Gets the id of an Integer label without boxing it.
+     @param label the value of the label
+     @return the id of the label, or -1 if it was never added */
+    public int getId(int label)
+    {
+        if (keyKind == INT_KEYS)
+            return findKey(label);
+        if (keyKind == OBJECT_KEYS)
+            return findObject(label, Integer.hashCode(label));
+        return -1;
+    } // end getId
+
+    /** Gets the id of a Long label without boxing it.
+     @param label the value of the label
+     @return the id of the label, or -1 if it was never added */
+    public int getId(long label)
+    {
+        if ((keyKind == LONG_KEYS) || ((keyKind == INT_KEYS) && (size == 0)))
+            return findKey(label);
+        if (keyKind == OBJECT_KEYS)
+            return findObject(label, Long.hashCode(label));
+        return -1;
+    } // end getId
+
+    /** Adds a label unless it is already present.
+     @param label an object that labels a vertex, not null
+     @return the id of the label */
+    public int add(T label)
+    {
+        if (label == null)
+            throw new IllegalArgumentException("Labels cannot be null");
+        if ((keyKind == INT_KEYS) && (label instanceof Integer))
+            return add(((Integer)label).intValue());
+        if (size == 0)
+            keyKind = (label instanceof Long) ? LONG_KEYS : OBJECT_KEYS;
+        else if ((keyKind == LONG_KEYS) && !(label instanceof Long))
+            switchToObjectKeys();
+        else if (keyKind == INT_KEYS)
+            switchToObjectKeys();
+        long key = (keyKind == LONG_KEYS) ? (Long)label : label.hashCode();
+        int id = (keyKind == LONG_KEYS) ? findKey(key) : findObject(label, (int)key);
+        return (id >= 0) ? id : insert(label, key);
+    } // end add
+
+    /** Adds an Integer label unless it is already present. The label is only boxed when it is new.
+     @param label the value of the label
+     @return the id of the label */
+    @SuppressWarnings("unchecked")
+    public int add(int label)
+    {
+        if (keyKind != INT_KEYS)
+            return add((T)Integer.valueOf(label));
+        int id = findKey(label);
+        return (id >= 0) ? id : insert(Integer.valueOf(label), label);
+    } // end add
+
+    /** Adds a Long label unless it is already present. The label is only boxed when it is new.
+     @param label the value of the label
+     @return the id of the label */
+    @SuppressWarnings("unchecked")
+    public int add(long label)
+    {
+        if ((keyKind != LONG_KEYS) || (size == 0))
+            return add((T)Long.valueOf(label));
+        int id = findKey(label);
+        return (id >= 0) ? id : insert(Long.valueOf(label), label);
+    } // end add
+
+    /** Removes every label. */
+    public void clear()
+    {
+        Arrays.fill(labels, 0, size, null);
+        Arrays.fill(slots, 0);
+        size = 0;
+        keyKind = INT_KEYS;
+    } // end clear
+
+    private int findKey(long key)
+    {
+        int mask = slots.length - 1;
+        for (int slot = mix(key) & mask; slots[slot] != 0; slot = (slot + 1) & mask)
+        {
+            if (keys[slot] == key)
+                return slots[slot] - 1;
+        } // end for
+        return -1;
+    } // end findKey
+
+    private int findObject(Object label, int hash)
+    {
+        int mask = slots.length - 1;
+        for (int slot = mix(hash) & mask; slots[slot] != 0; slot = (slot + 1) & mask)
+        {
+            if ((keys[slot] == hash) && labels[slots[slot] - 1].equals(label))
+                return slots[slot] - 1;
+        } // end for
+        return -1;
+    } // end findObject
+
+    private int insert(Object label, long key)
+    {
+        if (2 * (size + 1) > slots.length)
+            rehash(2 * slots.length);
+        if (size == labels.length)
+            labels = Arrays.copyOf(labels, 2 * size);
+        labels[size] = label;
+        place(size, key);
+        return size++;
+    } // end insert
+
+    private void place(int id, long key)
+    {
+        int mask = slots.length - 1;
+        int slot = mix(key) & mask;
+        while (slots[slot] != 0)
+            slot = (slot + 1) & mask;
+        slots[slot] = id + 1;
+        keys[slot] = key;
+    } // end place
+
+    private void rehash(int capacity)
+    {
+        slots = new int[capacity];
+        keys = new long[capacity];
+        for (int id = 0; id < size; id++)
+            place(id, getKey(id));
+    } // end rehash
+
+    //The key of an id under the current kind, recomputed from its label.
+    private long getKey(int id)
+    {
+        if (keyKind == INT_KEYS)
+            return (Integer)labels[id];
+        if (keyKind == LONG_KEYS)
+            return (Long)labels[id];
+        return labels[id].hashCode();
+    } // end getKey
+
+    private void switchToObjectKeys()
+    {
+        keyKind = OBJECT_KEYS;
+        rehash(slots.length);
+    } // end switchToObjectKeys
+
+    //SplitMix64 finalizer, spreads consecutive labels over the whole table
+    private static int mix(long key)
+    {
+        key = (key ^ (key >>> 30)) * 0xBF58476D1CE4E5B9L;
+        key = (key ^ (key >>> 27)) * 0x94D049BB133111EBL;
+        return (int)(key ^ (key >>> 31));
+    } // end mix
+}
@@ -0,0 +1,21 @@
+/** Receives the timings and the progress of centrality runs, registered with
+ Instrumentation.addListener. Both methods do nothing by default, so a listener only overrides
+ the ones it needs. Progress is reported from the threads of the pool that runs the searches, so
+ a listener that keeps state must be thread safe, and it should return quickly because the
+ reporting thread waits for it.*/
+public interface MetricsListener
+{
+    /** Called after a phase of a run finished.
+     @param phase the kind of work that was done
+     @param operation the name of the method or engine that ran the phase
+     @param elapsedNanos the wall clock time the phase took, in nanoseconds */
+    public default void phaseFinished(Instrumentation.Phase phase, String operation, long elapsedNanos)
+    {
+    } // end phaseFinished
+
+    /** Called after every batch of sources of a search, and once more when the search is done.
+     @param progress the totals of the search so far */
+    public default void progressed(Instrumentation.Progress progress)
+    {
+    } // end progressed
+} // end MetricsListener
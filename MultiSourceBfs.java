@@ -0,0 +1,313 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/** Computes the closeness of every vertex of an unweighted graph by running breadth first
+ searches from many sources at once (Then et al., "The more the merrier: efficient multi-source
+ graph traversal"). Every vertex carries a bit mask with one lane per source of the batch, stored
+ in laneCount/64 longs. A frontier vertex passes its whole mask to its neighbors with one OR, so
+ the adjacency lists are read once per level for the whole batch instead of once per source.
+ Distances are symmetric, so the sources of a batch that newly reach a vertex at level d add
+ popcount(new bits)/d to that vertex's own closeness. After every vertex has been a source, each
+ vertex therefore holds its closeness in sum(1/d) form, with no per-source bookkeeping.
+ A level with a small frontier only visits the frontier and the neighbors it passes new bits to,
+ so a batch on a long path or grid costs about as much as the searches it replaces, however many
+ levels the graph has. Once the frontier holds more than 1/DENSE_FRACTION of the vertices, a
+ sequential scan of every vertex is cheaper than visiting the reached ones in list order.
+ Batches are grouped into blocks with their own accumulators, which are merged pairwise along a
+ fixed split tree. The result is therefore the same on any pool, but the additions happen in a
+ different order than in the single source engines, so the last bits can differ from theirs.*/
+public class MultiSourceBfs
+{
+    //the batches are split into about this many blocks, enough to keep a large pool busy
+    private static final int BLOCK_COUNT = 256;
+    private static final int DENSE_FRACTION = 8;
+
+    private final CompactGraph<?> graph;
+    private final int[] offsets;
+    private final int[] targets;
+    private final int vertexCount;
+    private final int words;//longs per vertex, laneCount/64
+
+    /** @param graph an unweighted graph
+     @param laneCount the number of sources searched together, a positive multiple of 64 */
+    public MultiSourceBfs(CompactGraph<?> graph, int laneCount)
+    {
+        if ((laneCount <= 0) || (laneCount % 64 != 0))
+            throw new IllegalArgumentException("The lane count must be a positive multiple of 64: " + laneCount);
+        if (graph.isWeighted())
+            throw new IllegalArgumentException("MultiSourceBfs counts edges and cannot use edge weights");
+        this.graph = graph;
+        offsets = graph.getOffsets();
+        targets = graph.getTargets();
+        vertexCount = graph.getNumberOfVertices();
+        words = laneCount / 64;
+        if ((long)vertexCount * words > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("Too many lanes for " + vertexCount + " vertices: " + laneCount);
+    } // end constructor
+
+    /** Computes the closeness of every vertex on the calling thread.
+     @return closeness values in sum(1/d) form, indexed by vertex id */
+    public double[] computeCloseness()
+    {
+        Instrumentation.Run run = Instrumentation.startRun("MultiSourceBfs", graph, vertexCount);
+        double[] closeness = computeRange(0, getBatchCount(), getBlockSize(), newScratchPool(), run);
+        if (run != null)
+            run.finish();
+        return closeness;
+    } // end computeCloseness
+
+    /** Computes the closeness of every vertex with the batches split across a pool.
+     @param pool the pool that runs the batches
+     @return closeness values indexed by vertex id, identical to computeCloseness() */
+    public double[] computeCloseness(ForkJoinPool pool)
+    {
+        Instrumentation.Run run = Instrumentation.startRun("MultiSourceBfs", graph, vertexCount);
+        double[] closeness = pool.invoke(new BatchTask(0, getBatchCount(), getBlockSize(), newScratchPool(), run));
+        if (run != null)
+            run.finish();
+        return closeness;
+    } // end computeCloseness
+
+    //computeCloseness without reporting to Instrumentation, for callers that search parts of a larger graph.
+    double[] computeUnreportedCloseness()
+    {
+        return computeRange(0, getBatchCount(), getBlockSize(), newScratchPool(), null);
+    } // end computeUnreportedCloseness
+
+    //The task behind computeCloseness(pool), unreported like computeUnreportedCloseness.
+    RecursiveTask<double[]> newClosenessTask()
+    {
+        return new BatchTask(0, getBatchCount(), getBlockSize(), newScratchPool(), null);
+    } // end newClosenessTask
+
+    //The masks are shared by the blocks of one computation only, so they are freed when it returns.
+    private ScratchPool<Masks> newScratchPool()
+    {
+        return new ScratchPool<>(() -> new Masks(vertexCount, words));
+    } // end newScratchPool
+
+    private int getBatchCount()
+    {
+        return (vertexCount + 64 * words - 1) / (64 * words);
+    } // end getBatchCount
+
+    private int getBlockSize()
+    {
+        return Math.max(1, (getBatchCount() + BLOCK_COUNT - 1) / BLOCK_COUNT);
+    } // end getBlockSize
+
+    //Sequential twin of BatchTask.compute, it must split and merge in exactly the same way.
+    private double[] computeRange(int first, int last, int blockSize, ScratchPool<Masks> scratchPool, Instrumentation.Run run)
+    {
+        if (last - first <= blockSize)
+            return computeBlock(first, last, scratchPool, run);
+        int middle = (first + last) >>> 1;
+        double[] left = computeRange(first, middle, blockSize, scratchPool, run);
+        double[] right = computeRange(middle, last, blockSize, scratchPool, run);
+        return merge(left, right);
+    } // end computeRange
+
+    private double[] computeBlock(int first, int last, ScratchPool<Masks> scratchPool, Instrumentation.Run run)
+    {
+        Masks scratch = scratchPool.take();
+        int laneCount = 64 * words;
+        Instrumentation.Batch sources = (run == null) ? null : run.startBatch(first * laneCount, Math.min(vertexCount, last * laneCount));
+        double[] closeness = new double[vertexCount];
+        for (int batch = first; batch < last; batch++)
+            searchBatch(scratch, batch * laneCount, Math.min(laneCount, vertexCount - batch * laneCount), closeness);
+        scratchPool.give(scratch);
+        if (sources != null)
+            sources.finish();
+        return closeness;
+    } // end computeBlock
+
+    private static double[] merge(double[] left, double[] right)
+    {
+        for (int vertex = 0; vertex < left.length; vertex++)
+            left[vertex] += right[vertex];
+        return left;
+    } // end merge
+
+    /* Searches from sources firstSource..firstSource+sourceCount-1 at once and adds their terms to
+     closeness. The masks of the scratch are all zero before and after.*/
+    private void searchBatch(Masks scratch, int firstSource, int sourceCount, double[] closeness)
+    {
+        long[] seen = scratch.seen;
+        long[] frontier = scratch.frontier;
+        long[] next = scratch.next;
+        int[] frontierList = scratch.frontierList;
+        int[] touched = scratch.touched;
+        int[] reached = scratch.reached;
+        int[] marks = scratch.marks;
+        int frontierCount = 0;
+        int reachedCount = 0;
+        for (int lane = 0; lane < sourceCount; lane++)
+        {
+            int slot = (firstSource + lane) * words + (lane >>> 6);
+            seen[slot] |= 1L << lane;
+            frontier[slot] |= 1L << lane;
+            frontierList[frontierCount++] = firstSource + lane;
+            reached[reachedCount++] = firstSource + lane;
+        } // end for
+        for (int level = 1; frontierCount > 0; level++)
+        {
+            if ((long)frontierCount * DENSE_FRACTION > vertexCount)
+            {
+                //a large frontier: read every vertex in order of id, like a plain level scan
+                for (int vertex = 0; vertex < vertexCount; vertex++)
+                {
+                    int base = vertex * words;
+                    for (int word = 0; word < words; word++)
+                    {
+                        long mask = frontier[base + word];
+                        if (mask == 0)
+                            continue;
+                        for (int j = offsets[vertex]; j < offsets[vertex + 1]; j++)
+                            next[targets[j] * words + word] |= mask;
+                    } // end for
+                } // end for
+                frontierCount = 0;
+                for (int vertex = 0; vertex < vertexCount; vertex++)
+                {
+                    int base = vertex * words;
+                    long before = 0;
+                    int count = 0;
+                    for (int word = 0; word < words; word++)
+                    {
+                        long newBits = next[base + word] & ~seen[base + word];
+                        before |= seen[base + word];
+                        seen[base + word] |= newBits;
+                        frontier[base + word] = newBits;
+                        next[base + word] = 0;
+                        count += Long.bitCount(newBits);
+                    } // end for
+                    if (count > 0)
+                    {
+                        closeness[vertex] += (double)count / level;
+                        frontierList[frontierCount++] = vertex;
+                        if (before == 0)
+                            reached[reachedCount++] = vertex;
+                    } // end if
+                } // end for
+                continue;
+            } // end if
+            int stamp = scratch.nextStamp();
+            int touchedCount = 0;
+            for (int i = 0; i < frontierCount; i++)
+            {
+                int vertex = frontierList[i];
+                int base = vertex * words;
+                for (int word = 0; word < words; word++)
+                {
+                    long mask = frontier[base + word];
+                    frontier[base + word] = 0;
+                    if (mask == 0)
+                        continue;
+                    for (int j = offsets[vertex]; j < offsets[vertex + 1]; j++)
+                    {
+                        int neighbor = targets[j];
+                        next[neighbor * words + word] |= mask;
+                        if (marks[neighbor] != stamp)
+                        {
+                            marks[neighbor] = stamp;
+                            touched[touchedCount++] = neighbor;
+                        } // end if
+                    } // end for
+                } // end for
+            } // end for
+            frontierCount = 0;
+            for (int i = 0; i < touchedCount; i++)
+            {
+                int vertex = touched[i];
+                int base = vertex * words;
+                long before = 0;
+                int count = 0;
+                for (int word = 0; word < words; word++)
+                {
+                    long newBits = next[base + word] & ~seen[base + word];
+                    before |= seen[base + word];
+                    seen[base + word] |= newBits;
+                    frontier[base + word] = newBits;
+                    next[base + word] = 0;
+                    count += Long.bitCount(newBits);
+                } // end for
+                if (count > 0)
+                {
+                    closeness[vertex] += (double)count / level;
+                    frontierList[frontierCount++] = vertex;
+                    if (before == 0)
+                        reached[reachedCount++] = vertex;
+                } // end if
+            } // end for
+        } // end for
+        for (int i = 0; i < reachedCount; i++)
+            Arrays.fill(seen, reached[i] * words, (reached[i] + 1) * words, 0);
+    } // end searchBatch
+
+    /* The lane masks of every vertex: sources that reached it, that reached it on the last level,
+     and on the next. The lists hold the vertices of the frontier, the vertices that got new bits on
+     this level, and every vertex reached by the batch, so that nothing is scanned in full.*/
+    private static class Masks
+    {
+        private final long[] seen;
+        private final long[] frontier;
+        private final long[] next;
+        private final int[] frontierList;
+        private final int[] touched;
+        private final int[] reached;
+        private final int[] marks;//stamp of the level that last put a vertex in touched
+        private int stamp;
+
+        private Masks(int vertexCount, int words)
+        {
+            seen = new long[vertexCount * words];
+            frontier = new long[vertexCount * words];
+            next = new long[vertexCount * words];
+            frontierList = new int[vertexCount];
+            touched = new int[vertexCount];
+            reached = new int[vertexCount];
+            marks = new int[vertexCount];
+        } // end constructor
+
+        private int nextStamp()
+        {
+            if (stamp == Integer.MAX_VALUE)
+            {
+                Arrays.fill(marks, 0);
+                stamp = 0;
+            } // end if
+            return ++stamp;
+        } // end nextStamp
+    } // end Masks
+
+    @SuppressWarnings("serial")
+    private class BatchTask extends RecursiveTask<double[]>
+    {
+        private final int first;
+        private final int last;
+        private final int blockSize;
+        private final ScratchPool<Masks> scratchPool;
+        private final Instrumentation.Run run;
+
+        private BatchTask(int first, int last, int blockSize, ScratchPool<Masks> scratchPool, Instrumentation.Run run)
+        {
+            this.first = first;
+            this.last = last;
+            this.blockSize = blockSize;
+            this.scratchPool = scratchPool;
+            this.run = run;
+        } // end constructor
+
+        protected double[] compute()
+        {
+            if (last - first <= blockSize)
+                return computeBlock(first, last, scratchPool, run);
+            int middle = (first + last) >>> 1;
+            BatchTask left = new BatchTask(first, middle, blockSize, scratchPool, run);
+            left.fork();
+            double[] right = new BatchTask(middle, last, blockSize, scratchPool, run).compute();
+            return merge(left.join(), right);
+        } // end compute
+    } // end BatchTask
+}
@@ -0,0 +1,335 @@
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+
+/** Answers repeated point-to-point distance and shortest path queries on an unweighted
+ CompactGraph, such as degrees of separation lookups.
+ Every query runs a bidirectional breadth first search, one level at a time from whichever side
+ has the smaller frontier. On a graph with a branching factor of b, that reaches about 2*b^(d/2)
+ vertices instead of b^d, and nothing is cleared between queries.
+ buildLandmarkIndex optionally stores the distance from every vertex to k landmarks, the vertices
+ of highest degree. For a pair (s,t), the landmarks give a lower bound max|d(s,L)-d(t,L)| and an
+ upper bound min d(s,L)+d(L,t). When the bounds meet, which is common on social graphs, the
+ distance is returned in O(k) time without any search. Otherwise, the search stops as soon as its
+ levels can no longer beat the upper bound. Pairs in different components are answered in O(1)
+ time. The index takes 2k bytes per vertex.
+ Queries may run concurrently; each thread keeps its own search state.*/
+public class PathQueryEngine<T>
+{
+    private static final int UNKNOWN = Character.MAX_VALUE;//landmark distance that did not fit
+
+    private final CompactGraph<T> graph;
+    private final int[] offsets;
+    private final int[] targets;
+    private final ThreadLocal<Search> searches;
+    private volatile LandmarkIndex index;
+
+    public PathQueryEngine(CompactGraph<T> graph)
+    {
+        if (graph.isWeighted())
+            throw new IllegalArgumentException("PathQueryEngine counts edges; use getCheapestPath for weighted graphs");
+        this.graph = graph;
+        offsets = graph.getOffsets();
+        targets = graph.getTargets();
+        searches = ThreadLocal.withInitial(() -> new Search(offsets, targets));
+    } // end constructor
+
+    /** Precomputes the distances to the landmarks with one search per landmark.
+     @param landmarkCount the number of landmarks, from 0 to 65535; 0 drops the index */
+    public void buildLandmarkIndex(int landmarkCount)
+    {
+        if ((landmarkCount < 0) || (landmarkCount >= UNKNOWN))
+            throw new IllegalArgumentException("Invalid landmark count " + landmarkCount);
+        index = (landmarkCount == 0) ? null : new LandmarkIndex(Math.min(landmarkCount, graph.getNumberOfVertices()));
+    } // end buildLandmarkIndex
+
+    /** Gets the number of landmarks in the index.
+     @return the number of landmarks, 0 if there is no index */
+    public int getLandmarkCount()
+    {
+        LandmarkIndex current = index;
+        return (current == null) ? 0 : current.landmarkCount;
+    } // end getLandmarkCount
+
+    /** Finds the number of edges on a shortest path between two vertices.
+     @param begin an object that labels one vertex
+     @param end an object that labels the other vertex
+     @return the distance, or -1 if end cannot be reached from begin */
+    public int getDistance(T begin, T end)
+    {
+        int beginId = getId(begin);
+        int endId = getId(end);
+        if (beginId == endId)
+            return 0;
+        LandmarkIndex current = index;
+        int upperBound = Integer.MAX_VALUE;
+        if (current != null)
+        {
+            if (current.component[beginId] != current.component[endId])
+                return -1;
+            upperBound = current.getUpperBound(beginId, endId);
+            if ((upperBound != Integer.MAX_VALUE) && (current.getLowerBound(beginId, endId) == upperBound))
+                return upperBound;
+        } // end if
+        Search search = searches.get();
+        int distance = search.run(beginId, endId, upperBound);
+        return (distance < 0) ? ((upperBound == Integer.MAX_VALUE) ? -1 : upperBound) : distance;
+    } // end getDistance
+
+    /** Estimates the distance between two vertices from the landmark index alone.
+     @param begin an object that labels one vertex
+     @param end an object that labels the other vertex
+     @return an upper bound on the distance, -1 if the vertices are in different components, or
+     Integer.MAX_VALUE if no landmark bounds it
+     @throws IllegalStateException if there is no landmark index */
+    public int estimateDistance(T begin, T end)
+    {
+        LandmarkIndex current = index;
+        if (current == null)
+            throw new IllegalStateException("No landmark index was built");
+        int beginId = getId(begin);
+        int endId = getId(end);
+        if (beginId == endId)
+            return 0;
+        if (current.component[beginId] != current.component[endId])
+            return -1;
+        return current.getUpperBound(beginId, endId);
+    } // end estimateDistance
+
+    /** Finds a shortest path between two vertices with a bidirectional search.
+     @param begin an object that labels the origin vertex of the path
+     @param end an object that labels the end vertex of the path
+     @param path a set that receives the labels on the path, from end back to begin
+     @return the length of the path, or 0 if end cannot be reached, like getShortestPath of the graphs */
+    public int getShortestPath(T begin, T end, LinkedHashSet<T> path)
+    {
+        int beginId = getId(begin);
+        int endId = getId(end);
+        LandmarkIndex current = index;
+        if ((beginId == endId) || ((current != null) && (current.component[beginId] != current.component[endId])))
+        {
+            path.add(end);
+            return 0;
+        } // end if
+        Search search = searches.get();
+        int distance = search.run(beginId, endId, Integer.MAX_VALUE);
+        if (distance < 0)
+        {
+            path.add(end);
+            return 0;
+        } // end if
+        //from the meeting vertex back to end, then reversed, then from the meeting vertex to begin
+        int[] backward = new int[distance + 1];
+        int count = 0;
+        for (int vertex = search.meeting; vertex >= 0; vertex = search.backwardParent[vertex])
+            backward[count++] = vertex;
+        for (int i = count - 1; i > 0; i--)
+            path.add(graph.getLabel(backward[i]));
+        for (int vertex = search.meeting; vertex >= 0; vertex = search.forwardParent[vertex])
+            path.add(graph.getLabel(vertex));
+        return distance;
+    } // end getShortestPath
+
+    private int getId(T label)
+    {
+        int id = graph.getId(label);
+        if (id < 0)
+            throw new IllegalArgumentException("No vertex labeled " + label);
+        return id;
+    } // end getId
+
+    /* Per thread state of the bidirectional search. Marks are stamped with a generation like
+     TraversalContext's. Static, so that a Search left with a pool thread never keeps the engine
+     or its ThreadLocal reachable: a discarded engine is collected, and the thread then drops the
+     Search as a stale entry.*/
+    private static class Search
+    {
+        private final int[] offsets;
+        private final int[] targets;
+        private final int[] forwardMark;
+        private final int[] backwardMark;
+        private final int[] forwardDistance;
+        private final int[] backwardDistance;
+        private final int[] forwardParent;
+        private final int[] backwardParent;
+        private final int[] forwardQueue;
+        private final int[] backwardQueue;
+        private int generation;
+        private int meeting;
+        private int expandedTail;//queue tail after the last expand
+
+        private Search(int[] offsets, int[] targets)
+        {
+            int vertexCount = offsets.length - 1;
+            this.offsets = offsets;
+            this.targets = targets;
+            forwardMark = new int[vertexCount];
+            backwardMark = new int[vertexCount];
+            forwardDistance = new int[vertexCount];
+            backwardDistance = new int[vertexCount];
+            forwardParent = new int[vertexCount];
+            backwardParent = new int[vertexCount];
+            forwardQueue = new int[vertexCount];
+            backwardQueue = new int[vertexCount];
+        } // end constructor
+
+        /* Returns the distance from source to target and leaves the vertex where the two searches
+         met in meeting, or returns -1 if no path shorter than upperBound exists.*/
+        private int run(int source, int target, int upperBound)
+        {
+            generation++;
+            if (generation == Integer.MAX_VALUE)
+            {
+                Arrays.fill(forwardMark, 0);
+                Arrays.fill(backwardMark, 0);
+                generation = 1;
+            } // end if
+            forwardMark[source] = generation;
+            forwardDistance[source] = 0;
+            forwardParent[source] = -1;
+            forwardQueue[0] = source;
+            backwardMark[target] = generation;
+            backwardDistance[target] = 0;
+            backwardParent[target] = -1;
+            backwardQueue[0] = target;
+            int forwardHead = 0;
+            int forwardTail = 1;
+            int backwardHead = 0;
+            int backwardTail = 1;
+            int forwardDepth = 0;
+            int backwardDepth = 0;
+            while ((forwardHead < forwardTail) && (backwardHead < backwardTail))
+            {
+                //no unexplored path can be shorter than this
+                if (forwardDepth + backwardDepth + 1 >= upperBound)
+                    return -1;
+                int best;
+                if (forwardTail - forwardHead <= backwardTail - backwardHead)
+                {
+                    best = expand(forwardQueue, forwardHead, forwardTail, forwardMark, forwardDistance, forwardParent,
+                                  backwardMark, backwardDistance);
+                    forwardHead = forwardTail;
+                    forwardTail = expandedTail;
+                    forwardDepth++;
+                }
+                else
+                {
+                    best = expand(backwardQueue, backwardHead, backwardTail, backwardMark, backwardDistance, backwardParent,
+                                  forwardMark, forwardDistance);
+                    backwardHead = backwardTail;
+                    backwardTail = expandedTail;
+                    backwardDepth++;
+                } // end if
+                if (best >= 0)
+                    return best;
+            } // end while
+            return -1;
+        } // end run
+
+        /* Expands one whole level of one side. Returns the length of the shortest path through a
+         vertex that the other side has reached, or -1 if the sides did not meet.*/
+        private int expand(int[] queue, int head, int tail, int[] mark, int[] distance, int[] parent,
+                           int[] otherMark, int[] otherDistance)
+        {
+            int best = -1;
+            int end = tail;
+            for (int i = head; i < end; i++)
+            {
+                int vertex = queue[i];
+                int nextDistance = distance[vertex] + 1;
+                for (int j = offsets[vertex]; j < offsets[vertex + 1]; j++)
+                {
+                    int neighbor = targets[j];
+                    if (mark[neighbor] == generation)
+                        continue;
+                    mark[neighbor] = generation;
+                    distance[neighbor] = nextDistance;
+                    parent[neighbor] = vertex;
+                    queue[tail++] = neighbor;
+                    if ((otherMark[neighbor] == generation) && ((best < 0) || (nextDistance + otherDistance[neighbor] < best)))
+                    {
+                        best = nextDistance + otherDistance[neighbor];
+                        meeting = neighbor;
+                    } // end if
+                } // end for
+            } // end for
+            expandedTail = tail;
+            return best;
+        } // end expand
+    } // end Search
+
+    //Distances from every vertex to the landmarks, stored vertex by vertex so a query reads two runs of k chars.
+    private class LandmarkIndex
+    {
+        private final int landmarkCount;
+        private final char[] distances;
+        private final int[] component;
+
+        private LandmarkIndex(int landmarkCount)
+        {
+            int vertexCount = graph.getNumberOfVertices();
+            if ((long)vertexCount * landmarkCount > Integer.MAX_VALUE - 8)
+                throw new IllegalArgumentException("Too many landmarks for " + vertexCount + " vertices: " + landmarkCount);
+            this.landmarkCount = landmarkCount;
+            distances = new char[vertexCount * landmarkCount];
+            component = new int[vertexCount];
+            DirectionOptimizingBfs search = new DirectionOptimizingBfs(graph);
+            //components, numbered by their smallest vertex
+            Arrays.fill(component, -1);
+            for (int v = 0; v < vertexCount; v++)
+            {
+                if (component[v] < 0)
+                {
+                    int reached = search.search(v);
+                    for (int i = 0; i < reached; i++)
+                        component[search.getReached(i)] = v;
+                } // end if
+            } // end for
+            int[] landmarks = selectLandmarks(landmarkCount);
+            for (int i = 0; i < landmarkCount; i++)
+            {
+                search.search(landmarks[i]);
+                for (int v = 0; v < vertexCount; v++)
+                {
+                    int distance = search.getDistance(v);
+                    distances[v * landmarkCount + i] = (char)(((distance < 0) || (distance >= UNKNOWN)) ? UNKNOWN : distance);
+                } // end for
+            } // end for
+        } // end constructor
+
+        //The landmarks are the vertices of highest degree, ties broken by id.
+        private int[] selectLandmarks(int count)
+        {
+            Integer[] byDegree = new Integer[graph.getNumberOfVertices()];
+            for (int v = 0; v < byDegree.length; v++)
+                byDegree[v] = v;
+            Arrays.sort(byDegree, (first, second) -> (graph.getDegree(first) != graph.getDegree(second)) ?
+                    Integer.compare(graph.getDegree(second), graph.getDegree(first)) : Integer.compare(first, second));
+            int[] landmarks = new int[count];
+            for (int i = 0; i < count; i++)
+                landmarks[i] = byDegree[i];
+            return landmarks;
+        } // end selectLandmarks
+
+        private int getUpperBound(int first, int second)
+        {
+            int best = Integer.MAX_VALUE;
+            for (int i = 0, a = first * landmarkCount, b = second * landmarkCount; i < landmarkCount; i++, a++, b++)
+            {
+                if ((distances[a] != UNKNOWN) && (distances[b] != UNKNOWN))
+                    best = Math.min(best, distances[a] + distances[b]);
+            } // end for
+            return best;
+        } // end getUpperBound
+
+        private int getLowerBound(int first, int second)
+        {
+            int best = 0;
+            for (int i = 0, a = first * landmarkCount, b = second * landmarkCount; i < landmarkCount; i++, a++, b++)
+            {
+                if ((distances[a] != UNKNOWN) && (distances[b] != UNKNOWN))
+                    best = Math.max(best, Math.abs(distances[a] - distances[b]));
+            } // end for
+            return best;
+        } // end getLowerBound
+    } // end LandmarkIndex
+}
@@ -0,0 +1,31 @@
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+
+/** Scratch buffers shared by the blocks of one computation. A block takes a buffer, uses it and
+ gives it back, so a computation allocates at most one buffer per thread that runs its blocks.
+ Unlike a ThreadLocal, the pool is only reachable from the computation, so its buffers become
+ garbage as soon as the computation returns instead of staying with the pool threads.*/
+class ScratchPool<S>
+{
+    private final ConcurrentLinkedQueue<S> free = new ConcurrentLinkedQueue<>();
+    private final Supplier<S> factory;
+
+    /** @param factory creates a buffer when every buffer made so far is in use */
+    ScratchPool(Supplier<S> factory)
+    {
+        this.factory = factory;
+    } // end constructor
+
+    /** @return a buffer that no other block uses until it is given back */
+    S take()
+    {
+        S scratch = free.poll();
+        return (scratch == null) ? factory.get() : scratch;
+    } // end take
+
+    /** @param scratch a buffer returned by take, left in the state the next block expects */
+    void give(S scratch)
+    {
+        free.offer(scratch);
+    } // end give
+}
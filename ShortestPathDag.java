@@ -0,0 +1,241 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+
+/** The shortest path DAG of one source of an unweighted graph, as handed to a ShortestPathVisitor.
+ The traverse methods run one breadth first search per source and pass the same DAG object to
+ the visitors after each search, so the views are primitive arrays that are overwritten by the
+ next source and no path or collection is ever allocated. For every reached vertex the DAG holds
+ its distance, the number of shortest paths from the source (sigma), and its predecessors, the
+ neighbors one level closer to the source. The predecessors of a vertex are stored in its own
+ slice of a CSR shaped array, at the offsets of its adjacency list, so they need O(E) memory once
+ per search buffer and nothing per source.*/
+public class ShortestPathDag
+{
+    //the sources are split into about this many blocks by the parallel traversal
+    private static final int BLOCK_COUNT = 256;
+
+    private final CompactGraph<?> graph;
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] distance;//-1 if not reached
+    private final double[] sigma;
+    private final int[] order;//vertices in the order they were reached, level by level
+    private final int[] predecessors;//the predecessors of v are at offsets[v]..offsets[v]+predecessorCount[v]-1
+    private final int[] predecessorCount;
+    private int source;
+    private int reachedCount;
+
+    /** @param graph an unweighted graph */
+    public ShortestPathDag(CompactGraph<?> graph)
+    {
+        if (graph.isWeighted())
+            throw new IllegalArgumentException("ShortestPathDag counts edges and cannot use edge weights");
+        this.graph = graph;
+        offsets = graph.getOffsets();
+        targets = graph.getTargets();
+        int vertexCount = graph.getNumberOfVertices();
+        distance = new int[vertexCount];
+        sigma = new double[vertexCount];
+        order = new int[vertexCount];
+        predecessors = new int[targets.length];
+        predecessorCount = new int[vertexCount];
+        Arrays.fill(distance, -1);
+        source = -1;
+    } // end constructor
+
+    /** Builds the DAG of one source, replacing the previous one.
+     @param newSource the id of the source vertex
+     @return the number of reached vertices, the source included */
+    public int search(int newSource)
+    {
+        for (int i = 0; i < reachedCount; i++)
+        {
+            int vertex = order[i];
+            distance[vertex] = -1;
+            predecessorCount[vertex] = 0;
+        } // end for
+        source = newSource;
+        distance[source] = 0;
+        sigma[source] = 1;
+        order[0] = source;
+        int tail = 1;
+        for (int head = 0; head < tail; head++)
+        {
+            int vertex = order[head];
+            int nextDistance = distance[vertex] + 1;
+            for (int j = offsets[vertex]; j < offsets[vertex + 1]; j++)
+            {
+                int neighbor = targets[j];
+                if (distance[neighbor] < 0)
+                {
+                    distance[neighbor] = nextDistance;
+                    sigma[neighbor] = 0;
+                    order[tail++] = neighbor;
+                } // end if
+                if (distance[neighbor] == nextDistance)
+                {
+                    sigma[neighbor] += sigma[vertex];
+                    predecessors[offsets[neighbor] + predecessorCount[neighbor]++] = vertex;
+                } // end if
+            } // end for
+        } // end for
+        reachedCount = tail;
+        return tail;
+    } // end search
+
+    /** Gets the graph whose DAG this is, for translating ids into labels.
+     @return the graph */
+    public CompactGraph<?> getGraph()
+    {
+        return graph;
+    } // end getGraph
+
+    /** @return the number of vertices of the graph */
+    public int getNumberOfVertices()
+    {
+        return distance.length;
+    } // end getNumberOfVertices
+
+    /** @return the id of the source of the current DAG */
+    public int getSource()
+    {
+        return source;
+    } // end getSource
+
+    /** @return the number of vertices reached from the source, the source included */
+    public int getReachedCount()
+    {
+        return reachedCount;
+    } // end getReachedCount
+
+    /** Gets a reached vertex by its position. Vertices come in order of distance, nearest first,
+     so every vertex comes after all of its predecessors.
+     @param position a number from 0 to getReachedCount()-1; position 0 is the source
+     @return the id of the vertex */
+    public int getReached(int position)
+    {
+        return order[position];
+    } // end getReached
+
+    /** Gets the distance of a vertex from the source.
+     @param vertex the id of the vertex
+     @return the number of edges on a shortest path, or -1 if the vertex was not reached */
+    public int getDistance(int vertex)
+    {
+        return distance[vertex];
+    } // end getDistance
+
+    /** Gets the distance of the farthest reached vertex, which is the eccentricity of the source
+     within its component.
+     @return the largest distance from the source */
+    public int getMaxDistance()
+    {
+        return distance[order[reachedCount - 1]];
+    } // end getMaxDistance
+
+    /** Gets the number of shortest paths from the source to a reached vertex. The count is a
+     double because it grows exponentially with the distance on some graphs.
+     @param vertex the id of a reached vertex
+     @return the number of shortest paths, 1 for the source */
+    public double getSigma(int vertex)
+    {
+        return sigma[vertex];
+    } // end getSigma
+
+    /** Gets the number of predecessors of a reached vertex, the neighbors that come right before
+     it on some shortest path from the source.
+     @param vertex the id of a reached vertex
+     @return the number of predecessors, 0 for the source */
+    public int getPredecessorCount(int vertex)
+    {
+        return predecessorCount[vertex];
+    } // end getPredecessorCount
+
+    /** Gets one predecessor of a reached vertex.
+     @param vertex the id of a reached vertex
+     @param index a number from 0 to getPredecessorCount(vertex)-1
+     @return the id of the predecessor */
+    public int getPredecessor(int vertex, int index)
+    {
+        return predecessors[offsets[vertex] + index];
+    } // end getPredecessor
+
+    /** Builds the DAG of every source in order of id and hands each one to all the visitors,
+     so several metrics share a single search per source.
+     @param graph an unweighted graph
+     @param visitors the visitors, called in the given order for every source */
+    public static void traverse(CompactGraph<?> graph, ShortestPathVisitor... visitors)
+    {
+        traverseRange(new ShortestPathDag(graph), 0, graph.getNumberOfVertices(), visitors);
+    } // end traverse
+
+    /** Builds the DAG of every source with the sources split across a pool. Every block of
+     sources gets its own visitor from the factory, and the visitors are merged pairwise along a
+     fixed split tree, so the result does not depend on the pool as long as the merger only
+     combines the two visitors it is given.
+     @param graph an unweighted graph
+     @param pool the pool that runs the searches
+     @param factory creates an empty visitor for every block of sources
+     @param merger combines the visitors of two neighboring blocks, the lower ids first
+     @return the merged visitor of all sources */
+    public static <V extends ShortestPathVisitor> V traverse(CompactGraph<?> graph, ForkJoinPool pool,
+                                                             Supplier<V> factory, BinaryOperator<V> merger)
+    {
+        int blockSize = Math.max(1, (graph.getNumberOfVertices() + BLOCK_COUNT - 1) / BLOCK_COUNT);
+        //blocks borrow their DAG, so there are at most as many as threads; the predecessor array is as long as the edge array
+        ScratchPool<ShortestPathDag> dags = new ScratchPool<>(() -> new ShortestPathDag(graph));
+        return pool.invoke(new SourceTask<V>(dags, factory, merger, 0, graph.getNumberOfVertices(), blockSize));
+    } // end traverse
+
+    private static void traverseRange(ShortestPathDag dag, int first, int last, ShortestPathVisitor... visitors)
+    {
+        for (int source = first; source < last; source++)
+        {
+            dag.search(source);
+            for (ShortestPathVisitor visitor : visitors)
+                visitor.visitSource(dag);
+        } // end for
+    } // end traverseRange
+
+    @SuppressWarnings("serial")
+    private static class SourceTask<V extends ShortestPathVisitor> extends RecursiveTask<V>
+    {
+        private final ScratchPool<ShortestPathDag> dags;
+        private final Supplier<V> factory;
+        private final BinaryOperator<V> merger;
+        private final int first;
+        private final int last;
+        private final int blockSize;
+
+        private SourceTask(ScratchPool<ShortestPathDag> dags, Supplier<V> factory, BinaryOperator<V> merger,
+                           int first, int last, int blockSize)
+        {
+            this.dags = dags;
+            this.factory = factory;
+            this.merger = merger;
+            this.first = first;
+            this.last = last;
+            this.blockSize = blockSize;
+        } // end constructor
+
+        protected V compute()
+        {
+            if (last - first <= blockSize)
+            {
+                V visitor = factory.get();
+                ShortestPathDag dag = dags.take();
+                traverseRange(dag, first, last, visitor);
+                dags.give(dag);
+                return visitor;
+            } // end if
+            int middle = (first + last) >>> 1;
+            SourceTask<V> left = new SourceTask<V>(dags, factory, merger, first, middle, blockSize);
+            left.fork();
+            V right = new SourceTask<V>(dags, factory, merger, middle, last, blockSize).compute();
+            return merger.apply(left.join(), right);
+        } // end compute
+    } // end SourceTask
+}
@@ -0,0 +1,269 @@
+import java.util.Arrays;
+
+/** Collects closeness, betweenness, eccentricity and the distribution of path lengths of an
+ unweighted graph from one ShortestPathDag traversal. Each metric is also a visitor of its own,
+ for callers that only need some of them. Apart from its results, a visitor keeps at most one
+ array of length V as scratch space, whatever the number of sources.
+ Every visitor has a merge method that adds the results of a visitor that saw other sources, so
+ it can be used with the parallel traversal:
+ <pre>
+ ShortestPathMetrics metrics = ShortestPathDag.traverse(graph, pool,
+     () -> new ShortestPathMetrics(graph.getNumberOfVertices()), ShortestPathMetrics::merge);
+ </pre>*/
+public class ShortestPathMetrics implements ShortestPathVisitor
+{
+    private final Closeness closeness;
+    private final Betweenness betweenness;
+    private final Eccentricity eccentricity;
+    private final PathLengthHistogram histogram;
+
+    /** @param vertexCount the number of vertices of the traversed graph */
+    public ShortestPathMetrics(int vertexCount)
+    {
+        closeness = new Closeness(vertexCount);
+        betweenness = new Betweenness(vertexCount);
+        eccentricity = new Eccentricity(vertexCount);
+        histogram = new PathLengthHistogram();
+    } // end constructor
+
+    public void visitSource(ShortestPathDag dag)
+    {
+        closeness.visitSource(dag);
+        betweenness.visitSource(dag);
+        eccentricity.visitSource(dag);
+        histogram.visitSource(dag);
+    } // end visitSource
+
+    /** Adds the results of another visitor of the same graph, which saw other sources.
+     @param other the other visitor
+     @return this visitor */
+    public ShortestPathMetrics merge(ShortestPathMetrics other)
+    {
+        closeness.merge(other.closeness);
+        betweenness.merge(other.betweenness);
+        eccentricity.merge(other.eccentricity);
+        histogram.merge(other.histogram);
+        return this;
+    } // end merge
+
+    /** @return closeness values in sum(1/d) form, indexed by vertex id */
+    public double[] getCloseness()
+    {
+        return closeness.getCloseness();
+    } // end getCloseness
+
+    /** @return betweenness values indexed by vertex id, each unordered pair counted once */
+    public double[] getBetweenness()
+    {
+        return betweenness.getBetweenness();
+    } // end getBetweenness
+
+    /** @return eccentricities indexed by vertex id */
+    public int[] getEccentricity()
+    {
+        return eccentricity.getEccentricity();
+    } // end getEccentricity
+
+    /** @return the counts of connected unordered pairs by distance */
+    public long[] getPathLengthCounts()
+    {
+        return histogram.getCounts();
+    } // end getPathLengthCounts
+
+    /** Closeness in sum(1/d) form, added one level at a time as BrandesBetweenness does.*/
+    public static class Closeness implements ShortestPathVisitor
+    {
+        private final double[] closeness;
+
+        /** @param vertexCount the number of vertices of the traversed graph */
+        public Closeness(int vertexCount)
+        {
+            closeness = new double[vertexCount];
+        } // end constructor
+
+        public void visitSource(ShortestPathDag dag)
+        {
+            double sum = 0;
+            int reached = dag.getReachedCount();
+            int levelStart = 1;
+            for (int i = 1; i <= reached; i++)
+            {
+                if ((i == reached) || (dag.getDistance(dag.getReached(i)) != dag.getDistance(dag.getReached(levelStart))))
+                {
+                    if (i > levelStart)
+                        sum += (double)(i - levelStart) / dag.getDistance(dag.getReached(levelStart));
+                    levelStart = i;
+                } // end if
+            } // end for
+            closeness[dag.getSource()] = sum;
+        } // end visitSource
+
+        /** Copies the values of another visitor of the same graph, which saw other sources.
+         @param other the other visitor
+         @return this visitor */
+        public Closeness merge(Closeness other)
+        {
+            //each source writes only its own entry, so the entries of other are its sources or 0
+            for (int vertex = 0; vertex < closeness.length; vertex++)
+                closeness[vertex] += other.closeness[vertex];
+            return this;
+        } // end merge
+
+        /** @return closeness values in sum(1/d) form, indexed by vertex id */
+        public double[] getCloseness()
+        {
+            return closeness.clone();
+        } // end getCloseness
+    } // end Closeness
+
+    /** Betweenness by Brandes' dependency accumulation over the DAG of every source.*/
+    public static class Betweenness implements ShortestPathVisitor
+    {
+        private final double[] betweenness;
+        private final double[] delta;//scratch, all zero between sources
+
+        /** @param vertexCount the number of vertices of the traversed graph */
+        public Betweenness(int vertexCount)
+        {
+            betweenness = new double[vertexCount];
+            delta = new double[vertexCount];
+        } // end constructor
+
+        public void visitSource(ShortestPathDag dag)
+        {
+            int reached = dag.getReachedCount();
+            for (int i = reached - 1; i > 0; i--)
+            {
+                int vertex = dag.getReached(i);
+                double coefficient = (1 + delta[vertex]) / dag.getSigma(vertex);
+                for (int k = 0; k < dag.getPredecessorCount(vertex); k++)
+                {
+                    int predecessor = dag.getPredecessor(vertex, k);
+                    delta[predecessor] += dag.getSigma(predecessor) * coefficient;
+                } // end for
+                betweenness[vertex] += delta[vertex];
+            } // end for
+            for (int i = 0; i < reached; i++)
+                delta[dag.getReached(i)] = 0;
+        } // end visitSource
+
+        /** Adds the dependencies collected by another visitor of the same graph.
+         @param other the other visitor
+         @return this visitor */
+        public Betweenness merge(Betweenness other)
+        {
+            for (int vertex = 0; vertex < betweenness.length; vertex++)
+                betweenness[vertex] += other.betweenness[vertex];
+            return this;
+        } // end merge
+
+        /** Gets the betweenness of every vertex. When every vertex was a source, each unordered
+         pair is counted once.
+         @return betweenness values indexed by vertex id */
+        public double[] getBetweenness()
+        {
+            double[] result = new double[betweenness.length];
+            //every unordered pair was counted once from each of its ends
+            for (int vertex = 0; vertex < result.length; vertex++)
+                result[vertex] = betweenness[vertex] / 2;
+            return result;
+        } // end getBetweenness
+    } // end Betweenness
+
+    /** The eccentricity of every source, its largest distance to a vertex of its own component.*/
+    public static class Eccentricity implements ShortestPathVisitor
+    {
+        private final int[] eccentricity;
+
+        /** @param vertexCount the number of vertices of the traversed graph */
+        public Eccentricity(int vertexCount)
+        {
+            eccentricity = new int[vertexCount];
+        } // end constructor
+
+        public void visitSource(ShortestPathDag dag)
+        {
+            eccentricity[dag.getSource()] = dag.getMaxDistance();
+        } // end visitSource
+
+        /** Copies the values of another visitor of the same graph, which saw other sources.
+         @param other the other visitor
+         @return this visitor */
+        public Eccentricity merge(Eccentricity other)
+        {
+            for (int vertex = 0; vertex < eccentricity.length; vertex++)
+                eccentricity[vertex] = Math.max(eccentricity[vertex], other.eccentricity[vertex]);
+            return this;
+        } // end merge
+
+        /** @return eccentricities indexed by vertex id, 0 for isolated vertices */
+        public int[] getEccentricity()
+        {
+            return eccentricity.clone();
+        } // end getEccentricity
+
+        /** @return the largest eccentricity, the diameter of the largest-diameter component */
+        public int getDiameter()
+        {
+            int diameter = 0;
+            for (int value : eccentricity)
+                diameter = Math.max(diameter, value);
+            return diameter;
+        } // end getDiameter
+    } // end Eccentricity
+
+    /** The number of vertex pairs at every distance. The counts are exact integers, so they do
+     not depend on the order in which sources were visited or merged.*/
+    public static class PathLengthHistogram implements ShortestPathVisitor
+    {
+        private long[] counts = new long[16];//ordered pairs by distance
+
+        public void visitSource(ShortestPathDag dag)
+        {
+            int reached = dag.getReachedCount();
+            if (dag.getMaxDistance() >= counts.length)
+                counts = Arrays.copyOf(counts, Math.max(dag.getMaxDistance() + 1, 2 * counts.length));
+            for (int i = 1; i < reached; i++)
+                counts[dag.getDistance(dag.getReached(i))]++;
+        } // end visitSource
+
+        /** Adds the counts of another visitor of the same graph, which saw other sources.
+         @param other the other visitor
+         @return this visitor */
+        public PathLengthHistogram merge(PathLengthHistogram other)
+        {
+            if (other.counts.length > counts.length)
+                counts = Arrays.copyOf(counts, other.counts.length);
+            for (int d = 0; d < other.counts.length; d++)
+                counts[d] += other.counts[d];
+            return this;
+        } // end merge
+
+        /** Gets the number of connected pairs at each distance. When every vertex was a source,
+         each unordered pair is counted once.
+         @return counts indexed by distance, up to the largest distance found */
+        public long[] getCounts()
+        {
+            int length = counts.length;
+            while ((length > 1) && (counts[length - 1] == 0))
+                length--;
+            long[] result = new long[length];
+            for (int d = 0; d < length; d++)
+                result[d] = counts[d] / 2;
+            return result;
+        } // end getCounts
+
+        /** @return the mean distance over all connected pairs, or 0 if there are none */
+        public double getAverageDistance()
+        {
+            long pairs = 0;
+            double total = 0;
+            for (int d = 1; d < counts.length; d++)
+            {
+                pairs += counts[d];
+                total += (double)d * counts[d];
+            } // end for
+            return (pairs == 0) ? 0 : total / pairs;
+        } // end getAverageDistance
+    } // end PathLengthHistogram
+}
@@ -0,0 +1,11 @@
+/** Receives the shortest path DAG of every source from ShortestPathDag.traverse, one source at a
+ time, instead of a map of materialized paths. Several visitors can share one traversal, so
+ closeness, betweenness, eccentricity and path length counts can all be collected in a single pass.*/
+public interface ShortestPathVisitor
+{
+    /** Called once for every source vertex, in order of id within one traversal.
+     The DAG is a view over buffers that are reused for the next source, so it is only valid
+     until this method returns and must not be kept.
+     @param dag the distances, path counts and predecessors of the vertices reached from the source */
+    public void visitSource(ShortestPathDag dag);
+} // end ShortestPathVisitor
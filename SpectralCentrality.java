@@ -0,0 +1,469 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/** PageRank, eigenvector and degree centrality, which cost O(V+E) per iteration instead of the
+ O(V*E) of closeness and betweenness, so they rank the vertices of a large graph in seconds.
+ PageRank and eigenvector centrality are found by power iteration: every iteration multiplies
+ the score vector by the adjacency matrix, which in CSR form is one pass over the edge array.
+ Each vertex pulls the values of its neighbors and writes only its own entry, so the pass needs
+ no locks or atomics and can be split across a pool. The vertices are cut into blocks with about
+ the same number of edges, every block adds up its part of the residual, and the parts are added
+ in block order, so a pool gives exactly the same scores as the calling thread.
+ All vectors are allocated once per run and reused by every iteration. A run stops once the sum
+ of the absolute changes of the scores falls below the tolerance, or after the maximum number of
+ iterations, and it can start from the scores of an earlier run to converge in fewer iterations
+ after a small change to the graph. Edge weights are ignored, every edge counts once.*/
+public class SpectralCentrality
+{
+    /** The damping factor of the original PageRank paper. */
+    public static final double DEFAULT_DAMPING = 0.85;
+    public static final double DEFAULT_TOLERANCE = 1e-9;
+    public static final int DEFAULT_MAX_ITERATIONS = 1000;
+    //the vertices are split into about this many blocks of equal edge counts
+    private static final int BLOCK_COUNT = 256;
+
+    private final int[] offsets;
+    private final int[] targets;
+    private final int vertexCount;
+    private final int[] blockStarts;//the vertices of block b are blockStarts[b]..blockStarts[b+1]-1
+
+    public SpectralCentrality(CompactGraph<?> graph)
+    {
+        offsets = graph.getOffsets();
+        targets = graph.getTargets();
+        vertexCount = graph.getNumberOfVertices();
+        int blocks = Math.max(1, Math.min(BLOCK_COUNT, vertexCount));
+        blockStarts = new int[blocks + 1];
+        //a block ends at the first vertex whose edges start past its share, counting a vertex as one edge
+        long work = (long)targets.length + vertexCount;
+        int vertex = 0;
+        for (int b = 1; b < blocks; b++)
+        {
+            long share = work * b / blocks;
+            while ((vertex < vertexCount) && ((long)offsets[vertex] + vertex < share))
+                vertex++;
+            blockStarts[b] = vertex;
+        } // end for
+        blockStarts[blocks] = vertexCount;
+    } // end constructor
+
+    /** Computes the degree centrality of every vertex, its number of neighbors divided by the
+     largest possible number, n-1.
+     @param graph a graph
+     @return degree centrality values indexed by vertex id */
+    public static double[] computeDegree(CompactGraph<?> graph)
+    {
+        int vertexCount = graph.getNumberOfVertices();
+        double[] degree = new double[vertexCount];
+        if (vertexCount < 2)
+            return degree;
+        for (int v = 0; v < vertexCount; v++)
+            degree[v] = (double)graph.getDegree(v) / (vertexCount - 1);
+        return degree;
+    } // end computeDegree
+
+    /** Computes PageRank with the default damping, tolerance and iteration limit on the calling thread.
+     @return the scores, which add up to 1 */
+    public Result computePageRank()
+    {
+        return computePageRank(DEFAULT_DAMPING, DEFAULT_TOLERANCE, DEFAULT_MAX_ITERATIONS, null, null);
+    } // end computePageRank
+
+    /** Computes PageRank with the default damping, tolerance and iteration limit across a pool.
+     @param pool the pool that runs every pass
+     @return the scores, identical to computePageRank() */
+    public Result computePageRank(ForkJoinPool pool)
+    {
+        return computePageRank(DEFAULT_DAMPING, DEFAULT_TOLERANCE, DEFAULT_MAX_ITERATIONS, null, pool);
+    } // end computePageRank
+
+    /** Computes PageRank, the stationary distribution of a walk that follows a random edge with
+     probability damping and jumps to a random vertex otherwise. A vertex without edges jumps to a
+     random vertex.
+     @param damping the probability of following an edge, from 0 to 1
+     @param tolerance the sum of absolute score changes under which the iteration stops
+     @param maxIterations the largest number of iterations
+     @param start scores to start from, such as those of an earlier run on a smaller version of
+     the graph, or null for the uniform vector; missing and NaN entries start at 1/n
+     @param pool the pool that runs every pass, or null for the calling thread
+     @return the scores, which add up to 1 */
+    public Result computePageRank(double damping, double tolerance, int maxIterations, double[] start, ForkJoinPool pool)
+    {
+        if ((damping < 0) || (damping > 1))
+            throw new IllegalArgumentException("The damping factor must be from 0 to 1: " + damping);
+        checkLimits(tolerance, maxIterations);
+        Instrumentation.PhaseTimer timer = Instrumentation.startPhase(Instrumentation.Phase.SEARCH, "SpectralCentrality.pageRank");
+        double[] rank = startVector(start);
+        scale(rank, 1 / sum(rank));
+        double[] share = new double[vertexCount];//rank / degree of every vertex, read by its neighbors
+        double[] nextShare = new double[vertexCount];
+        double[] residuals = new double[blockStarts.length - 1];
+        double[] danglingParts = new double[blockStarts.length - 1];
+        double dangling = 0;//rank of the vertices without edges, spread over all vertices
+        for (int v = 0; v < vertexCount; v++)
+        {
+            int degree = offsets[v + 1] - offsets[v];
+            if (degree == 0)
+                dangling += rank[v];
+            else
+                share[v] = rank[v] / degree;
+        } // end for
+        Result result = new Result(maxIterations);
+        while (result.iterations < maxIterations)
+        {
+            long started = System.nanoTime();
+            double base = (vertexCount == 0) ? 0 : ((1 - damping) + damping * dangling) / vertexCount;
+            PageRankPass pass = new PageRankPass(rank, share, nextShare, damping, base, residuals, danglingParts);
+            run(pass, pool);
+            double[] swap = share;
+            share = nextShare;
+            nextShare = swap;
+            dangling = sumInOrder(danglingParts);
+            if (result.finishIteration(sumInOrder(residuals), System.nanoTime() - started, tolerance))
+                break;
+        } // end while
+        timer.finish(vertexCount, targets.length / 2);
+        result.scores = rank;
+        return result;
+    } // end computePageRank
+
+    /** Computes eigenvector centrality with the default tolerance and iteration limit on the calling thread.
+     @return the scores, scaled to a Euclidean length of 1 */
+    public Result computeEigenvector()
+    {
+        return computeEigenvector(DEFAULT_TOLERANCE, DEFAULT_MAX_ITERATIONS, null, null);
+    } // end computeEigenvector
+
+    /** Computes eigenvector centrality with the default tolerance and iteration limit across a pool.
+     @param pool the pool that runs every pass
+     @return the scores, identical to computeEigenvector() */
+    public Result computeEigenvector(ForkJoinPool pool)
+    {
+        return computeEigenvector(DEFAULT_TOLERANCE, DEFAULT_MAX_ITERATIONS, null, pool);
+    } // end computeEigenvector
+
+    /** Computes eigenvector centrality, the principal eigenvector of the adjacency matrix, where
+     every vertex scores in proportion to the sum of the scores of its neighbors. The iteration
+     multiplies by A+I, which has the same eigenvectors and also converges on bipartite graphs.
+     In a disconnected graph the scores concentrate on the component with the largest eigenvalue.
+     @param tolerance the sum of absolute score changes under which the iteration stops
+     @param maxIterations the largest number of iterations
+     @param start scores to start from, or null for the uniform vector; missing and NaN entries
+     start at 1/n, and all entries must not be negative
+     @param pool the pool that runs every pass, or null for the calling thread
+     @return the scores, scaled to a Euclidean length of 1 */
+    public Result computeEigenvector(double tolerance, int maxIterations, double[] start, ForkJoinPool pool)
+    {
+        checkLimits(tolerance, maxIterations);
+        Instrumentation.PhaseTimer timer = Instrumentation.startPhase(Instrumentation.Phase.SEARCH, "SpectralCentrality.eigenvector");
+        double[] current = startVector(start);
+        double[] next = new double[vertexCount];
+        double[] parts = new double[blockStarts.length - 1];
+        scale(current, 1 / Math.sqrt(sumOfSquares(current)));
+        Result result = new Result(maxIterations);
+        while (result.iterations < maxIterations)
+        {
+            long started = System.nanoTime();
+            run(new EigenvectorPass(current, next, parts, false, 1), pool);
+            double norm = Math.sqrt(sumInOrder(parts));
+            if (norm == 0)
+                break;//no vertices
+            run(new EigenvectorPass(current, next, parts, true, 1 / norm), pool);
+            double[] swap = current;
+            current = next;
+            next = swap;
+            if (result.finishIteration(sumInOrder(parts), System.nanoTime() - started, tolerance))
+                break;
+        } // end while
+        timer.finish(vertexCount, targets.length / 2);
+        result.scores = current;
+        return result;
+    } // end computeEigenvector
+
+    private static void checkLimits(double tolerance, int maxIterations)
+    {
+        if (!(tolerance > 0))
+            throw new IllegalArgumentException("The tolerance must be positive: " + tolerance);
+        if (maxIterations < 0)
+            throw new IllegalArgumentException("The iteration limit must not be negative: " + maxIterations);
+    } // end checkLimits
+
+    //A copy of start with missing and NaN entries set to 1/n, or the uniform vector.
+    private double[] startVector(double[] start)
+    {
+        double[] vector = new double[vertexCount];
+        for (int v = 0; v < vertexCount; v++)
+        {
+            double value = ((start == null) || (v >= start.length)) ? Double.NaN : start[v];
+            if (value < 0)
+                throw new IllegalArgumentException("Start scores must not be negative: " + value);
+            vector[v] = Double.isNaN(value) ? 1.0 / vertexCount : value;
+        } // end for
+        if ((vertexCount > 0) && (sum(vector) == 0))
+            Arrays.fill(vector, 1.0 / vertexCount);
+        return vector;
+    } // end startVector
+
+    private static double sum(double[] vector)
+    {
+        double total = 0;
+        for (double value : vector)
+            total += value;
+        return total;
+    } // end sum
+
+    private static double sumOfSquares(double[] vector)
+    {
+        double total = 0;
+        for (double value : vector)
+            total += value * value;
+        return total;
+    } // end sumOfSquares
+
+    private static void scale(double[] vector, double factor)
+    {
+        if (Double.isInfinite(factor) || Double.isNaN(factor))
+            return;
+        for (int v = 0; v < vector.length; v++)
+            vector[v] *= factor;
+    } // end scale
+
+    //Adds the per-block parts in block order, so the total does not depend on which thread ran which block.
+    private static double sumInOrder(double[] parts)
+    {
+        double total = 0;
+        for (double part : parts)
+            total += part;
+        return total;
+    } // end sumInOrder
+
+    //Runs the blocks of a pass on the calling thread, or splits them across the pool.
+    private void run(Pass pass, ForkJoinPool pool)
+    {
+        if (pool == null)
+        {
+            for (int b = 0; b < blockStarts.length - 1; b++)
+                pass.computeBlock(b);
+        }
+        else
+            pool.invoke(new BlockTask(pass, 0, blockStarts.length - 1));
+    } // end run
+
+    //One pass over every vertex, block by block; a block only writes its own vertices and its own part.
+    private abstract class Pass
+    {
+        abstract void computeBlock(int block);
+    } // end Pass
+
+    /* rank = base + damping * sum of the neighbors' shares, written in place since only share is
+     read across vertices. The next shares and the rank of the vertices without edges are
+     gathered in the same pass.*/
+    private class PageRankPass extends Pass
+    {
+        private final double[] rank;
+        private final double[] share;
+        private final double[] nextShare;
+        private final double damping;
+        private final double base;
+        private final double[] residuals;
+        private final double[] danglingParts;
+
+        private PageRankPass(double[] rank, double[] share, double[] nextShare, double damping, double base,
+                             double[] residuals, double[] danglingParts)
+        {
+            this.rank = rank;
+            this.share = share;
+            this.nextShare = nextShare;
+            this.damping = damping;
+            this.base = base;
+            this.residuals = residuals;
+            this.danglingParts = danglingParts;
+        } // end constructor
+
+        void computeBlock(int block)
+        {
+            double residual = 0;
+            double dangling = 0;
+            for (int v = blockStarts[block]; v < blockStarts[block + 1]; v++)
+            {
+                double incoming = 0;
+                for (int j = offsets[v]; j < offsets[v + 1]; j++)
+                    incoming += share[targets[j]];
+                double value = base + damping * incoming;
+                residual += Math.abs(value - rank[v]);
+                rank[v] = value;
+                int degree = offsets[v + 1] - offsets[v];
+                if (degree == 0)
+                    dangling += value;
+                else
+                    nextShare[v] = value / degree;
+            } // end for
+            residuals[block] = residual;
+            danglingParts[block] = dangling;
+        } // end computeBlock
+    } // end PageRankPass
+
+    /* The first pass sets next = (A+I) current and parts to the squares of next. The normalizing
+     pass scales next by 1/norm in place and sets parts to the absolute changes from current.*/
+    private class EigenvectorPass extends Pass
+    {
+        private final double[] current;
+        private final double[] next;
+        private final double[] parts;
+        private final boolean normalizing;
+        private final double factor;
+
+        private EigenvectorPass(double[] current, double[] next, double[] parts, boolean normalizing, double factor)
+        {
+            this.current = current;
+            this.next = next;
+            this.parts = parts;
+            this.normalizing = normalizing;
+            this.factor = factor;
+        } // end constructor
+
+        void computeBlock(int block)
+        {
+            double part = 0;
+            if (!normalizing)
+            {
+                for (int v = blockStarts[block]; v < blockStarts[block + 1]; v++)
+                {
+                    double value = current[v];
+                    for (int j = offsets[v]; j < offsets[v + 1]; j++)
+                        value += current[targets[j]];
+                    next[v] = value;
+                    part += value * value;
+                } // end for
+            }
+            else
+            {
+                for (int v = blockStarts[block]; v < blockStarts[block + 1]; v++)
+                {
+                    next[v] *= factor;
+                    part += Math.abs(next[v] - current[v]);
+                } // end for
+            } // end if
+            parts[block] = part;
+        } // end computeBlock
+    } // end EigenvectorPass
+
+    @SuppressWarnings("serial")
+    private static class BlockTask extends RecursiveAction
+    {
+        private final Pass pass;
+        private final int first;
+        private final int last;
+
+        private BlockTask(Pass pass, int first, int last)
+        {
+            this.pass = pass;
+            this.first = first;
+            this.last = last;
+        } // end constructor
+
+        protected void compute()
+        {
+            if (last - first == 1)
+            {
+                pass.computeBlock(first);
+                return;
+            } // end if
+            int middle = (first + last) >>> 1;
+            invokeAll(new BlockTask(pass, first, middle), new BlockTask(pass, middle, last));
+        } // end compute
+    } // end BlockTask
+
+    /** The scores of a power iteration, with how it converged and how long each iteration took. */
+    public static class Result
+    {
+        private double[] scores;
+        private int iterations;
+        private double residual = Double.NaN;
+        private boolean converged;
+        private final long[] iterationNanos;
+
+        private Result(int maxIterations)
+        {
+            iterationNanos = new long[Math.min(maxIterations, 1 << 16)];
+        } // end constructor
+
+        //Records one iteration and tells whether the iteration has converged.
+        private boolean finishIteration(double change, long nanos, double tolerance)
+        {
+            if (iterations < iterationNanos.length)
+                iterationNanos[iterations] = nanos;
+            iterations++;
+            residual = change;
+            converged = change < tolerance;
+            return converged;
+        } // end finishIteration
+
+        /** Gets a copy of the scores, so that a result held by a cache cannot be changed through it.
+         @return the scores indexed by vertex id */
+        public double[] getScores()
+        {
+            return scores.clone();
+        } // end getScores
+
+        /** @return the number of iterations that were run */
+        public int getIterationCount()
+        {
+            return iterations;
+        } // end getIterationCount
+
+        /** @return true if the last change was below the tolerance */
+        public boolean isConverged()
+        {
+            return converged;
+        } // end isConverged
+
+        /** @return the sum of the absolute score changes of the last iteration, NaN if none ran */
+        public double getResidual()
+        {
+            return residual;
+        } // end getResidual
+
+        /** Gets the wall clock time of every iteration. Only the first 65536 are kept.
+         @return nanoseconds per iteration, in order */
+        public long[] getIterationNanos()
+        {
+            return Arrays.copyOf(iterationNanos, Math.min(iterations, iterationNanos.length));
+        } // end getIterationNanos
+
+        //The bytes held by the scores and the timings, for cache weighers.
+        long getSize()
+        {
+            return 64 + 8L * scores.length + 8L * iterationNanos.length;
+        } // end getSize
+    } // end Result
+
+    /** The scores of a power iteration matched to the labels of the graph they were computed on,
+     together with the Result that tells whether the iteration converged. */
+    public static class Scores<T> extends CentralityScores<T>
+    {
+        private final Result result;
+
+        /** @param graph the graph the iteration ran on
+         @param result the result of the iteration, whose scores are not copied */
+        public Scores(CompactGraph<T> graph, Result result)
+        {
+            super(graph, result.scores);
+            this.result = result;
+        } // end constructor
+
+        /** @return the iteration count, residual and timings of the run behind the scores */
+        public Result getResult()
+        {
+            return result;
+        } // end getResult
+
+        /** @return true if the scores changed by less than the tolerance in the last iteration;
+         if not, the iteration limit was reached and the scores are only an approximation */
+        public boolean isConverged()
+        {
+            return result.isConverged();
+        } // end isConverged
+    } // end Scores
+}
@@ -0,0 +1,144 @@
+import java.util.Arrays;
+
+/** Scratch state for one breadth first traversal over vertices numbered 0..n-1.
+ The visited marks, distances and predecessors live in dense arrays instead of in the vertices,
+ so a graph can be traversed by several threads at once as long as each thread uses its own
+ context. A vertex counts as visited only if its mark equals the current generation, which makes
+ reset() O(1): it starts a new generation instead of clearing every mark.
+ The queue is never wrapped around, so after a traversal it also holds every visited vertex in
+ the order it was reached. Searches that visit vertices in order of path cost, like Dijkstra's,
+ also record the tentative cost and predecessor of vertices that are not visited yet.*/
+public class TraversalContext
+{
+    private int[] visitedGeneration;
+    private int generation;
+    private int[] distance;
+    private int[] predecessor;
+    private double[] cost;
+    private int[] queue;
+    private int head;
+    private int tail;
+
+    public TraversalContext()
+    {
+        this(16);
+    } // end default constructor
+
+    public TraversalContext(int initialCapacity)
+    {
+        visitedGeneration = new int[initialCapacity];
+        distance = new int[initialCapacity];
+        predecessor = new int[initialCapacity];
+        cost = new double[initialCapacity];
+        queue = new int[initialCapacity];
+        generation = 0;
+    } // end constructor
+
+    /** Forgets the previous traversal and makes room for a graph of the given size.
+     @param vertexCount the number of vertices in the graph about to be traversed */
+    public void reset(int vertexCount)
+    {
+        if (vertexCount > visitedGeneration.length)
+        {
+            int capacity = Math.max(vertexCount, 2 * visitedGeneration.length);
+            //new marks are 0, which is never a live generation
+            visitedGeneration = Arrays.copyOf(visitedGeneration, capacity);
+            distance = new int[capacity];
+            predecessor = new int[capacity];
+            cost = new double[capacity];
+            queue = new int[capacity];
+        } // end if
+        generation++;
+        if (generation == Integer.MAX_VALUE)
+        { // the counter wrapped, old marks could look current again
+            Arrays.fill(visitedGeneration, 0);
+            generation = 1;
+        } // end if
+        head = 0;
+        tail = 0;
+    } // end reset
+
+    /** Sees whether a vertex has been visited since the last reset.
+     @param vertex the id of the vertex
+     @return true if the vertex is visited */
+    public boolean isVisited(int vertex)
+    {
+        return visitedGeneration[vertex] == generation;
+    } // end isVisited
+
+    /** Marks a vertex as visited, records how it was reached and adds it to the queue.
+     @param vertex the id of the vertex
+     @param vertexDistance the number of edges from the origin to the vertex
+     @param vertexPredecessor the id of the previous vertex on the path, or -1 for the origin */
+    public void visit(int vertex, int vertexDistance, int vertexPredecessor)
+    {
+        visitedGeneration[vertex] = generation;
+        distance[vertex] = vertexDistance;
+        predecessor[vertex] = vertexPredecessor;
+        queue[tail++] = vertex;
+    } // end visit
+
+    /** Records the cheapest path found so far to a vertex that is not visited yet. The vertex is
+     visited with its recorded predecessor once no cheaper path can be found.
+     @param vertex the id of the vertex
+     @param vertexCost the total edge weight of the path
+     @param vertexPredecessor the id of the previous vertex on the path, or -1 for the origin */
+    public void label(int vertex, double vertexCost, int vertexPredecessor)
+    {
+        cost[vertex] = vertexCost;
+        predecessor[vertex] = vertexPredecessor;
+    } // end label
+
+    /** Gets the cost recorded with label for a vertex.
+     @param vertex the id of a labeled vertex
+     @return the total edge weight of the path to the vertex */
+    public double getCost(int vertex)
+    {
+        return cost[vertex];
+    } // end getCost
+
+    /** Gets the distance recorded for a visited vertex.
+     @param vertex the id of a visited vertex
+     @return the number of edges from the origin to the vertex */
+    public int getDistance(int vertex)
+    {
+        return distance[vertex];
+    } // end getDistance
+
+    /** Gets the predecessor recorded for a visited vertex.
+     @param vertex the id of a visited vertex
+     @return the id of the previous vertex on the path, or -1 for the origin */
+    public int getPredecessor(int vertex)
+    {
+        return predecessor[vertex];
+    } // end getPredecessor
+
+    /** Sees whether visited vertices are still waiting to be expanded.
+     @return true if the queue is not empty */
+    public boolean hasQueued()
+    {
+        return head < tail;
+    } // end hasQueued
+
+    /** Removes the next vertex from the queue.
+     @return the id of the vertex */
+    public int dequeue()
+    {
+        return queue[head++];
+    } // end dequeue
+
+    /** Gets the number of vertices visited since the last reset.
+     @return the number of visited vertices */
+    public int getVisitedCount()
+    {
+        return tail;
+    } // end getVisitedCount
+
+    /** Gets a visited vertex by the order in which it was reached.
+     @param position a number from 0 to getVisitedCount()-1
+     @return the id of the vertex */
+    public int getVisited(int position)
+    {
+        return queue[position];
+    } // end getVisited
+}
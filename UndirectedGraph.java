@@ -1,113 +1,231 @@
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
 
 public class UndirectedGraph<T> implements BasicGraphInterface<T>{
-    private HashMap<T, VertexInterface<T>> vertices;
+    //Labels are interned into dense ids, which are also the indices of the vertices in vertexList,
+    //so lookups don't box int labels and the centrality methods accumulate into arrays.
+    private LabelIndex<T> vertexIds;
+    private ArrayList<VertexInterface<T>> vertexList;//vertices by index, for the traversal contexts
     private int edgeCount;
+    private ArrayList<GraphListener<T>> listeners;
+    //Bumped by every change, so cached results of an older version are never handed out.
+    private long modificationCount;
+    private CentralityCache cache;
+    //Traversal state is kept per thread instead of inside the vertices, so concurrent readers don't interfere.
+    private final ThreadLocal<TraversalContext> contexts = ThreadLocal.withInitial(TraversalContext::new);
+    private final ThreadLocal<IndexedMinHeap> heaps = ThreadLocal.withInitial(IndexedMinHeap::new);
 
     public UndirectedGraph()
     {
-        vertices = new HashMap<>();
+        vertexIds = new LabelIndex<>();
+        vertexList = new ArrayList<>();
         edgeCount = 0;
+        listeners = new ArrayList<>();
+        cache = new CentralityCache(CentralityCache.DEFAULT_CAPACITY);
     }
 
     public boolean addVertex(T vertexLabel)
     {
         //Does not add vertices that are already present in the graph to protect the connected edges.
-        if(!vertices.containsKey(vertexLabel)){
-            vertices.put(vertexLabel, new Vertex(vertexLabel));
+        if(vertexIds.add(vertexLabel) == vertexList.size()){
+            VertexInterface<T> newVertex = new Vertex<>(vertexLabel, vertexList.size());
+            vertexList.add(newVertex);
+            modificationCount++;
+            for (GraphListener<T> listener : listeners)
+                listener.vertexAdded(vertexLabel);
             return true;
         }
         else return false;
     }
 
+    /** Registers a listener that is told about every vertex and edge added from now on.
+     * @param listener the listener to notify*/
+    public void addGraphListener(GraphListener<T> listener){
+        listeners.add(listener);
+    }
+
+    public void removeGraphListener(GraphListener<T> listener){
+        listeners.remove(listener);
+    }
+
+    //Returns null if there is no vertex with that label.
+    private VertexInterface<T> getVertex(T vertexLabel){
+        int id = vertexIds.getId(vertexLabel);
+        return (id < 0) ? null : vertexList.get(id);
+    }
+
     public boolean hasVertex(T vertexLabel){
-        return vertices.containsKey(vertexLabel);
+        return vertexIds.getId(vertexLabel) >= 0;
     }
 
+    //Unweighted edges weigh 1, so every centrality method counts them as one step.
     public boolean addEdge(T begin, T end)
     {
+        return addEdge(begin, end, 1);
+    }
+
+    /** Adds an edge that carries a weight, such as the strength of an interaction. Once any edge
+     * weighs something other than 1, getBetweennessScores, getClosenessScores and getCheapestPath
+     * measure paths by their total weight. The hop count methods keep ignoring weights.
+     * @throws IllegalArgumentException if the weight is not a positive finite number*/
+    public boolean addEdge(T begin, T end, double edgeWeight)
+    {
+        if (!(edgeWeight > 0) || Double.isInfinite(edgeWeight))
+            throw new IllegalArgumentException("Edge weights must be positive and finite: " + edgeWeight);
         boolean result = false;
-        VertexInterface<T> beginVertex = vertices.get(begin);
-        VertexInterface<T> endVertex = vertices.get(end);
-        if ( (beginVertex != null) && (endVertex != null) ){
-            result = beginVertex.connect(endVertex);
-            result = endVertex.connect(beginVertex);// TODO fix boolean return value
-        }
-        if (result)
+        VertexInterface<T> beginVertex = getVertex(begin);
+        VertexInterface<T> endVertex = getVertex(end);
+        //the edge is stored in both vertices, so it is new exactly when the first side accepts it
+        if ( (beginVertex != null) && (endVertex != null) && beginVertex.connect(endVertex, edgeWeight) ){
+            endVertex.connect(beginVertex, edgeWeight);
+            result = true;
             edgeCount++;
+            modificationCount++;
+            for (GraphListener<T> listener : listeners)
+                listener.edgeAdded(begin, end);
+        }
         return result;
     }
 
-    //This method is added to accommodate basic graph interface.
-    public boolean addEdge(T begin, T end, double edgeWeight) {
-        return addEdge(begin,end);
+    /** Adds a batch of unweighted edges, adding their end vertices first if they are not present.
+     * The pairs are turned into vertex indices and sorted, so duplicates inside the batch are dropped
+     * in one pass, and edges already in the graph are rejected by the hashed neighbor sets of the
+     * vertices instead of by scanning neighbor lists.
+     * @param begins labels of one end of every edge
+     * @param ends labels of the other end of every edge, aligned with begins
+     * @return the number of edges that were new*/
+    public int addEdges(List<T> begins, List<T> ends){
+        if (begins.size() != ends.size())
+            throw new IllegalArgumentException("Got " + begins.size() + " begin labels but " + ends.size() + " end labels");
+        long[] pairs = new long[begins.size()];
+        int pairCount = 0;
+        Iterator<T> beginIterator = begins.iterator();
+        Iterator<T> endIterator = ends.iterator();
+        while (beginIterator.hasNext()){
+            T begin = beginIterator.next();
+            T end = endIterator.next();
+            addVertex(begin);
+            addVertex(end);
+            long first = vertexIds.getId(begin);
+            long second = vertexIds.getId(end);
+            if (first != second)//self loops are never added
+                pairs[pairCount++] = (Math.min(first, second) << 32) | Math.max(first, second);
+        }
+        Arrays.sort(pairs, 0, pairCount);
+        int added = 0;
+        for (int i = 0; i < pairCount; i++){
+            if ((i > 0) && (pairs[i] == pairs[i - 1]))
+                continue;
+            VertexInterface<T> beginVertex = vertexList.get((int)(pairs[i] >>> 32));
+            VertexInterface<T> endVertex = vertexList.get((int)pairs[i]);
+            if (beginVertex.connect(endVertex, 1)){
+                endVertex.connect(beginVertex, 1);
+                edgeCount++;
+                modificationCount++;
+                added++;
+                for (GraphListener<T> listener : listeners)
+                    listener.edgeAdded(beginVertex.getLabel(), endVertex.getLabel());
+            }
+        }
+        return added;
     }
 
+    //O(1) for vertices with many neighbors, which keep a hashed neighbor set.
     public boolean hasEdge(T begin, T end)
     {
-        boolean found = false;
-        VertexInterface<T> beginVertex = vertices.get(begin);
-        VertexInterface<T> endVertex = vertices.get(end);
-        if ( (beginVertex != null) && (endVertex != null) )
-        {
-            Iterator<VertexInterface<T>> neighbors = beginVertex.getNeighborIterator();
-            while (!found && neighbors.hasNext())
-            {
-                VertexInterface<T> nextNeighbor = neighbors.next();
-                if (endVertex.equals(nextNeighbor))
-                    found = true;
-            } // end while
-        } // end if
-        return found;
+        VertexInterface<T> beginVertex = getVertex(begin);
+        VertexInterface<T> endVertex = getVertex(end);
+        return (beginVertex != null) && (endVertex != null) && beginVertex.hasEdgeTo(endVertex);
     } // end hasEdge
     public boolean isEmpty()
     {
-        return vertices.isEmpty();
+        return vertexList.isEmpty();
     } // end isEmpty
     public void clear()
     {
-        vertices.clear();
+        vertexIds.clear();
+        vertexList.clear();
         edgeCount = 0;
+        modificationCount++;
+        if (cache != null)
+            cache.invalidate(this);
+        for (GraphListener<T> listener : listeners)
+            listener.graphCleared();
     } // end clear
     public int getNumberOfVertices()
     {
-        return vertices.size();
+        return vertexList.size();
     } // end getNumberOfVertices
     public int getNumberOfEdges()
     {
         return edgeCount;
     } // end getNumberOfEdges
 
+    /** Gets the number of changes made to the graph so far. Every vertex or edge that is added and
+     * every clear counts, so two equal counts mean the graph did not change in between.
+     * @return the modification count*/
+    public long getModificationCount(){
+        return modificationCount;
+    }
+
+    /** Replaces the cache that keeps the compact form, the centrality scores and the shortest paths
+     * of this graph between calls, for example to share one memory bound among many graphs.
+     * @param cache the cache to use, or null to compute every result again on every call*/
+    public void setCentralityCache(CentralityCache cache){
+        if (this.cache != null)
+            this.cache.invalidate(this);
+        this.cache = cache;
+    }
+
+    //Returns the cache in use, for its statistics, or null if caching is off.
+    public CentralityCache getCentralityCache(){
+        return cache;
+    }
+
+    //Looks a result of the current version up in the cache, computing it on a miss.
+    private <V> V cached(String key, Supplier<V> compute, ToLongFunction<? super V> weigher){
+        return (cache == null) ? compute.get() : cache.get(this, modificationCount, key, compute, weigher);
+    }
+
+    //Caches the score vector alone and pairs it with toCompactGraph() on every call, so that an
+    //entry never keeps a CompactGraph alive after the "compact" entry was evicted and weighs exactly its array.
+    private CentralityScores<T> cachedScores(String key, Function<CompactGraph<T>, double[]> compute){
+        double[] scores = cached(key, () -> compute.apply(toCompactGraph()), vector -> 16 + 8L * vector.length);
+        return new CentralityScores<>(toCompactGraph(), scores);
+    }
+
     /** Checks inside all of the shortest paths and increases the frequency of each found vertex,
      * then finds the highest occurent vertex and divides by the total path count to return as the highest betweenness.
      * @return 2 sized double array: 1st index is node label, 2nd index is betweenness value*/
     //takes all shortest paths as parameter instead of calculating it inside to allow user to store the paths once and
     //use it in other methods also, thus saving time.
     public double[] getHighestBetweenness(HashMap<LinkedHashSet<T>,Integer> allShortestPaths){
-        HashMap<T,Integer> vertexFrequency = new HashMap<>();
+        int[] vertexFrequency = new int[vertexList.size()];//indexed by vertex id, no boxing per increment
         T highestOccurVertexLabel = null;
         int highestOccurCount = -1;
 
         //increases the frequency of each vertex whenever occurred in any path.
+        Instrumentation.PhaseTimer timer = Instrumentation.startPhase(Instrumentation.Phase.ACCUMULATE, "UndirectedGraph.getHighestBetweenness");
         for (Map.Entry<LinkedHashSet<T>, Integer> shortestPath : allShortestPaths.entrySet()){
             LinkedHashSet<T> path = shortestPath.getKey();
-            for (T vertexLabel : path) {
-                if (vertexFrequency.containsKey(vertexLabel)) {
-                    vertexFrequency.put(vertexLabel, vertexFrequency.get(vertexLabel) + 1);
-                } else {
-                    vertexFrequency.put(vertexLabel, 1);
-                }
-            }
+            for (T vertexLabel : path)
+                vertexFrequency[vertexIds.getId(vertexLabel)]++;
         }
+        timer.finish(vertexList.size(), edgeCount);
         //find the highest frequency of all vertices that was found inside the shortest paths
-        for (Map.Entry<T, Integer> vertex : vertexFrequency.entrySet()){
-            if((vertex.getValue() > highestOccurCount) || (highestOccurCount == -1)){
-                highestOccurCount = vertex.getValue();
-                highestOccurVertexLabel = vertex.getKey();
+        timer = Instrumentation.startPhase(Instrumentation.Phase.SELECT, "UndirectedGraph.getHighestBetweenness");
+        for (int id = 0; id < vertexFrequency.length; id++){
+            if((vertexFrequency[id] > 0) && ((vertexFrequency[id] > highestOccurCount) || (highestOccurCount == -1))){
+                highestOccurCount = vertexFrequency[id];
+                highestOccurVertexLabel = vertexIds.getLabel(id);
             }
         }
+        timer.finish(vertexList.size(), edgeCount);
         if(highestOccurVertexLabel != null){
             double node = Double.parseDouble((highestOccurVertexLabel.toString()));
             double betweenness = (double)highestOccurCount / allShortestPaths.size();
@@ -117,9 +235,147 @@ public class UndirectedGraph<T> implements BasicGraphInterface<T>{
         else return null;
     }
     //This method is for the users that don't need to calculate shortest paths beforehand to save time.
+    //The result and the shortest paths are cached until the graph changes.
     public double[] getHighestBetweenness(){
-        return getHighestBetweenness(getAllShortestPaths());
+        double[] highest = cached("highestBetweenness", () -> getHighestBetweenness(getCachedShortestPaths()), result -> 32);
+        return (highest == null) ? null : highest.clone();
+    }
+    /** Calculates the betweenness of every vertex with Brandes' algorithm. Unlike getHighestBetweenness,
+     * no shortest path is stored and every shortest path between a pair is counted, not just one of them.
+     * A vertex gains k/m from a pair of other vertices when it lies on k of the m shortest paths between them.
+     * @return the betweenness of every vertex, readable by label, ranked or narrowed to the top k*/
+    public CentralityScores<T> getBetweennessScores(){
+        return cachedScores("betweenness", graph -> graph.getBetweennessScores());
+    }
+    /** Calculates the closeness of every vertex in sum(1/d) form, like getHighestCloseness does,
+     * without storing any shortest path.
+     * @return the closeness of every vertex, readable by label, ranked or narrowed to the top k*/
+    public CentralityScores<T> getClosenessScores(){
+        return cachedScores("closeness", graph -> graph.getClosenessScores());
+    }
+    //Parallel versions of the two methods above. The searches are split across the given pool and
+    //the results are identical to the sequential ones, so both share their cache entries.
+    public CentralityScores<T> getBetweennessScores(ForkJoinPool pool){
+        return cachedScores("betweenness", graph -> graph.getBetweennessScores(pool));
+    }
+    public CentralityScores<T> getClosenessScores(ForkJoinPool pool){
+        return cachedScores("closeness", graph -> graph.getClosenessScores(pool));
     }
+    /** Hands the shortest path DAG of every vertex to the given visitors, one source at a time and
+     * without storing any path, so that metrics such as ShortestPathMetrics share one search per source.
+     * Only works on graphs without edge weights.
+     * @param visitors the visitors, called in the given order for every source
+     * @return the graph the visitors ran on, whose labels belong to the vertex ids of the DAGs*/
+    public CompactGraph<T> visitShortestPaths(ShortestPathVisitor... visitors){
+        CompactGraph<T> graph = toCompactGraph();
+        ShortestPathDag.traverse(graph, visitors);
+        return graph;
+    }
+    /** Estimates the betweenness of every vertex by sampling vertex pairs, for graphs where the exact
+     * calculation takes too long. The estimates are on the same scale as getBetweennessScores.
+     * @param epsilon the largest error allowed on a score divided by the number of vertex pairs
+     * @param delta the probability that some score misses the bound
+     * @param seed the seed of the sampling, so that a run can be repeated
+     * @return the estimated scores together with the reached accuracy*/
+    public ApproximateBetweenness.Result<T> getApproximateBetweenness(double epsilon, double delta, long seed){
+        return new ApproximateBetweenness<>(toCompactGraph(), seed).estimate(epsilon, delta);
+    }
+    //Same as above, but samples for as long as timeBudgetMillis allows and reports the accuracy it reached.
+    public ApproximateBetweenness.Result<T> getApproximateBetweennessWithin(double delta, long timeBudgetMillis, long seed){
+        return new ApproximateBetweenness<>(toCompactGraph(), seed).estimateWithin(delta, timeBudgetMillis);
+    }
+    /** Estimates the closeness of every vertex with HyperLogLog counters (HyperBall) on the common pool.
+     * @param registerCount registers per counter, a power of two from 16 to 65536
+     * @return the estimated closeness of every vertex*/
+    public CentralityScores<T> getApproximateClosenessScores(int registerCount){
+        return cachedScores("approximateCloseness:" + registerCount,
+                            graph -> graph.getApproximateClosenessScores(registerCount, ForkJoinPool.commonPool()));
+    }
+    /** Calculates the degree centrality of every vertex, its number of neighbors divided by n-1.
+     * @return the degree centrality of every vertex*/
+    public CentralityScores<T> getDegreeScores(){
+        return cachedScores("degree", SpectralCentrality::computeDegree);
+    }
+    /** Calculates the PageRank of every vertex by power iteration, in O(V+E) per iteration.
+     * Edge weights are ignored.
+     * @param pool the pool that runs every iteration
+     * @return the PageRank of every vertex, adding up to 1, and whether the iteration converged*/
+    public SpectralCentrality.Scores<T> getPageRankScores(ForkJoinPool pool){
+        //like cachedScores, the entry holds the result without the graph
+        SpectralCentrality.Result result = cached("pagerank", () -> getPageRankScores(null, pool).getResult(),
+                                                  SpectralCentrality.Result::getSize);
+        return new SpectralCentrality.Scores<>(toCompactGraph(), result);
+    }
+    /** Calculates the PageRank of every vertex, starting from the scores of an earlier call so that
+     * fewer iterations are needed after the graph changed a little. Vertices added since start at 1/n.
+     * @param previous scores returned by an earlier call, or null to start from scratch
+     * @param pool the pool that runs every iteration
+     * @return the PageRank of every vertex, adding up to 1, and whether the iteration converged*/
+    public SpectralCentrality.Scores<T> getPageRankScores(CentralityScores<T> previous, ForkJoinPool pool){
+        CompactGraph<T> graph = toCompactGraph();
+        SpectralCentrality.Result result = new SpectralCentrality(graph).computePageRank(SpectralCentrality.DEFAULT_DAMPING,
+            SpectralCentrality.DEFAULT_TOLERANCE, SpectralCentrality.DEFAULT_MAX_ITERATIONS, getStartScores(graph, previous), pool);
+        return new SpectralCentrality.Scores<>(graph, result);
+    }
+    /** Calculates the eigenvector centrality of every vertex by power iteration, in O(V+E) per iteration.
+     * Edge weights are ignored.
+     * @param pool the pool that runs every iteration
+     * @return the eigenvector centrality of every vertex, scaled to a Euclidean length of 1, and
+     * whether the iteration converged*/
+    public SpectralCentrality.Scores<T> getEigenvectorScores(ForkJoinPool pool){
+        SpectralCentrality.Result result = cached("eigenvector", () -> getEigenvectorScores(null, pool).getResult(),
+                                                  SpectralCentrality.Result::getSize);
+        return new SpectralCentrality.Scores<>(toCompactGraph(), result);
+    }
+    //Same as above, starting from the scores of an earlier call like getPageRankScores(previous, pool).
+    public SpectralCentrality.Scores<T> getEigenvectorScores(CentralityScores<T> previous, ForkJoinPool pool){
+        CompactGraph<T> graph = toCompactGraph();
+        SpectralCentrality.Result result = new SpectralCentrality(graph).computeEigenvector(SpectralCentrality.DEFAULT_TOLERANCE,
+            SpectralCentrality.DEFAULT_MAX_ITERATIONS, getStartScores(graph, previous), pool);
+        return new SpectralCentrality.Scores<>(graph, result);
+    }
+    //Earlier scores matched to the current vertex ids by label, NaN for the vertices added since.
+    private double[] getStartScores(CompactGraph<T> graph, CentralityScores<T> previous){
+        if(previous == null)
+            return null;
+        double[] start = new double[graph.getNumberOfVertices()];
+        for (int id = 0; id < start.length; id++){
+            int previousId = previous.getGraph().getId(graph.getLabel(id));
+            start[id] = (previousId < 0) ? Double.NaN : previous.getScore(previousId);
+        }
+        return start;
+    }
+
+    /** Freezes the current vertices and edges into an immutable compressed sparse row graph
+     * that every traversal and centrality algorithm can run on.
+     * The graph is cached until this graph changes, so the score methods share one copy.
+     * @return a CompactGraph with the same vertices and edges as this graph*/
+    public CompactGraph<T> toCompactGraph()
+    {
+        //offsets, labels and their index per vertex, two targets per edge and two weights if weighted
+        return cached("compact", this::buildCompactGraph, graph ->
+            48L * graph.getNumberOfVertices() + (graph.isWeighted() ? 24L : 8L) * graph.getNumberOfEdges());
+    } // end toCompactGraph
+
+    private CompactGraph<T> buildCompactGraph()
+    {
+        Instrumentation.PhaseTimer timer = Instrumentation.startPhase(Instrumentation.Phase.BUILD, "UndirectedGraph.toCompactGraph");
+        //the builder starts from a copy of the label ids, so vertex indices are the compact ids
+        CompactGraph.Builder<T> builder = new CompactGraph.Builder<>(new LabelIndex<>(vertexIds), edgeCount);
+        for (VertexInterface<T> vertex : vertexList)
+        {
+            int beginId = vertex.getIndex();
+            for (int i = 0; i < vertex.getNeighborCount(); i++)
+            {
+                int endId = vertex.getNeighbor(i).getIndex();
+                if (beginId < endId)//each edge is stored in both of its vertices
+                    builder.addEdgeById(beginId, endId, vertex.getWeight(i));
+            } // end for
+        } // end for
+        CompactGraph<T> graph = builder.build();
+        timer.finish(graph.getNumberOfVertices(), graph.getNumberOfEdges());
+        return graph;
+    } // end buildCompactGraph
     /** For all of the shortest paths get beginning and end vertices, increase these vertices's
      * distance to other vertices by that shortest path length.This way all of the shortest path distances
      * any vertex has to any other vertex is added up in one loop.
@@ -133,8 +389,10 @@ public class UndirectedGraph<T> implements BasicGraphInterface<T>{
         T closestVertexLabel = null;
         T beginVertexLabel = null,endVertexLabel;
 
-        HashMap<T,Double> nodesWithCloseness = new HashMap<>();
+        double[] nodesWithCloseness = new double[vertexList.size()];//indexed by vertex id
+        boolean[] inSomePath = new boolean[vertexList.size()];
         //for all of the shortest paths
+        Instrumentation.PhaseTimer timer = Instrumentation.startPhase(Instrumentation.Phase.ACCUMULATE, "UndirectedGraph.getHighestCloseness");
         for (Map.Entry<LinkedHashSet<T>, Integer> shortestPath : allShortestPaths.entrySet()){
             LinkedHashSet<T> path = shortestPath.getKey();
             Iterator<T> pathIter = path.iterator();
@@ -148,23 +406,23 @@ public class UndirectedGraph<T> implements BasicGraphInterface<T>{
             double closeness = ((double)1 / shortestPath.getValue());
 
             //increase the distance begin and end vertex has to other vertices.
-            if (nodesWithCloseness.containsKey(endVertexLabel))
-                nodesWithCloseness.put(endVertexLabel, nodesWithCloseness.get(endVertexLabel) + closeness);
-            else
-                nodesWithCloseness.put(endVertexLabel, closeness);
-
-            if (beginVertexLabel != null && nodesWithCloseness.containsKey(beginVertexLabel))
-                nodesWithCloseness.put(beginVertexLabel, nodesWithCloseness.get(beginVertexLabel) + closeness);
-            else
-                nodesWithCloseness.put(beginVertexLabel, closeness);
+            int endId = vertexIds.getId(endVertexLabel);
+            int beginId = vertexIds.getId(beginVertexLabel);
+            nodesWithCloseness[endId] += closeness;
+            nodesWithCloseness[beginId] += closeness;
+            inSomePath[endId] = true;
+            inSomePath[beginId] = true;
         }
+        timer.finish(vertexList.size(), edgeCount);
         //find smallest distance by getting highest value since the distances were summed up as 1/distance each step
-        for (Map.Entry<T, Double> node : nodesWithCloseness.entrySet()){
-            if((node.getValue() > sumOneOverDistance) || (sumOneOverDistance == -1)){
-                sumOneOverDistance = node.getValue();
-                closestVertexLabel = node.getKey();
+        timer = Instrumentation.startPhase(Instrumentation.Phase.SELECT, "UndirectedGraph.getHighestCloseness");
+        for (int id = 0; id < nodesWithCloseness.length; id++){
+            if(inSomePath[id] && ((nodesWithCloseness[id] > sumOneOverDistance) || (sumOneOverDistance == -1))){
+                sumOneOverDistance = nodesWithCloseness[id];
+                closestVertexLabel = vertexIds.getLabel(id);
             }
         }
+        timer.finish(vertexList.size(), edgeCount);
         if(closestVertexLabel != null){
             double node = Double.parseDouble((closestVertexLabel).toString());
 
@@ -173,139 +431,186 @@ public class UndirectedGraph<T> implements BasicGraphInterface<T>{
         else return null;
     }
     //This method is for the users that don't need to calculate shortest paths beforehand to save time.
+    //The result and the shortest paths are cached until the graph changes.
     public double[] getHighestCloseness(){
-        return getHighestCloseness(getAllShortestPaths());
+        double[] highest = cached("highestCloseness", () -> getHighestCloseness(getCachedShortestPaths()), result -> 32);
+        return (highest == null) ? null : highest.clone();
     }
 
-    protected void resetVertices()
-    {
-        for (VertexInterface<T> vertex : vertices.values()) {
-            vertex.unvisit();
-            vertex.setCost(0);
-            vertex.setPredecessor(null);
-        }
+    //The paths are shared by the two methods above and must not be modified.
+    private HashMap<LinkedHashSet<T>,Integer> getCachedShortestPaths(){
+        return cached("allShortestPaths", this::getAllShortestPaths, paths -> {
+            //a map entry, a set with its table and an Integer per path, and a linked entry per vertex on it
+            long bytes = 64;
+            for (LinkedHashSet<T> path : paths.keySet())
+                bytes += 136 + 56L * path.size();
+            return bytes;
+        });
     }
 
     /**@return all of the shortest paths in a HashMap that contains LinkedHashSet's as keys/paths and their total distances as values*/
     //LinkedHashSet is used to allow expected O(1) search time whenever it is needed to check inside any path, whether given vertex exists or not.
     //Shortest paths are not stored inside the graph since it would need constant updating whenever vertices are added or deleted
+    //The paths follow the predecessors of the plain search; DirectionOptimizingBfs records distances only.
     public HashMap<LinkedHashSet<T>,Integer> getAllShortestPaths()
     {
         HashMap<LinkedHashSet<T>,Integer> paths = new HashMap<LinkedHashSet<T>, Integer>();
-        Queue<VertexInterface<T>> vertexQueue = new LinkedList<VertexInterface<T>>();
-        HashSet<T> beginVertices = new HashSet<>();
-
-        for (Map.Entry<T, VertexInterface<T>> beginElement : vertices.entrySet()) {//Loop for each vertex
-            resetVertices();
-            VertexInterface<T> originVertex = beginElement.getValue();
-            originVertex.visit();
-            // Assertion: resetVertices() has executed setCost(0)
-            // and setPredecessor(null) for originVertex
-            vertexQueue.add(originVertex);
-            beginVertices.add(originVertex.getLabel());
-
-            while (!vertexQueue.isEmpty())//Loop for all the other vertices in the graph to draw shortest paths.
+        TraversalContext context = contexts.get();
+        boolean[] beginVertices = new boolean[vertexList.size()];
+        //progress is reported about 256 times, with the edges read since the last report
+        Instrumentation.Run run = Instrumentation.startRun("UndirectedGraph.getAllShortestPaths", null, vertexList.size());
+        Instrumentation.Batch batch = null;
+        int batchSize = Math.max(1, (vertexList.size() + 255) / 256);
+        long edges = 0;
+
+        for (VertexInterface<T> originVertex : vertexList) {//Loop for each vertex
+            int source = originVertex.getIndex();
+            if((run != null) && (source % batchSize == 0))
+                batch = run.startBatch(source, Math.min(vertexList.size(), source + batchSize));
+            context.reset(vertexList.size());//O(1), the marks of the previous source just become stale
+            context.visit(originVertex.getIndex(), 0, -1);
+            beginVertices[originVertex.getIndex()] = true;
+
+            while (context.hasQueued())//Loop for all the other vertices in the graph to draw shortest paths.
             {
-                VertexInterface<T> frontVertex = vertexQueue.poll();
-                Iterator<VertexInterface<T>> neighbors = frontVertex.getNeighborIterator();
+                int front = context.dequeue();
+                Iterator<VertexInterface<T>> neighbors = vertexList.get(front).getNeighborIterator();
                 while (neighbors.hasNext())//Visit each neighbor
                 {
-                    LinkedHashSet<T> path = new LinkedHashSet<>();
-                    VertexInterface<T> nextNeighbor = neighbors.next();
-                    if (!nextNeighbor.isVisited())
+                    int nextNeighbor = neighbors.next().getIndex();
+                    edges++;
+                    if (!context.isVisited(nextNeighbor))
                     {
-                        nextNeighbor.visit();
-                        nextNeighbor.setCost(1 + frontVertex.getCost());
-                        nextNeighbor.setPredecessor(frontVertex);
-                        vertexQueue.add(nextNeighbor);
+                        context.visit(nextNeighbor, 1 + context.getDistance(front), front);
 
                         /*Do not calculate and add paths that was already calculated by opposite
                          beginning and end vertices */
-                        if(!beginVertices.contains(nextNeighbor.getLabel())){
-                            int pathLength = (int)nextNeighbor.getCost();
+                        if(!beginVertices[nextNeighbor]){
+                            int pathLength = context.getDistance(nextNeighbor);
                             if(pathLength != 0){
-                                path.add(nextNeighbor.getLabel());
-                                while (nextNeighbor.hasPredecessor())
-                                {
-                                    nextNeighbor = nextNeighbor.getPredecessor();
-                                    path.add(nextNeighbor.getLabel());
-                                } // end while
-                                paths.put(path,pathLength);
+                                paths.put(getPath(context, nextNeighbor, new LinkedHashSet<>()), pathLength);
                             }
                         }
                     } // end if
                 } // end while
             } // end while
+            if((batch != null) && ((source + 1) % batchSize == 0 || (source + 1) == vertexList.size())){
+                batch.finish(edges);
+                edges = 0;
+            }
         }
+        if(run != null)
+            run.finish();
         return paths;
     } // end getShortestPath
 
     //General shortest path algorithm that works very similar to breadth first traversal
+    //DirectionOptimizingBfs needs the CSR arrays of a CompactGraph, and building them costs more than the one search,
+    //which also stops as soon as it reaches end.
     public int getShortestPath(T begin, T end, LinkedHashSet<T> path)
     {
-        resetVertices();
+        TraversalContext context = contexts.get();
+        context.reset(vertexList.size());
         boolean done = false;
-        Queue<VertexInterface<T>> vertexQueue = new LinkedList<VertexInterface<T>>();
-        VertexInterface<T> originVertex = vertices.get(begin);
-        VertexInterface<T> endVertex = vertices.get(end);
-        originVertex.visit();
-        // Assertion: resetVertices() has executed setCost(0)
-        // and setPredecessor(null) for originVertex
-        vertexQueue.add(originVertex);
-        while (!done && !vertexQueue.isEmpty())
+        VertexInterface<T> originVertex = getVertex(begin);
+        VertexInterface<T> endVertex = getVertex(end);
+        context.visit(originVertex.getIndex(), 0, -1);
+        while (!done && context.hasQueued())
         {
-            VertexInterface<T> frontVertex = vertexQueue.poll();
+            int front = context.dequeue();
             Iterator<VertexInterface<T>> neighbors =
-                    frontVertex.getNeighborIterator();
+                    vertexList.get(front).getNeighborIterator();
             while (!done && neighbors.hasNext())
             {
                 VertexInterface<T> nextNeighbor = neighbors.next();
-                if (!nextNeighbor.isVisited())
-                {
-                    nextNeighbor.visit();
-                    nextNeighbor.setCost(1 + frontVertex.getCost());
-                    nextNeighbor.setPredecessor(frontVertex);
-                    vertexQueue.add(nextNeighbor);
-                } // end if
+                if (!context.isVisited(nextNeighbor.getIndex()))
+                    context.visit(nextNeighbor.getIndex(), 1 + context.getDistance(front), front);
                 if (nextNeighbor.equals(endVertex))
                     done = true;
             } // end while
         } // end while
         // traversal ends; construct shortest path
-        int pathLength = (int)endVertex.getCost();
-        path.add(endVertex.getLabel());
-        VertexInterface<T> vertex = endVertex;
-        while (vertex.hasPredecessor())
+        if (!context.isVisited(endVertex.getIndex()))
+        { // unreachable, the path only holds the end vertex
+            path.add(end);
+            return 0;
+        } // end if
+        getPath(context, endVertex.getIndex(), path);
+        return context.getDistance(endVertex.getIndex());
+    } // end getShortestPath
+
+    /** Finds a cheapest path with Dijkstra's algorithm, where the cost of a path is the sum of its
+     * edge weights. Vertices are taken from a primitive indexed heap and edges are read by position
+     * as primitive weights, so once the per-thread arrays fit the graph the search allocates
+     * nothing but the labels it adds to path.
+     * @param path receives the labels on the path, from end back to begin
+     * @return the cost of the path, or Double.POSITIVE_INFINITY if end cannot be reached*/
+    public double getCheapestPath(T begin, T end, LinkedHashSet<T> path)
+    {
+        TraversalContext context = contexts.get();
+        context.reset(vertexList.size());
+        IndexedMinHeap heap = heaps.get();
+        heap.reset(vertexList.size());
+        int originIndex = getVertex(begin).getIndex();
+        int endIndex = getVertex(end).getIndex();
+        context.label(originIndex, 0, -1);
+        heap.offer(originIndex, 0);
+        while (!heap.isEmpty())
         {
-            vertex = vertex.getPredecessor();
-            path.add(vertex.getLabel());
+            int front = heap.removeMin();
+            int predecessor = context.getPredecessor(front);
+            context.visit(front, (predecessor < 0) ? 0 : 1 + context.getDistance(predecessor), predecessor);
+            if (front == endIndex)
+                break;
+            double cost = context.getCost(front);
+            VertexInterface<T> frontVertex = vertexList.get(front);
+            for (int i = 0; i < frontVertex.getNeighborCount(); i++)
+            {
+                int nextNeighbor = frontVertex.getNeighbor(i).getIndex();
+                double nextCost = cost + frontVertex.getWeight(i);
+                if (!context.isVisited(nextNeighbor) && heap.offer(nextNeighbor, nextCost))
+                    context.label(nextNeighbor, nextCost, front);
+            } // end for
         } // end while
-        return pathLength;
-    } // end getShortestPath
+        if (!context.isVisited(endIndex))
+        { // unreachable, the path only holds the end vertex
+            path.add(end);
+            return Double.POSITIVE_INFINITY;
+        } // end if
+        getPath(context, endIndex, path);
+        return context.getCost(endIndex);
+    } // end getCheapestPath
+
+    //Adds the labels from the given visited vertex back to the origin of the traversal to path.
+    private LinkedHashSet<T> getPath(TraversalContext context, int vertex, LinkedHashSet<T> path)
+    {
+        for (; vertex >= 0; vertex = context.getPredecessor(vertex))
+            path.add(vertexList.get(vertex).getLabel());
+        return path;
+    } // end getPath
 
     //Breadth first traversal has been added for the future use of this class.
+    //It keeps the plain search, since the traversal order is the neighbor insertion order that a bottom-up step would not keep.
     public Queue<T> getBreadthFirstTraversal(T origin)
     {
-        resetVertices();
+        TraversalContext context = contexts.get();
+        context.reset(vertexList.size());
         Queue<T> traversalOrder = new LinkedList<>();
-        Queue<VertexInterface<T>> vertexQueue = new LinkedList<VertexInterface<T>>();
-        VertexInterface<T> originVertex = vertices.get(origin);
-        originVertex.visit();
+        VertexInterface<T> originVertex = getVertex(origin);
+        context.visit(originVertex.getIndex(), 0, -1);
         traversalOrder.add(origin);
-        vertexQueue.add(originVertex);
-        while (!vertexQueue.isEmpty())
+        while (context.hasQueued())
         {
-            VertexInterface<T> frontVertex = vertexQueue.poll();
+            int front = context.dequeue();
             Iterator<VertexInterface<T>> neighbors =
-                    frontVertex.getNeighborIterator();
+                    vertexList.get(front).getNeighborIterator();
             while (neighbors.hasNext())
             {
                 VertexInterface<T> nextNeighbor = neighbors.next();
-                if (!nextNeighbor.isVisited())
+                if (!context.isVisited(nextNeighbor.getIndex()))
                 {
-                    nextNeighbor.visit();
+                    context.visit(nextNeighbor.getIndex(), 1 + context.getDistance(front), front);
                     traversalOrder.add(nextNeighbor.getLabel());
-                    vertexQueue.add(nextNeighbor);
                 } // end if
             } // end while
         } // end while
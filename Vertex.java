@@ -1,20 +1,32 @@
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.NoSuchElementException;
 //Vertex class is implemented such that it can also be used for directed graphs.
 public class Vertex<T> implements VertexInterface<T> {
+    //Neighbor lists longer than this also get a hash set, so hub vertices check duplicates in O(1).
+    private static final int INDEX_THRESHOLD = 16;
+
     private T label;
+    private int index;
     private List<Edge> edgeList;
+    private HashSet<VertexInterface<T>> neighborIndex;//null until the list outgrows INDEX_THRESHOLD
 
     private boolean visited;
     private VertexInterface<T> previousVertex;
     private double cost;
 
     public Vertex(T vertexLabel)
+    {
+        this(vertexLabel, -1);
+    }
+
+    public Vertex(T vertexLabel, int vertexIndex)
     {
         label = vertexLabel;
-        edgeList = new LinkedList<Edge>();
+        index = vertexIndex;
+        edgeList = new ArrayList<Edge>(4);
         visited = false;
         previousVertex = null;
         cost = 0;
@@ -71,10 +83,19 @@ public class Vertex<T> implements VertexInterface<T> {
         return result;
     } // end equals
 
+    public int hashCode()
+    {
+        return label.hashCode();
+    } // end hashCode
+
     public T getLabel() {
         return label;
     }
 
+    public int getIndex() {
+        return index;
+    }
+
     public void visit() {
         visited = true;
     }
@@ -92,25 +113,37 @@ public class Vertex<T> implements VertexInterface<T> {
         boolean result = false;
         if (!this.equals(endVertex))
         { // vertices are distinct
-            Iterator<VertexInterface<T>> neighbors = this.getNeighborIterator();
-            boolean duplicateEdge = false;
-            while (!duplicateEdge && neighbors.hasNext())
-            {
-                VertexInterface<T> nextNeighbor = neighbors.next();
-                if (endVertex.equals(nextNeighbor))
-                    duplicateEdge = true;
-            } // end while
-            if (!duplicateEdge)
+            if (!hasEdgeTo(endVertex))
             {
                 edgeList.add(new Edge(endVertex, edgeWeight));
+                if (neighborIndex != null)
+                    neighborIndex.add(endVertex);
+                else if (edgeList.size() > INDEX_THRESHOLD)
+                {
+                    neighborIndex = new HashSet<>();
+                    for (Edge edge : edgeList)
+                        neighborIndex.add(edge.getEndVertex());
+                } // end if
                 result = true;
             } // end if
         } // end if
         return result;
     } // end connect
+
+    public boolean hasEdgeTo(VertexInterface<T> otherVertex)
+    {
+        if (neighborIndex != null)
+            return neighborIndex.contains(otherVertex);
+        for (Edge edge : edgeList)
+        {
+            if (otherVertex.equals(edge.getEndVertex()))
+                return true;
+        } // end for
+        return false;
+    } // end hasEdgeTo
     public boolean connect(VertexInterface<T> endVertex)
     {
-        return connect(endVertex, 0);
+        return connect(endVertex, 1);//an unweighted edge counts as one step
     } // end connect
 
     public Iterator<VertexInterface<T>> getNeighborIterator()
@@ -118,9 +151,25 @@ public class Vertex<T> implements VertexInterface<T> {
         return new neighborIterator();
     } // end getNeighborIterator
 
-    public Iterator<Double> getWeightIterator() {
-        return null;
-    }
+    public Iterator<Double> getWeightIterator()
+    {
+        return new weightIterator();
+    } // end getWeightIterator
+
+    public int getNeighborCount()
+    {
+        return edgeList.size();
+    } // end getNeighborCount
+
+    public VertexInterface<T> getNeighbor(int position)
+    {
+        return edgeList.get(position).getEndVertex();
+    } // end getNeighbor
+
+    public double getWeight(int position)
+    {
+        return edgeList.get(position).getWeight();
+    } // end getWeight
 
     private class neighborIterator implements Iterator<VertexInterface<T>>
     {
@@ -150,6 +199,30 @@ public class Vertex<T> implements VertexInterface<T> {
             throw new UnsupportedOperationException();
         } // end remove
     } // end neighborIterator
+    //Walks the edges in the same order as neighborIterator, so the two can be advanced together.
+    private class weightIterator implements Iterator<Double>
+    {
+        private Iterator<Edge> edges;
+        private weightIterator()
+        {
+            edges = edgeList.iterator();
+        } // end default constructor
+        public boolean hasNext()
+        {
+            return edges.hasNext();
+        } // end hasNext
+        public Double next()
+        {
+            if (edges.hasNext())
+                return edges.next().getWeight();
+            else
+                throw new NoSuchElementException();
+        } // end next
+        public void remove()
+        {
+            throw new UnsupportedOperationException();
+        } // end remove
+    } // end weightIterator
     protected class Edge
     {
         private VertexInterface<T> vertex; // end vertex
@@ -3,6 +3,10 @@ public interface VertexInterface<T> {
     /** Gets the vertex's label.
      @return the object that labels the vertex */
     public T getLabel();
+    /** Gets the vertex's position among the vertices of its graph.
+     @return an id from 0 to one less than the number of vertices,
+     or -1 if the vertex was not numbered */
+    public int getIndex();
     /** Marks the vertex as visited. */
     public void visit();
     /** Removes the vertex's visited mark. */
@@ -25,6 +29,10 @@ public interface VertexInterface<T> {
      @param endVertex a vertex in the graph that ends the edge
      @return true if the edge is added, or false if not */
     public boolean connect(VertexInterface<T> endVertex);
+    /** Sees whether an edge begins at this vertex and ends at a given vertex.
+     @param otherVertex a vertex in the graph
+     @return true if the edge exists */
+    public boolean hasEdgeTo(VertexInterface<T> otherVertex);
     /** Creates an iterator of this vertex's neighbors by following
      all edges that begin at this vertex.
      @return an iterator of the neighboring vertices of this vertex */
@@ -34,6 +42,19 @@ public interface VertexInterface<T> {
      @return an iterator of edge weights for edges to neighbors of this
      vertex */
     public Iterator<Double> getWeightIterator();
+    /** Gets the number of edges that begin at this vertex.
+     @return the number of neighbors of this vertex */
+    public int getNeighborCount();
+    /** Gets a neighbor of this vertex by its position in the order of
+     getNeighborIterator.
+     @param position a number from 0 to getNeighborCount()-1
+     @return the neighboring vertex */
+    public VertexInterface<T> getNeighbor(int position);
+    /** Gets the weight of the edge to a neighbor by position, without
+     boxing it as getWeightIterator does.
+     @param position a number from 0 to getNeighborCount()-1
+     @return the weight of the edge to getNeighbor(position) */
+    public double getWeight(int position);
     /** Sees whether this vertex has at least one neighbor.
      @return true if the vertex has a neighbor */
     public boolean hasNeighbor();
@@ -0,0 +1,108 @@
+package graphcentrality;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** The UndirectedGraph operations that the driver calls and the edge list loader, on the bundled
+ data sets, with the same query counts and seed as CentralityBenchmark. The data sets are found
+ by Fixtures.dataset; pass -jvmArgs -Dgraph.data=dir when running from elsewhere.*/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(2)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class DatasetBenchmark
+{
+    private static final int QUERY_COUNT = 100;//shortest path queries per operation
+    private static final int TRAVERSAL_COUNT = 10;//breadth first traversals per operation
+
+    @Param({"karate_club_network.txt", "facebook_social_network.txt"})
+    public String dataset;
+
+    private Path file;
+    private CompactGraph<Integer> graph;
+    private UndirectedGraph<Integer> legacyGraph;
+    private HashMap<LinkedHashSet<Integer>,Integer> allShortestPaths;
+    private int[] queries;//seeded vertex labels for the query benchmarks
+
+    @Setup
+    public void load() throws IOException
+    {
+        file = Fixtures.dataset(dataset);
+        graph = EdgeListLoader.load(file.toString());
+        legacyGraph = Fixtures.toUndirectedGraph(graph);
+        allShortestPaths = legacyGraph.getAllShortestPaths();
+        queries = new int[2 * QUERY_COUNT];
+        SplittableRandom random = new SplittableRandom(Fixtures.SEED);
+        for (int i = 0; i < queries.length; i++)
+            queries[i] = graph.getLabel(random.nextInt(graph.getNumberOfVertices()));
+    } // end load
+
+    @Benchmark
+    public CompactGraph<Integer> edgeListLoad() throws IOException
+    {
+        return EdgeListLoader.load(file.toString());
+    } // end edgeListLoad
+
+    @Benchmark
+    public UndirectedGraph<Integer> addEdge()
+    {
+        return Fixtures.toUndirectedGraph(graph);
+    } // end addEdge
+
+    @Benchmark
+    public long getShortestPath()
+    {
+        long total = 0;
+        LinkedHashSet<Integer> path = new LinkedHashSet<>();
+        for (int i = 0; i < 2 * QUERY_COUNT; i += 2)
+        {
+            path.clear();
+            total += legacyGraph.getShortestPath(queries[i], queries[i + 1], path);
+        } // end for
+        return total;
+    } // end getShortestPath
+
+    @Benchmark
+    public long getBreadthFirstTraversal()
+    {
+        long total = 0;
+        for (int i = 0; i < TRAVERSAL_COUNT; i++)
+            total += legacyGraph.getBreadthFirstTraversal(queries[i]).size();
+        return total;
+    } // end getBreadthFirstTraversal
+
+    @Benchmark
+    public HashMap<LinkedHashSet<Integer>,Integer> getAllShortestPaths()
+    {
+        return legacyGraph.getAllShortestPaths();
+    } // end getAllShortestPaths
+
+    @Benchmark
+    public double[] getHighestBetweenness()
+    {
+        return legacyGraph.getHighestBetweenness(allShortestPaths);
+    } // end getHighestBetweenness
+
+    @Benchmark
+    public double[] getHighestCloseness()
+    {
+        return legacyGraph.getHighestCloseness(allShortestPaths);
+    } // end getHighestCloseness
+}
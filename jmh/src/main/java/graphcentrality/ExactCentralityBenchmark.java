@@ -0,0 +1,63 @@
+package graphcentrality;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** The exact engines, which search from every source and cost O(V*E), on graphs small enough to
+ finish an operation in seconds. Run with -prof gc for the allocation rate per operation.*/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(2)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class ExactCentralityBenchmark
+{
+    @Param({"er", "ba", "grid"})
+    public String family;
+
+    @Param({"1000", "5000"})
+    public int vertices;
+
+    private CompactGraph<Integer> graph;
+
+    @Setup
+    public void generate()
+    {
+        graph = Fixtures.generate(family, vertices);
+    } // end generate
+
+    @Benchmark
+    public double[] betweenness()
+    {
+        return graph.getBetweennessScores();
+    } // end betweenness
+
+    @Benchmark
+    public double[] closeness()
+    {
+        return graph.getClosenessScores();
+    } // end closeness
+
+    @Benchmark
+    public double[] decomposedBetweenness()
+    {
+        return new ComponentDecomposition(graph).computeBetweenness();
+    } // end decomposedBetweenness
+
+    @Benchmark
+    public double[] decomposedCloseness()
+    {
+        return new ComponentDecomposition(graph).computeCloseness();
+    } // end decomposedCloseness
+}
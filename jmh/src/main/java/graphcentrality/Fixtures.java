@@ -0,0 +1,71 @@
+package graphcentrality;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/** The bundled data sets and the synthetic graphs of the JMH benchmarks, made by GraphGenerators with the same families,
+ degrees and seed as CentralityBenchmark, so that the two harnesses measure the same inputs.*/
+final class Fixtures
+{
+    static final long SEED = 42;
+
+    private Fixtures()
+    {
+    } // end constructor
+
+    /** @param family "er" (Erdos-Renyi, average degree 10), "ba" (Barabasi-Albert, 5 edges per
+     vertex) or "grid" (a nearly square grid)
+     @param vertices the number of vertices
+     @return the seeded graph */
+    static CompactGraph<Integer> generate(String family, int vertices)
+    {
+        switch (family)
+        {
+            case "er": return GraphGenerators.erdosRenyi(vertices, 10, SEED);
+            case "ba": return GraphGenerators.barabasiAlbert(vertices, 5, SEED);
+            case "grid":
+                int rows = (int)Math.sqrt(vertices);
+                return GraphGenerators.grid(rows, vertices / rows);
+            default: throw new IllegalArgumentException("Unknown graph family " + family);
+        } // end switch
+    } // end generate
+
+    /** Finds a bundled data set in the directory named by the graph.data system property, or else
+     in the working directory or its parent, so that the benchmarks run from the repository root
+     as well as from the jmh module.
+     @param name the file name of the data set
+     @return the path of the data set */
+    static Path dataset(String name)
+    {
+        String directory = System.getProperty("graph.data");
+        if (directory != null)
+            return Paths.get(directory, name);
+        Path file = Paths.get(name);
+        return Files.exists(file) ? file : Paths.get("..", name);
+    } // end dataset
+
+    /** Copies a graph into an UndirectedGraph the way the driver fills one, vertex by vertex and
+     edge by edge.
+     @param graph the graph to copy
+     @return the copy */
+    static UndirectedGraph<Integer> toUndirectedGraph(CompactGraph<Integer> graph)
+    {
+        UndirectedGraph<Integer> result = new UndirectedGraph<>();
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+        for (int v = 0; v < graph.getNumberOfVertices(); v++)
+        {
+            for (int i = offsets[v]; i < offsets[v + 1]; i++)
+            {
+                if (v < targets[i])
+                {
+                    result.addVertex(graph.getLabel(v));
+                    result.addVertex(graph.getLabel(targets[i]));
+                    result.addEdge(graph.getLabel(v), graph.getLabel(targets[i]));
+                } // end if
+            } // end for
+        } // end for
+        return result;
+    } // end toUndirectedGraph
+}
@@ -0,0 +1,70 @@
+package graphcentrality;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** The engines that cost O(V+E) per pass or a fixed number of samples, up to a million vertices.
+ Run with -prof gc for the allocation rate per operation.*/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(2)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class LinearCentralityBenchmark
+{
+    @Param({"er", "ba", "grid"})
+    public String family;
+
+    @Param({"10000", "1000000"})
+    public int vertices;
+
+    private CompactGraph<Integer> graph;
+
+    @Setup
+    public void generate()
+    {
+        graph = Fixtures.generate(family, vertices);
+    } // end generate
+
+    @Benchmark
+    public SpectralCentrality.Result pagerank()
+    {
+        return new SpectralCentrality(graph).computePageRank(ForkJoinPool.commonPool());
+    } // end pagerank
+
+    @Benchmark
+    public SpectralCentrality.Result eigenvector()
+    {
+        return new SpectralCentrality(graph).computeEigenvector(ForkJoinPool.commonPool());
+    } // end eigenvector
+
+    @Benchmark
+    public double[] hyperballCloseness()
+    {
+        return graph.getApproximateClosenessScores(64, ForkJoinPool.commonPool());
+    } // end hyperballCloseness
+
+    @Benchmark
+    public ApproximateBetweenness.Result<Integer> approximateBetweenness()
+    {
+        return new ApproximateBetweenness<>(graph, Fixtures.SEED).estimate(0.01, 0.1);
+    } // end approximateBetweenness
+
+    @Benchmark
+    public CompactGraph<Integer> reorder()
+    {
+        return VertexOrdering.choose(graph).apply(graph);
+    } // end reorder
+}
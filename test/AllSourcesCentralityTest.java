@@ -0,0 +1,56 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+public class AllSourcesCentralityTest
+{
+    private static ForkJoinPool pool;
+
+    @BeforeAll
+    public static void startPool()
+    {
+        pool = new ForkJoinPool(4);
+    } // end startPool
+
+    @AfterAll
+    public static void stopPool()
+    {
+        pool.shutdown();
+    } // end stopPool
+
+    @Test
+    public void matchesBruteForce()
+    {
+        for (long seed = 1; seed <= 12; seed++)
+        {
+            BruteForce expected = new BruteForce(seed, 40, (seed % 3 + 1) * 0.04, (seed % 2 == 0) ? 1 : 3);
+            AllSourcesCentrality.Result result = new AllSourcesCentrality(expected.graph).compute(pool);
+            BruteForce.assertClose(expected.getBetweenness(), result.getBetweenness());
+            BruteForce.assertClose(expected.getCloseness(), result.getCloseness());
+        } // end for
+    } // end matchesBruteForce
+
+    //more than 256 vertices, so that blocks hold several sources and accumulators are reused
+    @Test
+    public void parallelResultsAreIdenticalToSequential()
+    {
+        for (int maxWeight = 1; maxWeight <= 3; maxWeight += 2)
+        {
+            BruteForce expected = new BruteForce(11, 300, 0.02, maxWeight);
+            AllSourcesCentrality centrality = new AllSourcesCentrality(expected.graph);
+            AllSourcesCentrality.Result sequential = centrality.compute();
+            for (int run = 0; run < 3; run++)
+            {
+                AllSourcesCentrality.Result parallel = centrality.compute(pool);
+                assertArrayEquals(sequential.getBetweenness(), parallel.getBetweenness());
+                assertArrayEquals(sequential.getCloseness(), parallel.getCloseness());
+            } // end for
+            //unweighted graphs with leaves go through ComponentDecomposition, which adds in another order
+            BruteForce.assertClose(sequential.getBetweenness(), expected.graph.getBetweennessScores(pool));
+            BruteForce.assertClose(new BrandesBetweenness(expected.graph).compute(), sequential.getBetweenness());
+        } // end for
+    } // end parallelResultsAreIdenticalToSequential
+}
@@ -0,0 +1,44 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class ApproximateBetweennessTest
+{
+    @Test
+    public void estimatesAreWithinTheBound()
+    {
+        for (long seed = 1; seed <= 8; seed++)
+        {
+            BruteForce expected = new BruteForce(seed, 40, 0.08, 1);
+            double[] exact = expected.getBetweenness();
+            ApproximateBetweenness.Result<Integer> result = new ApproximateBetweenness<>(expected.graph, seed).estimate(0.05, 0.01);
+            double[] estimate = result.getScores().getScores();
+            for (int v = 0; v < exact.length; v++)
+                assertTrue(Math.abs(exact[v] - estimate[v]) <= result.getAbsoluteError(), "seed " + seed + " vertex " + v);
+            assertEquals(0.05, result.getEpsilon(), 1e-3);
+        } // end for
+    } // end estimatesAreWithinTheBound
+
+    @Test
+    public void sameSeedGivesSameEstimate()
+    {
+        BruteForce expected = new BruteForce(3, 50, 0.06, 1);
+        double[] first = new ApproximateBetweenness<>(expected.graph, 7).estimate(0.1, 0.1).getScores().getScores();
+        double[] second = new ApproximateBetweenness<>(expected.graph, 7).estimate(0.1, 0.1).getScores().getScores();
+        assertArrayEquals(first, second);
+    } // end sameSeedGivesSameEstimate
+
+    @Test
+    public void budgetReportsTheBoundItReached()
+    {
+        BruteForce expected = new BruteForce(4, 50, 0.06, 1);
+        ApproximateBetweenness.Result<Integer> result = new ApproximateBetweenness<>(expected.graph, 1).estimateWithin(0.1, 20);
+        assertTrue(result.getSampleCount() > 0);
+        assertTrue(result.getEpsilon() > 0);
+        assertThrows(IllegalArgumentException.class, () -> new ApproximateBetweenness<>(expected.graph, 1).estimate(0, 0.1));
+        assertThrows(IllegalArgumentException.class, () -> new ApproximateBetweenness<>(expected.graph, 1).estimateWithin(0.1, 0));
+    } // end budgetReportsTheBoundItReached
+}
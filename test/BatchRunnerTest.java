@@ -0,0 +1,196 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class BatchRunnerTest
+{
+    private static final int VERTICES = 500;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void readsNamesAndMetrics() throws IOException
+    {
+        writeGraph("ring.txt");
+        List<BatchRunner.Job> jobs = BatchRunner.readManifest(writeManifest("# comment", "", "ring.txt degree,pagerank",
+                                                                            "ring.txt all other"));
+        assertEquals(2, jobs.size());
+        assertEquals("ring", jobs.get(0).getName());
+        assertEquals(2, jobs.get(0).getMetrics().size());
+        assertEquals("other", jobs.get(1).getName());
+        assertEquals(BatchRunner.Metric.values().length, jobs.get(1).getMetrics().size());
+    } // end readsNamesAndMetrics
+
+    @Test
+    public void rejectsUnsafeNames() throws IOException
+    {
+        for (String name : new String[] {"../escape", "a/b", "a\\b", "..", "a..b"})
+        {
+            Path manifest = writeManifest("ring.txt all " + name);
+            BatchRunner.ManifestException e = assertThrows(BatchRunner.ManifestException.class,
+                                                           () -> BatchRunner.readManifest(manifest));
+            assertEquals(manifest, e.getManifest());
+            assertEquals(1, e.getLineNumber());
+            assertTrue(e.getMessage().contains(manifest.toString()));
+        } // end for
+        assertFalse(BatchRunner.Job.isValidName(""));
+        assertTrue(BatchRunner.Job.isValidName("karate.v2"));
+    } // end rejectsUnsafeNames
+
+    @Test
+    public void rejectsDuplicateNames() throws IOException
+    {
+        Path manifest = writeManifest("ring.txt degree", "# again", "other/ring.txt pagerank");
+        BatchRunner.ManifestException e = assertThrows(BatchRunner.ManifestException.class,
+                                                       () -> BatchRunner.readManifest(manifest));
+        assertEquals(3, e.getLineNumber());
+    } // end rejectsDuplicateNames
+
+    @Test
+    public void rejectsUnknownMetrics() throws IOException
+    {
+        Path manifest = writeManifest("ring.txt degree,harmonic");
+        assertThrows(BatchRunner.ManifestException.class, () -> BatchRunner.readManifest(manifest));
+    } // end rejectsUnknownMetrics
+
+    @Test
+    public void rejectsMissingAndMalformedValues()
+    {
+        //the argument that the message must name, then the command line
+        String[][] bad = {{"--threads", "--threads"}, {"--output", "m.txt", "--output"}, {"four", "--threads", "four"},
+                          {"--threads", "--threads", "0"}, {"--compute-jobs", "--compute-jobs", "-1"},
+                          {"--load-threads", "--load-threads", "99999999999"}, {"1e3", "--memory-mb", "1e3"},
+                          {"--memory-mb", "--memory-mb", String.valueOf(Long.MAX_VALUE)}, {"xml", "--format", "xml"},
+                          {"--size", "--size", "1"}, {"n.txt", "m.txt", "n.txt"}};
+        for (String[] line : bad)
+        {
+            String[] args = Arrays.copyOfRange(line, 1, line.length);
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> BatchRunner.Options.parse(args));
+            assertTrue(e.getMessage().contains(line[0]), e.getMessage());
+        } // end for
+        BatchRunner.Options options = BatchRunner.Options.parse(new String[] {"--format", "JSONL", "--threads", "3",
+                                                                              "--memory-mb", "64", "m.txt"});
+        assertEquals(BatchRunner.Format.JSONL, options.format);
+        assertEquals(3, options.threads);
+        assertEquals(64L << 20, options.memory);
+        assertEquals("m.txt", options.manifest.toString());
+    } // end rejectsMissingAndMalformedValues
+
+    @Test
+    public void writesEveryMetricOfAJob() throws IOException
+    {
+        writeGraph("ring.txt");
+        List<BatchRunner.Job> jobs = BatchRunner.readManifest(writeManifest("ring.txt all"));
+        ByteArrayOutputStream bytes = new java.io.ByteArrayOutputStream();
+        try (BatchRunner runner = new BatchRunner(directory.resolve("out"), BatchRunner.Format.JSONL, 1, 1, 2, 64L << 20,
+                                                  new PrintStream(bytes, true, StandardCharsets.UTF_8)))
+        {
+            assertEquals(0, runner.run(jobs));
+        } // end try
+        String summary = bytes.toString(StandardCharsets.UTF_8);
+        int previous = -1;
+        for (BatchRunner.Metric metric : BatchRunner.Metric.values())
+        {
+            String name = metric.name().toLowerCase(Locale.ROOT);
+            assertEquals(VERTICES, Files.readAllLines(directory.resolve("out/ring." + name + ".jsonl")).size());
+            int at = summary.indexOf("; " + name + " ");
+            assertTrue(at > previous, summary);
+            previous = at;
+        } // end for
+    } // end writesEveryMetricOfAJob
+
+    @Test
+    public void runsSnapshotsLikeTheirEdgeLists() throws IOException
+    {
+        writeGraph("ring.txt");
+        GraphSnapshot.write(EdgeListLoader.load(directory.resolve("ring.txt").toString()), directory.resolve("ring.snap"));
+        List<BatchRunner.Job> jobs = BatchRunner.readManifest(writeManifest("ring.txt closeness,degree text",
+                                                                            "ring.snap closeness,degree snapshot"));
+        PrintStream log = new PrintStream(OutputStream.nullOutputStream());
+        try (BatchRunner runner = new BatchRunner(directory.resolve("out"), BatchRunner.Format.CSV, 1, 1, 1, 64L << 20, log))
+        {
+            assertEquals(0, runner.run(jobs));
+        } // end try
+        for (String metric : new String[] {"closeness", "degree"})
+        {
+            assertEquals(Files.readAllLines(directory.resolve("out/text." + metric + ".csv")),
+                         Files.readAllLines(directory.resolve("out/snapshot." + metric + ".csv")));
+        } // end for
+    } // end runsSnapshotsLikeTheirEdgeLists
+
+    /* Runs a few hundred jobs on a runner whose pools stay alive in between, so that anything a job
+     leaves behind in a pool thread or in the runner accumulates across the runs.*/
+    @Test
+    public void heapStaysFlatOverManyJobs() throws IOException
+    {
+        writeGraph("ring.txt");
+        String[] lines = new String[400];
+        for (int i = 0; i < lines.length; i++)
+            lines[i] = "ring.txt betweenness,closeness,pagerank,degree job" + i;
+        List<BatchRunner.Job> jobs = BatchRunner.readManifest(writeManifest(lines));
+        PrintStream log = new PrintStream(OutputStream.nullOutputStream());
+        try (BatchRunner runner = new BatchRunner(directory.resolve("out"), BatchRunner.Format.CSV, 2, 2, 2,
+                                                  64L << 20, log))
+        {
+            assertEquals(0, runner.run(jobs.subList(0, 50)));
+            long before = usedAfterGc();
+            assertEquals(0, runner.run(jobs));
+            assertEquals(0, runner.run(jobs));
+            long growth = usedAfterGc() - before;
+            assertTrue(growth < (8L << 20), "The heap grew by " + growth + " bytes over " + 2 * jobs.size() + " jobs");
+        } // end try
+        assertEquals(VERTICES + 1, Files.readAllLines(directory.resolve("out/job399.betweenness.csv")).size());
+    } // end heapStaysFlatOverManyJobs
+
+    private static long usedAfterGc()
+    {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++)
+        {
+            System.gc();
+            try
+            {
+                Thread.sleep(50);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            } // end try
+        } // end for
+        return runtime.totalMemory() - runtime.freeMemory();
+    } // end usedAfterGc
+
+    //A ring with a chord from every vertex, connected and small enough to compute in milliseconds.
+    private void writeGraph(String name) throws IOException
+    {
+        StringBuilder edges = new StringBuilder();
+        for (int i = 0; i < VERTICES; i++)
+        {
+            edges.append(i).append(' ').append((i + 1) % VERTICES).append('\n');
+            edges.append(i).append(' ').append((7 * i + 3) % VERTICES).append('\n');
+        } // end for
+        Files.write(directory.resolve(name), edges.toString().getBytes(StandardCharsets.UTF_8));
+    } // end writeGraph
+
+    private Path writeManifest(String... lines) throws IOException
+    {
+        Path manifest = directory.resolve("manifest.txt");
+        Files.write(manifest, List.of(lines), StandardCharsets.UTF_8);
+        return manifest;
+    } // end writeManifest
+}
@@ -0,0 +1,46 @@
+import org.junit.jupiter.api.Test;
+
+public class BrandesBetweennessTest
+{
+    @Test
+    public void matchesPathCountsOnUnweightedGraphs()
+    {
+        for (long seed = 1; seed <= 20; seed++)
+        {
+            BruteForce expected = new BruteForce(seed, 30, (seed % 4 + 1) * 0.04, 1);
+            BruteForce.assertClose(expected.getBetweenness(), new BrandesBetweenness(expected.graph).compute());
+        } // end for
+    } // end matchesPathCountsOnUnweightedGraphs
+
+    @Test
+    public void matchesPathCountsOnWeightedGraphs()
+    {
+        for (long seed = 1; seed <= 20; seed++)
+        {
+            BruteForce expected = new BruteForce(seed, 30, (seed % 4 + 1) * 0.04, 3);
+            BruteForce.assertClose(expected.getBetweenness(), new BrandesBetweenness(expected.graph).compute());
+        } // end for
+    } // end matchesPathCountsOnWeightedGraphs
+
+    @Test
+    public void undirectedGraphScoresMatchPathCounts()
+    {
+        BruteForce expected = new BruteForce(3, 35, 0.1, 1);
+        BruteForce.assertClose(expected.getBetweenness(), expected.toUndirectedGraph().getBetweennessScores().getScores());
+    } // end undirectedGraphScoresMatchPathCounts
+
+    @Test
+    public void accumulateReturnsCloseness()
+    {
+        for (int maxWeight = 1; maxWeight <= 3; maxWeight += 2)
+        {
+            BruteForce expected = new BruteForce(7, 40, 0.08, maxWeight);
+            BrandesBetweenness engine = new BrandesBetweenness(expected.graph);
+            double[] closeness = new double[expected.vertexCount];
+            double[] betweenness = new double[expected.vertexCount];
+            for (int source = 0; source < closeness.length; source++)
+                closeness[source] = engine.accumulate(source, betweenness);
+            BruteForce.assertClose(expected.getCloseness(), closeness);
+        } // end for
+    } // end accumulateReturnsCloseness
+}
@@ -0,0 +1,191 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/* A small seeded random graph kept as an adjacency matrix, with centrality computed from the
+ definitions: every pair's cheapest paths are counted from all pairs costs, with no search order
+ and no accumulation, so that the engines under test share no code with it. Weights are small
+ integers, so every path cost is exact and ties are ties.*/
+final class BruteForce
+{
+    final int vertexCount;
+    final double[][] weights;//0 where there is no edge
+    final double[][] costs;//POSITIVE_INFINITY where there is no path
+    final double[][] pathCounts;
+    final CompactGraph<Integer> graph;
+
+    /** @param seed the seed of the edges
+     @param vertexCount the number of vertices, labeled 0..vertexCount-1 in id order
+     @param density the chance that a pair is an edge
+     @param maxWeight 1 for an unweighted graph, otherwise weights are drawn from 1..maxWeight */
+    BruteForce(long seed, int vertexCount, double density, int maxWeight)
+    {
+        this(randomWeights(seed, vertexCount, density, maxWeight));
+    } // end constructor
+
+    /** @param weights a symmetric matrix of edge weights, 0 where there is no edge */
+    BruteForce(double[][] weights)
+    {
+        vertexCount = weights.length;
+        this.weights = weights;
+        CompactGraph.Builder<Integer> builder = new CompactGraph.Builder<>();
+        for (int v = 0; v < vertexCount; v++)
+            builder.addVertex(v);
+        for (int u = 0; u < vertexCount; u++)
+        {
+            for (int v = u + 1; v < vertexCount; v++)
+            {
+                if (weights[u][v] > 0)
+                    builder.addEdge(u, v, weights[u][v]);
+            } // end for
+        } // end for
+        graph = builder.build();
+        costs = computeCosts();
+        pathCounts = computePathCounts();
+    } // end constructor
+
+    private static double[][] randomWeights(long seed, int vertexCount, double density, int maxWeight)
+    {
+        double[][] weights = new double[vertexCount][vertexCount];
+        Random random = new Random(seed);
+        for (int u = 0; u < vertexCount; u++)
+        {
+            for (int v = u + 1; v < vertexCount; v++)
+            {
+                if (random.nextDouble() < density)
+                {
+                    weights[u][v] = 1 + random.nextInt(maxWeight);
+                    weights[v][u] = weights[u][v];
+                } // end if
+            } // end for
+        } // end for
+        return weights;
+    } // end randomWeights
+
+    /** @return the edges as {u, v} pairs with u < v */
+    List<int[]> getEdges()
+    {
+        List<int[]> edges = new ArrayList<>();
+        for (int u = 0; u < vertexCount; u++)
+        {
+            for (int v = u + 1; v < vertexCount; v++)
+            {
+                if (weights[u][v] > 0)
+                    edges.add(new int[] {u, v});
+            } // end for
+        } // end for
+        return edges;
+    } // end getEdges
+
+    /** @return the same graph as an UndirectedGraph, vertices added in id order */
+    UndirectedGraph<Integer> toUndirectedGraph()
+    {
+        UndirectedGraph<Integer> undirected = new UndirectedGraph<>();
+        for (int v = 0; v < vertexCount; v++)
+            undirected.addVertex(v);
+        for (int[] edge : getEdges())
+            undirected.addEdge(edge[0], edge[1], weights[edge[0]][edge[1]]);
+        return undirected;
+    } // end toUndirectedGraph
+
+    /** Sum over unordered pairs {s, t} without v of the share of cheapest s-t paths through v. */
+    double[] getBetweenness()
+    {
+        double[] betweenness = new double[vertexCount];
+        for (int s = 0; s < vertexCount; s++)
+        {
+            for (int t = s + 1; t < vertexCount; t++)
+            {
+                if (costs[s][t] == Double.POSITIVE_INFINITY)
+                    continue;
+                for (int v = 0; v < vertexCount; v++)
+                {
+                    if ((v != s) && (v != t) && (costs[s][v] + costs[v][t] == costs[s][t]))
+                        betweenness[v] += pathCounts[s][v] * pathCounts[v][t] / pathCounts[s][t];
+                } // end for
+            } // end for
+        } // end for
+        return betweenness;
+    } // end getBetweenness
+
+    /** Sum of 1/cost over the vertices each vertex reaches. */
+    double[] getCloseness()
+    {
+        double[] closeness = new double[vertexCount];
+        for (int s = 0; s < vertexCount; s++)
+        {
+            for (int t = 0; t < vertexCount; t++)
+            {
+                if ((t != s) && (costs[s][t] < Double.POSITIVE_INFINITY))
+                    closeness[s] += 1 / costs[s][t];
+            } // end for
+        } // end for
+        return closeness;
+    } // end getCloseness
+
+    /** @return the number of edges on a shortest path from source, -1 if unreachable; only for
+     unweighted graphs */
+    int[] getDistances(int source)
+    {
+        int[] distances = new int[vertexCount];
+        for (int t = 0; t < vertexCount; t++)
+            distances[t] = (costs[source][t] == Double.POSITIVE_INFINITY) ? -1 : (int)costs[source][t];
+        return distances;
+    } // end getDistances
+
+    static void assertClose(double[] expected, double[] actual)
+    {
+        assertEquals(expected.length, actual.length);
+        for (int v = 0; v < expected.length; v++)
+            assertEquals(expected[v], actual[v], 1e-9 * Math.max(1, Math.abs(expected[v])), "vertex " + v);
+    } // end assertClose
+
+    //Floyd-Warshall.
+    private double[][] computeCosts()
+    {
+        double[][] cost = new double[vertexCount][vertexCount];
+        for (int u = 0; u < vertexCount; u++)
+        {
+            for (int v = 0; v < vertexCount; v++)
+                cost[u][v] = (u == v) ? 0 : (weights[u][v] > 0) ? weights[u][v] : Double.POSITIVE_INFINITY;
+        } // end for
+        for (int k = 0; k < vertexCount; k++)
+        {
+            for (int u = 0; u < vertexCount; u++)
+            {
+                for (int v = 0; v < vertexCount; v++)
+                    cost[u][v] = Math.min(cost[u][v], cost[u][k] + cost[k][v]);
+            } // end for
+        } // end for
+        return cost;
+    } // end computeCosts
+
+    //The cheapest paths to t are the cheapest paths to each neighbor u with cost(u) + w(u, t) = cost(t).
+    private double[][] computePathCounts()
+    {
+        double[][] counts = new double[vertexCount][vertexCount];
+        for (int s = 0; s < vertexCount; s++)
+        {
+            final int source = s;
+            Integer[] order = new Integer[vertexCount];
+            for (int v = 0; v < vertexCount; v++)
+                order[v] = v;
+            Arrays.sort(order, (a, b) -> Double.compare(costs[source][a], costs[source][b]));
+            counts[s][s] = 1;
+            for (int t : order)
+            {
+                if ((t == s) || (costs[s][t] == Double.POSITIVE_INFINITY))
+                    continue;
+                for (int u = 0; u < vertexCount; u++)
+                {
+                    if ((weights[u][t] > 0) && (costs[s][u] + weights[u][t] == costs[s][t]))
+                        counts[s][t] += counts[s][u];
+                } // end for
+            } // end for
+        } // end for
+        return counts;
+    } // end computePathCounts
+}
@@ -0,0 +1,82 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class BulkLoadTest
+{
+    //Every edge arrives twice, in both directions, with self loops mixed in, over two batches.
+    @Test
+    public void batchesKeepEachEdgeOnce()
+    {
+        for (long seed = 1; seed <= 6; seed++)
+        {
+            //vertex 0 is a hub that reaches the hashed neighbor sets
+            BruteForce expected = new BruteForce(withHub(new BruteForce(seed, 120, 0.05, 1).weights));
+            List<int[]> edges = new ArrayList<>();
+            for (int[] edge : expected.getEdges())
+            {
+                edges.add(edge);
+                edges.add(new int[] {edge[1], edge[0]});
+            } // end for
+            Random random = new Random(seed);
+            for (int i = 0; i < 20; i++)
+            {
+                int vertex = random.nextInt(expected.vertexCount);
+                edges.add(new int[] {vertex, vertex});
+            } // end for
+            Collections.shuffle(edges, random);
+            UndirectedGraph<Integer> graph = new UndirectedGraph<>();
+            int half = edges.size() / 2;
+            int added = load(graph, edges.subList(0, half)) + load(graph, edges.subList(half, edges.size()));
+            assertEquals(expected.getEdges().size(), added);
+            assertEquals(added, graph.getNumberOfEdges());
+            assertEquals(0, load(graph, edges));
+            for (int u = 0; u < expected.vertexCount; u++)
+            {
+                for (int v = 0; v < expected.vertexCount; v++)
+                    assertEquals(expected.weights[u][v] > 0, graph.hasEdge(u, v));
+            } // end for
+            for (int[] edge : expected.getEdges())
+                assertFalse(graph.addEdge(edge[1], edge[0]));
+            assertEquals(added, graph.getNumberOfEdges());
+            //the batches add the vertices in shuffled order, so the scores are compared by label
+            BruteForce.assertClose(expected.getBetweenness(), byLabel(graph.getBetweennessScores(), expected.vertexCount));
+            BruteForce.assertClose(expected.getCloseness(), byLabel(graph.getClosenessScores(), expected.vertexCount));
+        } // end for
+    } // end batchesKeepEachEdgeOnce
+
+    private static double[] byLabel(CentralityScores<Integer> scores, int vertexCount)
+    {
+        double[] result = new double[vertexCount];
+        for (int v = 0; v < vertexCount; v++)
+            result[v] = scores.getScore(Integer.valueOf(v));//getScore(int) would read by id
+        return result;
+    } // end byLabel
+
+    private static int load(UndirectedGraph<Integer> graph, List<int[]> edges)
+    {
+        List<Integer> begins = new ArrayList<>();
+        List<Integer> ends = new ArrayList<>();
+        for (int[] edge : edges)
+        {
+            begins.add(edge[0]);
+            ends.add(edge[1]);
+        } // end for
+        return graph.addEdges(begins, ends);
+    } // end load
+
+    private static double[][] withHub(double[][] weights)
+    {
+        for (int v = 1; v < weights.length; v += 2)
+        {
+            weights[0][v] = 1;
+            weights[v][0] = 1;
+        } // end for
+        return weights;
+    } // end withHub
+}
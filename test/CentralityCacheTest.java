@@ -0,0 +1,123 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+public class CentralityCacheTest
+{
+    @Test
+    public void hitsTheVersionItWasComputedFor()
+    {
+        CentralityCache cache = new CentralityCache(1 << 20);
+        Object graph = new Object();
+        AtomicInteger computed = new AtomicInteger();
+        double[] first = cache.get(graph, 1, "degree", () -> compute(computed), vector -> 100);
+        assertSame(first, cache.get(graph, 1, "degree", () -> compute(computed), vector -> 100));
+        assertEquals(1, computed.get());
+        cache.get(graph, 1, "pagerank", () -> compute(computed), vector -> 100);
+        assertEquals(2, cache.getStatistics().getEntryCount());
+        //a newer version misses and drops every entry of the older one
+        cache.get(graph, 2, "degree", () -> compute(computed), vector -> 100);
+        assertEquals(3, computed.get());
+        CentralityCache.Statistics statistics = cache.getStatistics();
+        assertEquals(1, statistics.getHitCount());
+        assertEquals(3, statistics.getMissCount());
+        assertEquals(1, statistics.getEntryCount());
+        assertEquals(100, statistics.getSize());
+        //a result of the older version that finishes late is not stored
+        cache.get(graph, 1, "closeness", () -> compute(computed), vector -> 100);
+        assertEquals(1, cache.getStatistics().getEntryCount());
+    } // end hitsTheVersionItWasComputedFor
+
+    @Test
+    public void invalidatesOneGraph()
+    {
+        CentralityCache cache = new CentralityCache(1 << 20);
+        Object first = new Object();
+        Object second = new Object();
+        AtomicInteger computed = new AtomicInteger();
+        for (String metric : new String[] {"degree", "closeness"})
+        {
+            cache.get(first, 0, metric, () -> compute(computed), vector -> 100);
+            cache.get(second, 0, metric, () -> compute(computed), vector -> 50);
+        } // end for
+        cache.invalidate(first);
+        assertEquals(2, cache.getStatistics().getEntryCount());
+        assertEquals(100, cache.getStatistics().getSize());
+        cache.get(second, 0, "degree", () -> compute(computed), vector -> 50);
+        assertEquals(4, computed.get());
+        cache.get(first, 0, "degree", () -> compute(computed), vector -> 100);
+        assertEquals(5, computed.get());
+        cache.clear();
+        assertEquals(0, cache.getStatistics().getEntryCount());
+        assertEquals(0, cache.getStatistics().getSize());
+    } // end invalidatesOneGraph
+
+    @Test
+    public void evictsTheLeastRecentlyUsed()
+    {
+        CentralityCache cache = new CentralityCache(250);
+        Object graph = new Object();
+        AtomicInteger computed = new AtomicInteger();
+        cache.get(graph, 0, "a", () -> compute(computed), vector -> 100);
+        cache.get(graph, 0, "b", () -> compute(computed), vector -> 100);
+        cache.get(graph, 0, "a", () -> compute(computed), vector -> 100);
+        cache.get(graph, 0, "c", () -> compute(computed), vector -> 100);
+        assertEquals(1, cache.getStatistics().getEvictionCount());
+        cache.get(graph, 0, "a", () -> compute(computed), vector -> 100);
+        assertEquals(3, computed.get());
+        cache.get(graph, 0, "b", () -> compute(computed), vector -> 100);
+        assertEquals(4, computed.get());
+        //larger than the whole cache, computed but never stored
+        cache.get(graph, 0, "huge", () -> compute(computed), vector -> 1000);
+        assertEquals(200, cache.getStatistics().getSize());
+    } // end evictsTheLeastRecentlyUsed
+
+    /* A graph that is shared with a long-lived cache and then dropped must be collectable, and its
+     entries must leave the cache once it is.*/
+    @Test
+    public void doesNotPinADiscardedGraph()
+    {
+        CentralityCache cache = new CentralityCache(CentralityCache.DEFAULT_CAPACITY);
+        WeakReference<UndirectedGraph<Integer>> reference = fillAndDrop(cache);
+        assertTrue(cache.getStatistics().getEntryCount() > 0);
+        for (int i = 0; (i < 50) && (reference.get() != null); i++)
+        {
+            System.gc();
+            try
+            {
+                Thread.sleep(20);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            } // end try
+        } // end for
+        assertNull(reference.get(), "The cache kept the graph alive");
+        assertEquals(0, cache.getStatistics().getEntryCount());
+        assertEquals(0, cache.getStatistics().getSize());
+    } // end doesNotPinADiscardedGraph
+
+    //In its own method so that no local variable of the test holds the graph.
+    private static WeakReference<UndirectedGraph<Integer>> fillAndDrop(CentralityCache cache)
+    {
+        UndirectedGraph<Integer> graph = new UndirectedGraph<>();
+        graph.setCentralityCache(cache);
+        for (int i = 0; i < 50; i++)
+            graph.addEdge(i, (i + 1) % 50);
+        graph.getDegreeScores();
+        graph.getClosenessScores();
+        graph.getHighestBetweenness();
+        return new WeakReference<>(graph);
+    } // end fillAndDrop
+
+    private static double[] compute(AtomicInteger computed)
+    {
+        computed.incrementAndGet();
+        return new double[] {computed.get()};
+    } // end compute
+}
@@ -0,0 +1,59 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class CentralityScoresTest
+{
+    //topK must agree with sorting every vertex, ties broken by id
+    @Test
+    public void topKMatchesAFullSort()
+    {
+        Random random = new Random(5);
+        for (int trial = 0; trial < 20; trial++)
+        {
+            BruteForce expected = new BruteForce(trial, 60, 0.05, 1);
+            double[] scores = new double[expected.vertexCount];
+            for (int v = 0; v < scores.length; v++)
+                scores[v] = random.nextInt(8);//many ties
+            CentralityScores<Integer> centrality = new CentralityScores<>(expected.graph, scores);
+            List<Integer> sorted = new ArrayList<>();
+            for (int v = 0; v < scores.length; v++)
+                sorted.add(v);
+            sorted.sort(Comparator.comparingDouble((Integer v) -> -scores[v]).thenComparingInt(v -> v));
+            for (int k : new int[] {0, 1, 7, scores.length, scores.length + 5})
+            {
+                List<CentralityScores.Entry<Integer>> top = centrality.topK(k);
+                assertEquals(Math.min(k, scores.length), top.size());
+                for (int i = 0; i < top.size(); i++)
+                {
+                    assertEquals((int)sorted.get(i), top.get(i).getId());
+                    assertEquals(scores[sorted.get(i)], top.get(i).getScore());
+                } // end for
+            } // end for
+            assertEquals((int)sorted.get(0), centrality.getHighest().getId());
+            assertEquals(scores.length, centrality.ranked().size());
+        } // end for
+    } // end topKMatchesAFullSort
+
+    @Test
+    public void readsScoresByLabelAndCopiesTheVector()
+    {
+        CompactGraph.Builder<String> builder = new CompactGraph.Builder<>();
+        builder.addEdge("a", "b");
+        builder.addEdge("b", "c");
+        CompactGraph<String> graph = builder.build();
+        CentralityScores<String> scores = new CentralityScores<>(graph, new double[] {1, 3, 2});
+        assertEquals(3.0, scores.getScore("b"));
+        assertEquals("b", scores.getHighest().getLabel());
+        scores.getScores()[1] = 0;
+        assertEquals(3.0, scores.getScore(1));
+        assertThrows(IllegalArgumentException.class, () -> scores.getScore("d"));
+        assertThrows(UnsupportedOperationException.class, () -> scores.getScoreBuffer().array());
+        assertThrows(IllegalArgumentException.class, () -> new CentralityScores<>(graph, new double[2]));
+    } // end readsScoresByLabelAndCopiesTheVector
+}
@@ -0,0 +1,153 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+public class CompactGraphTest
+{
+    @Test
+    public void storesSortedNeighborsOfEveryEdge()
+    {
+        for (long seed = 1; seed <= 10; seed++)
+        {
+            BruteForce expected = new BruteForce(seed, 40, 0.1, 1);
+            CompactGraph<Integer> graph = expected.graph;
+            assertEquals(expected.getEdges().size(), graph.getNumberOfEdges());
+            int[] offsets = graph.getOffsets();
+            int[] targets = graph.getTargets();
+            for (int u = 0; u < expected.vertexCount; u++)
+            {
+                int degree = 0;
+                for (int v = 0; v < expected.vertexCount; v++)
+                {
+                    assertEquals(expected.weights[u][v] > 0, graph.hasEdge(u, v));
+                    if (expected.weights[u][v] > 0)
+                        degree++;
+                } // end for
+                assertEquals(degree, graph.getDegree(u));
+                for (int arc = offsets[u] + 1; arc < offsets[u + 1]; arc++)
+                    assertTrue(targets[arc - 1] < targets[arc]);
+            } // end for
+        } // end for
+    } // end storesSortedNeighborsOfEveryEdge
+
+    @Test
+    public void dropsSelfLoopsAndDuplicates()
+    {
+        CompactGraph.Builder<String> builder = new CompactGraph.Builder<>();
+        builder.addEdge("a", "b");
+        builder.addEdge("b", "a");
+        builder.addEdge("a", "a");
+        builder.addEdge("b", "c", 2);
+        builder.addEdge("c", "b", 5);
+        CompactGraph<String> graph = builder.build();
+        assertEquals(3, graph.getNumberOfVertices());
+        assertEquals(2, graph.getNumberOfEdges());
+        assertEquals(0, graph.getId("a"));
+        assertEquals(-1, graph.getId("d"));
+        LinkedHashSet<String> path = new LinkedHashSet<>();
+        assertEquals(3.0, graph.getCheapestPath("a", "c", path));//the first weight of b-c is kept
+    } // end dropsSelfLoopsAndDuplicates
+
+    @Test
+    public void traversalsMatchAllPairsDistances()
+    {
+        for (long seed = 1; seed <= 10; seed++)
+        {
+            BruteForce expected = new BruteForce(seed, 40, 0.06, 1);
+            CompactGraph<Integer> graph = expected.graph;
+            for (int source = 0; source < expected.vertexCount; source++)
+            {
+                int[] distances = expected.getDistances(source);
+                assertArrayEquals(distances, graph.getDistances(source));
+                Queue<Integer> order = graph.getBreadthFirstTraversal(source);
+                Set<Integer> reached = new HashSet<>();
+                int previous = 0;
+                for (int vertex : order)
+                {
+                    assertTrue(reached.add(vertex));
+                    assertTrue(distances[vertex] >= previous, "breadth first order");
+                    previous = distances[vertex];
+                } // end for
+                for (int target = 0; target < expected.vertexCount; target++)
+                {
+                    assertEquals(distances[target] >= 0, reached.contains(target));
+                    LinkedHashSet<Integer> path = new LinkedHashSet<>();
+                    int length = graph.getShortestPath(source, target, path);
+                    if ((distances[target] > 0))
+                    {
+                        assertEquals(distances[target], length);
+                        assertPath(expected, target, source, path, length);
+                    } // end if
+                } // end for
+            } // end for
+        } // end for
+    } // end traversalsMatchAllPairsDistances
+
+    @Test
+    public void allShortestPathsHoldEveryConnectedPair()
+    {
+        BruteForce expected = new BruteForce(5, 30, 0.08, 1);
+        HashMap<LinkedHashSet<Integer>,Integer> paths = expected.graph.getAllShortestPaths();
+        int pairs = 0;
+        for (int s = 0; s < expected.vertexCount; s++)
+        {
+            for (int t = s + 1; t < expected.vertexCount; t++)
+            {
+                if (expected.costs[s][t] < Double.POSITIVE_INFINITY)
+                    pairs++;
+            } // end for
+        } // end for
+        assertEquals(pairs, paths.size());
+        for (Map.Entry<LinkedHashSet<Integer>,Integer> entry : paths.entrySet())
+        {
+            Integer[] path = entry.getKey().toArray(new Integer[0]);
+            assertEquals(expected.costs[path[0]][path[path.length - 1]], (double)entry.getValue());
+            assertPath(expected, path[0], path[path.length - 1], entry.getKey(), entry.getValue());
+        } // end for
+    } // end allShortestPathsHoldEveryConnectedPair
+
+    @Test
+    public void cheapestPathsMatchAllPairsCosts()
+    {
+        BruteForce expected = new BruteForce(9, 40, 0.08, 4);
+        for (int source = 0; source < expected.vertexCount; source++)
+        {
+            for (int target = 0; target < expected.vertexCount; target++)
+            {
+                if (source == target)
+                    continue;
+                LinkedHashSet<Integer> path = new LinkedHashSet<>();
+                assertEquals(expected.costs[source][target], expected.graph.getCheapestPath(source, target, path));
+                if (expected.costs[source][target] < Double.POSITIVE_INFINITY)
+                {
+                    double cost = 0;
+                    Integer[] steps = path.toArray(new Integer[0]);
+                    assertEquals(target, steps[0]);
+                    assertEquals(source, steps[steps.length - 1]);
+                    for (int i = 1; i < steps.length; i++)
+                        cost += expected.weights[steps[i - 1]][steps[i]];
+                    assertEquals(expected.costs[source][target], cost);
+                } // end if
+            } // end for
+        } // end for
+    } // end cheapestPathsMatchAllPairsCosts
+
+    //A path from first to last, each step an edge, with length edges.
+    private static void assertPath(BruteForce expected, int first, int last, Set<Integer> path, int length)
+    {
+        Integer[] steps = path.toArray(new Integer[0]);
+        assertEquals(length + 1, steps.length);
+        assertEquals(first, steps[0]);
+        assertEquals(last, steps[steps.length - 1]);
+        for (int i = 1; i < steps.length; i++)
+            assertTrue(expected.weights[steps[i - 1]][steps[i]] > 0);
+    } // end assertPath
+}
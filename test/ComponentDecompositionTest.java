@@ -0,0 +1,108 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+public class ComponentDecompositionTest
+{
+    @Test
+    public void prunedComponentsMatchBruteForce()
+    {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try
+        {
+            for (long seed = 1; seed <= 10; seed++)
+            {
+                BruteForce expected = new BruteForce(withPendantTrees(seed, 90));
+                ComponentDecomposition decomposition = new ComponentDecomposition(expected.graph);
+                assertTrue(decomposition.getComponentCount() > 1);
+                assertTrue(decomposition.getPrunedCount() > 0);
+                double[] betweenness = decomposition.computeBetweenness();
+                double[] closeness = decomposition.computeCloseness();
+                BruteForce.assertClose(expected.getBetweenness(), betweenness);
+                BruteForce.assertClose(expected.getCloseness(), closeness);
+                assertArrayEquals(betweenness, decomposition.computeBetweenness(pool));
+                assertArrayEquals(closeness, decomposition.computeCloseness(pool));
+                //the entry points of the graphs take the same route
+                assertArrayEquals(betweenness, expected.graph.getBetweennessScores());
+                assertArrayEquals(betweenness, expected.graph.getBetweennessScores(pool));
+                assertArrayEquals(closeness, expected.graph.getClosenessScores(pool));
+                assertArrayEquals(betweenness, expected.toUndirectedGraph().getBetweennessScores().getScores());
+            } // end for
+        }
+        finally
+        {
+            pool.shutdown();
+        } // end try
+    } // end prunedComponentsMatchBruteForce
+
+    @Test
+    public void componentsAreNumberedBySmallestIdAndSolvedLargestFirst()
+    {
+        BruteForce expected = new BruteForce(withPendantTrees(3, 90));
+        ComponentDecomposition decomposition = new ComponentDecomposition(expected.graph);
+        int sizes = 0;
+        for (int c = 0; c < decomposition.getComponentCount(); c++)
+            sizes += decomposition.getComponentSize(c);
+        assertEquals(expected.vertexCount, sizes);
+        int next = 0;
+        for (int v = 0; v < expected.vertexCount; v++)
+        {
+            int c = decomposition.getComponent(v);
+            assertTrue(c <= next);
+            if (c == next)
+                next++;
+            for (int u = 0; u < expected.vertexCount; u++)
+            {
+                boolean connected = (expected.costs[u][v] < Double.POSITIVE_INFINITY);
+                assertEquals(connected, decomposition.getComponent(u) == c);
+            } // end for
+        } // end for
+        int[] order = decomposition.getComponentsBySize();
+        for (int i = 1; i < order.length; i++)
+            assertTrue(decomposition.getComponentSize(order[i - 1]) >= decomposition.getComponentSize(order[i]));
+    } // end componentsAreNumberedBySmallestIdAndSolvedLargestFirst
+
+    @Test
+    public void connectedGraphsWithoutLeavesKeepTheirEngines()
+    {
+        CompactGraph<Integer> grid = GraphGenerators.grid(6, 7);
+        ComponentDecomposition decomposition = new ComponentDecomposition(grid);
+        assertFalse(decomposition.splitsBetweenness());
+        assertFalse(decomposition.splitsCloseness());
+        assertArrayEquals(new AllSourcesCentrality(grid).compute().getBetweenness(), grid.getBetweennessScores());
+        BruteForce.assertClose(grid.getBetweennessScores(), decomposition.computeBetweenness());
+    } // end connectedGraphsWithoutLeavesKeepTheirEngines
+
+    //A random core on the first half, trees hanging off it, a path of three and a few lone vertices at the end.
+    private static double[][] withPendantTrees(long seed, int vertexCount)
+    {
+        Random random = new Random(seed);
+        double[][] weights = new double[vertexCount][vertexCount];
+        int core = vertexCount / 2;
+        int trees = vertexCount - 6;
+        for (int u = 0; u < core; u++)
+        {
+            for (int v = u + 1; v < core; v++)
+            {
+                if (random.nextDouble() < 0.12)
+                    connect(weights, u, v);
+            } // end for
+        } // end for
+        for (int v = core; v < trees; v++)
+            connect(weights, v, random.nextInt(v));
+        connect(weights, trees, trees + 1);
+        connect(weights, trees + 1, trees + 2);
+        return weights;
+    } // end withPendantTrees
+
+    private static void connect(double[][] weights, int u, int v)
+    {
+        weights[u][v] = 1;
+        weights[v][u] = 1;
+    } // end connect
+}
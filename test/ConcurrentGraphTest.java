@@ -0,0 +1,156 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+
+/* Writers, snapshot takers that install every snapshot as the new base and a thread that clears the
+ graph all run at once. Every snapshot must merge into a graph with exactly its own edges, and
+ without clear() the final graph must hold exactly the edges whose add returned true.*/
+public class ConcurrentGraphTest
+{
+    private static final int VERTICES = 2000;
+    private static final int WRITERS = 4;
+    private static final int EDGES_PER_WRITER = 50000;
+    private static final long TIMEOUT_SECONDS = 120;
+
+    @Test
+    public void snapshotsAndInstallsDuringWrites() throws Exception
+    {
+        ConcurrentGraph<Integer> graph = new ConcurrentGraph<>();
+        Set accepted = new Set();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++)
+            tasks.add(newWriter(graph, w, accepted));
+        for (int r = 0; r < 2; r++)
+        {
+            tasks.add(() ->
+            {
+                int previous = 0;
+                while (writing.get())
+                {
+                    int count = checkSnapshot(graph.snapshot());
+                    assertTrue(count >= previous, "A later snapshot lost edges");
+                    previous = count;
+                } // end while
+                return null;
+            });
+        } // end for
+        runAll(tasks, writing);
+
+        CompactGraph<Integer> result = graph.compact();
+        assertEquals(accepted.keys.size(), result.getNumberOfEdges());
+        assertEquals(accepted.keys.size(), graph.getNumberOfEdges());
+        for (long key : accepted.keys.keySet())
+            assertTrue(graph.hasEdge((int)(key >>> 32), (int)key));
+    } // end snapshotsAndInstallsDuringWrites
+
+    @Test
+    public void snapshotsAndInstallsDuringClears() throws Exception
+    {
+        ConcurrentGraph<Integer> graph = new ConcurrentGraph<>();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++)
+            tasks.add(newWriter(graph, w, null));//an edge may be new again after a clear
+        for (int r = 0; r < 2; r++)
+        {
+            tasks.add(() ->
+            {
+                while (writing.get())
+                    checkSnapshot(graph.snapshot());
+                return null;
+            });
+        } // end for
+        tasks.add(() ->
+        {
+            while (writing.get())
+            {
+                Thread.sleep(5);
+                graph.clear();
+            } // end while
+            return null;
+        });
+        runAll(tasks, writing);
+        checkSnapshot(graph.snapshot());
+    } // end snapshotsAndInstallsDuringClears
+
+    //Merges a snapshot, which also installs it, and checks the merged graph against the snapshot.
+    private static int checkSnapshot(ConcurrentGraph.Snapshot<Integer> snapshot)
+    {
+        CompactGraph<Integer> merged = snapshot.toCompactGraph();
+        assertEquals(snapshot.getNumberOfEdges(), merged.getNumberOfEdges());
+        assertEquals(snapshot.getNumberOfVertices(), merged.getNumberOfVertices());
+        long degrees = 0;
+        for (int id = 0; id < merged.getNumberOfVertices(); id++)
+        {
+            assertEquals(id, merged.getId(merged.getLabel(id)));
+            degrees += merged.getDegree(id);
+        } // end for
+        assertEquals(2L * merged.getNumberOfEdges(), degrees);
+        return merged.getNumberOfEdges();
+    } // end checkSnapshot
+
+    //Adds random edges, with both of their vertices, and records the ones that were new, if asked.
+    private static Callable<Void> newWriter(ConcurrentGraph<Integer> graph, int seed, Set accepted)
+    {
+        return () ->
+        {
+            Random random = new Random(seed);
+            for (int i = 0; i < EDGES_PER_WRITER; i++)
+            {
+                int begin = random.nextInt(VERTICES);
+                int end = random.nextInt(VERTICES);
+                graph.addVertex(begin);
+                graph.addVertex(end);
+                if (graph.addEdge(begin, end) && (accepted != null))
+                    accepted.add(begin, end);
+            } // end for
+            return null;
+        };
+    } // end newWriter
+
+    //Runs the writers, the first WRITERS tasks, to the end, then stops the others.
+    private static void runAll(List<Callable<Void>> tasks, AtomicBoolean writing) throws Exception
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+        try
+        {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (Callable<Void> task : tasks)
+                futures.add(executor.submit(task));
+            for (int w = 0; w < WRITERS; w++)
+                futures.get(w).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            writing.set(false);
+            for (Future<Void> future : futures)
+                future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);//rethrows any failed check
+        }
+        finally
+        {
+            writing.set(false);
+            executor.shutdownNow();
+        } // end try
+    } // end runAll
+
+    //The edges whose add returned true, by (smaller << 32) | larger; each must be new only once.
+    private static class Set
+    {
+        private final ConcurrentHashMap<Long, Boolean> keys = new ConcurrentHashMap<>();
+
+        private void add(int begin, int end)
+        {
+            long key = ((long)Math.min(begin, end) << 32) | Math.max(begin, end);
+            assertTrue(keys.putIfAbsent(key, Boolean.TRUE) == null, "An edge was added twice");
+        } // end add
+    } // end Set
+}
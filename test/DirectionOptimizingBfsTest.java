@@ -0,0 +1,74 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+public class DirectionOptimizingBfsTest
+{
+    @Test
+    public void distancesMatchFloydWarshallInBothDirections()
+    {
+        for (long seed = 1; seed <= 12; seed++)
+        {
+            //sparse graphs stay top-down, dense ones switch to bottom-up steps in the middle levels
+            BruteForce expected = new BruteForce(seed, 60, (seed % 3 == 0) ? 0.3 : 0.04 * (seed % 3), 1);
+            DirectionOptimizingBfs search = new DirectionOptimizingBfs(expected.graph);
+            double[] closeness = expected.getCloseness();
+            for (int source = 0; source < expected.vertexCount; source++)
+            {
+                int[] distances = expected.getDistances(source);
+                int reached = search.search(source);
+                int farthest = 0;
+                int count = 0;
+                for (int v = 0; v < expected.vertexCount; v++)
+                {
+                    assertEquals(distances[v], search.getDistance(v));
+                    if (distances[v] >= 0)
+                    {
+                        count++;
+                        farthest = Math.max(farthest, distances[v]);
+                    } // end if
+                } // end for
+                assertEquals(count, reached);
+                assertEquals(farthest, search.getEccentricity());
+                for (int i = 1; i < reached; i++)
+                    assertTrue(distances[search.getReached(i - 1)] <= distances[search.getReached(i)]);
+                assertEquals(closeness[source], search.getCloseness(), 1e-9);
+                assertArrayEquals(distances, expected.graph.getDistances(source));
+            } // end for
+        } // end for
+    } // end distancesMatchFloydWarshallInBothDirections
+
+    @Test
+    public void bottomUpStepsExamineFewerEdgesOnDenseGraphs()
+    {
+        BruteForce expected = new BruteForce(5, 200, 0.3, 1);
+        DirectionOptimizingBfs search = new DirectionOptimizingBfs(expected.graph);
+        for (int source = 0; source < expected.vertexCount; source++)
+            search.search(source);
+        //a top-down search reads both directions of every edge of the connected graph
+        assertTrue(search.getExaminedEdges() < 2L * expected.getEdges().size() * expected.vertexCount);
+    } // end bottomUpStepsExamineFewerEdgesOnDenseGraphs
+
+    @Test
+    public void closenessIsTheSameOnAnyPool()
+    {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try
+        {
+            for (long seed = 1; seed <= 4; seed++)
+            {
+                BruteForce expected = new BruteForce(seed, 300, 0.02, 1);
+                double[] closeness = DirectionOptimizingBfs.computeCloseness(expected.graph);
+                BruteForce.assertClose(expected.getCloseness(), closeness);
+                assertArrayEquals(closeness, DirectionOptimizingBfs.computeCloseness(expected.graph, pool));
+            } // end for
+        }
+        finally
+        {
+            pool.shutdown();
+        } // end try
+    } // end closenessIsTheSameOnAnyPool
+}
@@ -0,0 +1,65 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class DynamicCentralityTest
+{
+    //Half of the edges are there before attaching, the rest arrive one by one, plus new vertices.
+    @Test
+    public void insertionsMatchARecomputation()
+    {
+        for (long seed = 1; seed <= 4; seed++)
+        {
+            BruteForce full = new BruteForce(seed, 30, 0.1, 1);
+            List<int[]> edges = full.getEdges();
+            Collections.shuffle(edges, new Random(seed));
+            int lateVertices = 5;//the last vertices are only added after attaching
+            int early = full.vertexCount - lateVertices;
+            edges.sort(Comparator.comparingInt(edge -> Math.max(edge[0], edge[1]) < early ? 0 : 1));
+            int present = edges.size() / 3;
+            UndirectedGraph<Integer> graph = new UndirectedGraph<>();
+            double[][] weights = new double[full.vertexCount][full.vertexCount];
+            for (int v = 0; v < early; v++)
+                graph.addVertex(v);
+            int next = 0;
+            for (; next < present; next++)
+                add(graph, weights, edges.get(next));
+            DynamicCentrality<Integer> centrality = DynamicCentrality.attach(graph);
+            for (int v = early; v < full.vertexCount; v++)
+                graph.addVertex(v);
+            check(centrality, weights);
+            for (; next < edges.size(); next++)
+            {
+                add(graph, weights, edges.get(next));
+                if (next % 5 == 0)
+                    check(centrality, weights);
+            } // end for
+            check(centrality, weights);
+            assertTrue(centrality.getRecomputedSourceCount() <= (long)(edges.size() - present) * full.vertexCount);
+        } // end for
+    } // end insertionsMatchARecomputation
+
+    private static void add(UndirectedGraph<Integer> graph, double[][] weights, int[] edge)
+    {
+        assertTrue(graph.addEdge(edge[0], edge[1]));
+        weights[edge[0]][edge[1]] = 1;
+        weights[edge[1]][edge[0]] = 1;
+    } // end add
+
+    private static void check(DynamicCentrality<Integer> centrality, double[][] weights)
+    {
+        BruteForce expected = new BruteForce(weights);
+        double[] betweenness = expected.getBetweenness();
+        double[] closeness = expected.getCloseness();
+        for (int v = 0; v < expected.vertexCount; v++)
+        {
+            assertEquals(betweenness[v], centrality.getBetweenness(v), 1e-9, "betweenness of " + v);
+            assertEquals(closeness[v], centrality.getCloseness(v), 1e-9, "closeness of " + v);
+        } // end for
+    } // end check
+}
@@ -0,0 +1,99 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class EdgeListLoaderTest
+{
+    @TempDir
+    Path directory;
+
+    //a few megabytes, so that the file is cut into several chunks parsed at once
+    @Test
+    public void parallelChunksMatchALineByLineParse() throws IOException
+    {
+        Random random = new Random(8);
+        StringBuilder text = new StringBuilder();
+        CompactGraph.Builder<Integer> expected = new CompactGraph.Builder<>();
+        for (int line = 0; line < 300000; line++)
+        {
+            int begin = random.nextInt(50000) - 100;
+            int end = random.nextInt(50000) - 100;
+            switch (line % 5)
+            {
+                case 0: text.append(begin).append('\t').append(end).append("\r\n"); break;
+                case 1: text.append("  ").append(begin).append("   ").append(end).append("  \n"); break;
+                case 2: text.append('\n').append(begin).append(' ').append(end).append('\n'); break;
+                default: text.append(begin).append(' ').append(end).append('\n');
+            } // end switch
+            expected.addEdge(begin, end);
+        } // end for
+        Path file = write(text.toString());
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try
+        {
+            assertSameGraph(expected.build(), EdgeListLoader.load(file, pool));
+        }
+        finally
+        {
+            pool.shutdown();
+        } // end try
+    } // end parallelChunksMatchALineByLineParse
+
+    @Test
+    public void reportsTheNumberOfTheFirstMalformedLine() throws IOException
+    {
+        StringBuilder text = new StringBuilder();
+        for (int line = 1; line < 200000; line++)
+            text.append(line).append(' ').append(line + 1).append('\n');
+        text.append("7 x\n");
+        text.append("8\n");
+        Path file = write(text.toString());
+        EdgeListLoader.MalformedLineException e = assertThrows(EdgeListLoader.MalformedLineException.class,
+                                                               () -> EdgeListLoader.load(file.toString()));
+        assertEquals(200000, e.getLineNumber());
+        Path single = write("1 2\n3\n");
+        assertEquals(2, assertThrows(EdgeListLoader.MalformedLineException.class,
+                                     () -> EdgeListLoader.load(single.toString())).getLineNumber());
+    } // end reportsTheNumberOfTheFirstMalformedLine
+
+    @Test
+    public void loadsAnEmptyFile() throws IOException
+    {
+        assertEquals(0, EdgeListLoader.load(write("\n\n").toString()).getNumberOfVertices());
+    } // end loadsAnEmptyFile
+
+    //Vertices are numbered by first appearance in both, so the ids must agree too.
+    private static void assertSameGraph(CompactGraph<Integer> expected, CompactGraph<Integer> actual)
+    {
+        assertEquals(expected.getNumberOfVertices(), actual.getNumberOfVertices());
+        assertEquals(expected.getNumberOfEdges(), actual.getNumberOfEdges());
+        for (int id = 0; id < expected.getNumberOfVertices(); id++)
+        {
+            assertEquals(expected.getLabel(id), actual.getLabel(id));
+            assertEquals(expected.getDegree(id), actual.getDegree(id));
+        } // end for
+        int[] offsets = expected.getOffsets();
+        int[] targets = expected.getTargets();
+        for (int id = 0; id < expected.getNumberOfVertices(); id++)
+        {
+            for (int arc = offsets[id]; arc < offsets[id + 1]; arc++)
+                assertTrue(actual.hasEdge(expected.getLabel(id), expected.getLabel(targets[arc])));
+        } // end for
+    } // end assertSameGraph
+
+    private Path write(String text) throws IOException
+    {
+        Path file = Files.createTempFile(directory, "edges", ".txt");
+        Files.write(file, text.getBytes(StandardCharsets.US_ASCII));
+        return file;
+    } // end write
+}
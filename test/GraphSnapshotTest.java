@@ -0,0 +1,85 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class GraphSnapshotTest
+{
+    @TempDir
+    Path directory;
+
+    @Test
+    public void roundTripsIntLabelsAndWeights() throws IOException
+    {
+        for (int maxWeight = 1; maxWeight <= 3; maxWeight += 2)
+        {
+            CompactGraph<Integer> graph = new BruteForce(maxWeight, 60, 0.08, maxWeight).graph;
+            Path file = directory.resolve("graph" + maxWeight + ".snap");
+            GraphSnapshot.write(graph, file);
+            assertTrue(GraphSnapshot.isSnapshot(file));
+            GraphSnapshot snapshot = GraphSnapshot.map(file);
+            assertEquals(Integer.class, snapshot.getLabelType());
+            assertEquals(graph.isWeighted(), snapshot.isWeighted());
+            assertEquals(graph.getNumberOfEdges(), snapshot.getNumberOfEdges());
+            for (int id = 0; id < graph.getNumberOfVertices(); id++)
+            {
+                assertEquals(graph.getLabel(id), snapshot.getLabel(id));
+                assertEquals(id, snapshot.getId(graph.getLabel(id)));
+                assertEquals(graph.getDegree(id), snapshot.getDegree(id));
+            } // end for
+            assertSameGraph(graph, snapshot.toCompactGraph());
+        } // end for
+    } // end roundTripsIntLabelsAndWeights
+
+    @Test
+    public void roundTripsLongAndStringLabels() throws IOException
+    {
+        CompactGraph.Builder<Long> longs = new CompactGraph.Builder<>();
+        longs.addEdge(1L << 40, 7L);
+        longs.addEdge(7L, -3L);
+        CompactGraph.Builder<String> strings = new CompactGraph.Builder<>();
+        strings.addEdge("çift", "b");
+        strings.addEdge("b", "");
+        Path longFile = directory.resolve("long.snap");
+        Path stringFile = directory.resolve("string.snap");
+        GraphSnapshot.write(longs.build(), longFile);
+        GraphSnapshot.write(strings.build(), stringFile);
+        assertSameGraph(longs.build(), GraphSnapshot.map(longFile).<Long>toCompactGraph());
+        assertSameGraph(strings.build(), GraphSnapshot.map(stringFile).<String>toCompactGraph());
+        assertEquals(String.class, GraphSnapshot.map(stringFile).getLabelType());
+    } // end roundTripsLongAndStringLabels
+
+    @Test
+    public void rejectsOtherFiles() throws IOException
+    {
+        Path text = directory.resolve("edges.txt");
+        Files.write(text, "1 2\n2 3\n".getBytes());
+        assertFalse(GraphSnapshot.isSnapshot(text));
+        assertThrows(IOException.class, () -> GraphSnapshot.map(text));
+
+        Path file = directory.resolve("truncated.snap");
+        GraphSnapshot.write(new BruteForce(1, 20, 0.2, 1).graph, file);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 16));
+        assertThrows(IOException.class, () -> GraphSnapshot.map(file));
+    } // end rejectsOtherFiles
+
+    //Same labels in the same id order, same CSR arrays and weights.
+    private static void assertSameGraph(CompactGraph<?> expected, CompactGraph<?> actual)
+    {
+        assertEquals(expected.getNumberOfVertices(), actual.getNumberOfVertices());
+        for (int id = 0; id < expected.getNumberOfVertices(); id++)
+            assertEquals(expected.getLabel(id), actual.getLabel(id));
+        assertArrayEquals(expected.getOffsets(), actual.getOffsets());
+        assertArrayEquals(expected.getTargets(), actual.getTargets());
+        assertArrayEquals(expected.getWeights(), actual.getWeights());
+    } // end assertSameGraph
+}
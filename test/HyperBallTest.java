@@ -0,0 +1,55 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+public class HyperBallTest
+{
+    //with 1024 registers the relative standard error of a ball size is about 3%
+    @Test
+    public void estimatesAreCloseToExactCloseness()
+    {
+        for (long seed = 1; seed <= 4; seed++)
+        {
+            BruteForce expected = new BruteForce(seed, 200, 0.02, 1);
+            double[] exact = expected.getCloseness();
+            double[] estimate = new HyperBall(expected.graph, 1024).compute(ForkJoinPool.commonPool());
+            double errorSum = 0;
+            for (int v = 0; v < exact.length; v++)
+            {
+                double error = Math.abs(estimate[v] - exact[v]) / Math.max(1, exact[v]);
+                assertTrue(error < 0.2, "seed " + seed + " vertex " + v + ": " + estimate[v] + " for " + exact[v]);
+                errorSum += error;
+            } // end for
+            assertTrue(errorSum / exact.length < 0.05, "mean relative error " + errorSum / exact.length);
+        } // end for
+    } // end estimatesAreCloseToExactCloseness
+
+    @Test
+    public void poolSizeDoesNotChangeTheEstimate()
+    {
+        BruteForce expected = new BruteForce(5, 300, 0.01, 1);
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try
+        {
+            assertArrayEquals(new HyperBall(expected.graph, 64).compute(single),
+                              new HyperBall(expected.graph, 64).compute(pool));
+        }
+        finally
+        {
+            single.shutdown();
+            pool.shutdown();
+        } // end try
+    } // end poolSizeDoesNotChangeTheEstimate
+
+    @Test
+    public void rejectsRegisterCountsThatAreNotPowersOfTwo()
+    {
+        CompactGraph<Integer> graph = new BruteForce(1, 10, 0.2, 1).graph;
+        assertThrows(IllegalArgumentException.class, () -> new HyperBall(graph, 100));
+        assertThrows(IllegalArgumentException.class, () -> new HyperBall(graph, 8));
+    } // end rejectsRegisterCountsThatAreNotPowersOfTwo
+}
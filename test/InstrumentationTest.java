@@ -0,0 +1,139 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+public class InstrumentationTest
+{
+    //Keeps everything it is told, from any thread.
+    private static class Recorder implements MetricsListener
+    {
+        private final List<String> phases = Collections.synchronizedList(new ArrayList<>());
+        private final List<Instrumentation.Progress> progress = Collections.synchronizedList(new ArrayList<>());
+
+        public void phaseFinished(Instrumentation.Phase phase, String operation, long elapsedNanos)
+        {
+            phases.add(phase + " " + operation);
+        } // end phaseFinished
+
+        public void progressed(Instrumentation.Progress update)
+        {
+            progress.add(update);
+        } // end progressed
+
+        /* The furthest report of an operation, which is made once every source is done. Workers of a
+         pool may hand their reports over in another order than they counted, so it is the one
+         with the most completed sources rather than the one that arrived last.*/
+        private Instrumentation.Progress getLast(String operation)
+        {
+            Instrumentation.Progress last = null;
+            synchronized (progress)
+            {
+                for (Instrumentation.Progress update : progress)
+                {
+                    if (update.getOperation().equals(operation)
+                        && ((last == null) || (update.getCompletedSources() >= last.getCompletedSources())))
+                        last = update;
+                } // end for
+            } // end synchronized
+            return last;
+        } // end getLast
+    } // end Recorder
+
+    @Test
+    public void searchesReportEverySourceAndItsComponentEdges()
+    {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        Recorder recorder = new Recorder();
+        Instrumentation.addListener(recorder);
+        try
+        {
+            //connected without leaves, so betweenness stays with AllSourcesCentrality
+            BruteForce expected = new BruteForce(4, 120, 0.2, 1);
+            for (int v = 0; v < expected.vertexCount; v++)
+                assertTrue(expected.graph.getDegree(v) > 1);
+            expected.graph.getBetweennessScores(pool);
+            Instrumentation.Progress done = recorder.getLast("AllSourcesCentrality");
+            assertEquals(expected.vertexCount, done.getTotalSources());
+            assertEquals(expected.vertexCount, done.getCompletedSources());
+            assertEquals(1.0, done.getFractionDone(), 0);
+            //every search reads both directions of every edge of the connected graph
+            assertEquals(2L * expected.getEdges().size() * expected.vertexCount, done.getComponentEdges());
+            assertTrue(recorder.phases.contains("SEARCH AllSourcesCentrality"));
+
+            BruteForce split = new BruteForce(5, 120, 0.015, 1);
+            split.graph.getBetweennessScores();
+            done = recorder.getLast("ComponentDecomposition");
+            assertTrue(done.getTotalSources() < split.vertexCount);//pruned vertices are never sources
+            assertEquals(done.getTotalSources(), done.getCompletedSources());
+            recorder.progress.clear();
+            split.graph.getClosenessScores(pool);
+            done = recorder.getLast("ComponentDecomposition");
+            assertEquals(done.getTotalSources(), done.getCompletedSources());
+            assertEquals(countComponentEdges(split), done.getComponentEdges());
+        }
+        finally
+        {
+            assertTrue(Instrumentation.removeListener(recorder));
+            pool.shutdown();
+        } // end try
+    } // end searchesReportEverySourceAndItsComponentEdges
+
+    @Test
+    public void loadingAndLegacyMethodsReportTheirPhases() throws IOException
+    {
+        BruteForce expected = new BruteForce(6, 50, 0.1, 1);
+        Path file = Files.createTempFile("instrumentation", ".txt");
+        Recorder recorder = new Recorder();
+        Instrumentation.addListener(recorder);
+        try
+        {
+            StringBuilder lines = new StringBuilder();
+            for (int[] edge : expected.getEdges())
+                lines.append(edge[0]).append(' ').append(edge[1]).append('\n');
+            Files.write(file, lines.toString().getBytes());
+            EdgeListLoader.load(file.toString());
+            UndirectedGraph<Integer> graph = expected.toUndirectedGraph();
+            graph.getHighestBetweenness(graph.getAllShortestPaths());
+            assertTrue(recorder.phases.contains("LOAD EdgeListLoader"));
+            assertTrue(recorder.phases.contains("BUILD EdgeListLoader"));
+            assertTrue(recorder.phases.contains("ACCUMULATE UndirectedGraph.getHighestBetweenness"));
+            assertTrue(recorder.phases.contains("SELECT UndirectedGraph.getHighestBetweenness"));
+            Instrumentation.Progress done = recorder.getLast("UndirectedGraph.getAllShortestPaths");
+            assertEquals(expected.vertexCount, done.getCompletedSources());
+            assertEquals(expected.vertexCount, done.getTotalSources());
+        }
+        finally
+        {
+            assertTrue(Instrumentation.removeListener(recorder));
+            Files.deleteIfExists(file);
+        } // end try
+        int reports = recorder.progress.size();
+        expected.graph.getClosenessScores();
+        assertEquals(reports, recorder.progress.size());
+        assertFalse(Instrumentation.removeListener(recorder));
+    } // end loadingAndLegacyMethodsReportTheirPhases
+
+    //Closeness of a decomposed graph searches from every vertex with a neighbor, which reads the adjacency entries of its component.
+    private static long countComponentEdges(BruteForce expected)
+    {
+        long edges = 0;
+        for (int source = 0; source < expected.vertexCount; source++)
+        {
+            for (int v = 0; v < expected.vertexCount; v++)
+            {
+                if (expected.costs[source][v] < Double.POSITIVE_INFINITY)
+                    edges += expected.graph.getDegree(v);
+            } // end for
+        } // end for
+        return edges;
+    } // end countComponentEdges
+}
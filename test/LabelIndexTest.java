@@ -0,0 +1,92 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class LabelIndexTest
+{
+    @Test
+    public void intLabelsGetDenseIdsInFirstAddedOrder()
+    {
+        Random random = new Random(1);
+        LabelIndex<Integer> index = new LabelIndex<>();
+        Map<Object,Integer> expected = new LinkedHashMap<>();
+        for (int i = 0; i < 20000; i++)
+        {
+            int label = (i < 3) ? new int[] {0, Integer.MIN_VALUE, Integer.MAX_VALUE}[i] : random.nextInt(5000) - 2500;
+            expected.putIfAbsent(label, expected.size());
+            assertEquals((int)expected.get(label), (i % 2 == 0) ? index.add(label) : index.add(Integer.valueOf(label)));
+        } // end for
+        check(expected, index);
+        for (int label = 2500; label < 2600; label++)
+            assertEquals(-1, index.getId(label));
+    } // end intLabelsGetDenseIdsInFirstAddedOrder
+
+    @Test
+    public void longLabelsKeepTheirFullRange()
+    {
+        Random random = new Random(2);
+        LabelIndex<Long> index = new LabelIndex<>(4);
+        Map<Object,Integer> expected = new LinkedHashMap<>();
+        for (int i = 0; i < 5000; i++)
+        {
+            //the same low 32 bits under different high bits must stay apart
+            long label = ((long)random.nextInt(50) << 40) | random.nextInt(50);
+            expected.putIfAbsent(label, expected.size());
+            assertEquals((int)expected.get(label), index.add(label));
+        } // end for
+        check(expected, index);
+        assertEquals(-1, index.getId(Integer.valueOf(1 << 20)));
+    } // end longLabelsKeepTheirFullRange
+
+    @Test
+    public void otherLabelsSwitchToObjectKeysAndKeepEarlierIds()
+    {
+        LabelIndex<Object> index = new LabelIndex<>();
+        Map<Object,Integer> expected = new LinkedHashMap<>();
+        for (int label = 0; label < 300; label++)
+            expected.put(label, index.add(label));
+        //equal hash codes, and a Long that equals no Integer
+        for (Object label : new Object[] {"Aa", "BB", "AaAa", "BBBB", "AaBB", 7L, "x", 7})
+        {
+            expected.putIfAbsent(label, expected.size());
+            assertEquals((int)expected.get(label), index.add(label));
+        } // end for
+        check(expected, index);
+        assertEquals(7, index.getId(7));
+        assertEquals((int)expected.get(7L), index.getId(7L));
+        assertEquals(-1, index.getId("missing"));
+    } // end otherLabelsSwitchToObjectKeysAndKeepEarlierIds
+
+    @Test
+    public void copiesAreIndependentAndClearStartsOver()
+    {
+        LabelIndex<Integer> index = new LabelIndex<>(new Object[] {5, 3, 9});
+        LabelIndex<Integer> copy = new LabelIndex<>(index);
+        copy.add(11);
+        assertEquals(3, index.size());
+        assertEquals(-1, index.getId(11));
+        assertEquals(3, copy.getId(11));
+        assertEquals(1, copy.getId(3));
+        index.clear();
+        assertEquals(0, index.size());
+        assertEquals(-1, index.getId(5));
+        assertEquals(0, index.add(9));
+        assertThrows(IllegalArgumentException.class, () -> new LabelIndex<Integer>(new Object[] {1, 2, 1}));
+        assertThrows(IllegalArgumentException.class, () -> index.add((Integer)null));
+    } // end copiesAreIndependentAndClearStartsOver
+
+    @SuppressWarnings("unchecked")
+    private static <T> void check(Map<Object,Integer> expected, LabelIndex<T> index)
+    {
+        assertEquals(expected.size(), index.size());
+        for (Map.Entry<Object,Integer> entry : expected.entrySet())
+        {
+            assertEquals((int)entry.getValue(), index.getId((T)entry.getKey()));
+            assertEquals(entry.getKey(), index.getLabel(entry.getValue()));
+        } // end for
+    } // end check
+}
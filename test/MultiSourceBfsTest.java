@@ -0,0 +1,53 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+public class MultiSourceBfsTest
+{
+    @Test
+    public void closenessMatchesFloydWarshallForEveryLaneCount()
+    {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try
+        {
+            for (long seed = 1; seed <= 6; seed++)
+            {
+                //vertex counts that leave a partial last batch, on sparse graphs with many components and denser ones
+                BruteForce expected = new BruteForce(seed, 100 + 37 * (int)seed, 0.01 * seed, 1);
+                double[] closeness = expected.getCloseness();
+                for (int lanes : new int[] {64, 128, 256})
+                {
+                    MultiSourceBfs search = new MultiSourceBfs(expected.graph, lanes);
+                    double[] sequential = search.computeCloseness();
+                    BruteForce.assertClose(closeness, sequential);
+                    assertArrayEquals(sequential, search.computeCloseness(pool));
+                } // end for
+            } // end for
+        }
+        finally
+        {
+            pool.shutdown();
+        } // end try
+    } // end closenessMatchesFloydWarshallForEveryLaneCount
+
+    //A grid has many levels, so most of them take the sparse frontier path.
+    @Test
+    public void deepGraphsMatchSingleSourceSearches()
+    {
+        CompactGraph<Integer> grid = GraphGenerators.grid(7, 60);
+        double[] expected = DirectionOptimizingBfs.computeCloseness(grid);
+        for (int lanes : new int[] {64, 256})
+            BruteForce.assertClose(expected, new MultiSourceBfs(grid, lanes).computeCloseness());
+    } // end deepGraphsMatchSingleSourceSearches
+
+    @Test
+    public void rejectsBadLaneCountsAndWeights()
+    {
+        CompactGraph<Integer> graph = new BruteForce(1, 20, 0.2, 1).graph;
+        assertThrows(IllegalArgumentException.class, () -> new MultiSourceBfs(graph, 0));
+        assertThrows(IllegalArgumentException.class, () -> new MultiSourceBfs(graph, 100));
+        assertThrows(IllegalArgumentException.class, () -> new MultiSourceBfs(new BruteForce(1, 20, 0.2, 3).graph, 64));
+    } // end rejectsBadLaneCountsAndWeights
+}
@@ -0,0 +1,69 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class PathQueryEngineTest
+{
+    @Test
+    public void distancesAndPathsMatchFloydWarshall()
+    {
+        for (long seed = 1; seed <= 8; seed++)
+        {
+            //the sparser graphs fall apart into several components
+            BruteForce expected = new BruteForce(seed, 50, 0.02 * (seed % 4 + 1), 1);
+            PathQueryEngine<Integer> engine = new PathQueryEngine<>(expected.graph);
+            for (int landmarks : new int[] {0, 1, 4, 100})
+            {
+                engine.buildLandmarkIndex(landmarks);
+                assertEquals(Math.min(landmarks, expected.vertexCount), engine.getLandmarkCount());
+                for (int u = 0; u < expected.vertexCount; u++)
+                {
+                    int[] distances = expected.getDistances(u);
+                    for (int v = 0; v < expected.vertexCount; v++)
+                    {
+                        assertEquals(distances[v], engine.getDistance(u, v));
+                        if (landmarks > 0)
+                        {
+                            int estimate = engine.estimateDistance(u, v);
+                            assertTrue((distances[v] < 0) ? (estimate == -1) : (estimate >= distances[v]));
+                        } // end if
+                        LinkedHashSet<Integer> path = new LinkedHashSet<>();
+                        int length = engine.getShortestPath(u, v, path);
+                        checkPath(expected, u, v, Math.max(distances[v], 0), length, path);
+                    } // end for
+                } // end for
+            } // end for
+        } // end for
+    } // end distancesAndPathsMatchFloydWarshall
+
+    //An unreachable or trivial query gives 0 and just end; otherwise the path runs from end back to begin along edges.
+    private static void checkPath(BruteForce expected, int begin, int end, int distance, int length, LinkedHashSet<Integer> path)
+    {
+        assertEquals(distance, length);
+        List<Integer> vertices = new ArrayList<>(path);
+        assertEquals(end, (int)vertices.get(0));
+        if (length == 0)
+        {
+            assertEquals(1, vertices.size());
+            return;
+        } // end if
+        assertEquals(length + 1, vertices.size());
+        assertEquals(begin, (int)vertices.get(length));
+        for (int i = 1; i < vertices.size(); i++)
+            assertTrue(expected.weights[vertices.get(i - 1)][vertices.get(i)] > 0);
+    } // end checkPath
+
+    @Test
+    public void rejectsWeightedGraphsAndBadLandmarkCounts()
+    {
+        assertThrows(IllegalArgumentException.class, () -> new PathQueryEngine<>(new BruteForce(1, 20, 0.2, 3).graph));
+        PathQueryEngine<Integer> engine = new PathQueryEngine<>(new BruteForce(1, 20, 0.2, 1).graph);
+        assertThrows(IllegalStateException.class, () -> engine.estimateDistance(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> engine.buildLandmarkIndex(-1));
+    } // end rejectsWeightedGraphsAndBadLandmarkCounts
+}
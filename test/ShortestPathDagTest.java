@@ -0,0 +1,91 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+public class ShortestPathDagTest
+{
+    @Test
+    public void dagsHoldDistancesPathCountsAndPredecessors()
+    {
+        for (long seed = 1; seed <= 8; seed++)
+        {
+            BruteForce expected = new BruteForce(seed, 40, 0.03 * (seed % 4 + 1), 1);
+            ShortestPathDag dag = new ShortestPathDag(expected.graph);
+            for (int source = 0; source < expected.vertexCount; source++)
+            {
+                int[] distances = expected.getDistances(source);
+                int reached = dag.search(source);
+                assertEquals(source, dag.getSource());
+                int count = 0;
+                for (int v = 0; v < expected.vertexCount; v++)
+                {
+                    assertEquals(distances[v], dag.getDistance(v));
+                    if (distances[v] < 0)
+                        continue;
+                    count++;
+                    assertEquals(expected.pathCounts[source][v], dag.getSigma(v), 0);
+                    Set<Integer> predecessors = new HashSet<>();
+                    for (int i = 0; i < dag.getPredecessorCount(v); i++)
+                        predecessors.add(dag.getPredecessor(v, i));
+                    Set<Integer> oneLevelCloser = new HashSet<>();
+                    for (int u = 0; u < expected.vertexCount; u++)
+                    {
+                        if ((expected.weights[u][v] > 0) && (distances[u] == distances[v] - 1))
+                            oneLevelCloser.add(u);
+                    } // end for
+                    assertEquals(oneLevelCloser, predecessors);
+                } // end for
+                assertEquals(count, reached);
+                assertEquals(count, dag.getReachedCount());
+            } // end for
+        } // end for
+    } // end dagsHoldDistancesPathCountsAndPredecessors
+
+    @Test
+    public void metricsMatchBruteForceOnAnyPool()
+    {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try
+        {
+            for (long seed = 1; seed <= 4; seed++)
+            {
+                BruteForce expected = new BruteForce(seed, 300, 0.005 * seed, 1);
+                ShortestPathMetrics metrics = new ShortestPathMetrics(expected.vertexCount);
+                ShortestPathDag.traverse(expected.graph, metrics);
+                BruteForce.assertClose(expected.getCloseness(), metrics.getCloseness());
+                BruteForce.assertClose(expected.getBetweenness(), metrics.getBetweenness());
+                int[] eccentricity = new int[expected.vertexCount];
+                long[] pairs = new long[expected.vertexCount];
+                for (int u = 0; u < expected.vertexCount; u++)
+                {
+                    int[] distances = expected.getDistances(u);
+                    for (int v = 0; v < expected.vertexCount; v++)
+                    {
+                        eccentricity[u] = Math.max(eccentricity[u], distances[v]);
+                        if ((v > u) && (distances[v] > 0))
+                            pairs[distances[v]]++;
+                    } // end for
+                } // end for
+                assertArrayEquals(eccentricity, metrics.getEccentricity());
+                long[] counts = metrics.getPathLengthCounts();
+                for (int d = 1; d < pairs.length; d++)
+                    assertEquals(pairs[d], (d < counts.length) ? counts[d] : 0, "pairs at distance " + d);
+
+                ShortestPathMetrics parallel = ShortestPathDag.traverse(expected.graph, pool,
+                    () -> new ShortestPathMetrics(expected.vertexCount), ShortestPathMetrics::merge);
+                assertArrayEquals(metrics.getCloseness(), parallel.getCloseness());
+                assertArrayEquals(metrics.getEccentricity(), parallel.getEccentricity());
+                assertArrayEquals(metrics.getPathLengthCounts(), parallel.getPathLengthCounts());
+                BruteForce.assertClose(metrics.getBetweenness(), parallel.getBetweenness());
+            } // end for
+        }
+        finally
+        {
+            pool.shutdown();
+        } // end try
+    } // end metricsMatchBruteForceOnAnyPool
+}
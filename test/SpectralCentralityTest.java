@@ -0,0 +1,127 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+public class SpectralCentralityTest
+{
+    @Test
+    public void pageRankMatchesADenseIteration()
+    {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try
+        {
+            for (long seed = 1; seed <= 6; seed++)
+            {
+                //sparse enough to leave vertices without edges, whose rank is spread over all vertices
+                BruteForce expected = new BruteForce(seed, 60, 0.01 * seed, 1);
+                SpectralCentrality.Result result = new SpectralCentrality(expected.graph).computePageRank();
+                assertTrue(result.isConverged());
+                double[] rank = result.getScores();
+                assertEquals(1, Arrays.stream(rank).sum(), 1e-12);
+                double[] reference = densePageRank(expected, SpectralCentrality.DEFAULT_DAMPING);
+                for (int v = 0; v < expected.vertexCount; v++)
+                    assertEquals(reference[v], rank[v], 1e-9);
+                assertArrayEquals(rank, new SpectralCentrality(expected.graph).computePageRank(pool).getScores());
+            } // end for
+        }
+        finally
+        {
+            pool.shutdown();
+        } // end try
+    } // end pageRankMatchesADenseIteration
+
+    @Test
+    public void eigenvectorIsAnEigenvectorOfTheAdjacencyMatrix()
+    {
+        for (long seed = 1; seed <= 6; seed++)
+        {
+            //dense enough to be connected, so the principal eigenvector is positive everywhere
+            BruteForce expected = new BruteForce(seed, 40, 0.3, 1);
+            SpectralCentrality.Result result = new SpectralCentrality(expected.graph).computeEigenvector();
+            assertTrue(result.isConverged());
+            double[] x = result.getScores();
+            assertEquals(1, Math.sqrt(Arrays.stream(x).map(value -> value * value).sum()), 1e-12);
+            //the Rayleigh quotient of a unit vector is the eigenvalue, and Ax must equal it times x
+            double[] product = new double[x.length];
+            double eigenvalue = 0;
+            for (int u = 0; u < x.length; u++)
+            {
+                for (int v = 0; v < x.length; v++)
+                {
+                    if (expected.weights[u][v] > 0)
+                        product[u] += x[v];
+                } // end for
+                eigenvalue += x[u] * product[u];
+            } // end for
+            for (int u = 0; u < x.length; u++)
+            {
+                assertTrue(x[u] > 0);
+                assertEquals(eigenvalue * x[u], product[u], 1e-6);
+            } // end for
+        } // end for
+    } // end eigenvectorIsAnEigenvectorOfTheAdjacencyMatrix
+
+    @Test
+    public void cachedScoresCannotBeChangedThroughCopies()
+    {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try
+        {
+            UndirectedGraph<Integer> graph = new BruteForce(3, 30, 0.2, 1).toUndirectedGraph();
+            double[] pageRank = graph.getPageRankScores(pool).getResult().getScores();
+            double[] eigenvector = graph.getEigenvectorScores(pool).getResult().getScores();
+            double[] pageRankCopy = pageRank.clone();
+            double[] eigenvectorCopy = eigenvector.clone();
+            Arrays.fill(pageRank, -1);
+            Arrays.fill(eigenvector, -1);
+            graph.getPageRankScores(pool).getScores()[0] = -1;
+            assertArrayEquals(pageRankCopy, graph.getPageRankScores(pool).getResult().getScores());
+            assertArrayEquals(pageRankCopy, graph.getPageRankScores(pool).getScores());
+            assertArrayEquals(eigenvectorCopy, graph.getEigenvectorScores(pool).getScores());
+        }
+        finally
+        {
+            pool.shutdown();
+        } // end try
+    } // end cachedScoresCannotBeChangedThroughCopies
+
+    //Power iteration on the dense transition matrix until the scores stop changing.
+    private static double[] densePageRank(BruteForce graph, double damping)
+    {
+        int n = graph.vertexCount;
+        int[] degree = new int[n];
+        for (int u = 0; u < n; u++)
+        {
+            for (int v = 0; v < n; v++)
+                degree[u] += (graph.weights[u][v] > 0) ? 1 : 0;
+        } // end for
+        double[] rank = new double[n];
+        Arrays.fill(rank, 1.0 / n);
+        for (int iteration = 0; iteration < 10000; iteration++)
+        {
+            double dangling = 0;
+            for (int u = 0; u < n; u++)
+                dangling += (degree[u] == 0) ? rank[u] : 0;
+            double[] next = new double[n];
+            double change = 0;
+            for (int v = 0; v < n; v++)
+            {
+                next[v] = ((1 - damping) + damping * dangling) / n;
+                for (int u = 0; u < n; u++)
+                {
+                    if (graph.weights[u][v] > 0)
+                        next[v] += damping * rank[u] / degree[u];
+                } // end for
+                change += Math.abs(next[v] - rank[v]);
+            } // end for
+            rank = next;
+            if (change < 1e-14)
+                break;
+        } // end for
+        return rank;
+    } // end densePageRank
+}
@@ -0,0 +1,96 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+public class TraversalContextTest
+{
+    @Test
+    public void resetForgetsEveryMarkAndGrows()
+    {
+        TraversalContext context = new TraversalContext(4);
+        context.reset(4);
+        context.visit(0, 0, -1);
+        context.visit(3, 1, 0);
+        assertTrue(context.isVisited(3));
+        assertEquals(2, context.getVisitedCount());
+        context.reset(100);//grows
+        for (int v = 0; v < 100; v++)
+            assertFalse(context.isVisited(v));
+        context.visit(99, 0, -1);
+        assertTrue(context.hasQueued());
+        assertEquals(99, context.dequeue());
+        assertFalse(context.hasQueued());
+        context.reset(10);//shrinking keeps the arrays
+        assertFalse(context.isVisited(99));
+        assertEquals(0, context.getVisitedCount());
+    } // end resetForgetsEveryMarkAndGrows
+
+    //Every query of a graph reuses one context per thread, so a stale mark would show up as a wrong answer.
+    @Test
+    public void reusedContextsAnswerLikeBruteForce()
+    {
+        for (long seed = 1; seed <= 5; seed++)
+            checkTraversals(new BruteForce(seed, 30, 0.07, 1));
+    } // end reusedContextsAnswerLikeBruteForce
+
+    @Test
+    public void concurrentReadersDoNotShareState() throws Exception
+    {
+        BruteForce expected = new BruteForce(21, 40, 0.06, 1);
+        UndirectedGraph<Integer> graph = expected.toUndirectedGraph();
+        graph.setCentralityCache(null);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++)
+            {
+                futures.add(executor.submit(() ->
+                {
+                    for (int i = 0; i < 20; i++)
+                        checkTraversals(expected, graph);
+                }));
+            } // end for
+            for (Future<?> future : futures)
+                future.get();
+        }
+        finally
+        {
+            executor.shutdown();
+        } // end try
+    } // end concurrentReadersDoNotShareState
+
+    private static void checkTraversals(BruteForce expected)
+    {
+        checkTraversals(expected, expected.toUndirectedGraph());
+    } // end checkTraversals
+
+    private static void checkTraversals(BruteForce expected, UndirectedGraph<Integer> graph)
+    {
+        for (int source = 0; source < expected.vertexCount; source++)
+        {
+            int[] distances = expected.getDistances(source);
+            Set<Integer> reached = new HashSet<>(graph.getBreadthFirstTraversal(source));
+            for (int target = 0; target < expected.vertexCount; target++)
+            {
+                assertEquals(distances[target] >= 0, reached.contains(target));
+                if (distances[target] > 0)
+                {
+                    LinkedHashSet<Integer> path = new LinkedHashSet<>();
+                    assertEquals(distances[target], graph.getShortestPath(source, target, path));
+                    assertEquals(distances[target] + 1, path.size());
+                } // end if
+            } // end for
+        } // end for
+    } // end checkTraversals
+}
@@ -0,0 +1,74 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class VertexOrderingTest
+{
+    @Test
+    public void everyStrategyKeepsLabelsEdgesAndScores()
+    {
+        for (long seed = 1; seed <= 6; seed++)
+        {
+            //sparse graphs with several components, every second one weighted
+            BruteForce expected = new BruteForce(seed, 80, 0.03 + 0.01 * seed, (seed % 2 == 0) ? 4 : 1);
+            double[] betweenness = expected.getBetweenness();
+            double[] closeness = expected.getCloseness();
+            for (VertexOrdering.Strategy strategy : VertexOrdering.Strategy.values())
+            {
+                VertexOrdering ordering = VertexOrdering.compute(expected.graph, strategy);
+                assertEquals(strategy, ordering.getStrategy());
+                boolean[] used = new boolean[expected.vertexCount];
+                for (int old = 0; old < expected.vertexCount; old++)
+                {
+                    int id = ordering.getNewId(old);
+                    assertTrue(!used[id], strategy + " gave id " + id + " twice");
+                    used[id] = true;
+                    assertEquals(old, ordering.getOldId(id));
+                } // end for
+                CompactGraph<Integer> reordered = ordering.apply(expected.graph);
+                assertEquals(expected.getEdges().size(), reordered.getNumberOfEdges());
+                for (int u = 0; u < expected.vertexCount; u++)
+                {
+                    //labels 0..n-1 were the original ids, so they still name the same vertices
+                    assertEquals(u, (int)reordered.getLabel(ordering.getNewId(u)));
+                    for (int v = 0; v < expected.vertexCount; v++)
+                        assertEquals(expected.weights[u][v] > 0, reordered.hasEdge(u, v));
+                } // end for
+                int[] offsets = reordered.getOffsets();
+                int[] targets = reordered.getTargets();
+                double[] weights = reordered.getWeights();
+                for (int id = 0; id < expected.vertexCount; id++)
+                {
+                    for (int j = offsets[id]; j < offsets[id + 1]; j++)
+                    {
+                        assertTrue((j == offsets[id]) || (targets[j - 1] < targets[j]));
+                        double weight = (weights == null) ? 1 : weights[j];
+                        assertEquals(expected.weights[ordering.getOldId(id)][ordering.getOldId(targets[j])], weight, 0);
+                    } // end for
+                } // end for
+                BruteForce.assertClose(betweenness, ordering.restore(reordered.getBetweennessScores()));
+                BruteForce.assertClose(closeness, ordering.restore(reordered.getClosenessScores()));
+                assertEquals(VertexOrdering.getAverageGap(reordered), ordering.getAverageGapAfter(expected.graph), 1e-12);
+            } // end for
+        } // end for
+    } // end everyStrategyKeepsLabelsEdgesAndScores
+
+    @Test
+    public void chooseKeepsTheSmallestGap()
+    {
+        for (long seed = 1; seed <= 4; seed++)
+        {
+            BruteForce expected = new BruteForce(seed, 150, 0.03, 1);
+            VertexOrdering chosen = VertexOrdering.choose(expected.graph);
+            double gap = chosen.getAverageGapAfter(expected.graph);
+            for (VertexOrdering.Strategy strategy : VertexOrdering.Strategy.values())
+                assertTrue(gap <= VertexOrdering.compute(expected.graph, strategy).getAverageGapAfter(expected.graph));
+            //an ordering of the original ids changes nothing
+            assertEquals(VertexOrdering.getAverageGap(expected.graph),
+                         VertexOrdering.compute(expected.graph, VertexOrdering.Strategy.ORIGINAL).getAverageGapAfter(expected.graph), 0);
+            BruteForce.assertClose(expected.getCloseness(),
+                                   chosen.restore(expected.graph.reorder(chosen.getStrategy()).getClosenessScores()));
+        } // end for
+    } // end chooseKeepsTheSmallestGap
+}
@@ -0,0 +1,110 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+public class WeightedCentralityTest
+{
+    @Test
+    public void weightedScoresMatchFloydWarshall()
+    {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try
+        {
+            for (long seed = 1; seed <= 10; seed++)
+            {
+                BruteForce expected = new BruteForce(seed, 40, 0.08, 5);
+                assertTrue(expected.graph.isWeighted());
+                BruteForce.assertClose(expected.getBetweenness(), expected.graph.getBetweennessScores());
+                BruteForce.assertClose(expected.getCloseness(), expected.graph.getClosenessScores());
+                assertArrayEquals(expected.graph.getBetweennessScores(), expected.graph.getBetweennessScores(pool));
+                assertArrayEquals(expected.graph.getClosenessScores(), expected.graph.getClosenessScores(pool));
+                UndirectedGraph<Integer> undirected = expected.toUndirectedGraph();
+                BruteForce.assertClose(expected.getBetweenness(), undirected.getBetweennessScores().getScores());
+                BruteForce.assertClose(expected.getCloseness(), undirected.getClosenessScores().getScores());
+            } // end for
+        }
+        finally
+        {
+            pool.shutdown();
+        } // end try
+    } // end weightedScoresMatchFloydWarshall
+
+    @Test
+    public void cheapestPathsCostTheirFloydWarshallDistance()
+    {
+        for (long seed = 1; seed <= 5; seed++)
+        {
+            BruteForce expected = new BruteForce(seed, 30, 0.1, 5);
+            UndirectedGraph<Integer> undirected = expected.toUndirectedGraph();
+            for (int u = 0; u < expected.vertexCount; u++)
+            {
+                for (int v = 0; v < expected.vertexCount; v++)
+                {
+                    LinkedHashSet<Integer> path = new LinkedHashSet<>();
+                    checkPath(expected, u, v, expected.graph.getCheapestPath(u, v, path), path);
+                    path.clear();
+                    checkPath(expected, u, v, undirected.getCheapestPath(u, v, path), path);
+                } // end for
+            } // end for
+        } // end for
+    } // end cheapestPathsCostTheirFloydWarshallDistance
+
+    //The path must lead from end back to begin along edges whose weights add up to the cost.
+    private static void checkPath(BruteForce expected, int begin, int end, double cost, LinkedHashSet<Integer> path)
+    {
+        assertEquals(expected.costs[begin][end], cost, 0);
+        if (cost == Double.POSITIVE_INFINITY)
+            return;
+        List<Integer> vertices = new ArrayList<>(path);
+        assertEquals(end, (int)vertices.get(0));
+        assertEquals(begin, (int)vertices.get(vertices.size() - 1));
+        double total = 0;
+        for (int i = 1; i < vertices.size(); i++)
+        {
+            double weight = expected.weights[vertices.get(i - 1)][vertices.get(i)];
+            assertTrue(weight > 0);
+            total += weight;
+        } // end for
+        assertEquals(cost, total, 0);
+    } // end checkPath
+
+    @Test
+    public void heapRemovesKeysInOrderAfterDecreases()
+    {
+        Random random = new Random(11);
+        IndexedMinHeap heap = new IndexedMinHeap();
+        for (int round = 0; round < 3; round++)
+        {
+            int n = 200 * (round + 1);
+            heap.reset(n);
+            double[] keys = new double[n];
+            Arrays.fill(keys, Double.POSITIVE_INFINITY);
+            for (int i = 0; i < 4 * n; i++)
+            {
+                int id = random.nextInt(n);
+                double key = random.nextInt(1000);
+                boolean lowered = key < keys[id];
+                assertEquals(lowered, heap.offer(id, key));
+                keys[id] = Math.min(keys[id], key);
+            } // end for
+            double previous = Double.NEGATIVE_INFINITY;
+            int removed = 0;
+            while (!heap.isEmpty())
+            {
+                int id = heap.removeMin();
+                assertTrue(keys[id] >= previous);
+                previous = keys[id];
+                removed++;
+            } // end while
+            assertEquals(Arrays.stream(keys).filter(key -> key < Double.POSITIVE_INFINITY).count(), removed);
+        } // end for
+    } // end heapRemovesKeysInOrderAfterDecreases
+}